@@ -1,24 +1,54 @@
 package tqs.sportslink.boundary;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.security.access.prepost.PreAuthorize;
+import tqs.sportslink.data.AdminListingRepository.FacilityFilter;
+import tqs.sportslink.data.AdminListingRepository.FacilityRow;
+import tqs.sportslink.data.AdminListingRepository.RentalFilter;
+import tqs.sportslink.data.AdminListingRepository.RentalRow;
+import tqs.sportslink.data.AdminListingRepository.UserFilter;
+import tqs.sportslink.data.AdminListingRepository.UserRow;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.data.model.Role;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.dto.AdminPageDTO;
 import tqs.sportslink.service.AdminService;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/admin")
 public class AdminController {
 
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+
     private final AdminService adminService;
+    private final ObjectWriter exportWriter;
+    private final long exportTimeoutMs;
 
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, ObjectMapper objectMapper,
+            @Value("${sportslink.admin-export.timeout-ms:600000}") long exportTimeoutMs) {
         this.adminService = adminService;
+        this.exportWriter = objectMapper.writer();
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
     @GetMapping("/users")
@@ -27,6 +57,26 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getAllUsers());
     }
 
+    @GetMapping("/users/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AdminPageDTO<UserRow>> getUsersPage(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(adminService.getUsersPage(new UserFilter(role, active), cursor, limit));
+    }
+
+    @GetMapping("/users/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(required = false) Role role,
+            @RequestParam(required = false) Boolean active,
+            WebRequest request) {
+        UserFilter filter = new UserFilter(role, active);
+        return ndjson(request, "users", (Consumer<UserRow> sink) -> adminService.exportUsers(filter, sink));
+    }
+
     @PutMapping("/users/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<User> updateUserStatus(@PathVariable Long id, @RequestParam Boolean active) {
@@ -39,6 +89,29 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getAllFacilities());
     }
 
+    @GetMapping("/facilities/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AdminPageDTO<FacilityRow>> getFacilitiesPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Long ownerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(adminService.getFacilitiesPage(new FacilityFilter(status, city, ownerId), cursor,
+                limit));
+    }
+
+    @GetMapping("/facilities/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportFacilities(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) Long ownerId,
+            WebRequest request) {
+        FacilityFilter filter = new FacilityFilter(status, city, ownerId);
+        return ndjson(request, "facilities", (Consumer<FacilityRow> sink) -> adminService.exportFacilities(filter, sink));
+    }
+
     @DeleteMapping("/facilities/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Void> deleteFacility(@PathVariable Long id) {
@@ -58,6 +131,33 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getAllRentals());
     }
 
+    @GetMapping("/rentals/page")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AdminPageDTO<RentalRow>> getRentalsPage(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long facilityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        RentalFilter filter = new RentalFilter(status, userId, facilityId, from, to);
+        return ResponseEntity.ok(adminService.getRentalsPage(filter, cursor, limit));
+    }
+
+    @GetMapping("/rentals/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportRentals(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long facilityId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            WebRequest request) {
+        RentalFilter filter = new RentalFilter(status, userId, facilityId, from, to);
+        return ndjson(request, "rentals", (Consumer<RentalRow> sink) -> adminService.exportRentals(filter, sink));
+    }
+
     @GetMapping("/stats/charts")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, Object>> getChartStats() {
@@ -84,4 +184,31 @@ public class AdminController {
     public ResponseEntity<Rental> cancelRental(@PathVariable Long id) {
         return ResponseEntity.ok(adminService.cancelRental(id));
     }
+
+    /**
+     * One JSON object per line, written as the rows come out of the database cursor.
+     * Only this request gets the longer export timeout.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(WebRequest request, String name,
+            Consumer<Consumer<T>> export) {
+        // Aplicado quando o streaming arranca; o resto da API fica com o timeout async por omissão
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeoutMs);
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, EXPORT_BUFFER_BYTES);
+            export.accept(row -> {
+                try {
+                    buffered.write(exportWriter.writeValueAsBytes(row));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    // Cliente desligou-se: aborta a leitura do cursor
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffered.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + ".ndjson\"")
+                .body(body);
+    }
 }
@@ -14,12 +14,14 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import tqs.sportslink.data.UserRepository;
 import tqs.sportslink.data.model.User;
 import tqs.sportslink.dto.EquipmentRequestDTO;
 import tqs.sportslink.dto.EquipmentResponseDTO;
+import tqs.sportslink.dto.FacilityOccupancyDTO;
 import tqs.sportslink.dto.FacilityRequestDTO;
 import tqs.sportslink.dto.FacilityResponseDTO;
 import tqs.sportslink.service.OwnerService;
@@ -137,4 +139,18 @@ public class OwnerController {
         validateOwnerId(ownerId);
         return ResponseEntity.ok(ownerService.updateEquipment(ownerId, equipmentId, request));
     }
+
+    // ============================
+    // OCCUPANCY
+    // ============================
+
+    @GetMapping("/{ownerId}/facilities/{facilityId}/occupancy")
+    @PreAuthorize("hasRole('OWNER')")
+    public ResponseEntity<FacilityOccupancyDTO> getOccupancy(
+            @PathVariable Long ownerId,
+            @PathVariable Long facilityId,
+            @RequestParam(defaultValue = "4") int weeks) {
+        validateOwnerId(ownerId);
+        return ResponseEntity.ok(ownerService.getOccupancy(ownerId, facilityId, weeks));
+    }
 }
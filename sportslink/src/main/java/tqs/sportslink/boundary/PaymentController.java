@@ -10,8 +10,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tqs.sportslink.dto.PaymentIntentDTO;
 import tqs.sportslink.dto.PaymentStatusDTO;
+import tqs.sportslink.service.IdempotencyStore;
 import tqs.sportslink.service.StripePaymentService;
 
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
@@ -27,22 +29,64 @@ public class PaymentController {
     private static final String ERROR_KEY = "error";
 
     private final StripePaymentService stripePaymentService;
+    private final IdempotencyStore idempotencyStore;
 
     @Value("${stripe.publishable.key}")
     private String stripePublishableKey;
 
-    public PaymentController(StripePaymentService stripePaymentService) {
+    public PaymentController(StripePaymentService stripePaymentService, IdempotencyStore idempotencyStore) {
         this.stripePaymentService = stripePaymentService;
+        this.idempotencyStore = idempotencyStore;
     }
 
     /**
      * Create a PaymentIntent for a rental.
      * Returns the client secret needed by the frontend to complete payment.
+     * A retry with the same Idempotency-Key does not create another PaymentIntent. The client
+     * secret is not stored with the replayed result: it is read again from Stripe.
      */
     @PostMapping("/api/payments/create-intent/{rentalId}")
     public ResponseEntity<Object> createPaymentIntent(
             @PathVariable Long rentalId,
-            @RequestParam String email) {
+            @RequestParam String email,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        ResponseEntity<Object> response = idempotencyStore.execute("payment-intent", idempotencyKey,
+                List.of(rentalId, email), PaymentIntentDTO.class, () -> doCreatePaymentIntent(rentalId, email),
+                PaymentController::withoutClientSecret);
+        if (response.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)
+                && response.getBody() instanceof PaymentIntentDTO stored) {
+            return withClientSecret(response, stored);
+        }
+        return response;
+    }
+
+    private static Object withoutClientSecret(Object body) {
+        if (body instanceof PaymentIntentDTO dto) {
+            return new PaymentIntentDTO(null, dto.getPaymentId(), dto.getPublishableKey());
+        }
+        return body;
+    }
+
+    private ResponseEntity<Object> withClientSecret(ResponseEntity<Object> replayed, PaymentIntentDTO stored) {
+        try {
+            String clientSecret = stripePaymentService.getClientSecret(stored.getPaymentId());
+            return ResponseEntity.status(replayed.getStatusCode())
+                    .headers(replayed.getHeaders())
+                    .body(new PaymentIntentDTO(clientSecret, stored.getPaymentId(), stored.getPublishableKey()));
+
+        } catch (NoSuchElementException e) {
+            logger.error("Payment not found: {}", stored.getPaymentId());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of(ERROR_KEY, e.getMessage()));
+
+        } catch (StripeException e) {
+            logger.error("Stripe error retrieving PaymentIntent", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of(ERROR_KEY, "Payment service error: " + e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<Object> doCreatePaymentIntent(Long rentalId, String email) {
         try {
             StripePaymentService.PaymentIntentResult result = stripePaymentService.createPaymentIntent(rentalId, email);
 
@@ -1,8 +1,12 @@
 package tqs.sportslink.boundary;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,19 +14,30 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import tqs.sportslink.data.model.Sport;
 import tqs.sportslink.dto.EquipmentResponseDTO;
+import tqs.sportslink.dto.FacilityCalendarDTO;
+import tqs.sportslink.dto.FacilityPageDTO;
 import tqs.sportslink.dto.FacilityResponseDTO;
+import tqs.sportslink.dto.FacilitySearchHitDTO;
+import tqs.sportslink.dto.NearbyFacilityDTO;
+import tqs.sportslink.dto.RentalHistoryPageDTO;
 import tqs.sportslink.dto.RentalRequestDTO;
 import tqs.sportslink.dto.RentalResponseDTO;
+import tqs.sportslink.dto.RentalSeriesRequestDTO;
+import tqs.sportslink.dto.RentalSeriesResponseDTO;
 import tqs.sportslink.service.EquipmentService;
 import tqs.sportslink.service.FacilityService;
+import tqs.sportslink.service.IdempotencyStore;
 import tqs.sportslink.service.RentalService;
+import tqs.sportslink.service.SlotHoldService;
 
 @RestController
 @RequestMapping("/api/rentals")
@@ -31,11 +46,16 @@ public class RenterController {
     private final RentalService rentalService;
     private final EquipmentService equipmentService;
     private final FacilityService facilityService;
+    private final IdempotencyStore idempotencyStore;
+    private final SlotHoldService slotHoldService;
 
-    public RenterController(RentalService rentalService, EquipmentService equipmentService, FacilityService facilityService) {
+    public RenterController(RentalService rentalService, EquipmentService equipmentService, FacilityService facilityService,
+            IdempotencyStore idempotencyStore, SlotHoldService slotHoldService) {
         this.rentalService = rentalService;
         this.equipmentService = equipmentService;
         this.facilityService = facilityService;
+        this.idempotencyStore = idempotencyStore;
+        this.slotHoldService = slotHoldService;
     }
 
     @GetMapping("/search")
@@ -47,11 +67,60 @@ public class RenterController {
         return ResponseEntity.ok(facilities);
     }
 
+    @GetMapping("/search/page")
+    public ResponseEntity<FacilityPageDTO> searchFacilitiesPage(
+            @RequestParam(required = false) String location,
+            @RequestParam(required = false) String sport,
+            @RequestParam(required = false) String time,
+            @RequestParam(defaultValue = "rating") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(facilityService.searchFacilitiesPage(location, sport, time, sort, cursor, limit));
+    }
+
+    @GetMapping("/search/text")
+    public ResponseEntity<List<FacilitySearchHitDTO>> searchText(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(facilityService.searchText(q, limit));
+    }
+
+    @GetMapping("/search/nearby")
+    public ResponseEntity<List<NearbyFacilityDTO>> searchNearby(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(required = false) String sport) {
+        return ResponseEntity.ok(facilityService.searchNearby(lat, lon, radiusKm, sport));
+    }
+
     @PostMapping("/rental")
     @PreAuthorize("hasRole('RENTER')")
-    public ResponseEntity<RentalResponseDTO> createRental(@Valid @RequestBody RentalRequestDTO request) {
-        RentalResponseDTO response = rentalService.createRental(request);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<RentalResponseDTO> createRental(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody RentalRequestDTO request) {
+        // Um retry com a mesma chave devolve o rental já criado sem voltar ao RentalService
+        return idempotencyStore.execute("rental", idempotencyKey, request, RentalResponseDTO.class,
+                () -> ResponseEntity.ok(rentalService.createRental(request)));
+    }
+
+    /**
+     * Holds the slot (and equipment) for checkout; the hold becomes a rental when the payment
+     * succeeds and is released when its holdExpiresAt passes.
+     */
+    @PostMapping("/hold")
+    @PreAuthorize("hasRole('RENTER')")
+    public ResponseEntity<RentalResponseDTO> holdSlot(
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody RentalRequestDTO request) {
+        return idempotencyStore.execute("rental-hold", idempotencyKey, request, RentalResponseDTO.class,
+                () -> ResponseEntity.ok(slotHoldService.hold(request)));
+    }
+
+    @PostMapping("/rental/series")
+    @PreAuthorize("hasRole('RENTER')")
+    public ResponseEntity<RentalSeriesResponseDTO> createRentalSeries(@Valid @RequestBody RentalSeriesRequestDTO request) {
+        return ResponseEntity.ok(rentalService.createRentalSeries(request));
     }
 
     @PutMapping("/rental/{id}/cancel")
@@ -82,6 +151,37 @@ public class RenterController {
         return ResponseEntity.ok(history);
     }
 
+    @GetMapping("/history/page")
+    @PreAuthorize("hasRole('RENTER')")
+    public ResponseEntity<RentalHistoryPageDTO> getUserHistoryPage(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(rentalService.getUserRentalsPage(userId, cursor, limit));
+    }
+
+    @GetMapping("/facility/{id}")
+    public ResponseEntity<FacilityResponseDTO> getFacility(@PathVariable Long id) {
+        return ResponseEntity.ok(facilityService.getFacility(id));
+    }
+
+    @GetMapping("/facility/{id}/calendar")
+    public ResponseEntity<FacilityCalendarDTO> getCalendar(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(defaultValue = "30") int days,
+            WebRequest request) {
+        // ETag calculado antes do corpo: um 304 custa só uma consulta agregada à base de dados
+        String etag = facilityService.calendarETag(id, from, days);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(facilityService.getCalendar(id, from, days));
+    }
+
     @GetMapping("/facility/{id}/equipments")
     public ResponseEntity<List<EquipmentResponseDTO>> getEquipments(@PathVariable Long id) {
         List<EquipmentResponseDTO> equipments = equipmentService.getEquipmentsByFacility(id);
@@ -0,0 +1,259 @@
+package tqs.sportslink.data;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import tqs.sportslink.data.model.Role;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Flat rows for the admin listings, read with plain JDBC so that no entity graph or lazy
+ * proxy is ever built. Every listing is keyset-ordered by id and can either be read one
+ * page at a time or streamed in full from a forward-only cursor with a fixed fetch size.
+ * Streaming needs an open transaction on PostgreSQL, otherwise the driver ignores the
+ * fetch size and reads the whole result set into memory.
+ */
+@Repository
+public class AdminListingRepository {
+
+    static final int FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AdminListingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record UserFilter(Role role, Boolean active) {
+    }
+
+    public record FacilityFilter(String status, String city, Long ownerId) {
+    }
+
+    /**
+     * Rentals starting in [from, to), either bound optional.
+     */
+    public record RentalFilter(String status, Long userId, Long facilityId, LocalDateTime from, LocalDateTime to) {
+
+        public RentalFilter {
+            // Validado aqui para que um export com datas inválidas falhe antes de começar a escrever
+            if (from != null && to != null && !from.isBefore(to)) {
+                throw new IllegalArgumentException("from must be before to");
+            }
+        }
+    }
+
+    public record UserRow(Long id, String email, String name, String phone, boolean active,
+            LocalDateTime createdAt, List<String> roles) {
+    }
+
+    public record FacilityRow(Long id, String name, String city, String address, String status,
+            Double pricePerHour, Double rating, Long ownerId, String ownerName) {
+    }
+
+    public record RentalRow(Long id, Long userId, String userName, String userEmail, Long facilityId,
+            String facilityName, LocalDateTime startTime, LocalDateTime endTime, String status,
+            String paymentStatus, Double totalPrice, LocalDateTime createdAt) {
+    }
+
+    /**
+     * Up to {@code limit} users with id greater than {@code afterId}, by id.
+     */
+    public List<UserRow> findUsers(UserFilter filter, long afterId, int limit) {
+        List<UserRow> rows = new ArrayList<>(limit);
+        scanUsers(filter, afterId, limit, rows::add);
+        return rows;
+    }
+
+    public void streamUsers(UserFilter filter, Consumer<UserRow> sink) {
+        scanUsers(filter, 0L, 0, sink);
+    }
+
+    public List<FacilityRow> findFacilities(FacilityFilter filter, long afterId, int limit) {
+        List<FacilityRow> rows = new ArrayList<>(limit);
+        scanFacilities(filter, afterId, limit, rows::add);
+        return rows;
+    }
+
+    public void streamFacilities(FacilityFilter filter, Consumer<FacilityRow> sink) {
+        scanFacilities(filter, 0L, 0, sink);
+    }
+
+    public List<RentalRow> findRentals(RentalFilter filter, long afterId, int limit) {
+        List<RentalRow> rows = new ArrayList<>(limit);
+        scanRentals(filter, afterId, limit, rows::add);
+        return rows;
+    }
+
+    public void streamRentals(RentalFilter filter, Consumer<RentalRow> sink) {
+        scanRentals(filter, 0L, 0, sink);
+    }
+
+    private void scanUsers(UserFilter filter, long afterId, int limit, Consumer<UserRow> sink) {
+        Where where = new Where().and("u.id > ?", afterId);
+        if (filter.role() != null) {
+            where.and("EXISTS (SELECT 1 FROM user_roles fr WHERE fr.user_id = u.id AND fr.role = ?)",
+                    filter.role().name());
+        }
+        if (filter.active() != null) {
+            where.and("u.active = ?", filter.active());
+        }
+        String users = "SELECT u.id, u.email, u.name, u.phone, u.active, u.created_at FROM users u"
+                + where.sql() + " ORDER BY u.id" + where.limit(limit);
+        // Os roles vêm numa linha cada, a seguir ao user: juntam-se as linhas seguidas com o mesmo id
+        String sql = "SELECT x.id, x.email, x.name, x.phone, x.active, x.created_at, ur.role FROM (" + users
+                + ") x LEFT JOIN user_roles ur ON ur.user_id = x.id ORDER BY x.id, ur.role";
+        UserAssembler assembler = new UserAssembler(sink);
+        query(sql, where.params(), assembler);
+        assembler.finish();
+    }
+
+    private void scanFacilities(FacilityFilter filter, long afterId, int limit, Consumer<FacilityRow> sink) {
+        Where where = new Where().and("f.id > ?", afterId);
+        if (filter.status() != null) {
+            where.and("f.status = ?", filter.status());
+        }
+        if (filter.city() != null) {
+            where.and("LOWER(f.city) = LOWER(?)", filter.city());
+        }
+        if (filter.ownerId() != null) {
+            where.and("f.owner_id = ?", filter.ownerId());
+        }
+        String sql = "SELECT f.id, f.name, f.city, f.address, f.status, f.price_per_hour, f.rating, f.owner_id, "
+                + "o.name AS owner_name FROM facilities f LEFT JOIN users o ON o.id = f.owner_id"
+                + where.sql() + " ORDER BY f.id" + where.limit(limit);
+        query(sql, where.params(), rs -> sink.accept(new FacilityRow(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("city"),
+                rs.getString("address"),
+                rs.getString("status"),
+                rs.getObject("price_per_hour", Double.class),
+                rs.getObject("rating", Double.class),
+                rs.getObject("owner_id", Long.class),
+                rs.getString("owner_name"))));
+    }
+
+    private void scanRentals(RentalFilter filter, long afterId, int limit, Consumer<RentalRow> sink) {
+        Where where = new Where().and("r.id > ?", afterId);
+        if (filter.status() != null) {
+            where.and("r.status = ?", filter.status());
+        }
+        if (filter.userId() != null) {
+            where.and("r.user_id = ?", filter.userId());
+        }
+        if (filter.facilityId() != null) {
+            where.and("r.facility_id = ?", filter.facilityId());
+        }
+        if (filter.from() != null) {
+            where.and("r.start_time >= ?", filter.from());
+        }
+        if (filter.to() != null) {
+            where.and("r.start_time < ?", filter.to());
+        }
+        String sql = "SELECT r.id, r.user_id, u.name AS user_name, u.email AS user_email, r.facility_id, "
+                + "f.name AS facility_name, r.start_time, r.end_time, r.status, r.payment_status, r.total_price, "
+                + "r.created_at FROM rentals r JOIN users u ON u.id = r.user_id "
+                + "JOIN facilities f ON f.id = r.facility_id"
+                + where.sql() + " ORDER BY r.id" + where.limit(limit);
+        query(sql, where.params(), rs -> sink.accept(new RentalRow(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                rs.getString("user_name"),
+                rs.getString("user_email"),
+                rs.getLong("facility_id"),
+                rs.getString("facility_name"),
+                rs.getObject("start_time", LocalDateTime.class),
+                rs.getObject("end_time", LocalDateTime.class),
+                rs.getString("status"),
+                rs.getString("payment_status"),
+                rs.getObject("total_price", Double.class),
+                rs.getObject("created_at", LocalDateTime.class))));
+    }
+
+    private void query(String sql, List<Object> params, RowCallbackHandler handler) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    /**
+     * WHERE clause and its positional parameters, built one condition at a time.
+     */
+    private static final class Where {
+
+        private final StringBuilder sql = new StringBuilder();
+        private final List<Object> params = new ArrayList<>();
+
+        Where and(String condition, Object param) {
+            sql.append(sql.isEmpty() ? " WHERE " : " AND ").append(condition);
+            params.add(param);
+            return this;
+        }
+
+        /**
+         * LIMIT clause for a page, empty for a full stream (limit 0). Must be appended last.
+         */
+        String limit(int limit) {
+            if (limit <= 0) {
+                return "";
+            }
+            params.add(limit);
+            return " LIMIT ?";
+        }
+
+        String sql() {
+            return sql.toString();
+        }
+
+        List<Object> params() {
+            return params;
+        }
+    }
+
+    private static final class UserAssembler implements RowCallbackHandler {
+
+        private final Consumer<UserRow> sink;
+        private UserRow current;
+        private List<String> roles;
+
+        UserAssembler(Consumer<UserRow> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || current.id() != id) {
+                finish();
+                roles = new ArrayList<>(2);
+                current = new UserRow(id, rs.getString("email"), rs.getString("name"), rs.getString("phone"),
+                        rs.getBoolean("active"), rs.getObject("created_at", LocalDateTime.class), roles);
+            }
+            String role = rs.getString("role");
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+
+        void finish() {
+            if (current != null) {
+                sink.accept(current);
+                current = null;
+            }
+        }
+    }
+}
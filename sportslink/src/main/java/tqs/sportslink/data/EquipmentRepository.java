@@ -1,6 +1,8 @@
 package tqs.sportslink.data;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tqs.sportslink.data.model.Equipment;
 
@@ -13,4 +15,15 @@ public interface EquipmentRepository extends JpaRepository<Equipment, Long> {
     List<Equipment> findByFacilityId(Long facilityId);
     
     List<Equipment> findByType(String type);
+
+    /**
+     * Equipamento AVAILABLE com os desportos no mesmo select (sem um select a equipment_sports por linha).
+     * Equipamento sem desportos fica de fora.
+     */
+    @Query("SELECT DISTINCT e FROM Equipment e JOIN FETCH e.sports WHERE e.status = 'AVAILABLE'")
+    List<Equipment> findAvailableWithSports();
+
+    @Query("SELECT DISTINCT e FROM Equipment e JOIN FETCH e.sports "
+            + "WHERE e.facility.id = :facilityId AND e.status = 'AVAILABLE'")
+    List<Equipment> findAvailableWithSportsByFacilityId(@Param("facilityId") Long facilityId);
 }
@@ -0,0 +1,58 @@
+package tqs.sportslink.data;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tqs.sportslink.data.model.EquipmentReservation;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EquipmentReservationRepository extends JpaRepository<EquipmentReservation, Long> {
+
+    /**
+     * Reserva uma unidade de cada equipamento para o rental, numa só instrução: só é inserida a linha
+     * dos equipamentos da facility que ainda têm unidades livres em [start, end).
+     * Devolve o número de equipamentos reservados.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO equipment_reservations (equipment_id, rental_id, start_time, end_time) "
+            + "SELECT e.id, :rentalId, :start, :end FROM equipments e "
+            + "WHERE e.id IN (:equipmentIds) AND e.facility_id = :facilityId AND e.quantity > ("
+            + "SELECT COUNT(*) FROM equipment_reservations r "
+            + "WHERE r.equipment_id = e.id AND r.start_time < :end AND r.end_time > :start)",
+            nativeQuery = true)
+    int reserveAvailable(@Param("equipmentIds") Collection<Long> equipmentIds, @Param("facilityId") Long facilityId,
+            @Param("rentalId") Long rentalId, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Devolve ao stock todas as unidades reservadas pelo rental.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EquipmentReservation r WHERE r.rentalId = :rentalId")
+    int deleteByRentalId(@Param("rentalId") Long rentalId);
+
+    /**
+     * Unidades reservadas por equipamento em reservas que intersetam [start, end).
+     */
+    @Query("SELECT r.equipmentId AS equipmentId, COUNT(r) AS reserved FROM EquipmentReservation r "
+            + "WHERE r.equipmentId IN :equipmentIds AND r.startTime < :end AND r.endTime > :start "
+            + "GROUP BY r.equipmentId")
+    List<ReservedCount> countReservedBetween(@Param("equipmentIds") Collection<Long> equipmentIds,
+            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Projeção do número de unidades reservadas de um equipamento.
+     */
+    interface ReservedCount {
+        Long getEquipmentId();
+
+        long getReserved();
+    }
+}
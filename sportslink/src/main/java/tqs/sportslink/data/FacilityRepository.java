@@ -1,5 +1,6 @@
 package tqs.sportslink.data;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -32,7 +33,64 @@ public interface FacilityRepository extends JpaRepository<Facility, Long> {
      */
     Optional<Facility> findByIdAndOwnerId(Long facilityId, Long ownerId);
 
+    /**
+     * Facilities do owner com o equipamento contado na mesma query.
+     * As reservas recentes vêm dos contadores em memória (FacilityDemandCounters).
+     */
+    @Query("SELECT new tqs.sportslink.data.OwnerFacilityStats(f.id, f.name, f.pricePerHour, f.rating, f.updatedAt, "
+            + "(SELECT COUNT(e.id) FROM Equipment e WHERE e.facility.id = f.id)) "
+            + "FROM Facility f WHERE f.owner.id = :ownerId ORDER BY f.id")
+    List<OwnerFacilityStats> findOwnerFacilityStats(@Param("ownerId") Long ownerId);
+
     List<Facility> findByName(String name);
 
+    List<Facility> findByStatus(String status);
+
+    /**
+     * Facilities ativas com os desportos já carregados (usado pelos índices em memória).
+     */
+    @Query("SELECT DISTINCT f FROM Facility f LEFT JOIN FETCH f.sports WHERE f.status = 'ACTIVE'")
+    List<Facility> findActiveWithSports();
+
+    @Query("SELECT f FROM Facility f LEFT JOIN FETCH f.sports WHERE f.id = :id")
+    Optional<Facility> findWithSportsById(@Param("id") Long id);
+
+    /**
+     * Pares (facility, desporto) de todas as facilities, sem carregar entidades, por facility e nome do desporto.
+     */
+    @Query("SELECT f.id AS facilityId, s AS sport FROM Facility f JOIN f.sports s ORDER BY f.id, s")
+    List<FacilitySport> findAllSports();
+
+    /**
+     * Página de facilities ativas ordenada por (rating desc, id), a começar depois do cursor.
+     * Filtros e cursor vão para o SQL: nada de OFFSET nem COUNT.
+     */
+    @Query("SELECT f FROM Facility f WHERE f.status = 'ACTIVE' "
+            + "AND (:city IS NULL OR f.city = :city) AND (:sport IS NULL OR :sport MEMBER OF f.sports) "
+            + "AND (f.rating < :rating OR (f.rating = :rating AND f.id > :afterId)) "
+            + "ORDER BY f.rating DESC, f.id ASC")
+    List<Facility> findActivePageByRating(@Param("city") String city, @Param("sport") Sport sport,
+            @Param("rating") double rating, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Página de facilities ativas ordenada por (preço, id). Preço em falta conta como 0.
+     */
+    @Query("SELECT f FROM Facility f WHERE f.status = 'ACTIVE' "
+            + "AND (:city IS NULL OR f.city = :city) AND (:sport IS NULL OR :sport MEMBER OF f.sports) "
+            + "AND (COALESCE(f.pricePerHour, 0) > :price "
+            + "OR (COALESCE(f.pricePerHour, 0) = :price AND f.id > :afterId)) "
+            + "ORDER BY COALESCE(f.pricePerHour, 0) ASC, f.id ASC")
+    List<Facility> findActivePageByPrice(@Param("city") String city, @Param("sport") Sport sport,
+            @Param("price") double price, @Param("afterId") long afterId, Limit limit);
+
     boolean existsByName(String name);
+
+    /**
+     * Projeção de um desporto de uma facility.
+     */
+    interface FacilitySport {
+        Long getFacilityId();
+
+        Sport getSport();
+    }
 }
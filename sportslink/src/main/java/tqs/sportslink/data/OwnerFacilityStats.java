@@ -0,0 +1,16 @@
+package tqs.sportslink.data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One of an owner's facilities with the counts the owner suggestions need.
+ * Built by a JPQL constructor expression: equipmentCount counts all equipment of the facility.
+ */
+public record OwnerFacilityStats(
+        Long facilityId,
+        String name,
+        Double pricePerHour,
+        Double rating,
+        LocalDateTime updatedAt,
+        long equipmentCount) {
+}
@@ -4,6 +4,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import tqs.sportslink.data.model.Payment;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -22,6 +23,11 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      */
     Optional<Payment> findByRentalId(Long rentalId);
 
+    /**
+     * Find payments in a given status
+     */
+    List<Payment> findByStatus(String status);
+
     /**
      * Check if payment exists for a rental
      */
@@ -0,0 +1,17 @@
+package tqs.sportslink.data;
+
+import tqs.sportslink.data.model.Rental;
+
+import java.util.List;
+
+/**
+ * Fragmento do RentalRepository para inserir muitos rentals de uma vez.
+ */
+public interface RentalBatchInsert {
+
+    /**
+     * Insere todos os rentals num único batch JDBC e preenche os ids gerados.
+     * Não passa pelo contexto de persistência: os rentals ficam detached.
+     */
+    void insertAll(List<Rental> rentals);
+}
@@ -0,0 +1,67 @@
+package tqs.sportslink.data;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import tqs.sportslink.data.model.Rental;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+class RentalBatchInsertImpl implements RentalBatchInsert {
+
+    private static final String INSERT_RENTAL = "INSERT INTO rentals "
+            + "(user_id, facility_id, start_time, end_time, status, total_price, payment_status, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    RentalBatchInsertImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<Rental> rentals) {
+        if (rentals.isEmpty()) {
+            return;
+        }
+        // @PrePersist não corre fora do JPA: os timestamps são preenchidos aqui
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_RENTAL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Rental rental = rentals.get(i);
+                        ps.setLong(1, rental.getUser().getId());
+                        ps.setLong(2, rental.getFacility().getId());
+                        ps.setObject(3, rental.getStartTime());
+                        ps.setObject(4, rental.getEndTime());
+                        ps.setString(5, rental.getStatus());
+                        ps.setObject(6, rental.getTotalPrice());
+                        ps.setString(7, rental.getPaymentStatus());
+                        ps.setObject(8, now);
+                        ps.setObject(9, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rentals.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < rentals.size(); i++) {
+            Rental rental = rentals.get(i);
+            rental.setId(((Number) generated.get(i).values().iterator().next()).longValue());
+            rental.setCreatedAt(now);
+            rental.setUpdatedAt(now);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package tqs.sportslink.data;
+
+import java.time.LocalDateTime;
+
+/**
+ * One rental of a user's history, with exactly the columns the history DTO needs.
+ * Built by a JPQL constructor expression; equipmentNames is the '|'-separated
+ * aggregate of the rental's equipment names, null when it has none.
+ */
+public record RentalHistoryRow(
+        Long id,
+        Long userId,
+        Long facilityId,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        String status,
+        LocalDateTime holdExpiresAt,
+        String equipmentNames) {
+
+    public static final String EQUIPMENT_SEPARATOR = "|";
+}
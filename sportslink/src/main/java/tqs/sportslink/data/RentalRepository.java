@@ -1,24 +1,205 @@
 package tqs.sportslink.data;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import tqs.sportslink.data.model.Rental;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface RentalRepository extends JpaRepository<Rental, Long> {
-    
+public interface RentalRepository extends JpaRepository<Rental, Long>, RentalBatchInsert {
+
     // Buscar rentals por facility e período (service fará validação de conflito)
     // Buscar rentals por facility e período (service fará validação de conflito)
     List<Rental> findByFacilityIdAndStartTimeLessThanAndEndTimeGreaterThan(
         Long facilityId, LocalDateTime endTime, LocalDateTime startTime
     );
-    
+
     // Buscar rentals por user
     List<Rental> findByUserId(Long userId);
-    
+
+    // Histórico: só as colunas do DTO e os nomes dos equipamentos agregados na mesma query,
+    // sem carregar user, facility nem equipments de cada rental
+    String HISTORY_SELECT = "SELECT new tqs.sportslink.data.RentalHistoryRow(r.id, r.user.id, r.facility.id, "
+            + "r.startTime, r.endTime, r.status, r.holdExpiresAt, "
+            + "LISTAGG(e.name, '" + RentalHistoryRow.EQUIPMENT_SEPARATOR + "') WITHIN GROUP (ORDER BY e.name)) "
+            + "FROM Rental r LEFT JOIN r.equipments e ";
+    String HISTORY_GROUP_ORDER = "GROUP BY r.id, r.user.id, r.facility.id, r.startTime, r.endTime, r.status, "
+            + "r.holdExpiresAt ORDER BY r.startTime DESC, r.id ASC";
+
+    /**
+     * Histórico completo do user, mais recente primeiro.
+     */
+    @Query(HISTORY_SELECT + "WHERE r.user.id = :userId " + HISTORY_GROUP_ORDER)
+    List<RentalHistoryRow> findHistoryByUserId(@Param("userId") Long userId);
+
+    /**
+     * Página do histórico ordenada por (startTime desc, id), a começar depois do cursor.
+     */
+    @Query(HISTORY_SELECT + "WHERE r.user.id = :userId "
+            + "AND (r.startTime < :startTime OR (r.startTime = :startTime AND r.id > :afterId)) "
+            + HISTORY_GROUP_ORDER)
+    List<RentalHistoryRow> findHistoryPage(@Param("userId") Long userId,
+            @Param("startTime") LocalDateTime startTime, @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Reservas não canceladas do user agrupadas por facility, para (re)construir o perfil de preferências.
+     */
+    @Query("SELECT r.facility.id AS facilityId, COUNT(r) AS bookings, MAX(r.createdAt) AS lastBookedAt "
+            + "FROM Rental r WHERE r.user.id = :userId AND r.status <> 'CANCELLED' GROUP BY r.facility.id")
+    List<FacilityVisits> countVisitsByUserId(@Param("userId") Long userId);
+
     // Buscar rentals por facility
     List<Rental> findByFacilityId(Long facilityId);
+
+    /**
+     * Número de rentals por estado, agregado na BD (uma linha por estado).
+     */
+    @Query("SELECT r.status AS status, COUNT(r) AS rentals FROM Rental r GROUP BY r.status")
+    List<StatusCount> countByStatus();
+
+    /**
+     * Número de rentals por facility, agregado na BD (uma linha por facility).
+     */
+    @Query("SELECT r.facility.id AS facilityId, COUNT(r) AS rentals FROM Rental r GROUP BY r.facility.id")
+    List<FacilityCount> countByFacility();
+
+    /**
+     * Intervalos ocupados (rentals não cancelados) que intersetam [from, to).
+     * Projeção leve - não carrega entidades nem associações.
+     */
+    @Query("SELECT r.facility.id AS facilityId, r.startTime AS startTime, r.endTime AS endTime FROM Rental r "
+            + "WHERE r.status <> 'CANCELLED' AND r.startTime < :to AND r.endTime > :from")
+    List<BookedSlot> findBookedSlotsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Intervalos ocupados de uma facility, ordenados por início.
+     */
+    @Query("SELECT r.facility.id AS facilityId, r.startTime AS startTime, r.endTime AS endTime FROM Rental r "
+            + "WHERE r.facility.id = :facilityId AND r.status <> 'CANCELLED' "
+            + "AND r.startTime < :to AND r.endTime > :from ORDER BY r.startTime")
+    List<BookedSlot> findBookedSlotsByFacilityIdBetween(@Param("facilityId") Long facilityId,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Versão em lote: uma só query para várias facilities, em vez de findByFacilityId por facility.
+     */
+    @Query("SELECT r.facility.id AS facilityId, r.startTime AS startTime, r.endTime AS endTime FROM Rental r "
+            + "WHERE r.facility.id IN :facilityIds AND r.status <> 'CANCELLED' "
+            + "AND r.startTime < :to AND r.endTime > :from")
+    List<BookedSlot> findBookedSlotsByFacilityIdInBetween(@Param("facilityIds") Collection<Long> facilityIds,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Holds por pagar e o respetivo prazo, para reconstruir a roda de expiração no arranque.
+     */
+    @Query("SELECT r.id AS rentalId, r.holdExpiresAt AS holdExpiresAt FROM Rental r WHERE r.status = 'HELD'")
+    List<HeldSlot> findHeld();
+
+    /**
+     * Holds cujo prazo já passou, incluindo os de nós que pararam antes de os expirar.
+     */
+    @Query("SELECT r.id FROM Rental r WHERE r.status = 'HELD' AND r.holdExpiresAt < :now ORDER BY r.id")
+    List<Long> findExpiredHeldIds(@Param("now") LocalDateTime now, Limit limit);
+
+    /**
+     * Cancela o hold se ainda estiver HELD e o prazo tiver passado. Devolve 0 se já foi pago ou cancelado.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = 'CANCELLED', r.holdExpiresAt = NULL, r.updatedAt = :now "
+            + "WHERE r.id = :rentalId AND r.status = 'HELD' AND r.holdExpiresAt <= :now")
+    int expireHold(@Param("rentalId") Long rentalId, @Param("now") LocalDateTime now);
+
+    /**
+     * Cancela o rental se ainda estiver no estado lido. Devolve 0 se entretanto mudou (hold pago ou
+     * expirado, outro cancelamento): não se grava a entidade por cima dessa alteração.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = 'CANCELLED', r.holdExpiresAt = NULL, r.updatedAt = :now "
+            + "WHERE r.id = :rentalId AND r.status = :expectedStatus")
+    int cancelIfStatus(@Param("rentalId") Long rentalId, @Param("expectedStatus") String expectedStatus,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Converte o hold num rental confirmado e pago. Devolve 0 se já não estava HELD (expirou ou foi cancelado).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Rental r SET r.status = 'CONFIRMED', r.paymentStatus = 'PAID', r.holdExpiresAt = NULL, "
+            + "r.updatedAt = :now WHERE r.id = :rentalId AND r.status = 'HELD'")
+    int convertHold(@Param("rentalId") Long rentalId, @Param("now") LocalDateTime now);
+
+    /**
+     * Projeção de um hold e do seu prazo.
+     */
+    interface HeldSlot {
+        Long getRentalId();
+
+        LocalDateTime getHoldExpiresAt();
+    }
+
+    /**
+     * Projeção das reservas de um user numa facility.
+     */
+    interface FacilityVisits {
+        Long getFacilityId();
+
+        long getBookings();
+
+        LocalDateTime getLastBookedAt();
+    }
+
+    /**
+     * Número de rentals de uma facility e a última alteração a algum deles, para validadores (ETags).
+     */
+    @Query("SELECT COUNT(r) AS rentals, MAX(r.updatedAt) AS lastChange FROM Rental r "
+            + "WHERE r.facility.id = :facilityId")
+    BookingVersion findBookingVersion(@Param("facilityId") Long facilityId);
+
+    /**
+     * Projeção da versão das reservas de uma facility.
+     */
+    interface BookingVersion {
+        long getRentals();
+
+        LocalDateTime getLastChange();
+    }
+
+    /**
+     * Projeção de um estado e do número de rentals nesse estado.
+     */
+    interface StatusCount {
+        String getStatus();
+
+        long getRentals();
+    }
+
+    /**
+     * Projeção de uma facility e do número de rentals nela.
+     */
+    interface FacilityCount {
+        Long getFacilityId();
+
+        long getRentals();
+    }
+
+    /**
+     * Projeção de um intervalo reservado numa facility.
+     */
+    interface BookedSlot {
+        Long getFacilityId();
+
+        LocalDateTime getStartTime();
+
+        LocalDateTime getEndTime();
+    }
 }
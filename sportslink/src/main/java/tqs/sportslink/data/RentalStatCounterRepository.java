@@ -0,0 +1,23 @@
+package tqs.sportslink.data;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import tqs.sportslink.data.model.RentalStatCounter;
+
+import java.util.List;
+
+@Repository
+public interface RentalStatCounterRepository extends JpaRepository<RentalStatCounter, String> {
+
+    List<RentalStatCounter> findByIdStartingWith(String prefix);
+
+    // Incremento atómico na BD: vários nós somam os seus deltas sem ler-modificar-escrever
+    @Transactional
+    @Modifying
+    @Query("UPDATE RentalStatCounter c SET c.rentals = c.rentals + :delta WHERE c.id = :id")
+    int increment(@Param("id") String id, @Param("delta") long delta);
+}
@@ -0,0 +1,54 @@
+package tqs.sportslink.data;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import tqs.sportslink.data.model.UserPreference;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserPreferenceRepository extends JpaRepository<UserPreference, Long> {
+
+    // Bloqueia a linha: dois eventos do mesmo user não se sobrepõem (read-modify-write)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM UserPreference p WHERE p.userId = :userId")
+    Optional<UserPreference> findForUpdate(@Param("userId") Long userId);
+
+    /**
+     * Facilities visitadas por user, por páginas de userId crescente (keyset), sem carregar as entidades.
+     */
+    @Query("SELECT p.userId AS userId, p.visitedFacilities AS visitedFacilities FROM UserPreference p "
+            + "WHERE p.userId > :afterUserId AND p.visitedFacilities <> '' ORDER BY p.userId")
+    List<VisitedFacilities> findVisitedPage(@Param("afterUserId") long afterUserId, Limit limit);
+
+    /**
+     * Número de linhas e última alteração: muda sempre que alguma preferência muda, em qualquer nó.
+     */
+    @Query("SELECT COUNT(p) AS preferences, MAX(p.updatedAt) AS lastChange FROM UserPreference p")
+    Watermark findWatermark();
+
+    /**
+     * Projeção das facilities visitadas por um user.
+     */
+    interface VisitedFacilities {
+        Long getUserId();
+
+        String getVisitedFacilities();
+    }
+
+    /**
+     * Projeção do estado da tabela para comparar com o de um snapshot.
+     */
+    interface Watermark {
+        long getPreferences();
+
+        LocalDateTime getLastChange();
+    }
+}
@@ -0,0 +1,44 @@
+package tqs.sportslink.data.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One unit of an equipment held by a rental during [startTime, endTime).
+ * Units in use at a given time are the reservations overlapping it; Equipment.quantity is the total.
+ */
+@Entity
+@Table(name = "equipment_reservations", indexes = {
+        // Contagem de unidades reservadas numa janela: equipment_id = ? AND start_time < ? AND end_time > ?
+        @Index(name = "idx_equipment_reservations_window", columnList = "equipment_id, start_time, end_time"),
+        @Index(name = "idx_equipment_reservations_rental", columnList = "rental_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class EquipmentReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Só ids, sem associações: o ledger é escrito e lido por queries diretas
+    @Column(name = "equipment_id", nullable = false)
+    private Long equipmentId;
+
+    @Column(name = "rental_id", nullable = false)
+    private Long rentalId;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+}
@@ -12,7 +12,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "facilities")
+@Table(name = "facilities", indexes = {
+        // Suporta a pesquisa paginada por keyset (status, rating desc, id)
+        @Index(name = "idx_facilities_status_rating_id", columnList = "status, rating DESC, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
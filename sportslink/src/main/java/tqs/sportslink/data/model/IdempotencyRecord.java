@@ -0,0 +1,67 @@
+package tqs.sportslink.data.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request sent with an Idempotency-Key, shared by every node.
+ * A row without responseStatus is a claim: the request is still being processed.
+ */
+@Entity
+@Table(name = "idempotency_records", indexes = {
+        // Limpeza periódica dos registos expirados
+        @Index(name = "idx_idempotency_records_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(length = 300)
+    private String id; // scope + ":" + hash do user (16 hex) + ":" + Idempotency-Key
+
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column
+    private Integer responseStatus;
+
+    @Column(length = 4000)
+    private String responseBody; // JSON
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // O id é atribuído pela aplicação: sem isto o save() faria merge e dois nós a reclamar a mesma
+    // chave não colidiriam na chave primária
+    @Transient
+    private boolean newRecord = true;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        newRecord = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+}
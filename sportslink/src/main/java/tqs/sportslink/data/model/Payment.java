@@ -41,7 +41,7 @@ public class Payment {
     private String currency;
 
     @Column(nullable = false, length = 20)
-    private String status; // PENDING, SUCCEEDED, FAILED, REFUNDED, CANCELLED
+    private String status; // PENDING, SUCCEEDED, FAILED, REFUND_PENDING, REFUNDED, CANCELLED
 
     @Column(length = 500)
     private String receiptUrl;
@@ -11,7 +11,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "rentals")
+@Table(name = "rentals", indexes = {
+        // Job de conclusão: status = 'CONFIRMED' AND end_time < ?
+        @Index(name = "idx_rentals_status_end", columnList = "status, end_time"),
+        // Histórico paginado: user_id = ? ordenado por start_time
+        @Index(name = "idx_rentals_user_start", columnList = "user_id, start_time"),
+        // Versão das reservas de uma facility (ETag): COUNT e MAX(updated_at) só a partir do índice
+        @Index(name = "idx_rentals_facility_updated", columnList = "facility_id, updated_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -45,7 +52,10 @@ public class Rental {
     private LocalDateTime endTime;
 
     @Column(nullable = false, length = 50)
-    private String status; // CONFIRMED, CANCELLED, COMPLETED
+    private String status; // HELD, CONFIRMED, CANCELLED, COMPLETED
+
+    // Só para HELD: o slot fica bloqueado até este instante, à espera do pagamento
+    private LocalDateTime holdExpiresAt;
 
     @Column(precision = 10)
     private Double totalPrice;
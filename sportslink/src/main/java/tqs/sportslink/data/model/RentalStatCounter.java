@@ -0,0 +1,28 @@
+package tqs.sportslink.data.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Materialized number of rentals for one key of an admin chart, kept current from rental events.
+ */
+@Entity
+@Table(name = "rental_stat_counters")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class RentalStatCounter {
+
+    @Id
+    @Column(length = 100)
+    private String id; // dimensão + ":" + chave, ex.: "SPORT:PADEL", "STATUS:CONFIRMED"
+
+    @Column(nullable = false)
+    private long rentals;
+}
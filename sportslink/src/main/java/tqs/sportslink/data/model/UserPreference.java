@@ -0,0 +1,75 @@
+package tqs.sportslink.data.model;
+
+import jakarta.persistence.*;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Precomputed booking preferences of a user, kept up to date as rentals are created or cancelled.
+ * Suggestions read this single row instead of the user's whole rental history.
+ */
+@Entity
+@Table(name = "user_preferences")
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(of = "userId")
+public class UserPreference implements Persistable<Long> {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(length = 100)
+    private String favouriteCity;
+
+    @Column(nullable = false, length = 300)
+    private String sportCounts = ""; // "FOOTBALL:3,TENNIS:1"
+
+    @Column(nullable = false, length = 4000)
+    private String visitedFacilities = ""; // "10:2,14:1" (facilityId:reservas não canceladas, só as mais reservadas)
+
+    @Column
+    private Double lastLatitude; // Facility da última reserva
+
+    @Column
+    private Double lastLongitude;
+
+    @Column
+    private LocalDateTime rebuiltAt; // Última reconstrução a partir do histórico
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // O id é o do user: sem isto o save() faria merge e duas criações concorrentes não colidiriam
+    @Transient
+    private boolean newRecord = true;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        newRecord = false;
+    }
+
+    @Override
+    public Long getId() {
+        return userId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRecord;
+    }
+
+}
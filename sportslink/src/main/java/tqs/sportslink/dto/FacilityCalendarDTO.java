@@ -0,0 +1,18 @@
+package tqs.sportslink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacilityCalendarDTO {
+    private Long facilityId;
+    private LocalDate from;
+    private int days;
+    private List<FreeIntervalDTO> freeIntervals; // Sorted by start, within opening hours
+}
@@ -0,0 +1,19 @@
+package tqs.sportslink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacilityOccupancyDTO {
+    private Long facilityId;
+    private LocalDate from; // First day covered; the window ends today
+    private int weeks;
+    private int[][] hourOfWeek; // [day of week, Monday first][hour] -> bookings starting then
+    private int[] daily; // Bookings per day from 'from' to today
+    private int[] weekly; // Bookings per ISO week, oldest first, current week last
+}
@@ -0,0 +1,15 @@
+package tqs.sportslink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacilityPageDTO {
+    private List<FacilityResponseDTO> items;
+    private String nextCursor; // null when there are no more results
+}
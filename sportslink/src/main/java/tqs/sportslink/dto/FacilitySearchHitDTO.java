@@ -0,0 +1,15 @@
+package tqs.sportslink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacilitySearchHitDTO {
+    private Long id;
+    private String name;
+    private String city;
+    private String address;
+}
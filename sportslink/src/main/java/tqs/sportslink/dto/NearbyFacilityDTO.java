@@ -0,0 +1,24 @@
+package tqs.sportslink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+import tqs.sportslink.data.model.Sport;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyFacilityDTO {
+    private Long id;
+    private String name;
+    private String imageUrl;
+    private List<Sport> sports;
+    private String city;
+    private String address;
+    private Double pricePerHour;
+    private Double rating;
+    private Double distanceKm; // Distance from the search point in kilometers
+}
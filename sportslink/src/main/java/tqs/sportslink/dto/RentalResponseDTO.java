@@ -20,4 +20,5 @@ public class RentalResponseDTO {
     private LocalDateTime endTime;
     private String status;
     private List<String> equipments; // Nomes dos equipamentos
+    private LocalDateTime holdExpiresAt; // Só em rentals HELD
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package tqs.sportslink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalSeriesOccurrenceDTO {
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private String status; // BOOKED, CONFLICT
+    private Long rentalId; // null when not booked
+}
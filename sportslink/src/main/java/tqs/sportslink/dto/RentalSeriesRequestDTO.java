@@ -0,0 +1,26 @@
+package tqs.sportslink.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalSeriesRequestDTO {
+    @NotNull
+    private Long userId;
+    @NotNull
+    private Long facilityId;
+    @NotNull
+    private LocalDateTime startTime; // Primeira ocorrência
+    @NotNull
+    private LocalDateTime endTime;
+    @NotNull
+    private Integer weeks; // Número de ocorrências semanais, incluindo a primeira
+}
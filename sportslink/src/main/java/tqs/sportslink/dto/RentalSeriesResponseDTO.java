@@ -0,0 +1,17 @@
+package tqs.sportslink.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalSeriesResponseDTO {
+    private Long facilityId;
+    private int booked;
+    private int conflicts;
+    private List<RentalSeriesOccurrenceDTO> occurrences; // One per week, in order
+}
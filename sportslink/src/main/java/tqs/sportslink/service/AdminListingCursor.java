@@ -0,0 +1,25 @@
+package tqs.sportslink.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in an admin listing: id of the last row returned.
+ * Sent to clients as an opaque URL-safe token.
+ */
+public record AdminListingCursor(long id) {
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static AdminListingCursor decode(String token) {
+        try {
+            return new AdminListingCursor(
+                    Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
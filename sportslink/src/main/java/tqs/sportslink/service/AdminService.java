@@ -1,12 +1,25 @@
 package tqs.sportslink.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.sportslink.data.AdminListingRepository;
+import tqs.sportslink.data.AdminListingRepository.FacilityFilter;
+import tqs.sportslink.data.AdminListingRepository.FacilityRow;
+import tqs.sportslink.data.AdminListingRepository.RentalFilter;
+import tqs.sportslink.data.AdminListingRepository.RentalRow;
+import tqs.sportslink.data.AdminListingRepository.UserFilter;
+import tqs.sportslink.data.AdminListingRepository.UserRow;
+import tqs.sportslink.data.EquipmentReservationRepository;
 import tqs.sportslink.data.FacilityRepository;
 import tqs.sportslink.data.RentalRepository;
 import tqs.sportslink.data.UserRepository;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.dto.AdminPageDTO;
 
 
 import org.springframework.security.core.Authentication;
@@ -15,24 +28,41 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 @Service
 public class AdminService {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminService.class);
 
+    static final int MAX_PAGE_SIZE = 100;
+
     private final UserRepository userRepository;
     private final FacilityRepository facilityRepository;
     private final RentalRepository rentalRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EquipmentReservationRepository equipmentReservationRepository;
+    private final RentalStats rentalStats;
+    private final AdminListingRepository listingRepository;
+    private final TransactionTemplate transactionTemplate;
 
     public AdminService(UserRepository userRepository, FacilityRepository facilityRepository,
-            RentalRepository rentalRepository) {
+            RentalRepository rentalRepository, ApplicationEventPublisher eventPublisher,
+            EquipmentReservationRepository equipmentReservationRepository, RentalStats rentalStats,
+            AdminListingRepository listingRepository, PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.facilityRepository = facilityRepository;
         this.rentalRepository = rentalRepository;
+        this.eventPublisher = eventPublisher;
+        this.equipmentReservationRepository = equipmentReservationRepository;
+        this.rentalStats = rentalStats;
+        this.listingRepository = listingRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
 
@@ -41,6 +71,25 @@ public class AdminService {
     }
 
 
+    /**
+     * One page of users by id, keyset-paginated; cursor is the nextCursor of the previous page.
+     */
+    public AdminPageDTO<UserRow> getUsersPage(UserFilter filter, String cursor, int limit) {
+        checkLimit(limit);
+        List<UserRow> rows = listingRepository.findUsers(filter, after(cursor), limit + 1);
+        return page(rows, limit, UserRow::id);
+    }
+
+
+    /**
+     * Every user matching the filter, handed to the sink one at a time from a database cursor.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(UserFilter filter, Consumer<UserRow> sink) {
+        listingRepository.streamUsers(filter, sink);
+    }
+
+
     public User updateUserStatus(Long id, boolean active) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
@@ -69,9 +118,23 @@ public class AdminService {
     }
 
 
+    public AdminPageDTO<FacilityRow> getFacilitiesPage(FacilityFilter filter, String cursor, int limit) {
+        checkLimit(limit);
+        List<FacilityRow> rows = listingRepository.findFacilities(filter, after(cursor), limit + 1);
+        return page(rows, limit, FacilityRow::id);
+    }
+
+
+    @Transactional(readOnly = true)
+    public void exportFacilities(FacilityFilter filter, Consumer<FacilityRow> sink) {
+        listingRepository.streamFacilities(filter, sink);
+    }
+
+
     public void deleteFacility(Long id) {
         logger.info("Admin deleting facility with id={}", id);
         facilityRepository.deleteById(id);
+        eventPublisher.publishEvent(new FacilityChangedEvent(id));
     }
 
 
@@ -89,35 +152,26 @@ public class AdminService {
     }
 
 
-    public Map<String, Long> getRentalsBySport() {
-        List<Rental> rentals = rentalRepository.findAll();
-        Map<String, Long> stats = new HashMap<>();
+    public AdminPageDTO<RentalRow> getRentalsPage(RentalFilter filter, String cursor, int limit) {
+        checkLimit(limit);
+        List<RentalRow> rows = listingRepository.findRentals(filter, after(cursor), limit + 1);
+        return page(rows, limit, RentalRow::id);
+    }
 
-        for (Rental rental : rentals) {
-            String sportName = "Unknown";
-            Facility facility = rental.getFacility();
 
-            // If facility has sports, use the first one as primary, or count for all?
-            // For simplicity and chart clarity, let's pick the first one or "Mixed"
-            if (facility != null && facility.getSports() != null && !facility.getSports().isEmpty()) {
-                sportName = facility.getSports().get(0).name();
-            }
+    @Transactional(readOnly = true)
+    public void exportRentals(RentalFilter filter, Consumer<RentalRow> sink) {
+        listingRepository.streamRentals(filter, sink);
+    }
 
-            stats.put(sportName, stats.getOrDefault(sportName, 0L) + 1);
-        }
-        return stats;
+
+    public Map<String, Long> getRentalsBySport() {
+        return rentalStats.rentalsBySport();
     }
 
 
     public Map<String, Long> getRentalsByStatus() {
-        List<Rental> rentals = rentalRepository.findAll();
-        Map<String, Long> stats = new HashMap<>();
-
-        for (Rental rental : rentals) {
-            String status = rental.getStatus();
-            stats.put(status, stats.getOrDefault(status, 0L) + 1);
-        }
-        return stats;
+        return rentalStats.rentalsByStatus();
     }
 
 
@@ -136,8 +190,44 @@ public class AdminService {
     public Rental cancelRental(Long id) {
         Rental rental = rentalRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Rental not found"));
+        String previousStatus = rental.getStatus();
+        // Update condicional sobre o estado lido, como em RentalService: não reescreve um hold pago ou expirado
+        boolean cancelled = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (rentalRepository.cancelIfStatus(id, previousStatus, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            equipmentReservationRepository.deleteByRentalId(id);
+            return true;
+        }));
+        if (!cancelled) {
+            throw new IllegalStateException("Rental changed while it was being cancelled, please retry");
+        }
         rental.setStatus("CANCELLED");
+        rental.setHoldExpiresAt(null);
         logger.info("Admin cancelled rental id={}", id);
-        return rentalRepository.save(rental);
+        eventPublisher.publishEvent(RentalChangedEvent.cancelled(rental));
+        if (!"CANCELLED".equals(previousStatus)) {
+            eventPublisher.publishEvent(RentalStatusChangedEvent.transition(previousStatus, "CANCELLED", 1));
+        }
+        return rental;
+    }
+
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private static long after(String cursor) {
+        return cursor != null && !cursor.isEmpty() ? AdminListingCursor.decode(cursor).id() : 0L;
+    }
+
+    // A query pede uma linha a mais só para saber se existe página seguinte
+    private static <T> AdminPageDTO<T> page(List<T> rows, int limit, ToLongFunction<T> id) {
+        boolean hasMore = rows.size() > limit;
+        List<T> items = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? new AdminListingCursor(id.applyAsLong(items.get(limit - 1))).encode() : null;
+        return new AdminPageDTO<>(items, nextCursor);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package tqs.sportslink.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Serialises booking admission (conflict check + insert) per facility.
+ *
+ * Inside the node a facility maps to one of a fixed set of lock stripes, so bookings for
+ * different facilities only contend when they share a stripe. Across nodes, on PostgreSQL,
+ * the work runs in a transaction holding pg_advisory_xact_lock for the facility, which is
+ * released by the commit. The stripe is held until the commit, so the next request for the
+ * same facility always sees the previous booking.
+ */
+@Component
+public class BookingAdmission {
+
+    // Primeiro argumento do advisory lock: separa estes locks de outros que a aplicação venha a usar
+    static final int ADVISORY_LOCK_NAMESPACE = 0x534C4B31;
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    // Resolvido na primeira reserva para não abrir ligações durante o arranque
+    private volatile Boolean postgres;
+
+    public BookingAdmission(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+            @Value("${sportslink.booking.lock-stripes:64}") int stripeCount,
+            @Value("${sportslink.booking.lock-timeout-ms:5000}") long timeoutMillis) {
+        if (stripeCount < 1 || Integer.bitCount(stripeCount) != 1 || timeoutMillis < 0) {
+            throw new IllegalArgumentException("Invalid booking lock configuration");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Runs action in its own transaction while holding the facility's admission lock.
+     * Throws IllegalStateException when the lock cannot be taken within the timeout.
+     */
+    public <T> T admit(Long facilityId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeOf(facilityId)];
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Facility is busy, please try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for facility lock", e);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                if (isPostgres()) {
+                    jdbcTemplate.query("SELECT pg_advisory_xact_lock(?, ?)", (ResultSetExtractor<Void>) rs -> null,
+                            ADVISORY_LOCK_NAMESPACE, advisoryKey(facilityId));
+                }
+                return action.get();
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeOf(Long facilityId) {
+        // Ids são sequenciais: os bits baixos já distribuem facilities consecutivas por stripes diferentes
+        return Long.hashCode(facilityId) & (stripes.length - 1);
+    }
+
+    private static int advisoryKey(Long facilityId) {
+        return Long.hashCode(facilityId);
+    }
+
+    private boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+            postgres = result;
+        }
+        return Boolean.TRUE.equals(result);
+    }
+}
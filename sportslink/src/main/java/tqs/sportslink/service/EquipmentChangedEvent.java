@@ -0,0 +1,8 @@
+package tqs.sportslink.service;
+
+/**
+ * Published after an owner adds or edits equipment. Listeners reload the
+ * facility's equipment by facility id.
+ */
+public record EquipmentChangedEvent(Long facilityId) {
+}
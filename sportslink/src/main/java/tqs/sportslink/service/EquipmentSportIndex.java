@@ -0,0 +1,112 @@
+package tqs.sportslink.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.EquipmentRepository;
+import tqs.sportslink.data.model.Equipment;
+import tqs.sportslink.data.model.Sport;
+
+/**
+ * AVAILABLE equipment of each facility, indexed by sport: an {@code EnumMap<Sport, int[]>}
+ * of equipment ids per facility, sorted by id.
+ *
+ * Loaded at startup in one query and reloaded per facility on {@link EquipmentChangedEvent}
+ * and {@link FacilityChangedEvent}; a facility's index is immutable and swapped whole.
+ */
+@Component
+public class EquipmentSportIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(EquipmentSportIndex.class);
+
+    private final EquipmentRepository equipmentRepository;
+
+    private final Map<Long, FacilityEquipment> byFacility = new ConcurrentHashMap<>();
+
+    public EquipmentSportIndex(EquipmentRepository equipmentRepository) {
+        this.equipmentRepository = equipmentRepository;
+    }
+
+    /**
+     * The fields of an equipment the suggestions show.
+     */
+    public record Item(int id, String name, String type, Double pricePerHour, Integer quantity) {
+    }
+
+    private record FacilityEquipment(Map<Integer, Item> items, EnumMap<Sport, int[]> bySport) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        Map<Long, FacilityEquipment> built = new HashMap<>();
+        equipmentRepository.findAvailableWithSports().stream()
+                .collect(Collectors.groupingBy(e -> e.getFacility().getId()))
+                .forEach((facilityId, equipments) -> built.put(facilityId, index(equipments)));
+        byFacility.keySet().retainAll(built.keySet());
+        byFacility.putAll(built);
+        logger.info("Equipment index rebuilt for {} facilities", built.size());
+    }
+
+    @EventListener
+    public void onEquipmentChanged(EquipmentChangedEvent event) {
+        refresh(event.facilityId());
+    }
+
+    @EventListener
+    public void onFacilityChanged(FacilityChangedEvent event) {
+        refresh(event.facilityId());
+    }
+
+    public synchronized void refresh(Long facilityId) {
+        List<Equipment> available = equipmentRepository.findAvailableWithSportsByFacilityId(facilityId);
+        if (available.isEmpty()) {
+            byFacility.remove(facilityId);
+        } else {
+            byFacility.put(facilityId, index(available));
+        }
+    }
+
+    /**
+     * AVAILABLE equipment of the facility for the sport, by id.
+     */
+    public List<Item> available(Long facilityId, Sport sport) {
+        FacilityEquipment equipment = byFacility.get(facilityId);
+        int[] ids = equipment != null ? equipment.bySport().get(sport) : null;
+        if (ids == null) {
+            return List.of();
+        }
+        List<Item> items = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            items.add(equipment.items().get(id));
+        }
+        return items;
+    }
+
+    private static FacilityEquipment index(List<Equipment> equipments) {
+        Map<Integer, Item> items = new HashMap<>();
+        Map<Sport, List<Integer>> ids = new EnumMap<>(Sport.class);
+        for (Equipment equipment : equipments) {
+            int id = Math.toIntExact(equipment.getId());
+            items.put(id, new Item(id, equipment.getName(), equipment.getType(), equipment.getPricePerHour(),
+                    equipment.getQuantity()));
+            for (Sport sport : equipment.getSports()) {
+                ids.computeIfAbsent(sport, key -> new ArrayList<>()).add(id);
+            }
+        }
+        EnumMap<Sport, int[]> bySport = new EnumMap<>(Sport.class);
+        ids.forEach((sport, list) -> bySport.put(sport,
+                list.stream().mapToInt(Integer::intValue).distinct().sorted().toArray()));
+        return new FacilityEquipment(Map.copyOf(items), bySport);
+    }
+}
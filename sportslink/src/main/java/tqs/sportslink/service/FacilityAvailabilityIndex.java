@@ -0,0 +1,188 @@
+package tqs.sportslink.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookedSlot;
+
+/**
+ * In-memory index of booked 30-minute slots per facility over the booking horizon.
+ *
+ * Each day is a single long where bit i is set when slot i (i * 30 minutes after
+ * midnight) overlaps a non-cancelled rental, so availability checks are plain
+ * mask operations. A slot partially covered by a rental counts as booked.
+ */
+@Component
+public class FacilityAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacilityAvailabilityIndex.class);
+
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    // Hoje + 30 dias de antecedência máxima + margem para rentals que terminam no dia seguinte
+    static final int HORIZON_DAYS = 32;
+
+    private final RentalRepository rentalRepository;
+
+    // Trocado de uma vez no rebuild para que o dia base e os bits nunca fiquem desalinhados
+    private volatile Horizon horizon = new Horizon(LocalDate.now(), new ConcurrentHashMap<>());
+
+    public FacilityAvailabilityIndex(RentalRepository rentalRepository) {
+        this.rentalRepository = rentalRepository;
+    }
+
+    /**
+     * Reload the whole index from the database. Runs at startup and every
+     * night so the horizon keeps moving forward.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 0 * * *")
+    public synchronized void rebuild() {
+        LocalDate today = LocalDate.now();
+        List<BookedSlot> slots = rentalRepository.findBookedSlotsBetween(
+                today.atStartOfDay(), today.plusDays(HORIZON_DAYS).atStartOfDay());
+
+        Map<Long, long[]> rebuilt = new ConcurrentHashMap<>();
+        for (BookedSlot slot : slots) {
+            long[] days = rebuilt.computeIfAbsent(slot.getFacilityId(), id -> new long[HORIZON_DAYS]);
+            setRange(days, today, slot.getStartTime(), slot.getEndTime());
+        }
+
+        horizon = new Horizon(today, rebuilt);
+        logger.info("Availability index rebuilt: {} booked intervals across {} facilities", slots.size(),
+                rebuilt.size());
+    }
+
+    /**
+     * Runs before the listeners that cache search results derived from the index.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRentalChanged(RentalChangedEvent event) {
+        if (event.facilityId() == null) {
+            return;
+        }
+        if (event.kind() == RentalChangedEvent.Kind.CREATED) {
+            markBooked(event.facilityId(), event.startTime(), event.endTime());
+        } else {
+            // Libertar bits diretamente podia apagar um slot partilhado com outro rental
+            reloadFacility(event.facilityId());
+        }
+    }
+
+    public synchronized void markBooked(Long facilityId, LocalDateTime start, LocalDateTime end) {
+        Horizon current = horizon;
+        // Copy-on-write: leitores nunca veem um array a meio de ser alterado
+        current.slots().compute(facilityId, (id, days) -> {
+            long[] copy = days != null ? days.clone() : new long[HORIZON_DAYS];
+            setRange(copy, current.firstDay(), start, end);
+            return copy;
+        });
+    }
+
+    public synchronized void reloadFacility(Long facilityId) {
+        Horizon current = horizon;
+        List<BookedSlot> slots = rentalRepository.findBookedSlotsByFacilityIdBetween(
+                facilityId, current.start(), current.end());
+
+        long[] days = new long[HORIZON_DAYS];
+        for (BookedSlot slot : slots) {
+            setRange(days, current.firstDay(), slot.getStartTime(), slot.getEndTime());
+        }
+        current.slots().put(facilityId, days);
+    }
+
+    /**
+     * Whether [from, to) lies inside the indexed horizon.
+     */
+    public boolean covers(LocalDateTime from, LocalDateTime to) {
+        Horizon current = horizon;
+        return !from.isBefore(current.start()) && !to.isAfter(current.end());
+    }
+
+    /**
+     * Whether a slot of the given length can be booked somewhere in [windowStart, windowEnd),
+     * trying start times in 30-minute steps. Callers must check {@link #covers} first.
+     */
+    public boolean hasFreeSlot(Long facilityId, LocalDateTime windowStart, LocalDateTime windowEnd,
+            int slotLengthMinutes) {
+        Horizon current = horizon;
+        long[] days = current.slots().get(facilityId);
+        if (days == null) {
+            return !windowStart.plusMinutes(slotLengthMinutes).isAfter(windowEnd);
+        }
+
+        LocalDate day = current.firstDay();
+        LocalDateTime candidate = windowStart;
+        while (!candidate.plusMinutes(slotLengthMinutes).isAfter(windowEnd)) {
+            int from = slotFloor(day, candidate);
+            int to = slotCeil(day, candidate.plusMinutes(slotLengthMinutes));
+            if (isRangeFree(days, from, to)) {
+                return true;
+            }
+            candidate = candidate.plusMinutes(SLOT_MINUTES);
+        }
+        return false;
+    }
+
+    private record Horizon(LocalDate firstDay, Map<Long, long[]> slots) {
+
+        LocalDateTime start() {
+            return firstDay.atStartOfDay();
+        }
+
+        LocalDateTime end() {
+            return firstDay.plusDays(HORIZON_DAYS).atStartOfDay();
+        }
+    }
+
+    private static void setRange(long[] days, LocalDate firstDay, LocalDateTime start, LocalDateTime end) {
+        int limit = days.length * SLOTS_PER_DAY;
+        int from = Math.max(0, slotFloor(firstDay, start));
+        int to = Math.min(limit, slotCeil(firstDay, end));
+        for (int d = from / SLOTS_PER_DAY; from < to; d++) {
+            int dayEnd = Math.min(to, (d + 1) * SLOTS_PER_DAY);
+            days[d] |= mask(from - d * SLOTS_PER_DAY, dayEnd - d * SLOTS_PER_DAY);
+            from = dayEnd;
+        }
+    }
+
+    private static boolean isRangeFree(long[] days, int from, int to) {
+        for (int d = from / SLOTS_PER_DAY; from < to; d++) {
+            int dayEnd = Math.min(to, (d + 1) * SLOTS_PER_DAY);
+            if ((days[d] & mask(from - d * SLOTS_PER_DAY, dayEnd - d * SLOTS_PER_DAY)) != 0) {
+                return false;
+            }
+            from = dayEnd;
+        }
+        return true;
+    }
+
+    // Bits [lo, hi) de um dia (hi <= 48, portanto nunca transborda)
+    private static long mask(int lo, int hi) {
+        return ((1L << (hi - lo)) - 1) << lo;
+    }
+
+    private static int slotFloor(LocalDate firstDay, LocalDateTime time) {
+        return (int) Math.floorDiv(ChronoUnit.MINUTES.between(firstDay.atStartOfDay(), time), SLOT_MINUTES);
+    }
+
+    private static int slotCeil(LocalDate firstDay, LocalDateTime time) {
+        return (int) -Math.floorDiv(-ChronoUnit.MINUTES.between(firstDay.atStartOfDay(), time), SLOT_MINUTES);
+    }
+}
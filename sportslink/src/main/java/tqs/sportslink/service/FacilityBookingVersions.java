@@ -0,0 +1,38 @@
+package tqs.sportslink.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookingVersion;
+
+/**
+ * Version of a facility's bookings, used to build validators (ETags) for
+ * responses derived from them.
+ *
+ * It is read from the rentals table (how many rentals the facility has and
+ * when one of them last changed), so every node hands out the same version for
+ * the same bookings. Every change to a rental, bulk updates included, sets its
+ * updated_at.
+ */
+@Component
+public class FacilityBookingVersions {
+
+    private final RentalRepository rentalRepository;
+
+    public FacilityBookingVersions(RentalRepository rentalRepository) {
+        this.rentalRepository = rentalRepository;
+    }
+
+    public String version(Long facilityId) {
+        BookingVersion version = rentalRepository.findBookingVersion(facilityId);
+        LocalDateTime lastChange = version.getLastChange();
+        // Microssegundos: a precisão com que o PostgreSQL guarda o timestamp
+        long micros = lastChange != null
+                ? lastChange.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastChange.getNano() / 1_000
+                : 0;
+        return Long.toString(version.getRentals(), 36) + "." + Long.toString(micros, 36);
+    }
+}
@@ -0,0 +1,121 @@
+package tqs.sportslink.service;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
+
+/**
+ * Immutable, versioned read model of the ACTIVE facilities.
+ *
+ * Readers take {@link #snapshot()} once and work on plain records, so catalogue reads
+ * cost no SQL and no persistence context. Owner/admin writes publish a
+ * {@link FacilityChangedEvent} and the affected entry is swapped in copy-on-write.
+ */
+@Component
+public class FacilityCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacilityCatalog.class);
+
+    private final FacilityRepository facilityRepository;
+
+    private volatile Snapshot snapshot = Snapshot.of(0, List.of());
+
+    public FacilityCatalog(FacilityRepository facilityRepository) {
+        this.facilityRepository = facilityRepository;
+    }
+
+    /**
+     * Read-only view of an active facility.
+     */
+    public record Entry(Long id, String name, String imageUrl, List<Sport> sports, String city, String address,
+            String description, Double latitude, Double longitude, Double pricePerHour, Double rating,
+            LocalTime openingTime, LocalTime closingTime, LocalDateTime updatedAt) {
+
+        public static Entry from(Facility facility) {
+            List<Sport> sports = facility.getSports() != null ? List.copyOf(facility.getSports()) : List.of();
+            return new Entry(facility.getId(), facility.getName(), facility.getImageUrl(), sports,
+                    facility.getCity(), facility.getAddress(), facility.getDescription(), facility.getLatitude(),
+                    facility.getLongitude(), facility.getPricePerHour(), facility.getRating(),
+                    facility.getOpeningTime(), facility.getClosingTime(), facility.getUpdatedAt());
+        }
+
+        public boolean offers(Sport sport) {
+            return sports.contains(sport);
+        }
+    }
+
+    /**
+     * A consistent set of entries, sorted by id. Never modified after creation.
+     */
+    public record Snapshot(long version, List<Entry> facilities, Map<Long, Entry> byId) {
+
+        public static Snapshot of(long version, Collection<Facility> source) {
+            List<Entry> entries = source.stream()
+                    .filter(f -> "ACTIVE".equals(f.getStatus()))
+                    .map(Entry::from)
+                    .sorted(Comparator.comparing(Entry::id))
+                    .toList();
+            return fromEntries(version, entries);
+        }
+
+        private static Snapshot fromEntries(long version, List<Entry> entries) {
+            Map<Long, Entry> byId = new HashMap<>(entries.size() * 2);
+            entries.forEach(e -> byId.put(e.id(), e));
+            return new Snapshot(version, entries, Map.copyOf(byId));
+        }
+
+        public Optional<Entry> find(Long id) {
+            return Optional.ofNullable(byId.get(id));
+        }
+
+        Snapshot replacing(Long id, Entry entry) {
+            List<Entry> entries = new ArrayList<>(facilities.size() + 1);
+            for (Entry e : facilities) {
+                if (!e.id().equals(id)) {
+                    entries.add(e);
+                }
+            }
+            if (entry != null) {
+                entries.add(entry);
+                entries.sort(Comparator.comparing(Entry::id));
+            }
+            return fromEntries(version + 1, List.copyOf(entries));
+        }
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        snapshot = Snapshot.of(snapshot.version() + 1, facilityRepository.findActiveWithSports());
+        logger.info("Facility catalogue v{} loaded with {} active facilities", snapshot.version(),
+                snapshot.facilities().size());
+    }
+
+    @EventListener
+    public synchronized void onFacilityChanged(FacilityChangedEvent event) {
+        Entry entry = facilityRepository.findWithSportsById(event.facilityId())
+                .filter(f -> "ACTIVE".equals(f.getStatus()))
+                .map(Entry::from)
+                .orElse(null);
+        snapshot = snapshot.replacing(event.facilityId(), entry);
+    }
+}
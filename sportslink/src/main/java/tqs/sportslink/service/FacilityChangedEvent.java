@@ -0,0 +1,9 @@
+package tqs.sportslink.service;
+
+/**
+ * Published after an owner or admin creates, edits or deletes a facility.
+ * Listeners reload the facility by id, so a missing or non-ACTIVE facility
+ * means it left the catalogue.
+ */
+public record FacilityChangedEvent(Long facilityId) {
+}
@@ -0,0 +1,396 @@
+package tqs.sportslink.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import tqs.sportslink.data.UserPreferenceRepository;
+
+/**
+ * "People who booked X also booked Y": a sparse facility x facility matrix where cell (X, Y)
+ * counts the users with non-cancelled bookings at both X and Y, plus the number of users per
+ * facility on the diagonal.
+ *
+ * It follows {@link FacilityVisitsChangedEvent}s, so a booking only touches the rows of the
+ * facilities that user visited. The matrix is written to a snapshot file periodically and on
+ * shutdown, together with the row count and latest updated_at of user_preferences, and read
+ * back at startup only if the table still has both; otherwise it is built from that table.
+ * It is also rebuilt periodically, picking up bookings made through other nodes. A lookup
+ * reads the rows of the user's own facilities only.
+ */
+@Component
+public class FacilityCoOccurrence {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacilityCoOccurrence.class);
+
+    // Uma só reserva partilhada ainda é ruído
+    static final int MIN_SUPPORT = 2;
+
+    private static final int SNAPSHOT_MAGIC = 0x53_4C_43_4F; // "SLCO"
+    private static final int SNAPSHOT_FORMAT = 2;
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final UserPreferenceRepository preferenceRepository;
+    private final Path snapshotPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Matrix matrix = new Matrix();
+    private long changes;
+    private long snapshotChanges;
+
+    public FacilityCoOccurrence(UserPreferenceRepository preferenceRepository,
+            @Value("${sportslink.cooccurrence.snapshot-path:}") String snapshotPath) {
+        this.preferenceRepository = preferenceRepository;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (snapshotPath != null && Files.isReadable(snapshotPath)) {
+            try {
+                Matrix loaded = Matrix.read(snapshotPath);
+                // Alguma preferência mudou depois do snapshot (neste ou noutro nó) ou a base de dados foi recriada
+                if (loaded.watermark.equals(watermark())) {
+                    replace(loaded, false);
+                    logger.info("Facility co-occurrence loaded from {} ({} facilities)", snapshotPath,
+                            loaded.rows);
+                    return;
+                }
+                logger.info("Co-occurrence snapshot {} is out of date, rebuilding", snapshotPath);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Unusable co-occurrence snapshot {}, rebuilding: {}", snapshotPath, e.getMessage());
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Builds the matrix from every user's visited facilities, a page of rows at a time.
+     */
+    public void rebuild() {
+        Matrix built = new Matrix();
+        long afterUserId = 0;
+        int users = 0;
+        List<UserPreferenceRepository.VisitedFacilities> page;
+        do {
+            page = preferenceRepository.findVisitedPage(afterUserId, Limit.of(REBUILD_PAGE_SIZE));
+            for (UserPreferenceRepository.VisitedFacilities row : page) {
+                built.change(Set.of(), UserPreferenceProfile.visitedIn(row.getVisitedFacilities()));
+                afterUserId = row.getUserId();
+                users++;
+            }
+        } while (page.size() == REBUILD_PAGE_SIZE);
+        replace(built, true);
+        logger.info("Facility co-occurrence built from {} users ({} facilities)", users, built.rows);
+    }
+
+    /**
+     * Rebuild periodically. A change committed while a rebuild pages through the table can be
+     * missed or counted twice; the next rebuild corrects it.
+     */
+    @Scheduled(fixedDelayString = "${sportslink.cooccurrence.rebuild-ms:3600000}",
+            initialDelayString = "${sportslink.cooccurrence.rebuild-ms:3600000}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    @EventListener
+    public void onVisitsChanged(FacilityVisitsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            matrix.change(event.before(), event.after());
+            changes++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Similarity in [0, 1] of each facility to the given visited ones: the cosine of their user
+     * sets, taking the best visited facility. Visited facilities themselves are left out.
+     */
+    public Map<Long, Double> affinities(Collection<Long> visited) {
+        Map<Long, Double> affinities = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long from : visited) {
+                int row = matrix.rowOf(from);
+                if (row < 0) {
+                    continue;
+                }
+                long[] columns = matrix.columns[row];
+                int[] counts = matrix.counts[row];
+                for (int i = 0; i < matrix.sizes[row]; i++) {
+                    if (counts[i] < MIN_SUPPORT || visited.contains(columns[i])) {
+                        continue;
+                    }
+                    int other = matrix.rowOf(columns[i]);
+                    double similarity = counts[i] / Math.sqrt((double) matrix.users[row] * matrix.users[other]);
+                    affinities.merge(columns[i], similarity, Math::max);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return affinities;
+    }
+
+    /**
+     * Users who booked both facilities; for a == b, the users who booked a.
+     */
+    public int count(long a, long b) {
+        lock.readLock().lock();
+        try {
+            return matrix.get(a, b);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${sportslink.cooccurrence.snapshot-interval-ms:600000}",
+            initialDelayString = "${sportslink.cooccurrence.snapshot-interval-ms:600000}")
+    @PreDestroy
+    public synchronized void snapshot() {
+        if (snapshotPath == null || !changedSinceSnapshot()) {
+            return;
+        }
+        try {
+            // Lida antes da matriz: o que chegar entretanto só a torna mais nova que a marca e força um rebuild
+            Watermark watermark = watermark();
+            lock.readLock().lock();
+            try {
+                matrix.write(snapshotPath, watermark);
+                snapshotChanges = changes;
+            } finally {
+                lock.readLock().unlock();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write co-occurrence snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    private boolean changedSinceSnapshot() {
+        lock.readLock().lock();
+        try {
+            return changes != snapshotChanges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Watermark watermark() {
+        UserPreferenceRepository.Watermark row = preferenceRepository.findWatermark();
+        LocalDateTime lastChange = row.getLastChange();
+        // Microssegundos: a precisão com que o PostgreSQL guarda o timestamp
+        long micros = lastChange != null
+                ? lastChange.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + lastChange.getNano() / 1_000
+                : 0;
+        return new Watermark(row.getPreferences(), micros);
+    }
+
+    private void replace(Matrix replacement, boolean dirty) {
+        lock.writeLock().lock();
+        try {
+            matrix = replacement;
+            changes++;
+            snapshotChanges = dirty ? changes - 1 : changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * State of user_preferences a snapshot was written against.
+     */
+    record Watermark(long preferences, long lastChangeMicros) {
+    }
+
+    /**
+     * Row per facility, each a sorted array of column ids with a parallel array of counts.
+     * Not thread-safe: guarded by the component's lock.
+     */
+    static final class Matrix {
+        private final Map<Long, Integer> rowIndex = new HashMap<>();
+        long[] facilityIds = new long[16];
+        int[] users = new int[16];
+        long[][] columns = new long[16][];
+        int[][] counts = new int[16][];
+        int[] sizes = new int[16];
+        int rows;
+        long visitors; // users com pelo menos uma facility
+        Watermark watermark; // só num snapshot lido
+
+        int rowOf(long facilityId) {
+            Integer row = rowIndex.get(facilityId);
+            return row != null ? row : -1;
+        }
+
+        int get(long a, long b) {
+            int row = rowOf(a);
+            if (row < 0) {
+                return 0;
+            }
+            if (a == b) {
+                return users[row];
+            }
+            int i = Arrays.binarySearch(columns[row], 0, sizes[row], b);
+            return i >= 0 ? counts[row][i] : 0;
+        }
+
+        /**
+         * Replaces one user's contribution: removed facilities first, then added ones, each
+         * paired with the facilities the user still has at that point.
+         */
+        void change(Set<Long> before, Set<Long> after) {
+            if (before.isEmpty() != after.isEmpty()) {
+                visitors += before.isEmpty() ? 1 : -1;
+            }
+            Set<Long> current = new HashSet<>(before);
+            for (Long removed : before) {
+                if (!after.contains(removed)) {
+                    current.remove(removed);
+                    pairWith(removed, current, -1);
+                }
+            }
+            for (Long added : after) {
+                if (current.add(added)) {
+                    pairWith(added, current, 1);
+                }
+            }
+        }
+
+        private void pairWith(long facilityId, Set<Long> others, int delta) {
+            int row = row(facilityId);
+            users[row] = Math.max(0, users[row] + delta);
+            for (Long other : others) {
+                if (other != facilityId) {
+                    add(row, other, delta);
+                    add(row(other), facilityId, delta);
+                }
+            }
+        }
+
+        private int row(long facilityId) {
+            Integer row = rowIndex.get(facilityId);
+            if (row != null) {
+                return row;
+            }
+            if (rows == facilityIds.length) {
+                int capacity = rows * 2;
+                facilityIds = Arrays.copyOf(facilityIds, capacity);
+                users = Arrays.copyOf(users, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            facilityIds[rows] = facilityId;
+            columns[rows] = new long[4];
+            counts[rows] = new int[4];
+            rowIndex.put(facilityId, rows);
+            return rows++;
+        }
+
+        private void add(int row, long column, int delta) {
+            int size = sizes[row];
+            int i = Arrays.binarySearch(columns[row], 0, size, column);
+            if (i >= 0) {
+                counts[row][i] += delta;
+                if (counts[row][i] <= 0) {
+                    // Célula a zero sai da linha para a manter esparsa
+                    System.arraycopy(columns[row], i + 1, columns[row], i, size - i - 1);
+                    System.arraycopy(counts[row], i + 1, counts[row], i, size - i - 1);
+                    sizes[row] = size - 1;
+                }
+                return;
+            }
+            if (delta <= 0) {
+                return;
+            }
+            int at = -i - 1;
+            if (size == columns[row].length) {
+                columns[row] = Arrays.copyOf(columns[row], size * 2);
+                counts[row] = Arrays.copyOf(counts[row], size * 2);
+            }
+            System.arraycopy(columns[row], at, columns[row], at + 1, size - at);
+            System.arraycopy(counts[row], at, counts[row], at + 1, size - at);
+            columns[row][at] = column;
+            counts[row][at] = delta;
+            sizes[row] = size + 1;
+        }
+
+        void write(Path path, Watermark watermark) throws IOException {
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path tmp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_FORMAT);
+                out.writeLong(watermark.preferences());
+                out.writeLong(watermark.lastChangeMicros());
+                out.writeLong(visitors);
+                out.writeInt(rows);
+                for (int row = 0; row < rows; row++) {
+                    out.writeLong(facilityIds[row]);
+                    out.writeInt(users[row]);
+                    out.writeInt(sizes[row]);
+                    for (int i = 0; i < sizes[row]; i++) {
+                        out.writeLong(columns[row][i]);
+                        out.writeInt(counts[row][i]);
+                    }
+                }
+            }
+            // Quem lê nunca vê um ficheiro a meio
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        static Matrix read(Path path) throws IOException {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) {
+                    throw new IOException("not a co-occurrence snapshot");
+                }
+                Matrix matrix = new Matrix();
+                matrix.watermark = new Watermark(in.readLong(), in.readLong());
+                matrix.visitors = in.readLong();
+                int rows = in.readInt();
+                for (int r = 0; r < rows; r++) {
+                    int row = matrix.row(in.readLong());
+                    matrix.users[row] = in.readInt();
+                    int size = in.readInt();
+                    matrix.columns[row] = new long[Math.max(4, size)];
+                    matrix.counts[row] = new int[Math.max(4, size)];
+                    for (int i = 0; i < size; i++) {
+                        matrix.columns[row][i] = in.readLong();
+                        matrix.counts[row][i] = in.readInt();
+                    }
+                    matrix.sizes[row] = size;
+                }
+                return matrix;
+            }
+        }
+    }
+}
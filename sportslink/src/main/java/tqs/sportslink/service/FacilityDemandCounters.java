@@ -0,0 +1,288 @@
+package tqs.sportslink.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookedSlot;
+
+/**
+ * Rolling counts of non-cancelled bookings per facility, by the hour the booking starts.
+ *
+ * Each facility has rings of int counters indexed by absolute hour, day and ISO week
+ * (modulo the ring size) over a window of {@link #PAST_DAYS} days back and as many ahead,
+ * which covers the 30-day booking horizon. Rental events adjust the three rings together,
+ * so reads are sums over a fixed number of buckets whatever the number of rentals.
+ * The window moves forward every night by clearing the day that falls out of it and loading
+ * the day that enters it, whose bookings were made while it was still out of range.
+ *
+ * The counters only see the events of this node, so they are reloaded from the rentals
+ * table periodically; with several nodes each one converges within that interval.
+ */
+@Component
+public class FacilityDemandCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacilityDemandCounters.class);
+
+    public static final int PAST_DAYS = 35;
+    static final int WINDOW_DAYS = 2 * PAST_DAYS;
+    static final int RING_HOURS = WINDOW_DAYS * 24;
+    // A janela toca no máximo 11 semanas ISO; com 12 posições nunca há duas semanas vivas no mesmo bucket
+    static final int RING_WEEKS = WINDOW_DAYS / 7 + 2;
+
+    private final RentalRepository rentalRepository;
+
+    private volatile Window window = new Window(LocalDate.now().minusDays(PAST_DAYS), new ConcurrentHashMap<>());
+
+    public FacilityDemandCounters(RentalRepository rentalRepository) {
+        this.rentalRepository = rentalRepository;
+    }
+
+    private record Window(LocalDate firstDay, Map<Long, Series> series) {
+
+        boolean contains(LocalDate day) {
+            return !day.isBefore(firstDay) && day.isBefore(firstDay.plusDays(WINDOW_DAYS));
+        }
+    }
+
+    private static final class Series {
+        final int[] hourly = new int[RING_HOURS];
+        final int[] daily = new int[WINDOW_DAYS];
+        final int[] weekly = new int[RING_WEEKS];
+    }
+
+    /**
+     * Reload every counter from the rentals table. The new window is built without holding the
+     * lock, so rental events keep being applied to the current one, and only the swap is locked.
+     * An event that lands on the old window after the query, or on the new one for a rental the
+     * query already counted, leaves a counter off by one until the next reload.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        LocalDate firstDay = LocalDate.now().minusDays(PAST_DAYS);
+        Window rebuilt = new Window(firstDay, new ConcurrentHashMap<>());
+        List<BookedSlot> slots = rentalRepository.findBookedSlotsBetween(firstDay.atStartOfDay(),
+                firstDay.plusDays(WINDOW_DAYS).atStartOfDay());
+        for (BookedSlot slot : slots) {
+            add(rebuilt, slot.getFacilityId(), slot.getStartTime(), 1);
+        }
+        synchronized (this) {
+            // Um roll à meia-noite já avançou a janela: fica para o próximo reload
+            if (window.firstDay().isAfter(firstDay)) {
+                return;
+            }
+            window = rebuilt;
+        }
+        logger.info("Demand counters rebuilt from {} rentals across {} facilities", slots.size(),
+                rebuilt.series().size());
+    }
+
+    /**
+     * Reload periodically, picking up bookings made through other nodes.
+     */
+    @Scheduled(fixedDelayString = "${sportslink.demand-counters.reconcile-ms:900000}",
+            initialDelayString = "${sportslink.demand-counters.reconcile-ms:900000}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    /**
+     * Move the window to end {@link #PAST_DAYS} days after today, clearing the days left behind
+     * and loading the days that enter it from the rentals table.
+     */
+    @Scheduled(cron = "0 0 0 * * *")
+    public synchronized void roll() {
+        roll(LocalDate.now());
+    }
+
+    public synchronized void roll(LocalDate today) {
+        Window current = window;
+        LocalDate firstDay = today.minusDays(PAST_DAYS);
+        if (!firstDay.isAfter(current.firstDay())) {
+            return;
+        }
+        if (!current.contains(firstDay)) {
+            rebuild();
+            return;
+        }
+        for (LocalDate day = current.firstDay(); day.isBefore(firstDay); day = day.plusDays(1)) {
+            long epochDay = day.toEpochDay();
+            int d = dayIndex(epochDay);
+            int w = weekIndex(epochDay);
+            int h = hourIndex(epochDay, 0);
+            for (Series series : current.series().values()) {
+                // A semana fica só com os dias que ainda estão na janela
+                series.weekly[w] -= series.daily[d];
+                series.daily[d] = 0;
+                Arrays.fill(series.hourly, h, h + 24, 0);
+            }
+        }
+        Window rolled = new Window(firstDay, current.series());
+        // Reservas feitas quando estes dias ainda estavam fora da janela (ex.: séries recorrentes)
+        LocalDateTime from = current.firstDay().plusDays(WINDOW_DAYS).atStartOfDay();
+        LocalDateTime to = firstDay.plusDays(WINDOW_DAYS).atStartOfDay();
+        for (BookedSlot slot : rentalRepository.findBookedSlotsBetween(from, to)) {
+            // A consulta devolve sobreposições: só contam as que começam nos dias novos
+            if (!slot.getStartTime().isBefore(from)) {
+                add(rolled, slot.getFacilityId(), slot.getStartTime(), 1);
+            }
+        }
+        window = rolled;
+    }
+
+    @EventListener
+    public void onRentalChanged(RentalChangedEvent event) {
+        if (event.facilityId() == null) {
+            return;
+        }
+        switch (event.kind()) {
+            case CREATED -> add(event.facilityId(), event.startTime(), 1);
+            case CANCELLED -> add(event.facilityId(), event.startTime(), -1);
+            case UPDATED -> {
+                add(event.facilityId(), event.previousStart(), -1);
+                add(event.facilityId(), event.startTime(), 1);
+            }
+        }
+    }
+
+    public synchronized void add(Long facilityId, LocalDateTime start, int delta) {
+        if (start != null) {
+            add(window, facilityId, start, delta);
+        }
+    }
+
+    /**
+     * Bookings starting in the last {@code days} days, today included.
+     */
+    public int recentBookings(Long facilityId, int days) {
+        Window current = window;
+        Series series = current.series().get(facilityId);
+        if (series == null) {
+            return 0;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(days - 1L);
+        if (from.isBefore(current.firstDay())) {
+            from = current.firstDay();
+        }
+        int total = 0;
+        for (long day = from.toEpochDay(); day <= today.toEpochDay(); day++) {
+            total += series.daily[dayIndex(day)];
+        }
+        return total;
+    }
+
+    /**
+     * Bookings per day of week (Monday first) and hour over the last {@code weeks} weeks,
+     * today included.
+     */
+    public int[][] hourOfWeek(Long facilityId, int weeks) {
+        int[][] heatmap = new int[7][24];
+        Window current = window;
+        Series series = current.series().get(facilityId);
+        if (series == null) {
+            return heatmap;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(7L * weeks - 1);
+        if (from.isBefore(current.firstDay())) {
+            from = current.firstDay();
+        }
+        for (LocalDate day = from; !day.isAfter(today); day = day.plusDays(1)) {
+            int[] row = heatmap[day.getDayOfWeek().getValue() - 1];
+            int h = hourIndex(day.toEpochDay(), 0);
+            for (int hour = 0; hour < 24; hour++) {
+                row[hour] += series.hourly[h + hour];
+            }
+        }
+        return heatmap;
+    }
+
+    /**
+     * Bookings per day from {@code from} (inclusive), clipped to the window.
+     */
+    public int[] daily(Long facilityId, LocalDate from, int days) {
+        int[] totals = new int[days];
+        Window current = window;
+        Series series = current.series().get(facilityId);
+        if (series == null) {
+            return totals;
+        }
+        for (int i = 0; i < days; i++) {
+            LocalDate day = from.plusDays(i);
+            if (current.contains(day)) {
+                totals[i] = series.daily[dayIndex(day.toEpochDay())];
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Bookings per ISO week for the {@code weeks} weeks ending with the current one, oldest first.
+     * The oldest week may be partial if it started before the window.
+     */
+    public int[] weekly(Long facilityId, int weeks) {
+        int[] totals = new int[weeks];
+        Window current = window;
+        Series series = current.series().get(facilityId);
+        if (series == null) {
+            return totals;
+        }
+        long thisWeek = epochWeek(LocalDate.now().toEpochDay());
+        long firstWeek = epochWeek(current.firstDay().toEpochDay());
+        for (int i = 0; i < weeks; i++) {
+            long week = thisWeek - (weeks - 1 - i);
+            if (week >= firstWeek) {
+                totals[i] = series.weekly[(int) Math.floorMod(week, (long) RING_WEEKS)];
+            }
+        }
+        return totals;
+    }
+
+    private static void add(Window window, Long facilityId, LocalDateTime start, int delta) {
+        LocalDate day = start.toLocalDate();
+        if (!window.contains(day)) {
+            return;
+        }
+        Series series = window.series().computeIfAbsent(facilityId, id -> new Series());
+        long epochDay = day.toEpochDay();
+        int h = hourIndex(epochDay, start.getHour());
+        int d = dayIndex(epochDay);
+        int w = weekIndex(epochDay);
+        // Um cancelamento repetido (ex.: admin sobre um rental já cancelado) não deixa contadores negativos
+        if (delta < 0 && series.hourly[h] == 0) {
+            return;
+        }
+        series.hourly[h] += delta;
+        series.daily[d] += delta;
+        series.weekly[w] += delta;
+    }
+
+    private static int hourIndex(long epochDay, int hour) {
+        return dayIndex(epochDay) * 24 + hour;
+    }
+
+    private static int dayIndex(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) WINDOW_DAYS);
+    }
+
+    private static int weekIndex(long epochDay) {
+        return (int) Math.floorMod(epochWeek(epochDay), (long) RING_WEEKS);
+    }
+
+    // 1970-01-01 foi uma quinta-feira: +3 alinha as semanas à segunda-feira
+    private static long epochWeek(long epochDay) {
+        return Math.floorDiv(epochDay + 3, 7);
+    }
+}
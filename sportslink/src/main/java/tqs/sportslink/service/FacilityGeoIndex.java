@@ -0,0 +1,196 @@
+package tqs.sportslink.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.util.GeoPoints;
+import tqs.sportslink.util.GeoUtils;
+
+/**
+ * Uniform lat/lon grid over ACTIVE facilities with coordinates.
+ *
+ * A radius query only visits the cells overlapping the bounding box of the
+ * circle and computes the exact distance for facilities in those cells, in one
+ * batch over their precomputed radians and cos(lat).
+ */
+@Component
+public class FacilityGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacilityGeoIndex.class);
+
+    // 0.1 graus ~ 11 km de latitude: poucas células por pesquisa e poucas facilities por célula
+    static final double CELL_DEGREES = 0.1;
+
+    // Células numa volta completa de longitude; a célula -180 é a mesma que a +180
+    private static final int LON_CELLS = (int) Math.round(360 / CELL_DEGREES);
+
+    private final FacilityRepository facilityRepository;
+
+    private final Map<Long, GeoPoint> points = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    public FacilityGeoIndex(FacilityRepository facilityRepository) {
+        this.facilityRepository = facilityRepository;
+    }
+
+    /**
+     * A facility found by a radius query.
+     */
+    public record GeoHit(Long facilityId, double distanceKm) {
+    }
+
+    private record GeoPoint(double latitude, double longitude, double latRad, double lonRad, double cosLat,
+            int sportMask) {
+
+        GeoPoint(double latitude, double longitude, int sportMask) {
+            this(latitude, longitude, Math.toRadians(latitude), Math.toRadians(longitude),
+                    Math.cos(Math.toRadians(latitude)), sportMask);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        points.clear();
+        cells.clear();
+        List<Facility> active = facilityRepository.findActiveWithSports();
+        active.forEach(this::put);
+        logger.info("Geo index rebuilt with {} facilities in {} cells", points.size(), cells.size());
+    }
+
+    @EventListener
+    public void onFacilityChanged(FacilityChangedEvent event) {
+        refresh(event.facilityId());
+    }
+
+    public synchronized void refresh(Long facilityId) {
+        remove(facilityId);
+        Optional<Facility> facility = facilityRepository.findWithSportsById(facilityId);
+        facility.filter(f -> "ACTIVE".equals(f.getStatus())).ifPresent(this::put);
+    }
+
+    /**
+     * Facilities within radiusKm of (latitude, longitude), closest first.
+     * A null sport matches every facility.
+     */
+    public List<GeoHit> findWithinRadius(double latitude, double longitude, double radiusKm, Sport sport) {
+        double latSpan = radiusKm / GeoUtils.KM_PER_DEGREE;
+        double originCos = Math.max(Math.cos(Math.toRadians(latitude)), 0.01);
+        double lonSpan = Math.min(radiusKm / (GeoUtils.KM_PER_DEGREE * originCos), 180.0);
+
+        int minLatCell = cellOf(latitude - latSpan);
+        int maxLatCell = cellOf(latitude + latSpan);
+        int minLonCell = cellOf(longitude - lonSpan);
+        int maxLonCell = cellOf(longitude + lonSpan);
+        if (maxLonCell - minLonCell + 1 > LON_CELLS) {
+            maxLonCell = minLonCell + LON_CELLS - 1;
+        }
+        int requiredMask = sport != null ? maskOf(sport) : 0;
+
+        // Candidatos das células em colunas; as distâncias são calculadas todas de uma vez
+        List<Long> candidates = new ArrayList<>();
+        double[] latRad = new double[16];
+        double[] lonRad = new double[16];
+        double[] cosLat = new double[16];
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int lonCell = minLonCell; lonCell <= maxLonCell; lonCell++) {
+                // Perto de ±180 a caixa passa o antimeridiano: as colunas de fora dão a volta
+                Set<Long> ids = cells.get(key(latCell, wrapLonCell(lonCell)));
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    GeoPoint point = points.get(id);
+                    if (point == null || (point.sportMask() & requiredMask) != requiredMask) {
+                        continue;
+                    }
+                    int n = candidates.size();
+                    if (n == latRad.length) {
+                        latRad = Arrays.copyOf(latRad, n * 2);
+                        lonRad = Arrays.copyOf(lonRad, n * 2);
+                        cosLat = Arrays.copyOf(cosLat, n * 2);
+                    }
+                    latRad[n] = point.latRad();
+                    lonRad[n] = point.lonRad();
+                    cosLat[n] = point.cosLat();
+                    candidates.add(id);
+                }
+            }
+        }
+
+        double originLat = Math.toRadians(latitude);
+        double[] distances = new double[candidates.size()];
+        GeoPoints.KERNEL.distancesKm(originLat, Math.toRadians(longitude), Math.cos(originLat),
+                latRad, lonRad, cosLat, 0, candidates.size(), distances);
+        List<GeoHit> hits = new ArrayList<>();
+        for (int i = 0; i < distances.length; i++) {
+            if (distances[i] <= radiusKm) {
+                hits.add(new GeoHit(candidates.get(i), distances[i]));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(GeoHit::distanceKm));
+        return hits;
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    private void put(Facility facility) {
+        if (facility.getLatitude() == null || facility.getLongitude() == null) {
+            return;
+        }
+        int mask = 0;
+        if (facility.getSports() != null) {
+            for (Sport s : facility.getSports()) {
+                mask |= maskOf(s);
+            }
+        }
+        points.put(facility.getId(), new GeoPoint(facility.getLatitude(), facility.getLongitude(), mask));
+        cells.computeIfAbsent(key(cellOf(facility.getLatitude()), wrapLonCell(cellOf(facility.getLongitude()))),
+                k -> ConcurrentHashMap.newKeySet()).add(facility.getId());
+    }
+
+    private void remove(Long facilityId) {
+        GeoPoint previous = points.remove(facilityId);
+        if (previous != null) {
+            Set<Long> ids = cells.get(key(cellOf(previous.latitude()), wrapLonCell(cellOf(previous.longitude()))));
+            if (ids != null) {
+                ids.remove(facilityId);
+            }
+        }
+    }
+
+    private static int maskOf(Sport sport) {
+        return 1 << sport.ordinal();
+    }
+
+    private static int cellOf(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    /**
+     * The longitude cell in [-180, 180) covering the same meridians as lonCell.
+     */
+    private static int wrapLonCell(int lonCell) {
+        return Math.floorMod(lonCell + LON_CELLS / 2, LON_CELLS) - LON_CELLS / 2;
+    }
+
+    private static long key(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+}
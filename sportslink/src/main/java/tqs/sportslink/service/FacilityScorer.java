@@ -0,0 +1,306 @@
+package tqs.sportslink.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.util.GeoPoints;
+
+/**
+ * Ranks catalogue facilities for a suggestion request without building an object per facility.
+ *
+ * Each catalogue snapshot is flattened once into parallel primitive arrays (coordinates, rating,
+ * sport bitmask, city code). A request scores those arrays in chunks, in parallel for large
+ * catalogues: each chunk computes its distances in one {@link GeoPoints} batch and keeps only
+ * its best K in a bounded min-heap; the heaps are merged and only the winners are returned.
+ */
+@Component
+public class FacilityScorer {
+
+    // Pesos do score das sugestões (total 100), mais um bónus de quem reservou o mesmo que o user
+    public static final double LOCATION_POINTS = 40.0;
+    public static final double SPORT_POINTS = 30.0;
+    public static final double RATING_POINTS = 30.0;
+    public static final double ALSO_BOOKED_POINTS = 20.0;
+    public static final double NEARBY_KM = 20.0;
+
+    // Abaixo disto não compensa dividir o trabalho pelo pool
+    static final int CHUNK_SIZE = 4096;
+
+    private volatile Features features;
+
+    /**
+     * What a user is scored against. Null coordinates fall back to the city match; excluded
+     * facilities (already visited) are never returned. Affinities in [0, 1], by facility id,
+     * add up to ALSO_BOOKED_POINTS.
+     */
+    public record Query(Double latitude, Double longitude, String preferredCity,
+            Collection<Sport> preferredSports, Collection<Long> excludedIds, Map<Long, Double> affinities) {
+
+        public Query(Double latitude, Double longitude, String preferredCity, Collection<Sport> preferredSports,
+                Collection<Long> excludedIds) {
+            this(latitude, longitude, preferredCity, preferredSports, excludedIds, Map.of());
+        }
+    }
+
+    /**
+     * The k best facilities of the snapshot for the query, best first. Equal scores keep
+     * catalogue (id) order.
+     */
+    public List<FacilityCatalog.Entry> topK(FacilityCatalog.Snapshot snapshot, Query query, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        Features f = featuresOf(snapshot);
+        int n = f.ids.length;
+        boolean[] excluded = new boolean[n];
+        for (Long id : query.excludedIds()) {
+            int position = Arrays.binarySearch(f.ids, id);
+            if (position >= 0) {
+                excluded[position] = true;
+            }
+        }
+        // Poucas facilities têm afinidade: posições ordenadas em vez de um array do tamanho do catálogo
+        int[] bonusPositions = new int[query.affinities().size()];
+        double[] bonusValues = new double[bonusPositions.length];
+        int bonuses = 0;
+        for (Map.Entry<Long, Double> affinity : new TreeMap<>(query.affinities()).entrySet()) {
+            int position = Arrays.binarySearch(f.ids, affinity.getKey());
+            if (position >= 0) {
+                bonusPositions[bonuses] = position;
+                bonusValues[bonuses++] = affinity.getValue();
+            }
+        }
+        int bonusCount = bonuses;
+        int sportMask = maskOf(query.preferredSports());
+        Integer code = query.preferredCity() != null ? f.cityCodes.get(normalize(query.preferredCity())) : null;
+        int cityCode = code != null ? code : -1;
+        boolean located = query.latitude() != null && query.longitude() != null;
+        double lat = located ? query.latitude() : 0;
+        double lon = located ? query.longitude() : 0;
+
+        int chunks = Math.max(1, (n + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        IntStream range = IntStream.range(0, chunks);
+        if (chunks > 1) {
+            range = range.parallel();
+        }
+        TopK best = range
+                .mapToObj(c -> {
+                    TopK top = new TopK(k);
+                    int start = c * CHUNK_SIZE;
+                    int end = Math.min(n, start + CHUNK_SIZE);
+                    int b = Arrays.binarySearch(bonusPositions, 0, bonusCount, start);
+                    b = b >= 0 ? b : -b - 1;
+                    // Distâncias do bloco todo de uma vez; NaN para quem não tem coordenadas
+                    double[] distances = new double[end - start];
+                    if (located) {
+                        f.points.distancesKm(lat, lon, start, end, distances);
+                    }
+                    for (int i = start; i < end; i++) {
+                        double score = score(f, i, located, distances[i - start], cityCode, sportMask);
+                        if (b < bonusCount && bonusPositions[b] == i) {
+                            score += ALSO_BOOKED_POINTS * bonusValues[b++];
+                        }
+                        if (!excluded[i]) {
+                            top.offer(score, i);
+                        }
+                    }
+                    return top;
+                })
+                .reduce(TopK::merge)
+                .orElseGet(() -> new TopK(k));
+
+        List<FacilityCatalog.Entry> winners = new ArrayList<>(best.size);
+        for (int i : best.sortedIndexes()) {
+            winners.add(snapshot.facilities().get(i));
+        }
+        return winners;
+    }
+
+    // Mesma fórmula que IntelligentEngineService usa para o DTO de cada vencedor
+    private static double score(Features f, int i, boolean located, double distance, int cityCode,
+            int sportMask) {
+        double score = 0.0;
+        if (located && !Double.isNaN(distance)) {
+            if (distance < NEARBY_KM) {
+                score += LOCATION_POINTS * (1 - (distance / NEARBY_KM));
+            }
+        } else if (cityCode >= 0 && f.cities[i] == cityCode) {
+            score += LOCATION_POINTS;
+        }
+        if ((f.sportMasks[i] & sportMask) != 0) {
+            score += SPORT_POINTS;
+        }
+        return score + (f.ratings[i] / 5.0) * RATING_POINTS;
+    }
+
+    private Features featuresOf(FacilityCatalog.Snapshot snapshot) {
+        Features f = features;
+        if (f == null || f.source != snapshot) {
+            f = Features.of(snapshot);
+            features = f;
+        }
+        return f;
+    }
+
+    static int maskOf(Collection<Sport> sports) {
+        int mask = 0;
+        for (Sport sport : sports) {
+            mask |= 1 << sport.ordinal();
+        }
+        return mask;
+    }
+
+    private static String normalize(String city) {
+        return city.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Column-wise copy of a snapshot; position i is snapshot.facilities().get(i).
+     * Missing coordinates are NaN and a missing rating is 0.
+     */
+    private static final class Features {
+        final FacilityCatalog.Snapshot source;
+        final long[] ids;
+        final GeoPoints points;
+        final double[] ratings;
+        final int[] sportMasks;
+        final int[] cities;
+        final Map<String, Integer> cityCodes = new HashMap<>();
+
+        private Features(FacilityCatalog.Snapshot source) {
+            this.source = source;
+            List<FacilityCatalog.Entry> entries = source.facilities();
+            int n = entries.size();
+            ids = new long[n];
+            ratings = new double[n];
+            sportMasks = new int[n];
+            cities = new int[n];
+            double[] latitudes = new double[n];
+            double[] longitudes = new double[n];
+            for (int i = 0; i < n; i++) {
+                FacilityCatalog.Entry e = entries.get(i);
+                boolean located = e.latitude() != null && e.longitude() != null;
+                latitudes[i] = located ? e.latitude() : Double.NaN;
+                longitudes[i] = located ? e.longitude() : Double.NaN;
+            }
+            // Radianos e cos(lat) calculados uma vez por snapshot, não por pedido
+            points = GeoPoints.of(latitudes, longitudes);
+        }
+
+        static Features of(FacilityCatalog.Snapshot snapshot) {
+            Features f = new Features(snapshot);
+            List<FacilityCatalog.Entry> entries = snapshot.facilities();
+            for (int i = 0; i < entries.size(); i++) {
+                FacilityCatalog.Entry e = entries.get(i);
+                f.ids[i] = e.id();
+                f.ratings[i] = e.rating() != null ? e.rating() : 0.0;
+                f.sportMasks[i] = maskOf(e.sports());
+                f.cities[i] = e.city() != null
+                        ? f.cityCodes.computeIfAbsent(normalize(e.city()), c -> f.cityCodes.size())
+                        : -1;
+            }
+            return f;
+        }
+    }
+
+    /**
+     * Bounded min-heap of (score, position): the root is the worst of the best k seen so far.
+     * Higher score wins; on equal scores the lower position wins.
+     */
+    static final class TopK {
+        private final double[] scores;
+        private final int[] positions;
+        private int size;
+
+        TopK(int k) {
+            scores = new double[k];
+            positions = new int[k];
+        }
+
+        void offer(double score, int position) {
+            if (size < scores.length) {
+                scores[size] = score;
+                positions[size] = position;
+                siftUp(size++);
+            } else if (better(score, position, scores[0], positions[0])) {
+                scores[0] = score;
+                positions[0] = position;
+                siftDown(0);
+            }
+        }
+
+        TopK merge(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.scores[i], other.positions[i]);
+            }
+            return this;
+        }
+
+        int[] sortedIndexes() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparingDouble((Integer i) -> scores[i]).reversed()
+                    .thenComparingInt(i -> positions[i]));
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = positions[order[i]];
+            }
+            return sorted;
+        }
+
+        private static boolean better(double score, int position, double otherScore, int otherPosition) {
+            return score > otherScore || (score == otherScore && position < otherPosition);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!better(scores[parent], positions[parent], scores[i], positions[i])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int worst = 2 * i + 1;
+                if (worst >= size) {
+                    break;
+                }
+                int right = worst + 1;
+                if (right < size && better(scores[worst], positions[worst], scores[right], positions[right])) {
+                    worst = right;
+                }
+                if (!better(scores[i], positions[i], scores[worst], positions[worst])) {
+                    break;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+            int position = positions[a];
+            positions[a] = positions[b];
+            positions[b] = position;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package tqs.sportslink.service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.dto.FacilityResponseDTO;
+
+/**
+ * Bounded LRU cache in front of {@link FacilityService#searchFacilities}.
+ *
+ * Keys are the normalised query with the time rounded down to its 30-minute slot.
+ * Entries expire after a TTL, are ignored once the facility catalogue has a newer
+ * version, and are evicted when a booking changes at one of the facilities the
+ * entry was computed from. Hits, misses and evictions are exported as cache.* meters.
+ */
+@Component
+public class FacilitySearchCache {
+
+    static final String CACHE_NAME = "facilitySearch";
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Ordem de acesso: o primeiro elemento é sempre o menos usado recentemente
+    private final Map<Key, Cached> entries;
+    // Incrementado a cada invalidação; um cálculo que a apanhe a meio não é guardado
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public FacilitySearchCache(MeterRegistry registry,
+            @Value("${sportslink.search-cache.max-entries:1000}") int maxEntries,
+            @Value("${sportslink.search-cache.ttl-seconds:60}") long ttlSeconds) {
+        if (maxEntries < 1 || ttlSeconds < 0) {
+            throw new IllegalArgumentException("Invalid search cache configuration");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        this.hits = counter(registry, "cache.gets", "result", "hit");
+        this.misses = counter(registry, "cache.gets", "result", "miss");
+        this.evictions = counter(registry, "cache.evictions");
+        Gauge.builder("cache.size", this, FacilitySearchCache::size)
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+    }
+
+    /**
+     * Normalised search query. city and sport are null when not filtered; slot is null
+     * when the search has no time filter.
+     */
+    public record Key(String city, Sport sport, LocalDateTime slot) {
+    }
+
+    /**
+     * What the loader computed: the results and every facility that was checked for
+     * availability, so a booking at any of them can evict the entry.
+     */
+    public record Computed(List<FacilityResponseDTO> results, Collection<Long> candidateIds) {
+    }
+
+    private record Cached(List<FacilityResponseDTO> results, long[] candidateIds, long catalogVersion,
+            long expiresAt) {
+    }
+
+    public List<FacilityResponseDTO> get(Key key, long catalogVersion, Supplier<Computed> loader) {
+        long now = System.nanoTime();
+        long startedAt;
+        synchronized (this) {
+            startedAt = generation;
+            Cached cached = entries.get(key);
+            if (cached != null && cached.catalogVersion() == catalogVersion && now - cached.expiresAt() < 0) {
+                hits.increment();
+                return cached.results();
+            }
+        }
+
+        // Calculado fora do lock: dois pedidos iguais em simultâneo podem calcular ambos, sem problema
+        misses.increment();
+        Computed computed = loader.get();
+        List<FacilityResponseDTO> results = List.copyOf(computed.results());
+        long[] candidates = computed.candidateIds().stream().mapToLong(Long::longValue).sorted().toArray();
+
+        synchronized (this) {
+            if (generation != startedAt) {
+                return results;
+            }
+            entries.put(key, new Cached(results, candidates, catalogVersion, now + ttlNanos));
+            if (entries.size() > maxEntries) {
+                Iterator<Key> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Runs after {@link FacilityAvailabilityIndex#onRentalChanged}, so a miss right after the
+     * eviction already sees the booking in the index.
+     */
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onRentalChanged(RentalChangedEvent event) {
+        if (event.facilityId() == null) {
+            return;
+        }
+        long facilityId = event.facilityId();
+        synchronized (this) {
+            generation++;
+            Iterator<Map.Entry<Key, Cached>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Key, Cached> entry = it.next();
+                LocalDateTime slot = entry.getKey().slot();
+                // Pesquisas sem horário não dependem de reservas
+                if (slot == null || Arrays.binarySearch(entry.getValue().candidateIds(), facilityId) < 0) {
+                    continue;
+                }
+                LocalDateTime windowEnd = slot.plus(FacilityService.SEARCH_WINDOW);
+                if (overlaps(slot, windowEnd, event.startTime(), event.endTime())
+                        || overlaps(slot, windowEnd, event.previousStart(), event.previousEnd())) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    @EventListener
+    public void onFacilityChanged(FacilityChangedEvent event) {
+        // Uma edição pode pôr a facility em resultados onde ainda não estava, por isso não basta
+        // remover as entradas que a contêm; edições são raras e limpa-se tudo. A versão do catálogo
+        // guardada em cada entrada apanha cálculos que terminem depois desta limpeza.
+        synchronized (this) {
+            generation++;
+            int before = entries.size();
+            entries.clear();
+            evictions.increment(before);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static boolean overlaps(LocalDateTime from, LocalDateTime to, LocalDateTime start, LocalDateTime end) {
+        return start != null && end != null && start.isBefore(to) && end.isAfter(from);
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String... tags) {
+        return Counter.builder(name)
+                .tag("cache", CACHE_NAME)
+                .tags(tags)
+                .register(registry);
+    }
+}
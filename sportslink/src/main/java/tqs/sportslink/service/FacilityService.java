@@ -1,65 +1,309 @@
 package tqs.sportslink.service;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import tqs.sportslink.data.FacilityRepository;
 import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookedSlot;
 import tqs.sportslink.data.model.Facility;
-import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.dto.FacilityCalendarDTO;
+import tqs.sportslink.dto.FacilityPageDTO;
 import tqs.sportslink.dto.FacilityResponseDTO;
+import tqs.sportslink.dto.FacilitySearchHitDTO;
+import tqs.sportslink.dto.FreeIntervalDTO;
+import tqs.sportslink.dto.NearbyFacilityDTO;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Predicate;
 
 @Service
 public class FacilityService {
 
+    private static final int SLOT_LENGTH_MINUTES = 60;
+    // Janela de procura a partir da hora pedida
+    static final Duration SEARCH_WINDOW = Duration.ofHours(3);
+    private static final int MAX_IDS_PER_QUERY = 10_000;
+    private static final double MAX_RADIUS_KM = 100.0;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MIN_TEXT_QUERY_LENGTH = 2;
+    // Com filtro de horário uma página pode precisar de vários lotes; limita o trabalho por pedido
+    private static final int MAX_SCAN_BATCHES = 10;
+    // Hoje + 30 dias de antecedência máxima
+    private static final int MAX_CALENDAR_DAYS = 31;
+
     private final FacilityRepository facilityRepository;
     private final RentalRepository rentalRepository;
+    private final FacilityAvailabilityIndex availabilityIndex;
+    private final FacilityGeoIndex geoIndex;
+    private final FacilityTextIndex textIndex;
+    private final FacilityCatalog catalog;
+    private final FacilitySearchCache searchCache;
+    private final FacilityBookingVersions bookingVersions;
 
-    public FacilityService(FacilityRepository facilityRepository, RentalRepository rentalRepository) {
+    public FacilityService(FacilityRepository facilityRepository, RentalRepository rentalRepository,
+            FacilityAvailabilityIndex availabilityIndex, FacilityGeoIndex geoIndex, FacilityTextIndex textIndex,
+            FacilityCatalog catalog, FacilitySearchCache searchCache, FacilityBookingVersions bookingVersions) {
         this.facilityRepository = facilityRepository;
         this.rentalRepository = rentalRepository;
+        this.availabilityIndex = availabilityIndex;
+        this.geoIndex = geoIndex;
+        this.textIndex = textIndex;
+        this.catalog = catalog;
+        this.searchCache = searchCache;
+        this.bookingVersions = bookingVersions;
     }
 
     public List<FacilityResponseDTO> searchFacilities(String location, String sport, String time) {
-        List<Facility> facilities;
-        
-        // Handle optional parameters
-        if (location != null && !location.isEmpty() && sport != null && !sport.isEmpty()) {
-            Sport sportEnum = Sport.valueOf(sport.toUpperCase());
-            facilities = facilityRepository.findByCityAndSportType(location, sportEnum);
-        } else if (location != null && !location.isEmpty()) {
-            facilities = facilityRepository.findByCity(location);
-        } else if (sport != null && !sport.isEmpty()) {
-            Sport sportEnum = Sport.valueOf(sport.toUpperCase());
-            facilities = facilityRepository.findBySportType(sportEnum);
-        } else {
-            // No filters - return all
-            facilities = facilityRepository.findAll();
-        }
-        
-        // Filtrar ACTIVE no service - LÓGICA DE NEGÓCIO
-        List<Facility> activeFacilities = facilities.stream()
-            .filter(f -> "ACTIVE".equals(f.getStatus()))
+        String city = location != null && !location.isEmpty() ? location : null;
+        Sport sportEnum = sport != null && !sport.isEmpty() ? Sport.valueOf(sport.toUpperCase()) : null;
+        // Hora arredondada ao slot de 30 minutos: pedidos no mesmo slot partilham a entrada em cache
+        LocalDateTime slot = time != null && !time.isEmpty() ? toSlot(parseTimeParameter(time)) : null;
+
+        FacilityCatalog.Snapshot snapshot = catalog.snapshot();
+        return searchCache.get(new FacilitySearchCache.Key(city, sportEnum, slot), snapshot.version(),
+            () -> search(snapshot, city, sportEnum, slot));
+    }
+
+    private FacilitySearchCache.Computed search(FacilityCatalog.Snapshot snapshot, String city, Sport sport,
+            LocalDateTime requestedTime) {
+        // O catálogo só tem facilities ACTIVE; filtros aplicados sobre o snapshot, sem SQL
+        List<FacilityCatalog.Entry> activeFacilities = snapshot.facilities().stream()
+            .filter(f -> city == null || city.equals(f.city()))
+            .filter(f -> sport == null || f.offers(sport))
             .toList();
-        
-        // If time parameter is provided, filter by availability
-        if (time != null && !time.isEmpty()) {
-            LocalDateTime requestedTime = parseTimeParameter(time);
-            LocalDateTime searchWindowEnd = requestedTime.plusHours(3);
-            
-            return activeFacilities.stream()
-                .filter(f -> hasAvailabilityInWindow(f, requestedTime, searchWindowEnd))
-                .map(this::toDTO)
-                .toList();
+
+        if (requestedTime == null) {
+            return new FacilitySearchCache.Computed(activeFacilities.stream().map(this::toDTO).toList(), List.of());
         }
-        
-        return activeFacilities.stream()
+
+        // Time filter: only the facilities open in the window depend on bookings
+        LocalDateTime searchWindowEnd = requestedTime.plus(SEARCH_WINDOW);
+        List<FacilityCatalog.Entry> openFacilities = activeFacilities.stream()
+            .filter(f -> isOpenDuringWindow(f, requestedTime, searchWindowEnd))
+            .toList();
+        Predicate<FacilityCatalog.Entry> available = availabilityFilter(openFacilities, requestedTime,
+                searchWindowEnd);
+
+        List<FacilityResponseDTO> results = openFacilities.stream()
+            .filter(available)
             .map(this::toDTO)
             .toList();
+        List<Long> candidateIds = openFacilities.stream().map(FacilityCatalog.Entry::id).toList();
+        return new FacilitySearchCache.Computed(results, candidateIds);
     }
     
+    /**
+     * Keyset-paginated variant of {@link #searchFacilities}. Sort is "rating" (rating desc, id)
+     * or "price" (price asc, id); pass the previous page's nextCursor to continue.
+     *
+     * With a time filter, rows are scanned in batches until the page is full, so a page can come
+     * back short (with a cursor) when the scan budget runs out.
+     */
+    public FacilityPageDTO searchFacilitiesPage(String location, String sport, String time, String sort,
+            String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        boolean byPrice = isPriceSort(sort);
+        String city = location != null && !location.isEmpty() ? location : null;
+        Sport sportEnum = sport != null && !sport.isEmpty() ? Sport.valueOf(sport.toUpperCase()) : null;
+        FacilityCursor after = cursor != null && !cursor.isEmpty() ? FacilityCursor.decode(cursor) : null;
+
+        if (time == null || time.isEmpty()) {
+            // Pede uma linha a mais só para saber se existe página seguinte
+            List<FacilityCatalog.Entry> rows = findActivePage(byPrice, city, sportEnum, after, limit + 1);
+            boolean hasMore = rows.size() > limit;
+            List<FacilityCatalog.Entry> page = hasMore ? rows.subList(0, limit) : rows;
+            String nextCursor = hasMore ? cursorOf(page.get(page.size() - 1), byPrice).encode() : null;
+            return new FacilityPageDTO(page.stream().map(this::toDTO).toList(), nextCursor);
+        }
+
+        LocalDateTime requestedTime = parseTimeParameter(time);
+        LocalDateTime searchWindowEnd = requestedTime.plus(SEARCH_WINDOW);
+
+        List<FacilityResponseDTO> items = new ArrayList<>();
+        FacilityCursor position = after;
+        for (int batchNo = 0; batchNo < MAX_SCAN_BATCHES; batchNo++) {
+            List<FacilityCatalog.Entry> batch = findActivePage(byPrice, city, sportEnum, position, limit);
+            List<FacilityCatalog.Entry> openFacilities = batch.stream()
+                .filter(f -> isOpenDuringWindow(f, requestedTime, searchWindowEnd))
+                .toList();
+            Predicate<FacilityCatalog.Entry> available = availabilityFilter(openFacilities, requestedTime,
+                    searchWindowEnd);
+
+            for (FacilityCatalog.Entry facility : batch) {
+                // O cursor avança sobre todas as linhas lidas, incluindo as que não passaram no filtro
+                position = cursorOf(facility, byPrice);
+                if (isOpenDuringWindow(facility, requestedTime, searchWindowEnd) && available.test(facility)) {
+                    items.add(toDTO(facility));
+                    if (items.size() == limit) {
+                        return new FacilityPageDTO(items, position.encode());
+                    }
+                }
+            }
+            if (batch.size() < limit) {
+                return new FacilityPageDTO(items, null);
+            }
+        }
+        return new FacilityPageDTO(items, position != null ? position.encode() : null);
+    }
+
+    /**
+     * Search-as-you-type over facility name, description, address and city.
+     * Answered from the in-memory text index; no SQL per keystroke.
+     */
+    public List<FacilitySearchHitDTO> searchText(String query, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // Uma só letra casa com quase todo o catálogo e não ajuda quem está a escrever
+        if (query == null || query.trim().length() < MIN_TEXT_QUERY_LENGTH) {
+            return List.of();
+        }
+        return textIndex.search(query, limit).stream()
+            .map(hit -> new FacilitySearchHitDTO(hit.facilityId(), hit.name(), hit.city(), hit.address()))
+            .toList();
+    }
+
+    public List<NearbyFacilityDTO> searchNearby(double latitude, double longitude, double radiusKm, String sport) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates");
+        }
+        if (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            throw new IllegalArgumentException("Radius must be between 0 and " + MAX_RADIUS_KM + " km");
+        }
+        Sport sportEnum = sport != null && !sport.isEmpty() ? Sport.valueOf(sport.toUpperCase()) : null;
+
+        List<FacilityGeoIndex.GeoHit> hits = geoIndex.findWithinRadius(latitude, longitude, radiusKm, sportEnum);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+
+        // A ordem por distância vem do índice; os dados de cada facility vêm do catálogo
+        FacilityCatalog.Snapshot snapshot = catalog.snapshot();
+        return hits.stream()
+            .flatMap(hit -> snapshot.find(hit.facilityId()).map(f -> toNearbyDTO(f, hit.distanceKm())).stream())
+            .toList();
+    }
+
+    public FacilityResponseDTO getFacility(Long id) {
+        return catalog.snapshot().find(id)
+            .map(this::toDTO)
+            .orElseThrow(() -> new NoSuchElementException("Facility not found"));
+    }
+
+    /**
+     * Free intervals of a facility for the days [from, from + days), inside its opening hours.
+     * Computed in one pass over the facility's bookings sorted by start; from defaults to today.
+     */
+    public FacilityCalendarDTO getCalendar(Long facilityId, LocalDate from, int days) {
+        FacilityCatalog.Entry facility = findCalendarFacility(facilityId, days);
+        LocalDate firstDay = from != null ? from : LocalDate.now();
+        List<BookedSlot> booked = rentalRepository.findBookedSlotsByFacilityIdBetween(facilityId,
+            firstDay.atStartOfDay(), firstDay.plusDays(days).atStartOfDay());
+
+        List<FreeIntervalDTO> free = new ArrayList<>();
+        int next = 0;
+        for (int d = 0; d < days; d++) {
+            LocalDate day = firstDay.plusDays(d);
+            LocalDateTime open = openingOn(facility, day);
+            LocalDateTime close = closingOn(facility, day);
+            if (!open.isBefore(close)) {
+                continue;
+            }
+            // Reservas que acabam antes da abertura já não contam para este dia nem para os seguintes
+            while (next < booked.size() && !booked.get(next).getEndTime().isAfter(open)) {
+                next++;
+            }
+            LocalDateTime cursor = open;
+            for (int i = next; i < booked.size() && booked.get(i).getStartTime().isBefore(close); i++) {
+                BookedSlot slot = booked.get(i);
+                if (slot.getStartTime().isAfter(cursor)) {
+                    free.add(new FreeIntervalDTO(cursor, slot.getStartTime()));
+                }
+                if (slot.getEndTime().isAfter(cursor)) {
+                    cursor = slot.getEndTime();
+                }
+            }
+            if (cursor.isBefore(close)) {
+                free.add(new FreeIntervalDTO(cursor, close));
+            }
+        }
+        return new FacilityCalendarDTO(facilityId, firstDay, days, free);
+    }
+
+    /**
+     * Validator for {@link #getCalendar}: changes only when the facility's bookings or
+     * opening hours change, or when a different range is asked for.
+     */
+    public String calendarETag(Long facilityId, LocalDate from, int days) {
+        FacilityCatalog.Entry facility = findCalendarFacility(facilityId, days);
+        LocalDate firstDay = from != null ? from : LocalDate.now();
+        int hours = Objects.hash(facility.openingTime(), facility.closingTime());
+        return "\"" + facilityId + "-" + firstDay + "-" + days + "-" + Integer.toHexString(hours) + "-"
+            + bookingVersions.version(facilityId) + "\"";
+    }
+
+    private FacilityCatalog.Entry findCalendarFacility(Long facilityId, int days) {
+        if (days < 1 || days > MAX_CALENDAR_DAYS) {
+            throw new IllegalArgumentException("Days must be between 1 and " + MAX_CALENDAR_DAYS);
+        }
+        return catalog.snapshot().find(facilityId)
+            .orElseThrow(() -> new NoSuchElementException("Facility not found"));
+    }
+
+    // Mesmas regras do RentalService: sem horário definido a facility está aberta o dia todo
+    private static LocalDateTime openingOn(FacilityCatalog.Entry facility, LocalDate day) {
+        return hasOpeningHours(facility) ? day.atTime(facility.openingTime()) : day.atStartOfDay();
+    }
+
+    private static LocalDateTime closingOn(FacilityCatalog.Entry facility, LocalDate day) {
+        return hasOpeningHours(facility) ? day.atTime(facility.closingTime()) : day.plusDays(1).atStartOfDay();
+    }
+
+    private static boolean hasOpeningHours(FacilityCatalog.Entry facility) {
+        return facility.openingTime() != null && facility.closingTime() != null;
+    }
+
+    private List<FacilityCatalog.Entry> findActivePage(boolean byPrice, String city, Sport sport,
+            FacilityCursor after, int size) {
+        // Sem cursor começa-se num valor sentinela antes da primeira linha possível
+        long afterId = after != null ? after.id() : 0L;
+        List<Facility> rows;
+        if (byPrice) {
+            double price = after != null ? after.sortValue() : -Double.MAX_VALUE;
+            rows = facilityRepository.findActivePageByPrice(city, sport, price, afterId, Limit.of(size));
+        } else {
+            double rating = after != null ? after.sortValue() : Double.MAX_VALUE;
+            rows = facilityRepository.findActivePageByRating(city, sport, rating, afterId, Limit.of(size));
+        }
+        return rows.stream().map(FacilityCatalog.Entry::from).toList();
+    }
+
+    private static boolean isPriceSort(String sort) {
+        if (sort == null || sort.isEmpty() || "rating".equalsIgnoreCase(sort)) {
+            return false;
+        }
+        if ("price".equalsIgnoreCase(sort)) {
+            return true;
+        }
+        throw new IllegalArgumentException("Invalid sort. Use 'rating' or 'price'");
+    }
+
+    private static FacilityCursor cursorOf(FacilityCatalog.Entry facility, boolean byPrice) {
+        Double value = byPrice ? facility.pricePerHour() : facility.rating();
+        return new FacilityCursor(value != null ? value : 0.0, facility.id());
+    }
+
     private LocalDateTime parseTimeParameter(String time) {
         try {
             // Try parsing as ISO datetime first (e.g., "2025-12-03T14:00:00")
@@ -81,65 +325,111 @@ public class FacilityService {
         }
     }
     
-    private boolean hasAvailabilityInWindow(Facility facility, LocalDateTime windowStart, LocalDateTime windowEnd) {
+    private static LocalDateTime toSlot(LocalDateTime time) {
+        int minutes = time.getHour() * 60 + time.getMinute();
+        return time.toLocalDate().atStartOfDay()
+            .plusMinutes(minutes / FacilityAvailabilityIndex.SLOT_MINUTES * FacilityAvailabilityIndex.SLOT_MINUTES);
+    }
+
+    private boolean isOpenDuringWindow(FacilityCatalog.Entry facility, LocalDateTime windowStart,
+            LocalDateTime windowEnd) {
         // Check if facility has operating hours and if the window fits within them
-        if (facility.getOpeningTime() != null && facility.getClosingTime() != null) {
+        if (facility.openingTime() != null && facility.closingTime() != null) {
             // Check if any part of the 3-hour window falls within operating hours
-            boolean windowStartInHours = !windowStart.toLocalTime().isBefore(facility.getOpeningTime()) 
-                && !windowStart.toLocalTime().isAfter(facility.getClosingTime());
-            boolean windowEndInHours = !windowEnd.toLocalTime().isBefore(facility.getOpeningTime()) 
-                && !windowEnd.toLocalTime().isAfter(facility.getClosingTime());
+            boolean windowStartInHours = !windowStart.toLocalTime().isBefore(facility.openingTime()) 
+                && !windowStart.toLocalTime().isAfter(facility.closingTime());
+            boolean windowEndInHours = !windowEnd.toLocalTime().isBefore(facility.openingTime()) 
+                && !windowEnd.toLocalTime().isAfter(facility.closingTime());
                 
-            if (!windowStartInHours && !windowEndInHours) {
-                return false; // Entire window is outside operating hours
+            return windowStartInHours || windowEndInHours; // false: entire window is outside operating hours
+        }
+        return true;
+    }
+
+    private Predicate<FacilityCatalog.Entry> availabilityFilter(List<FacilityCatalog.Entry> facilities,
+            LocalDateTime windowStart, LocalDateTime windowEnd) {
+        // Dentro do horizonte de reservas responde o índice em memória, sem ir à BD
+        if (availabilityIndex.covers(windowStart, windowEnd)) {
+            return f -> availabilityIndex.hasFreeSlot(f.id(), windowStart, windowEnd, SLOT_LENGTH_MINUTES);
+        }
+
+        // Fora do horizonte: uma query para todas as facilities, só com os rentals que intersetam a janela
+        Map<Long, List<BookedSlot>> bookedByFacility = findBookedSlotsByFacility(facilities, windowStart, windowEnd);
+        return f -> hasFreeSlot(bookedByFacility.getOrDefault(f.id(), List.of()), windowStart, windowEnd);
+    }
+
+    private Map<Long, List<BookedSlot>> findBookedSlotsByFacility(List<FacilityCatalog.Entry> facilities,
+            LocalDateTime windowStart, LocalDateTime windowEnd) {
+        if (facilities.isEmpty()) {
+            return Map.of();
+        }
+
+        List<Long> ids = facilities.stream().map(FacilityCatalog.Entry::id).toList();
+        Map<Long, List<BookedSlot>> bookedByFacility = new HashMap<>();
+        // Partir em blocos evita exceder o limite de parâmetros do driver em catálogos muito grandes
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_QUERY));
+            for (BookedSlot slot : rentalRepository.findBookedSlotsByFacilityIdInBetween(chunk, windowStart, windowEnd)) {
+                bookedByFacility.computeIfAbsent(slot.getFacilityId(), id -> new ArrayList<>()).add(slot);
             }
         }
-        
-        // Get all confirmed rentals for this facility
-        List<Rental> rentals = rentalRepository.findByFacilityId(facility.getId()).stream()
-            .filter(r -> !"CANCELLED".equals(r.getStatus()))
-            .toList();
-        
+        return bookedByFacility;
+    }
+
+    private boolean hasFreeSlot(List<BookedSlot> booked, LocalDateTime windowStart, LocalDateTime windowEnd) {
         // Check if there's at least one 1-hour slot available in the 3-hour window
         LocalDateTime currentSlot = windowStart;
-        while (currentSlot.plusHours(1).isBefore(windowEnd) || currentSlot.plusHours(1).equals(windowEnd)) {
+        while (!currentSlot.plusMinutes(SLOT_LENGTH_MINUTES).isAfter(windowEnd)) {
             LocalDateTime slotStart = currentSlot;
-            LocalDateTime slotEnd = currentSlot.plusHours(1);
-            
+            LocalDateTime slotEnd = currentSlot.plusMinutes(SLOT_LENGTH_MINUTES);
+
             // Check if this slot conflicts with any rental
-            boolean hasConflict = rentals.stream()
-                .anyMatch(rental -> 
+            boolean hasConflict = booked.stream()
+                .anyMatch(rental ->
                     // Rental overlaps with this slot
                     rental.getStartTime().isBefore(slotEnd) && rental.getEndTime().isAfter(slotStart)
                 );
-            
+
             if (!hasConflict) {
                 return true; // Found an available slot
             }
-            
+
             currentSlot = currentSlot.plusMinutes(30); // Check in 30-minute increments
         }
-        
+
         return false; // No available slots found
     }
     
-    private FacilityResponseDTO toDTO(Facility facility) {
+    private NearbyFacilityDTO toNearbyDTO(FacilityCatalog.Entry facility, double distanceKm) {
+        return new NearbyFacilityDTO(
+            facility.id(),
+            facility.name(),
+            facility.imageUrl(),
+            facility.sports(),
+            facility.city(),
+            facility.address(),
+            facility.pricePerHour(),
+            facility.rating(),
+            distanceKm);
+    }
+
+    private FacilityResponseDTO toDTO(FacilityCatalog.Entry facility) {
         FacilityResponseDTO dto = new FacilityResponseDTO();
-        dto.setId(facility.getId());
-        dto.setName(facility.getName());
-        dto.setImageUrl(facility.getImageUrl());
-        dto.setSports(facility.getSports());
-        dto.setCity(facility.getCity());
-        dto.setAddress(facility.getAddress());
-        dto.setDescription(facility.getDescription());
-        dto.setPricePerHour(facility.getPricePerHour());
-        dto.setRating(facility.getRating());
-
-        if (facility.getOpeningTime() != null) {
-            dto.setOpeningTime(facility.getOpeningTime().toString());
-        }
-        if (facility.getClosingTime() != null) {
-            dto.setClosingTime(facility.getClosingTime().toString());
+        dto.setId(facility.id());
+        dto.setName(facility.name());
+        dto.setImageUrl(facility.imageUrl());
+        dto.setSports(facility.sports());
+        dto.setCity(facility.city());
+        dto.setAddress(facility.address());
+        dto.setDescription(facility.description());
+        dto.setPricePerHour(facility.pricePerHour());
+        dto.setRating(facility.rating());
+
+        if (facility.openingTime() != null) {
+            dto.setOpeningTime(facility.openingTime().toString());
+        }
+        if (facility.closingTime() != null) {
+            dto.setClosingTime(facility.closingTime().toString());
         }
         return dto;
     }
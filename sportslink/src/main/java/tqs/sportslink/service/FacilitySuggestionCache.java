@@ -0,0 +1,165 @@
+package tqs.sportslink.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import tqs.sportslink.dto.FacilitySuggestionDTO;
+
+/**
+ * Bounded LRU cache in front of {@link IntelligentEngineService#suggestFacilitiesForUser}.
+ *
+ * Keys are the user and the centre of the location cell the user is in, so every request
+ * from the same cell shares one entry and gets the same answer. Entries expire after a TTL,
+ * are ignored once the facility catalogue has a newer version, and are evicted when one of
+ * the user's rentals changes. Bookings by other users only reach an entry through the TTL.
+ * Hits, misses, the hit ratio and the time spent computing misses are exported as meters.
+ */
+@Component
+public class FacilitySuggestionCache {
+
+    static final String CACHE_NAME = "facilitySuggestions";
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final double cellDegrees;
+
+    // Ordem de acesso: o primeiro elemento é sempre o menos usado recentemente
+    private final Map<Key, Cached> entries;
+    // Incrementado a cada invalidação; um cálculo que a apanhe a meio não é guardado
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Timer computeTime;
+
+    public FacilitySuggestionCache(MeterRegistry registry,
+            @Value("${sportslink.suggestion-cache.max-entries:10000}") int maxEntries,
+            @Value("${sportslink.suggestion-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${sportslink.suggestion-cache.cell-degrees:0.01}") double cellDegrees) {
+        if (maxEntries < 1 || ttlSeconds < 0 || !(cellDegrees > 0)) {
+            throw new IllegalArgumentException("Invalid suggestion cache configuration");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.cellDegrees = cellDegrees;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        this.hits = counter(registry, "cache.gets", "result", "hit");
+        this.misses = counter(registry, "cache.gets", "result", "miss");
+        this.evictions = counter(registry, "cache.evictions");
+        Gauge.builder("cache.size", this, FacilitySuggestionCache::size)
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        Gauge.builder("cache.hit.ratio", this, FacilitySuggestionCache::hitRatio)
+                .tag("cache", CACHE_NAME)
+                .description("Share of suggestion requests answered from the cache")
+                .register(registry);
+        this.computeTime = Timer.builder("suggestions.compute.duration")
+                .description("Time to compute a user's facility suggestions on a cache miss")
+                .register(registry);
+    }
+
+    /**
+     * A user and the centre of a location cell; latitude and longitude are null when the
+     * user has no location.
+     */
+    public record Key(Long userId, Double latitude, Double longitude) {
+    }
+
+    private record Cached(List<FacilitySuggestionDTO> suggestions, long catalogVersion, long expiresAt) {
+    }
+
+    /**
+     * The key for a user at the given position: the position is snapped to the centre of its cell.
+     */
+    public Key keyFor(Long userId, Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            return new Key(userId, null, null);
+        }
+        return new Key(userId, centre(latitude), centre(longitude));
+    }
+
+    public List<FacilitySuggestionDTO> get(Key key, long catalogVersion, Supplier<List<FacilitySuggestionDTO>> loader) {
+        long now = System.nanoTime();
+        long startedAt;
+        synchronized (this) {
+            startedAt = generation;
+            Cached cached = entries.get(key);
+            if (cached != null && cached.catalogVersion() == catalogVersion && now - cached.expiresAt() < 0) {
+                hits.increment();
+                return cached.suggestions();
+            }
+        }
+
+        // Calculado fora do lock: dois pedidos iguais em simultâneo podem calcular ambos, sem problema
+        misses.increment();
+        List<FacilitySuggestionDTO> suggestions = List.copyOf(computeTime.record(loader));
+
+        synchronized (this) {
+            if (generation != startedAt) {
+                return suggestions;
+            }
+            entries.put(key, new Cached(suggestions, catalogVersion, now + ttlNanos));
+            if (entries.size() > maxEntries) {
+                Iterator<Key> eldest = entries.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Runs after {@link UserPreferenceService#onRentalChanged}, so a miss right after the
+     * eviction already reads the updated profile.
+     */
+    @EventListener
+    public void onRentalChanged(RentalChangedEvent event) {
+        if (event.userId() == null) {
+            return;
+        }
+        synchronized (this) {
+            generation++;
+            Iterator<Key> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (event.userId().equals(it.next().userId())) {
+                    it.remove();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    private double centre(double coordinate) {
+        return (Math.floor(coordinate / cellDegrees) + 0.5) * cellDegrees;
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String... tags) {
+        return Counter.builder(name)
+                .tag("cache", CACHE_NAME)
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -0,0 +1,376 @@
+package tqs.sportslink.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.model.Facility;
+
+/**
+ * Inverted index over name, description, address and city of ACTIVE facilities.
+ *
+ * Terms are kept in a sorted map so a prefix query is a range scan; each term maps to a
+ * sorted int[] of facility ids that is replaced (never mutated) when a facility changes.
+ * Every query token is matched as a prefix and all tokens must match.
+ */
+@Component
+public class FacilityTextIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacilityTextIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Custo relativo de verificar os termos de um candidato face a ler uma entrada de posting list
+    private static final int CANDIDATE_CHECK_COST = 8;
+
+    private static final Comparator<Doc> BY_NAME = Comparator.comparing(Doc::sortName);
+
+    private final FacilityRepository facilityRepository;
+
+    private final NavigableMap<String, int[]> postings = new ConcurrentSkipListMap<>();
+    // Indexado pelo id da facility; reatribuído depois de cada escrita para publicar as alterações
+    private volatile Doc[] docs = new Doc[0];
+    private volatile int docCount;
+
+    public FacilityTextIndex(FacilityRepository facilityRepository) {
+        this.facilityRepository = facilityRepository;
+    }
+
+    /**
+     * A matching facility with the fields needed to render a suggestion.
+     */
+    public record Hit(Long facilityId, String name, String city, String address) {
+    }
+
+    // Termos guardados para conseguir retirar a facility das posting lists quando muda
+    private record Doc(Hit hit, String[] terms, String[] nameTerms, String sortName) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        List<Facility> active = new ArrayList<>(facilityRepository.findByStatus("ACTIVE"));
+        active.sort(Comparator.comparing(Facility::getId));
+
+        // Construção em bloco: por ordem de id as posting lists saem já ordenadas, sem cópias por inserção
+        int maxId = active.isEmpty() ? 0 : docId(active.get(active.size() - 1).getId());
+        Doc[] built = new Doc[maxId + 1];
+        Map<String, IntList> lists = new HashMap<>();
+        for (Facility facility : active) {
+            Doc doc = toDoc(facility);
+            int id = docId(facility.getId());
+            built[id] = doc;
+            for (String term : doc.terms()) {
+                lists.computeIfAbsent(term, t -> new IntList()).add(id);
+            }
+        }
+
+        postings.clear();
+        lists.forEach((term, ids) -> postings.put(term, ids.toArray()));
+        docs = built;
+        docCount = active.size();
+        logger.info("Text index rebuilt with {} facilities and {} terms", docCount, postings.size());
+    }
+
+    @EventListener
+    public void onFacilityChanged(FacilityChangedEvent event) {
+        refresh(event.facilityId());
+    }
+
+    public synchronized void refresh(Long facilityId) {
+        remove(docId(facilityId));
+        facilityRepository.findById(facilityId)
+                .filter(f -> "ACTIVE".equals(f.getStatus()))
+                .ifPresent(this::add);
+    }
+
+    /**
+     * Facilities whose indexed text has a term starting with every token of the query.
+     * Facilities matching all tokens in the name come first, then alphabetical by name.
+     */
+    public List<Hit> search(String query, int limit) {
+        String[] tokens = tokenize(query).toArray(String[]::new);
+        if (tokens.length == 0) {
+            return List.of();
+        }
+
+        Doc[] current = docs;
+
+        // Começa pelo token mais seletivo; os restantes filtram esses candidatos
+        long[] counts = new long[tokens.length];
+        Integer[] order = new Integer[tokens.length];
+        for (int t = 0; t < tokens.length; t++) {
+            counts[t] = postingCount(tokens[t]);
+            order[t] = t;
+        }
+        Arrays.sort(order, Comparator.comparingLong(t -> counts[t]));
+
+        int[] matches = prefixUnion(tokens[order[0]], current.length);
+        for (int i = 1; i < order.length && matches.length > 0; i++) {
+            int t = order[i];
+            // Poucos candidatos: verificar os termos de cada um sai mais barato do que unir as posting lists
+            if ((long) matches.length * CANDIDATE_CHECK_COST < counts[t]) {
+                matches = filterByPrefix(current, matches, tokens[t]);
+            } else {
+                matches = intersect(matches, prefixUnion(tokens[t], current.length));
+            }
+        }
+
+        // Só interessam os primeiros "limit": heaps limitados em vez de ordenar todos os candidatos
+        PriorityQueue<Doc> inName = new PriorityQueue<>(limit, BY_NAME.reversed());
+        PriorityQueue<Doc> elsewhere = new PriorityQueue<>(limit, BY_NAME.reversed());
+        for (int id : matches) {
+            Doc doc = id < current.length ? current[id] : null;
+            if (doc != null) {
+                offerTop(matchesAll(doc.nameTerms(), tokens) ? inName : elsewhere, doc, limit);
+            }
+        }
+        List<Hit> result = new ArrayList<>(limit);
+        addSortedByName(result, inName, limit);
+        addSortedByName(result, elsewhere, limit);
+        return result;
+    }
+
+    public int size() {
+        return docCount;
+    }
+
+    private void add(Facility facility) {
+        int id = docId(facility.getId());
+        Doc doc = toDoc(facility);
+        for (String term : doc.terms()) {
+            postings.merge(term, new int[] { id }, FacilityTextIndex::insert);
+        }
+        Doc[] current = docs;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, Math.max(id + 1, current.length * 2));
+        }
+        current[id] = doc;
+        docs = current;
+        docCount++;
+    }
+
+    private static Doc toDoc(Facility facility) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.addAll(tokenize(facility.getName()));
+        terms.addAll(tokenize(facility.getDescription()));
+        terms.addAll(tokenize(facility.getAddress()));
+        terms.addAll(tokenize(facility.getCity()));
+
+        Hit hit = new Hit(facility.getId(), facility.getName(), facility.getCity(), facility.getAddress());
+        String sortName = facility.getName() != null ? facility.getName().toLowerCase(Locale.ROOT) : "";
+        return new Doc(hit, terms.toArray(String[]::new), tokenize(facility.getName()).toArray(String[]::new),
+                sortName);
+    }
+
+    private void remove(int id) {
+        Doc[] current = docs;
+        Doc previous = id < current.length ? current[id] : null;
+        if (previous == null) {
+            return;
+        }
+        current[id] = null;
+        docs = current;
+        docCount--;
+        for (String term : previous.terms()) {
+            // computeIfPresent a devolver null apaga o termo quando a lista fica vazia
+            postings.computeIfPresent(term, (t, ids) -> {
+                int[] remaining = delete(ids, id);
+                return remaining.length == 0 ? null : remaining;
+            });
+        }
+    }
+
+    private NavigableMap<String, int[]> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private long postingCount(String prefix) {
+        long count = 0;
+        for (int[] ids : prefixRange(prefix).values()) {
+            count += ids.length;
+        }
+        return count;
+    }
+
+    private int[] prefixUnion(String prefix, int idLimit) {
+        Collection<int[]> lists = prefixRange(prefix).values();
+        int[] first = null;
+        int terms = 0;
+        for (int[] ids : lists) {
+            first = ids;
+            if (++terms > 2) {
+                break;
+            }
+        }
+        if (terms == 0) {
+            return new int[0];
+        }
+        if (terms == 1) {
+            return first;
+        }
+        // Prefixos curtos abrangem muitos termos: marcar num bitmap evita fundir lista a lista
+        long[] bits = new long[(idLimit >> 6) + 1];
+        for (int[] ids : lists) {
+            for (int id : ids) {
+                // Ids acima do limite pertencem a facilities ainda não publicadas em docs
+                if (id < idLimit) {
+                    bits[id >> 6] |= 1L << id;
+                }
+            }
+        }
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        int[] union = new int[count];
+        int n = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                union[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return union;
+    }
+
+    private static int[] filterByPrefix(Doc[] docs, int[] candidates, String prefix) {
+        int[] out = new int[candidates.length];
+        int n = 0;
+        for (int id : candidates) {
+            Doc doc = id < docs.length ? docs[id] : null;
+            if (doc != null && anyStartsWith(doc.terms(), prefix)) {
+                out[n++] = id;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static void offerTop(PriorityQueue<Doc> top, Doc doc, int limit) {
+        if (top.size() < limit) {
+            top.offer(doc);
+        } else if (BY_NAME.compare(doc, top.peek()) < 0) {
+            top.poll();
+            top.offer(doc);
+        }
+    }
+
+    private static void addSortedByName(List<Hit> result, PriorityQueue<Doc> top, int limit) {
+        List<Doc> best = new ArrayList<>(top);
+        best.sort(BY_NAME);
+        for (int i = 0; i < best.size() && result.size() < limit; i++) {
+            result.add(best.get(i).hit());
+        }
+    }
+
+    // Ids das facilities cabem em int; posting lists ficam em arrays primitivos
+    private static int docId(Long facilityId) {
+        return Math.toIntExact(facilityId);
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(SEPARATORS.split(folded.toLowerCase(Locale.ROOT)))
+                .filter(t -> !t.isEmpty())
+                .toList();
+    }
+
+    private static boolean matchesAll(String[] terms, String[] tokens) {
+        for (String token : tokens) {
+            if (!anyStartsWith(terms, token)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean anyStartsWith(String[] terms, String prefix) {
+        for (String term : terms) {
+            if (term.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] insert(int[] ids, int[] single) {
+        int pos = Arrays.binarySearch(ids, single[0]);
+        if (pos >= 0) {
+            return ids;
+        }
+        int at = -pos - 1;
+        int[] result = new int[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, at);
+        result[at] = single[0];
+        System.arraycopy(ids, at, result, at + 1, ids.length - at);
+        return result;
+    }
+
+    private static int[] delete(int[] ids, int id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        int[] result = new int[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, pos);
+        System.arraycopy(ids, pos + 1, result, pos, ids.length - pos - 1);
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
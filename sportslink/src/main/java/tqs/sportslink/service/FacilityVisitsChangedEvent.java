@@ -0,0 +1,19 @@
+package tqs.sportslink.service;
+
+import java.util.Set;
+
+/**
+ * Published after a user's set of booked facilities changes, with the set before and after.
+ * Only rentals that were not cancelled count as a visit.
+ */
+public record FacilityVisitsChangedEvent(Long userId, Set<Long> before, Set<Long> after) {
+
+    public FacilityVisitsChangedEvent {
+        before = Set.copyOf(before);
+        after = Set.copyOf(after);
+    }
+
+    public boolean changed() {
+        return !before.equals(after);
+    }
+}
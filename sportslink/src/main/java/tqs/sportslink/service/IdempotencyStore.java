@@ -0,0 +1,268 @@
+package tqs.sportslink.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tqs.sportslink.data.IdempotencyRecordRepository;
+import tqs.sportslink.data.model.IdempotencyRecord;
+
+/**
+ * Replays the stored response of requests sent again with the same Idempotency-Key.
+ *
+ * Successful responses are kept in a bounded in-memory LRU and in the idempotency_records
+ * table, both for a TTL, so a retry reaching any node returns the first answer without
+ * running the action again. Before running the action the key is claimed with an insert;
+ * a concurrent retry that loses the insert gets a 409. Failed requests release the claim
+ * and can be retried. Keys belong to the authenticated user: the same key sent by two users
+ * names two different requests.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    static final int MAX_KEY_LENGTH = 255;
+    private static final int MAX_STORED_BODY = 4000;
+    // Uma reclamação cujo nó caiu a meio deixa de bloquear a chave ao fim deste tempo
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(2);
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final Duration ttl;
+
+    // Ordem de acesso: o primeiro elemento é sempre o menos usado recentemente
+    private final Map<String, Stored> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public IdempotencyStore(IdempotencyRecordRepository repository, ObjectMapper objectMapper,
+            @Value("${sportslink.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${sportslink.idempotency.ttl-hours:24}") long ttlHours) {
+        if (maxEntries < 1 || ttlHours < 1) {
+            throw new IllegalArgumentException("Invalid idempotency store configuration");
+        }
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    private record Stored(String requestHash, int status, Object body, LocalDateTime expiresAt) {
+    }
+
+    /**
+     * Runs action once per (scope, user, key). A null key runs it without idempotency.
+     * The same key with a different request is rejected with 400.
+     *
+     * @param replayType type of the 2xx body, used to read it back from the table
+     */
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<?> replayType,
+            Supplier<ResponseEntity<T>> action) {
+        return execute(scope, key, request, replayType, action, UnaryOperator.identity());
+    }
+
+    /**
+     * Like {@link #execute(String, String, Object, Class, Supplier)}, but keeps
+     * {@code toStored} of the body instead of the body itself, so that secrets in the response
+     * never reach the table. Replays return the stored form.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Class<?> replayType,
+            Supplier<ResponseEntity<T>> action, UnaryOperator<T> toStored) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + owner() + ":" + key;
+        String requestHash = hash(request);
+        LocalDateTime now = LocalDateTime.now();
+
+        Optional<Stored> stored = lookup(id, now, replayType);
+        if (stored.isPresent()) {
+            return (ResponseEntity<T>) replay(stored.get(), requestHash);
+        }
+
+        claim(id, requestHash, now);
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            repository.deleteById(id);
+            throw e;
+        }
+
+        if (response.getStatusCode().is2xxSuccessful()) {
+            remember(id, new Stored(requestHash, response.getStatusCode().value(),
+                    toStored.apply(response.getBody()), now.plus(ttl)));
+        } else {
+            // Só respostas de sucesso ficam guardadas; um erro pode ser corrigido e repetido
+            repository.deleteById(id);
+        }
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${sportslink.idempotency.cleanup-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (this) {
+            entries.values().removeIf(s -> s.expiresAt().isBefore(now));
+        }
+        int deleted = repository.deleteExpired(now);
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private Optional<Stored> lookup(String id, LocalDateTime now, Class<?> replayType) {
+        synchronized (this) {
+            Stored cached = entries.get(id);
+            if (cached != null && cached.expiresAt().isAfter(now)) {
+                return Optional.of(cached);
+            }
+        }
+
+        // Outro nó pode ter respondido: o registo durável é a fonte de verdade
+        Optional<IdempotencyRecord> found = repository.findById(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        IdempotencyRecord record = found.get();
+        if (!record.getExpiresAt().isAfter(now)) {
+            repository.deleteById(id);
+            return Optional.empty();
+        }
+        if (record.getResponseStatus() == null) {
+            // Reclamada mas ainda sem resposta (noutro nó ou noutra thread)
+            return Optional.of(new Stored(record.getRequestHash(), 0, null, record.getExpiresAt()));
+        }
+        Stored stored = new Stored(record.getRequestHash(), record.getResponseStatus(),
+                readBody(record.getResponseBody(), replayType), record.getExpiresAt());
+        synchronized (this) {
+            put(id, stored);
+        }
+        return Optional.of(stored);
+    }
+
+    private ResponseEntity<Object> replay(Stored stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IllegalArgumentException(HEADER + " was already used for a different request");
+        }
+        if (stored.status() == 0) {
+            throw new IllegalStateException("A request with this " + HEADER + " is still being processed");
+        }
+        return ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true")
+                .body(stored.body());
+    }
+
+    private void claim(String id, String requestHash, LocalDateTime now) {
+        IdempotencyRecord claim = new IdempotencyRecord();
+        claim.setId(id);
+        claim.setRequestHash(requestHash);
+        claim.setExpiresAt(now.plus(CLAIM_LEASE));
+        try {
+            repository.saveAndFlush(claim);
+        } catch (DataIntegrityViolationException e) {
+            // Outro pedido com a mesma chave inseriu primeiro e ainda não terminou
+            throw new IllegalStateException("A request with this " + HEADER + " is still being processed", e);
+        }
+    }
+
+    private void remember(String id, Stored stored) {
+        synchronized (this) {
+            put(id, stored);
+        }
+        String json = writeBody(stored.body());
+        if (json == null || json.length() > MAX_STORED_BODY) {
+            // Sem corpo durável não há replay noutros nós: liberta a chave em vez de a bloquear
+            repository.deleteById(id);
+            return;
+        }
+        repository.findById(id).ifPresent(record -> {
+            record.setResponseStatus(stored.status());
+            record.setResponseBody(json);
+            record.setExpiresAt(stored.expiresAt());
+            repository.save(record);
+        });
+    }
+
+    private void put(String id, Stored stored) {
+        entries.put(id, stored);
+        if (entries.size() > maxEntries) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            return HexFormat.of().formatHex(sha256(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+
+    // O utilizador autenticado entra no id, com tamanho fixo para caber na coluna com chaves de 255
+    private static String owner() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String principal = auth != null ? auth.getName() : "";
+        return HexFormat.of().formatHex(sha256(principal.getBytes(StandardCharsets.UTF_8)), 0, 8);
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private String writeBody(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            logger.warn("Idempotent response not serializable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Object readBody(String json, Class<?> type) {
+        try {
+            return json != null ? objectMapper.readValue(json, type) : null;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", e);
+        }
+    }
+}
@@ -4,36 +4,53 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import tqs.sportslink.data.FacilityRepository;
-import tqs.sportslink.data.RentalRepository;
-import tqs.sportslink.data.EquipmentRepository;
+import tqs.sportslink.data.OwnerFacilityStats;
 import tqs.sportslink.data.UserRepository;
 import tqs.sportslink.data.model.*;
 import tqs.sportslink.dto.*;
+import tqs.sportslink.util.GeoUtils;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class IntelligentEngineService {
 
     private static final Logger logger = LoggerFactory.getLogger(IntelligentEngineService.class);
 
+    private static final int SUGGESTION_LIMIT = 5;
+    private static final int RECENT_DAYS = 30;
+
     private final FacilityRepository facilityRepository;
-    private final RentalRepository rentalRepository;
-    private final EquipmentRepository equipmentRepository;
+    private final EquipmentSportIndex equipmentIndex;
     private final UserRepository userRepository;
+    private final FacilityCatalog catalog;
+    private final UserPreferenceService preferenceService;
+    private final FacilityScorer scorer;
+    private final FacilityCoOccurrence coOccurrence;
+    private final FacilitySuggestionCache suggestionCache;
+    private final FacilityDemandCounters demandCounters;
 
     public IntelligentEngineService(
             FacilityRepository facilityRepository,
-            RentalRepository rentalRepository,
-            EquipmentRepository equipmentRepository,
-            UserRepository userRepository) {
+            EquipmentSportIndex equipmentIndex,
+            UserRepository userRepository,
+            FacilityCatalog catalog,
+            UserPreferenceService preferenceService,
+            FacilityScorer scorer,
+            FacilityCoOccurrence coOccurrence,
+            FacilitySuggestionCache suggestionCache,
+            FacilityDemandCounters demandCounters) {
         this.facilityRepository = facilityRepository;
-        this.rentalRepository = rentalRepository;
-        this.equipmentRepository = equipmentRepository;
+        this.equipmentIndex = equipmentIndex;
         this.userRepository = userRepository;
+        this.catalog = catalog;
+        this.preferenceService = preferenceService;
+        this.scorer = scorer;
+        this.coOccurrence = coOccurrence;
+        this.suggestionCache = suggestionCache;
+        this.demandCounters = demandCounters;
     }
 
     /**
@@ -57,49 +74,44 @@ public class IntelligentEngineService {
         // Use provided coordinates or fall back to user's saved location
         Double effectiveLat = userLat != null ? userLat : user.getLatitude();
         Double effectiveLon = userLon != null ? userLon : user.getLongitude();
+        UserPreferenceProfile located = null;
+        if (effectiveLat == null || effectiveLon == null) {
+            // Sem localização: usar a da facility da última reserva
+            located = preferenceService.profileOf(userId);
+            effectiveLat = located.lastLatitude();
+            effectiveLon = located.lastLongitude();
+        }
+
+        // Pedidos da mesma célula partilham a entrada; a posição passa a ser o centro da célula
+        FacilitySuggestionCache.Key key = suggestionCache.keyFor(userId, effectiveLat, effectiveLon);
+        FacilityCatalog.Snapshot snapshot = catalog.snapshot();
+        UserPreferenceProfile profile = located;
+        return suggestionCache.get(key, snapshot.version(),
+                () -> computeSuggestions(snapshot, userId, profile, key.latitude(), key.longitude()));
+    }
 
-        List<Rental> userRentals = rentalRepository.findByUserId(userId);
+    private List<FacilitySuggestionDTO> computeSuggestions(FacilityCatalog.Snapshot snapshot, Long userId,
+            UserPreferenceProfile loaded, Double effectiveLat, Double effectiveLon) {
+        // Perfil pré-calculado: uma linha em vez de todo o histórico de reservas
+        UserPreferenceProfile profile = loaded != null ? loaded : preferenceService.profileOf(userId);
 
-        if (userRentals.isEmpty()) {
-            return suggestTopRatedFacilities();
+        if (profile.isEmpty()) {
+            return suggestTopRatedFacilities(snapshot);
         }
 
-        // Analyze user's preferences
-        Map<String, Long> cityCounts = userRentals.stream()
-                .collect(Collectors.groupingBy(r -> r.getFacility().getCity(), Collectors.counting()));
-
-        String preferredCity = cityCounts.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse(null);
-
-        Set<Sport> preferredSports = userRentals.stream()
-                .flatMap(r -> r.getFacility().getSports().stream())
-                .collect(Collectors.groupingBy(s -> s, Collectors.counting()))
-                .entrySet().stream()
-                .sorted(Map.Entry.<Sport, Long>comparingByValue().reversed())
-                .limit(3)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
-
-        // Get candidate facilities (filtering out visited ones)
-        Set<Long> visitedFacilityIds = userRentals.stream()
-                .map(r -> r.getFacility().getId())
-                .collect(Collectors.toSet());
-
-        List<Facility> candidates = facilityRepository.findAll().stream()
-                .filter(f -> "ACTIVE".equals(f.getStatus()))
-                .filter(f -> !visitedFacilityIds.contains(f.getId()))
-                .toList();
+        String preferredCity = profile.favouriteCity();
+        Set<Sport> preferredSports = profile.topSports(3);
+        Set<Long> visitedFacilityIds = profile.visitedFacilityIds();
+        // Quem reservou as mesmas facilities também reservou... (só as linhas das facilities do user)
+        Map<Long, Double> affinities = coOccurrence.affinities(visitedFacilityIds);
 
-        // Score facilities
-        return candidates.stream()
+        // Candidatos vêm do snapshot do catálogo (só ACTIVE), sem ir à BD; só os 5 vencedores viram DTO
+        FacilityScorer.Query query = new FacilityScorer.Query(effectiveLat, effectiveLon, preferredCity,
+                preferredSports, visitedFacilityIds, affinities);
+        return scorer.topK(snapshot, query, SUGGESTION_LIMIT).stream()
                 .map(facility -> createFacilitySuggestion(facility, preferredCity, preferredSports, effectiveLat,
-                        effectiveLon))
-                .sorted(Comparator.comparingDouble(FacilitySuggestionDTO::getScore).reversed())
-                .limit(5)
+                        effectiveLon, affinities.getOrDefault(facility.id(), 0.0)))
                 .toList();
-
     }
 
     /**
@@ -117,19 +129,17 @@ public class IntelligentEngineService {
             return Collections.emptyList();
         }
 
-        return equipmentRepository.findByFacilityId(facilityId).stream()
-                .filter(e -> "AVAILABLE".equals(e.getStatus()))
-                .filter(e -> e.getSports() != null && e.getSports().contains(sport))
+        // Índice em memória por desporto: sem ir à BD nem carregar os desportos de cada equipamento
+        return equipmentIndex.available(facilityId, sport).stream()
                 .map(e -> new EquipmentSuggestionDTO(
-                        e.getId(),
-                        e.getName(),
-                        e.getType(),
-                        e.getPricePerHour(),
-                        e.getQuantity(),
+                        (long) e.id(),
+                        e.name(),
+                        e.type(),
+                        e.pricePerHour(),
+                        e.quantity(),
                         "Essential for " + sportName,
                         95.0 // High score for strict matches
                 ))
-                .sorted(Comparator.comparingDouble(EquipmentSuggestionDTO::getScore).reversed())
                 .toList();
     }
 
@@ -144,18 +154,16 @@ public class IntelligentEngineService {
 
         List<OwnerSuggestionDTO> suggestions = new ArrayList<>();
 
-        for (Facility facility : owner.getFacilities()) {
-            List<Rental> rentals = rentalRepository.findByFacilityId(facility.getId());
-
-            long recentBookings = countRecentBookingsLast30Days(rentals);
-
+        // Uma query para as facilities e o equipamento; as reservas vêm dos contadores em memória
+        for (OwnerFacilityStats facility : facilityRepository.findOwnerFacilityStats(ownerId)) {
+            int recentBookings = demandCounters.recentBookings(facility.facilityId(), RECENT_DAYS);
             addDemandSuggestions(suggestions, facility, recentBookings);
 
             if (needsMaintenance(facility)) {
                 suggestions.add(new OwnerSuggestionDTO(
                         "MAINTENANCE",
-                        facility.getId(),
-                        facility.getName(),
+                        facility.facilityId(),
+                        facility.name(),
                         "Maintenance / Quality Check",
                         "Facility rating is low or information hasn't been updated in 3 months.",
                         "HIGH",
@@ -172,14 +180,8 @@ public class IntelligentEngineService {
         }
     }
 
-    private long countRecentBookingsLast30Days(List<Rental> rentals) {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(30);
-        return rentals.stream()
-                .filter(r -> r.getCreatedAt().isAfter(cutoff))
-                .count();
-    }
-
-    private void addDemandSuggestions(List<OwnerSuggestionDTO> suggestions, Facility facility, long recentBookings) {
+    private void addDemandSuggestions(List<OwnerSuggestionDTO> suggestions, OwnerFacilityStats facility,
+            int recentBookings) {
         if (recentBookings > 20) {
             addHighDemandSuggestionIfLowEquipment(suggestions, facility);
             return;
@@ -188,8 +190,8 @@ public class IntelligentEngineService {
         if (recentBookings < 5) {
             suggestions.add(new OwnerSuggestionDTO(
                     "LOWER_PRICE",
-                    facility.getId(),
-                    facility.getName(),
+                    facility.facilityId(),
+                    facility.name(),
                     "Low Utilization",
                     "Few bookings recently. Consider a promotion or price reduction.",
                     "MEDIUM",
@@ -197,101 +199,95 @@ public class IntelligentEngineService {
         }
     }
 
-    private void addHighDemandSuggestionIfLowEquipment(List<OwnerSuggestionDTO> suggestions, Facility facility) {
-        long equipmentCount = equipmentRepository.findByFacilityId(facility.getId()).size();
-        if (equipmentCount < 5) {
+    private void addHighDemandSuggestionIfLowEquipment(List<OwnerSuggestionDTO> suggestions,
+            OwnerFacilityStats facility) {
+        if (facility.equipmentCount() < 5) {
             suggestions.add(new OwnerSuggestionDTO(
                     "ADD_EQUIPMENT",
-                    facility.getId(),
-                    facility.getName(),
+                    facility.facilityId(),
+                    facility.name(),
                     "High Demand Detected",
                     "High booking volume detected. Add more equipment to maximize revenue.",
                     "HIGH",
-                    facility.getPricePerHour() * 10));
+                    facility.pricePerHour() * 10));
         }
     }
 
-    private boolean needsMaintenance(Facility facility) {
-        if (facility.getRating() != null && facility.getRating() < 4.0) {
+    private boolean needsMaintenance(OwnerFacilityStats facility) {
+        if (facility.rating() != null && facility.rating() < 4.0) {
             return true;
         }
 
-        long daysSinceUpdate = ChronoUnit.DAYS.between(facility.getUpdatedAt(), LocalDateTime.now());
+        long daysSinceUpdate = ChronoUnit.DAYS.between(facility.updatedAt(), LocalDateTime.now());
         return daysSinceUpdate > 90;
     }
 
 
-    private List<FacilitySuggestionDTO> suggestTopRatedFacilities() {
-        return facilityRepository.findAll().stream()
-                .filter(f -> "ACTIVE".equals(f.getStatus()))
-                .filter(f -> f.getRating() != null && f.getRating() > 4.0)
-                .sorted(Comparator.comparingDouble(Facility::getRating).reversed())
-                .limit(5)
+    private List<FacilitySuggestionDTO> suggestTopRatedFacilities(FacilityCatalog.Snapshot snapshot) {
+        return snapshot.facilities().stream()
+                .filter(f -> f.rating() != null && f.rating() > 4.0)
+                .sorted(Comparator.comparingDouble(FacilityCatalog.Entry::rating).reversed())
+                .limit(SUGGESTION_LIMIT)
                 .map(f -> new FacilitySuggestionDTO(
-                        f.getId(),
-                        f.getName(),
-                        f.getImageUrl(),
-                        f.getAddress(),
-                        f.getCity(),
-                        f.getPricePerHour(),
-                        f.getRating(),
+                        f.id(),
+                        f.name(),
+                        f.imageUrl(),
+                        f.address(),
+                        f.city(),
+                        f.pricePerHour(),
+                        f.rating(),
                         "Top rated facility",
-                        f.getRating() * 20,
+                        f.rating() * 20,
                         null))
                 .toList();
     }
 
-    private FacilitySuggestionDTO createFacilitySuggestion(Facility facility, String preferredCity,
-            Set<Sport> preferredSports, Double userLat, Double userLon) {
+    private FacilitySuggestionDTO createFacilitySuggestion(FacilityCatalog.Entry facility, String preferredCity,
+            Set<Sport> preferredSports, Double userLat, Double userLon, double affinity) {
         double score = 0.0;
         List<String> reasons = new ArrayList<>();
         Double distance = null;
 
         // Location Score (40 pts)
-        if (userLat != null && userLon != null && facility.getLatitude() != null && facility.getLongitude() != null) {
-            distance = calculateDistance(userLat, userLon, facility.getLatitude(), facility.getLongitude());
-            if (distance < 20.0) {
-                score += 40.0 * (1 - (distance / 20.0));
+        if (userLat != null && userLon != null && facility.latitude() != null && facility.longitude() != null) {
+            distance = GeoUtils.haversineKm(userLat, userLon, facility.latitude(), facility.longitude());
+            if (distance < FacilityScorer.NEARBY_KM) {
+                score += FacilityScorer.LOCATION_POINTS * (1 - (distance / FacilityScorer.NEARBY_KM));
                 reasons.add(String.format("%.1f km away", distance));
             }
-        } else if (preferredCity != null && preferredCity.equalsIgnoreCase(facility.getCity())) {
-            score += 40.0;
+        } else if (preferredCity != null && preferredCity.equalsIgnoreCase(facility.city())) {
+            score += FacilityScorer.LOCATION_POINTS;
             reasons.add("In " + preferredCity);
         }
 
         // Sport Match Score (30 pts)
-        boolean sportMatch = facility.getSports().stream().anyMatch(preferredSports::contains);
+        boolean sportMatch = facility.sports().stream().anyMatch(preferredSports::contains);
         if (sportMatch) {
-            score += 30.0;
+            score += FacilityScorer.SPORT_POINTS;
             reasons.add("Matches your sports");
         }
 
         // Rating Score (30 pts)
-        if (facility.getRating() != null) {
-            score += (facility.getRating() / 5.0) * 30.0;
+        if (facility.rating() != null) {
+            score += (facility.rating() / 5.0) * FacilityScorer.RATING_POINTS;
+        }
+
+        // Also Booked Score (20 pts)
+        if (affinity > 0) {
+            score += FacilityScorer.ALSO_BOOKED_POINTS * affinity;
+            reasons.add("Popular with people who booked your facilities");
         }
 
         return new FacilitySuggestionDTO(
-                facility.getId(),
-                facility.getName(),
-                facility.getImageUrl(),
-                facility.getAddress(),
-                facility.getCity(),
-                facility.getPricePerHour(),
-                facility.getRating(),
+                facility.id(),
+                facility.name(),
+                facility.imageUrl(),
+                facility.address(),
+                facility.city(),
+                facility.pricePerHour(),
+                facility.rating(),
                 String.join(", ", reasons),
                 score,
                 distance);
     }
-
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final double EARTH_RADIUS_KM = 6371.0;
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return EARTH_RADIUS_KM * c;
-    }
 }
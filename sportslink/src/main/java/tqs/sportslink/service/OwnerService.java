@@ -1,5 +1,6 @@
 package tqs.sportslink.service;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import tqs.sportslink.data.FacilityRepository;
@@ -14,7 +15,9 @@ import tqs.sportslink.dto.FacilityRequestDTO;
 import tqs.sportslink.dto.FacilityResponseDTO;
 import tqs.sportslink.dto.EquipmentRequestDTO;
 import tqs.sportslink.dto.EquipmentResponseDTO;
+import tqs.sportslink.dto.FacilityOccupancyDTO;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -30,17 +33,23 @@ public class OwnerService {
         private final EquipmentRepository equipmentRepository;
         private final UserRepository userRepository;
         private final StorageService storageService;
+        private final ApplicationEventPublisher eventPublisher;
+        private final FacilityDemandCounters demandCounters;
 
         private static final String FACILITY_NOT_FOUND = "Facility not found";
 
         public OwnerService(FacilityRepository facilityRepository,
                         EquipmentRepository equipmentRepository,
                         UserRepository userRepository,
-                        StorageService storageService) {
+                        StorageService storageService,
+                        ApplicationEventPublisher eventPublisher,
+                        FacilityDemandCounters demandCounters) {
                 this.facilityRepository = facilityRepository;
                 this.equipmentRepository = equipmentRepository;
                 this.userRepository = userRepository;
                 this.storageService = storageService;
+                this.eventPublisher = eventPublisher;
+                this.demandCounters = demandCounters;
         }
 
         // ============================
@@ -71,6 +80,7 @@ public class OwnerService {
 
                 Facility saved = facilityRepository.save(facility);
                 logger.info("Owner {} created new facility: {} (id={})", ownerId, saved.getName(), saved.getId());
+                eventPublisher.publishEvent(new FacilityChangedEvent(saved.getId()));
 
                 String openingTimeStr = saved.getOpeningTime() != null ? saved.getOpeningTime().toString() : null;
                 String closingTimeStr = saved.getClosingTime() != null ? saved.getClosingTime().toString() : null;
@@ -133,6 +143,7 @@ public class OwnerService {
                 facility.setStatus("DELETED");
                 facilityRepository.save(facility);
                 logger.info("Owner {} deleted facility id={}", ownerId, facilityId);
+                eventPublisher.publishEvent(new FacilityChangedEvent(facilityId));
         }
 
         public FacilityResponseDTO updateFacility(Long ownerId, Long facilityId, FacilityRequestDTO dto) {
@@ -155,6 +166,7 @@ public class OwnerService {
 
                 Facility saved = facilityRepository.save(facility);
                 logger.info("Owner {} updated facility id={}", ownerId, facilityId);
+                eventPublisher.publishEvent(new FacilityChangedEvent(facilityId));
 
                 String openingTimeStr = saved.getOpeningTime() != null ? saved.getOpeningTime().toString() : null;
                 String closingTimeStr = saved.getClosingTime() != null ? saved.getClosingTime().toString() : null;
@@ -197,6 +209,7 @@ public class OwnerService {
 
                 Equipment saved = equipmentRepository.save(equipment);
                 logger.info("Owner {} added equipment {} to facility {}", ownerId, saved.getName(), facilityId);
+                eventPublisher.publishEvent(new EquipmentChangedEvent(facilityId));
 
                 return new EquipmentResponseDTO(
                                 saved.getId(),
@@ -248,6 +261,7 @@ public class OwnerService {
 
                 Equipment saved = equipmentRepository.save(equipment);
                 logger.info("Owner {} updated equipment id={}", ownerId, equipmentId);
+                eventPublisher.publishEvent(new EquipmentChangedEvent(equipment.getFacility().getId()));
 
                 return new EquipmentResponseDTO(
                                 saved.getId(),
@@ -258,4 +272,37 @@ public class OwnerService {
                                 saved.getPricePerHour(),
                                 saved.getStatus());
         }
+
+        // ============================
+        // OCCUPANCY
+        // ============================
+
+        /**
+         * Bookings of the facility by hour of week, day and week over the last {@code weeks} weeks,
+         * read from the in-memory demand counters.
+         */
+        public FacilityOccupancyDTO getOccupancy(Long ownerId, Long facilityId, int weeks) {
+
+                if (weeks < 1 || weeks > FacilityDemandCounters.PAST_DAYS / 7) {
+                        throw new IllegalArgumentException(
+                                        "weeks must be between 1 and " + FacilityDemandCounters.PAST_DAYS / 7);
+                }
+
+                Facility facility = facilityRepository.findById(facilityId)
+                                .orElseThrow(() -> new NoSuchElementException(FACILITY_NOT_FOUND));
+
+                if (!facility.getOwner().getId().equals(ownerId)) {
+                        throw new IllegalArgumentException("Owner does not own this facility");
+                }
+
+                int days = 7 * weeks;
+                LocalDate from = LocalDate.now().minusDays(days - 1L);
+                return new FacilityOccupancyDTO(
+                                facilityId,
+                                from,
+                                weeks,
+                                demandCounters.hourOfWeek(facilityId, weeks),
+                                demandCounters.daily(facilityId, from, days),
+                                demandCounters.weekly(facilityId, weeks));
+        }
 }
@@ -0,0 +1,45 @@
+package tqs.sportslink.service;
+
+import java.time.LocalDateTime;
+
+import tqs.sportslink.data.model.Rental;
+
+/**
+ * Published after a rental is created, rescheduled or cancelled, so that the
+ * in-memory read models can follow bookings without querying the database.
+ * previousStart/previousEnd are only set for UPDATED events.
+ */
+public record RentalChangedEvent(
+        Kind kind,
+        Long rentalId,
+        Long facilityId,
+        Long userId,
+        LocalDateTime previousStart,
+        LocalDateTime previousEnd,
+        LocalDateTime startTime,
+        LocalDateTime endTime) {
+
+    public enum Kind {
+        CREATED, UPDATED, CANCELLED
+    }
+
+    public static RentalChangedEvent created(Rental rental) {
+        return of(Kind.CREATED, rental, null, null);
+    }
+
+    public static RentalChangedEvent updated(Rental rental, LocalDateTime previousStart, LocalDateTime previousEnd) {
+        return of(Kind.UPDATED, rental, previousStart, previousEnd);
+    }
+
+    public static RentalChangedEvent cancelled(Rental rental) {
+        return of(Kind.CANCELLED, rental, null, null);
+    }
+
+    private static RentalChangedEvent of(Kind kind, Rental rental,
+            LocalDateTime previousStart, LocalDateTime previousEnd) {
+        Long facilityId = rental.getFacility() != null ? rental.getFacility().getId() : null;
+        Long userId = rental.getUser() != null ? rental.getUser().getId() : null;
+        return new RentalChangedEvent(kind, rental.getId(), facilityId, userId,
+                previousStart, previousEnd, rental.getStartTime(), rental.getEndTime());
+    }
+}
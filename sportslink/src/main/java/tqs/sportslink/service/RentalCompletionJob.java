@@ -0,0 +1,112 @@
+package tqs.sportslink.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Moves CONFIRMED rentals whose endTime has passed to COMPLETED.
+ *
+ * Runs as chunked bulk UPDATEs straight on the rentals table, each chunk its own statement
+ * and transaction, so no entity is loaded and locks are held briefly. Several nodes can run it
+ * at once: every chunk re-checks status = 'CONFIRMED', and on PostgreSQL the chunk is picked
+ * with FOR UPDATE SKIP LOCKED so nodes take different rows instead of waiting on each other.
+ */
+@Component
+public class RentalCompletionJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalCompletionJob.class);
+
+    static final String COMPLETE_CHUNK = "UPDATE rentals SET status = 'COMPLETED', updated_at = ? "
+            + "WHERE status = 'CONFIRMED' AND id IN ("
+            + "SELECT id FROM rentals WHERE status = 'CONFIRMED' AND end_time < ? FETCH FIRST ? ROWS ONLY%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    private final Counter completed;
+    private final DistributionSummary rowsPerRun;
+    private final Timer runDuration;
+
+    // Resolvido na primeira execução para não abrir ligações durante o arranque
+    private volatile String chunkSql;
+
+    public RentalCompletionJob(JdbcTemplate jdbcTemplate, MeterRegistry registry,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${sportslink.completion.chunk-size:500}") int chunkSize,
+            @Value("${sportslink.completion.max-chunks-per-run:200}") int maxChunksPerRun) {
+        if (chunkSize < 1 || maxChunksPerRun < 1) {
+            throw new IllegalArgumentException("Invalid rental completion configuration");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.completed = Counter.builder("rentals.completed")
+                .description("Rentals moved to COMPLETED by the lifecycle job")
+                .register(registry);
+        this.rowsPerRun = DistributionSummary.builder("rentals.completion.rows")
+                .description("Rentals completed per run")
+                .register(registry);
+        this.runDuration = Timer.builder("rentals.completion.duration")
+                .description("Duration of a rental completion run")
+                .register(registry);
+    }
+
+    /**
+     * Completes every rental that ended before now, one chunk at a time. Stops at the first
+     * short chunk, or after maxChunksPerRun chunks so a large backlog is spread over runs.
+     * Returns the number of rentals completed.
+     */
+    @Scheduled(fixedDelayString = "${sportslink.completion.interval-ms:300000}",
+            initialDelayString = "${sportslink.completion.initial-delay-ms:60000}")
+    public int completeEndedRentals() {
+        long started = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String sql = chunkSql();
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            int updated = jdbcTemplate.update(sql, now, now, chunkSize);
+            total += updated;
+            if (updated < chunkSize) {
+                break;
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        completed.increment(total);
+        rowsPerRun.record(total);
+        runDuration.record(elapsed);
+        if (total > 0) {
+            eventPublisher.publishEvent(RentalStatusChangedEvent.transition("CONFIRMED", "COMPLETED", total));
+            logger.info("Completed {} ended rentals in {} ms", total, elapsed.toMillis());
+        }
+        return total;
+    }
+
+    private String chunkSql() {
+        String sql = chunkSql;
+        if (sql == null) {
+            boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())));
+            sql = String.format(COMPLETE_CHUNK, postgres ? " FOR UPDATE SKIP LOCKED" : "");
+            chunkSql = sql;
+        }
+        return sql;
+    }
+}
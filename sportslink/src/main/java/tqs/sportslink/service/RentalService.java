@@ -1,11 +1,21 @@
 package tqs.sportslink.service;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.sportslink.dto.RentalHistoryPageDTO;
 import tqs.sportslink.dto.RentalRequestDTO;
 import tqs.sportslink.dto.RentalResponseDTO;
+import tqs.sportslink.dto.RentalSeriesOccurrenceDTO;
+import tqs.sportslink.dto.RentalSeriesRequestDTO;
+import tqs.sportslink.dto.RentalSeriesResponseDTO;
+import tqs.sportslink.data.RentalHistoryRow;
 import tqs.sportslink.data.RentalRepository;
 import tqs.sportslink.data.FacilityRepository;
 import tqs.sportslink.data.EquipmentRepository;
+import tqs.sportslink.data.EquipmentReservationRepository;
 import tqs.sportslink.data.UserRepository;
 import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.Facility;
@@ -13,7 +23,10 @@ import tqs.sportslink.data.model.Equipment;
 import tqs.sportslink.data.model.User;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,41 +38,156 @@ public class RentalService {
     private static final String STATUS_CANCELLED = "CANCELLED";
     private static final String ERROR_RENTAL_NOT_FOUND = "Rental not found";
 
+    // Uma época de clube: até meio ano de reservas semanais num só pedido
+    static final int MAX_SERIES_WEEKS = 26;
+
+    static final int MAX_HISTORY_PAGE_SIZE = 100;
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(9999, 12, 31, 23, 59);
+
     private final RentalRepository rentalRepository;
     private final FacilityRepository facilityRepository;
     private final EquipmentRepository equipmentRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingAdmission bookingAdmission;
+    private final EquipmentReservationRepository equipmentReservationRepository;
+    private final TransactionTemplate transactionTemplate;
 
     public RentalService(RentalRepository rentalRepository, FacilityRepository facilityRepository,
-            EquipmentRepository equipmentRepository, UserRepository userRepository) {
+            EquipmentRepository equipmentRepository, UserRepository userRepository,
+            ApplicationEventPublisher eventPublisher, BookingAdmission bookingAdmission,
+            EquipmentReservationRepository equipmentReservationRepository,
+            PlatformTransactionManager transactionManager) {
         this.rentalRepository = rentalRepository;
         this.facilityRepository = facilityRepository;
         this.equipmentRepository = equipmentRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
+        this.bookingAdmission = bookingAdmission;
+        this.equipmentReservationRepository = equipmentReservationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public RentalResponseDTO createRental(RentalRequestDTO request) {
+        return mapToResponseDTO(book(request, null));
+    }
+
+    /**
+     * Books the slot as HELD until holdExpiresAt: it blocks the slot and the equipment like a
+     * confirmed rental, but is released if not paid in time (see SlotHoldService).
+     */
+    public RentalResponseDTO createHold(RentalRequestDTO request, LocalDateTime holdExpiresAt) {
+        return mapToResponseDTO(book(request, holdExpiresAt));
+    }
+
+    private Rental book(RentalRequestDTO request, LocalDateTime holdExpiresAt) {
         validateCreateRentalRequest(request);
 
         Facility facility = getFacilityOrThrow(request.getFacilityId());
         validateWithinOperatingHours(facility, request);
 
-        ensureNoBookingConflict(request);
+        // Verificação de conflito e insert sob o lock da facility: dois pedidos para o mesmo slot
+        // nunca passam ambos a verificação
+        Rental saved = bookingAdmission.admit(facility.getId(), () -> {
+            ensureNoBookingConflict(request);
 
-        User user = getUserOrThrow(request.getUserId());
+            User user = getUserOrThrow(request.getUserId());
 
-        Rental rental = buildBaseRental(request, facility, user);
+            Rental rental = buildBaseRental(request, facility, user);
+            if (holdExpiresAt != null) {
+                rental.setStatus(SlotHoldService.STATUS_HELD);
+                rental.setHoldExpiresAt(holdExpiresAt);
+            }
 
-        List<Equipment> equipments = handleEquipmentSelectionAndStock(request);
-        if (!equipments.isEmpty()) {
-            rental.setEquipments(equipments);
+            List<Equipment> equipments = findRequestedEquipments(request.getEquipmentIds());
+            if (!equipments.isEmpty()) {
+                rental.setEquipments(equipments);
+            }
+
+            applyPricingAndPaymentStatus(rental, request, facility, equipments);
+
+            Rental created = rentalRepository.save(rental);
+            reserveEquipments(created.getId(), facility.getId(), equipments, request);
+            return created;
+        });
+        logger.info("Created {} rental id={} for user {} at facility {}", saved.getStatus(), saved.getId(),
+                request.getUserId(), facility.getId());
+        eventPublisher.publishEvent(RentalChangedEvent.created(saved));
+        eventPublisher.publishEvent(RentalStatusChangedEvent.created(facility.getId(), saved.getStatus(), 1));
+        return saved;
+    }
+
+    /**
+     * Books the same slot every week for request.weeks weeks. Weeks that clash with an
+     * existing booking are reported as CONFLICT and the others are booked. The whole series
+     * costs one range query for conflicts and one JDBC batch for the inserts.
+     */
+    public RentalSeriesResponseDTO createRentalSeries(RentalSeriesRequestDTO request) {
+        if (request.getWeeks() == null || request.getWeeks() < 2 || request.getWeeks() > MAX_SERIES_WEEKS) {
+            throw new IllegalArgumentException("A series must have between 2 and " + MAX_SERIES_WEEKS + " weeks");
         }
+        int weeks = request.getWeeks();
+
+        // As regras de uma reserva aplicam-se à primeira ocorrência; as seguintes são a mesma hora
+        // nas semanas seguintes, por isso o limite de 30 dias só conta para a primeira
+        RentalRequestDTO first = new RentalRequestDTO(request.getUserId(), request.getFacilityId(),
+                request.getStartTime(), request.getEndTime(), null);
+        validateCreateRentalRequest(first);
 
-        applyPricingAndPaymentStatus(rental, request, facility, equipments);
+        Facility facility = getFacilityOrThrow(request.getFacilityId());
+        validateWithinOperatingHours(facility, first);
+        User user = getUserOrThrow(request.getUserId());
+
+        Rental[] byWeek = bookingAdmission.admit(facility.getId(), () -> {
+            List<RentalRepository.BookedSlot> booked = rentalRepository.findBookedSlotsByFacilityIdBetween(
+                    facility.getId(), request.getStartTime(), request.getEndTime().plusWeeks(weeks - 1L));
+
+            Rental[] rentals = new Rental[weeks];
+            List<Rental> toInsert = new ArrayList<>(weeks);
+            int next = 0;
+            for (int week = 0; week < weeks; week++) {
+                LocalDateTime start = request.getStartTime().plusWeeks(week);
+                LocalDateTime end = request.getEndTime().plusWeeks(week);
+                // Reservas e ocorrências vêm ordenadas por início: as que acabam antes desta
+                // ocorrência também acabam antes de todas as seguintes
+                while (next < booked.size() && !booked.get(next).getEndTime().isAfter(start)) {
+                    next++;
+                }
+                if (overlapsBooked(booked, next, start, end)) {
+                    continue;
+                }
+                Rental rental = buildBaseRental(first, facility, user);
+                rental.setStartTime(start);
+                rental.setEndTime(end);
+                applyPricingAndPaymentStatus(rental, first, facility, List.of());
+                rentals[week] = rental;
+                toInsert.add(rental);
+            }
 
-        Rental saved = rentalRepository.save(rental);
-        logger.info("Created rental id={} for user {} at facility {}", saved.getId(), user.getEmail(), facility.getId());
-        return mapToResponseDTO(saved);
+            rentalRepository.insertAll(toInsert);
+            return rentals;
+        });
+
+        List<RentalSeriesOccurrenceDTO> occurrences = new ArrayList<>(weeks);
+        int bookedCount = 0;
+        for (int week = 0; week < weeks; week++) {
+            Rental rental = byWeek[week];
+            if (rental == null) {
+                occurrences.add(new RentalSeriesOccurrenceDTO(request.getStartTime().plusWeeks(week),
+                        request.getEndTime().plusWeeks(week), "CONFLICT", null));
+            } else {
+                occurrences.add(new RentalSeriesOccurrenceDTO(rental.getStartTime(), rental.getEndTime(),
+                        "BOOKED", rental.getId()));
+                eventPublisher.publishEvent(RentalChangedEvent.created(rental));
+                bookedCount++;
+            }
+        }
+        if (bookedCount > 0) {
+            eventPublisher.publishEvent(RentalStatusChangedEvent.created(facility.getId(), "CONFIRMED", bookedCount));
+        }
+        logger.info("Created series of {}/{} weekly rentals for user {} at facility {}", bookedCount, weeks,
+                user.getEmail(), facility.getId());
+        return new RentalSeriesResponseDTO(facility.getId(), bookedCount, weeks - bookedCount, occurrences);
     }
 
     
@@ -78,10 +206,26 @@ public class RentalService {
             throw new IllegalArgumentException("Cannot cancel rental that has already passed");
         }
 
+        String previousStatus = rental.getStatus();
+        // Update condicional sobre o estado lido: um hold pago ou expirado entretanto não é reescrito
+        // (o pagamento que perde a corrida com o cancelamento é reembolsado). Estado e equipamento
+        // na mesma transação: um cancelamento nunca deixa unidades reservadas
+        boolean cancelled = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (rentalRepository.cancelIfStatus(rentalId, previousStatus, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            equipmentReservationRepository.deleteByRentalId(rentalId);
+            return true;
+        }));
+        if (!cancelled) {
+            throw new IllegalStateException("Rental changed while it was being cancelled, please retry");
+        }
         rental.setStatus(STATUS_CANCELLED);
-        Rental updated = rentalRepository.save(rental);
+        rental.setHoldExpiresAt(null);
         logger.info("Cancelled rental id={}", rentalId);
-        return mapToResponseDTO(updated);
+        eventPublisher.publishEvent(RentalChangedEvent.cancelled(rental));
+        eventPublisher.publishEvent(RentalStatusChangedEvent.transition(previousStatus, STATUS_CANCELLED, 1));
+        return mapToResponseDTO(rental);
     }
 
     public RentalResponseDTO updateRental(Long rentalId, RentalRequestDTO request) {
@@ -90,18 +234,33 @@ public class RentalService {
 
         validateUpdateRequestTimes(request);
 
-        Facility facility = getFacilityOrThrow(request.getFacilityId());
+        // A facility é a do rental: o pedido não a pode trocar, senão o lock e a verificação seriam de outra
+        Long facilityId = rental.getFacility().getId();
+        if (request.getFacilityId() != null && !facilityId.equals(request.getFacilityId())) {
+            throw new IllegalArgumentException("Rental facility cannot be changed");
+        }
+        Facility facility = getFacilityOrThrow(facilityId);
         validateWithinOperatingHours(facility, request);
 
-        ensureNoUpdateConflict(rentalId, request);
+        LocalDateTime previousStart = rental.getStartTime();
+        LocalDateTime previousEnd = rental.getEndTime();
 
-        handleEquipmentUpdateAndStock(rental, request);
+        Rental updated = bookingAdmission.admit(facility.getId(), () -> {
+            ensureNoUpdateConflict(rentalId, facility.getId(), request);
 
-        rental.setStartTime(request.getStartTime());
-        rental.setEndTime(request.getEndTime());
+            // As unidades da janela antiga são libertadas e voltam a ser reservadas na nova
+            equipmentReservationRepository.deleteByRentalId(rentalId);
+            List<Equipment> equipments = selectEquipmentsForUpdate(rental, request);
 
-        Rental updated = rentalRepository.save(rental);
+            rental.setStartTime(request.getStartTime());
+            rental.setEndTime(request.getEndTime());
+
+            Rental saved = rentalRepository.save(rental);
+            reserveEquipments(rentalId, facility.getId(), equipments, request);
+            return saved;
+        });
         logger.info("Updated rental id={} new start={} end={}", rentalId, request.getStartTime(), request.getEndTime());
+        eventPublisher.publishEvent(RentalChangedEvent.updated(updated, previousStart, previousEnd));
         return mapToResponseDTO(updated);
     }
 
@@ -113,12 +272,52 @@ public class RentalService {
     }
 
     public List<RentalResponseDTO> getUserRentals(Long userId) {
-        List<Rental> rentals = rentalRepository.findByUserId(userId);
-        return rentals.stream()
-                .map(this::mapToResponseDTO)
+        return rentalRepository.findHistoryByUserId(userId).stream()
+                .map(RentalService::mapHistoryRow)
                 .toList();
     }
 
+    /**
+     * One page of the user's rentals, latest first, keyset-paginated on (startTime desc, id).
+     * Each page is a single query; cursor is the nextCursor of the previous page.
+     */
+    public RentalHistoryPageDTO getUserRentalsPage(Long userId, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        RentalHistoryCursor after = cursor != null && !cursor.isEmpty() ? RentalHistoryCursor.decode(cursor) : null;
+        // Sem cursor começa-se num valor sentinela depois de qualquer reserva possível
+        LocalDateTime startTime = after != null ? after.startTime() : HISTORY_START;
+        long afterId = after != null ? after.id() : 0L;
+
+        // Pede uma linha a mais só para saber se existe página seguinte
+        List<RentalHistoryRow> rows = rentalRepository.findHistoryPage(userId, startTime, afterId,
+                Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<RentalHistoryRow> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            RentalHistoryRow last = page.get(page.size() - 1);
+            nextCursor = new RentalHistoryCursor(last.startTime(), last.id()).encode();
+        }
+        return new RentalHistoryPageDTO(page.stream().map(RentalService::mapHistoryRow).toList(), nextCursor);
+    }
+
+    private static RentalResponseDTO mapHistoryRow(RentalHistoryRow row) {
+        RentalResponseDTO dto = new RentalResponseDTO();
+        dto.setId(row.id());
+        dto.setUserId(row.userId());
+        dto.setFacilityId(row.facilityId());
+        dto.setStartTime(row.startTime());
+        dto.setEndTime(row.endTime());
+        dto.setStatus(row.status());
+        dto.setHoldExpiresAt(row.holdExpiresAt());
+        dto.setEquipments(row.equipmentNames() != null
+                ? List.of(row.equipmentNames().split(Pattern.quote(RentalHistoryRow.EQUIPMENT_SEPARATOR)))
+                : List.of());
+        return dto;
+    }
+
     private RentalResponseDTO mapToResponseDTO(Rental rental) {
         RentalResponseDTO dto = new RentalResponseDTO();
         dto.setId(rental.getId());
@@ -127,6 +326,7 @@ public class RentalService {
         dto.setStartTime(rental.getStartTime());
         dto.setEndTime(rental.getEndTime());
         dto.setStatus(rental.getStatus());
+        dto.setHoldExpiresAt(rental.getHoldExpiresAt());
         if (rental.getEquipments() != null) {
             dto.setEquipments(rental.getEquipments().stream()
                     .map(Equipment::getName)
@@ -195,6 +395,16 @@ public class RentalService {
         }
     }
 
+    private static boolean overlapsBooked(List<RentalRepository.BookedSlot> booked, int from,
+            LocalDateTime start, LocalDateTime end) {
+        for (int i = from; i < booked.size() && booked.get(i).getStartTime().isBefore(end); i++) {
+            if (booked.get(i).getEndTime().isAfter(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private Rental buildBaseRental(RentalRequestDTO request, Facility facility, User user) {
         Rental rental = new Rental();
         rental.setFacility(facility);
@@ -205,22 +415,48 @@ public class RentalService {
         return rental;
     }
 
-    private List<Equipment> handleEquipmentSelectionAndStock(RentalRequestDTO request) {
-        if (request.getEquipmentIds() == null || request.getEquipmentIds().isEmpty()) {
+    private List<Equipment> findRequestedEquipments(List<Long> equipmentIds) {
+        if (equipmentIds == null || equipmentIds.isEmpty()) {
             return new ArrayList<>();
         }
+        return new ArrayList<>(equipmentRepository.findAllById(equipmentIds));
+    }
 
-        List<Equipment> equipments = equipmentRepository.findAllById(request.getEquipmentIds());
+    /**
+     * Reserva uma unidade de cada equipamento na janela do pedido. A verificação de stock e a
+     * inserção são a mesma instrução; corre dentro da admissão da facility, por isso nenhum outro
+     * pedido reserva os mesmos equipamentos entre as duas.
+     */
+    private void reserveEquipments(Long rentalId, Long facilityId, List<Equipment> equipments,
+            RentalRequestDTO request) {
+        if (equipments.isEmpty()) {
+            return;
+        }
+        List<Long> ids = equipments.stream().map(Equipment::getId).distinct().toList();
+        int reserved = equipmentReservationRepository.reserveAvailable(ids, facilityId, rentalId,
+                request.getStartTime(), request.getEndTime());
+        if (reserved < ids.size()) {
+            // Falhou: a transação da admissão é revertida, incluindo as unidades já inseridas
+            throw new IllegalArgumentException(describeUnavailable(equipments, facilityId, request));
+        }
+    }
+
+    private String describeUnavailable(List<Equipment> equipments, Long facilityId, RentalRequestDTO request) {
+        Map<Long, Long> reservedById = new HashMap<>();
+        equipmentReservationRepository
+                .countReservedBetween(equipments.stream().map(Equipment::getId).toList(),
+                        request.getStartTime(), request.getEndTime())
+                .forEach(c -> reservedById.put(c.getEquipmentId(), c.getReserved()));
 
         for (Equipment equip : equipments) {
-            if (equip.getQuantity() <= 0) {
-                throw new IllegalArgumentException("Equipment " + equip.getName() + " is out of stock");
+            if (equip.getFacility() != null && !facilityId.equals(equip.getFacility().getId())) {
+                return "Equipment " + equip.getName() + " is not available at this facility";
+            }
+            if (reservedById.getOrDefault(equip.getId(), 0L) >= equip.getQuantity()) {
+                return "Equipment " + equip.getName() + " is out of stock";
             }
-            equip.setQuantity(equip.getQuantity() - 1);
         }
-
-        equipmentRepository.saveAll(equipments);
-        return equipments;
+        return "Equipment is out of stock";
     }
 
     private void applyPricingAndPaymentStatus(Rental rental,
@@ -257,10 +493,10 @@ public class RentalService {
         }
     }
 
-    private void ensureNoUpdateConflict(Long rentalId, RentalRequestDTO request) {
+    private void ensureNoUpdateConflict(Long rentalId, Long facilityId, RentalRequestDTO request) {
         List<Rental> conflictingRentals = rentalRepository
                 .findByFacilityIdAndStartTimeLessThanAndEndTimeGreaterThan(
-                        request.getFacilityId(), request.getEndTime(), request.getStartTime());
+                        facilityId, request.getEndTime(), request.getStartTime());
 
         boolean hasConflict = conflictingRentals.stream()
                 .filter(r -> !r.getId().equals(rentalId)) // Excluir o próprio rental
@@ -271,50 +507,14 @@ public class RentalService {
         }
     }
 
-    private void handleEquipmentUpdateAndStock(Rental rental, RentalRequestDTO request) {
+    private List<Equipment> selectEquipmentsForUpdate(Rental rental, RentalRequestDTO request) {
         if (request.getEquipmentIds() == null) {
-            return; // EXACT same behavior: null means "do nothing with equipments"
+            // null = manter os equipamentos atuais (agora reservados na nova janela)
+            return rental.getEquipments() != null ? rental.getEquipments() : new ArrayList<>();
         }
-
-        // 1. Devolver equipamentos antigos ao stock
-        returnOldEquipmentsToStock(rental);
-
-        // 2. Atribuir novos equipamentos e decrementar stock
-        List<Equipment> newEquipments = reserveRequestedEquipments(request.getEquipmentIds());
+        List<Equipment> newEquipments = findRequestedEquipments(request.getEquipmentIds());
         rental.setEquipments(newEquipments);
-    }
-
-    private void returnOldEquipmentsToStock(Rental rental) {
-        if (rental.getEquipments() == null) {
-            return;
-        }
-
-        for (Equipment eq : rental.getEquipments()) {
-            eq.setQuantity(eq.getQuantity() + 1);
-        }
-        equipmentRepository.saveAll(rental.getEquipments());
-    }
-
-    private List<Equipment> reserveRequestedEquipments(List<Long> equipmentIds) {
-        List<Equipment> newEquipments = new ArrayList<>();
-
-        if (equipmentIds.isEmpty()) {
-            return newEquipments; // EXACT same behavior: empty list => setEquipments(empty)
-        }
-
-        List<Equipment> requestedEquipments = equipmentRepository.findAllById(equipmentIds);
-
-        for (Equipment eq : requestedEquipments) {
-            if (eq.getQuantity() <= 0) {
-                throw new IllegalArgumentException("Equipment " + eq.getName() + " is out of stock");
-            }
-            eq.setQuantity(eq.getQuantity() - 1);
-            newEquipments.add(eq);
-        }
-
-        equipmentRepository.saveAll(newEquipments);
         return newEquipments;
     }
 
-
 }
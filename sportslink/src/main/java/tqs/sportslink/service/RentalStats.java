@@ -0,0 +1,222 @@
+package tqs.sportslink.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.FacilityRepository.FacilitySport;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.FacilityCount;
+import tqs.sportslink.data.RentalRepository.StatusCount;
+import tqs.sportslink.data.RentalStatCounterRepository;
+import tqs.sportslink.data.model.RentalStatCounter;
+import tqs.sportslink.data.model.Sport;
+
+/**
+ * Rental counts per sport and per status for the admin charts.
+ *
+ * By default each call runs GROUP BY queries, so its cost grows with facilities and
+ * statuses, not rentals. With sportslink.admin-stats.materialized=true the charts read the
+ * rental_stat_counters table instead. That table is rebuilt from the same queries at startup
+ * and every night, and follows {@link RentalStatusChangedEvent}s in between. Deltas are summed
+ * in memory and written as atomic increments every flush interval, so concurrent bookings
+ * never contend on a counter row.
+ */
+@Component
+public class RentalStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(RentalStats.class);
+
+    static final String SPORT = "SPORT:";
+    static final String STATUS = "STATUS:";
+    static final String UNKNOWN_SPORT = "Unknown";
+
+    private final RentalRepository rentalRepository;
+    private final FacilityRepository facilityRepository;
+    private final RentalStatCounterRepository counterRepository;
+    private final FacilityCatalog catalog;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final boolean materialized;
+
+    // Trocado (não limpo) num rebuild: um add em curso no mapa antigo é de um commit que as queries já contam
+    private volatile Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+
+    public RentalStats(RentalRepository rentalRepository, FacilityRepository facilityRepository,
+            RentalStatCounterRepository counterRepository, FacilityCatalog catalog,
+            PlatformTransactionManager transactionManager,
+            @Value("${sportslink.admin-stats.materialized:false}") boolean materialized) {
+        this.rentalRepository = rentalRepository;
+        this.facilityRepository = facilityRepository;
+        this.counterRepository = counterRepository;
+        this.catalog = catalog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // As duas queries do rebuild leem o mesmo snapshot
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.materialized = materialized;
+    }
+
+    /**
+     * Rentals per primary sport (the alphabetically first sport of the facility), "Unknown" when
+     * it has none. The sports of a facility are stored without an order, so "first" must not
+     * depend on the order the rows come back in.
+     */
+    public Map<String, Long> rentalsBySport() {
+        return materialized ? read(SPORT) : aggregateBySport();
+    }
+
+    public Map<String, Long> rentalsByStatus() {
+        return materialized ? read(STATUS) : aggregateByStatus();
+    }
+
+    public Map<String, Long> aggregateByStatus() {
+        Map<String, Long> stats = new HashMap<>();
+        for (StatusCount row : rentalRepository.countByStatus()) {
+            stats.put(row.getStatus(), row.getRentals());
+        }
+        return stats;
+    }
+
+    public Map<String, Long> aggregateBySport() {
+        List<FacilityCount> perFacility = rentalRepository.countByFacility();
+        Map<String, Long> stats = new HashMap<>();
+        if (perFacility.isEmpty()) {
+            return stats;
+        }
+        // Desporto principal de cada facility: o primeiro por nome (a query vem ordenada)
+        Map<Long, Sport> primary = new HashMap<>();
+        for (FacilitySport row : facilityRepository.findAllSports()) {
+            primary.putIfAbsent(row.getFacilityId(), row.getSport());
+        }
+        for (FacilityCount row : perFacility) {
+            Sport sport = row.getFacilityId() != null ? primary.get(row.getFacilityId()) : null;
+            stats.merge(sport != null ? sport.name() : UNKNOWN_SPORT, row.getRentals(), Long::sum);
+        }
+        return stats;
+    }
+
+    /**
+     * Recompute the counter table from the rentals table. Runs at startup and every night to
+     * absorb anything the events missed (other nodes restarting, rows changed by hand).
+     *
+     * The deltas not yet flushed are dropped just before the queries, which count those
+     * rentals, and every delta arriving after that is flushed on top of the rebuilt rows. Only
+     * an event whose rental committed between that swap and the query snapshot is counted
+     * twice, until the next rebuild.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${sportslink.admin-stats.reconcile-cron:0 30 3 * * *}")
+    public synchronized void rebuild() {
+        if (!materialized) {
+            return;
+        }
+        Map<String, LongAdder> captured = pending;
+        pending = new ConcurrentHashMap<>();
+        try {
+            List<RentalStatCounter> rows = snapshotTemplate.execute(status -> {
+                List<RentalStatCounter> all = new ArrayList<>();
+                aggregateBySport().forEach((key, rentals) -> all.add(new RentalStatCounter(SPORT + key, rentals)));
+                aggregateByStatus().forEach((key, rentals) -> all.add(new RentalStatCounter(STATUS + key, rentals)));
+                return all;
+            });
+            transactionTemplate.executeWithoutResult(status -> {
+                counterRepository.deleteAllInBatch();
+                counterRepository.saveAll(rows);
+            });
+            logger.info("Rental stat counters rebuilt: {} keys", rows.size());
+        } catch (RuntimeException e) {
+            // A tabela ficou como estava: ainda lhe faltam os deltas capturados
+            captured.forEach((key, delta) -> add(key, delta.sum()));
+            throw e;
+        }
+    }
+
+    @EventListener
+    public void onStatusChanged(RentalStatusChangedEvent event) {
+        if (!materialized || event.rentals() == 0) {
+            return;
+        }
+        if (event.fromStatus() == null) {
+            add(SPORT + primarySport(event.facilityId()), event.rentals());
+        } else {
+            add(STATUS + event.fromStatus(), -event.rentals());
+        }
+        add(STATUS + event.toStatus(), event.rentals());
+    }
+
+    /**
+     * Write the deltas accumulated since the last flush.
+     */
+    @Scheduled(fixedDelayString = "${sportslink.admin-stats.flush-interval-ms:1000}")
+    @PreDestroy
+    public synchronized void flush() {
+        if (!materialized) {
+            return;
+        }
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta == 0) {
+                continue;
+            }
+            try {
+                apply(entry.getKey(), delta);
+            } catch (RuntimeException e) {
+                // Fica para o próximo flush em vez de se perder
+                entry.getValue().add(delta);
+                logger.warn("Could not flush rental stat counter {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void add(String id, long delta) {
+        pending.computeIfAbsent(id, key -> new LongAdder()).add(delta);
+    }
+
+    private void apply(String id, long delta) {
+        if (counterRepository.increment(id, delta) == 1) {
+            return;
+        }
+        try {
+            counterRepository.save(new RentalStatCounter(id, delta));
+        } catch (DataIntegrityViolationException e) {
+            // Outro nó criou a linha entretanto
+            counterRepository.increment(id, delta);
+        }
+    }
+
+    private String primarySport(Long facilityId) {
+        return catalog.snapshot().find(facilityId)
+                .flatMap(entry -> entry.sports().stream().map(Sport::name).min(Comparator.naturalOrder()))
+                .orElse(UNKNOWN_SPORT);
+    }
+
+    private Map<String, Long> read(String prefix) {
+        Map<String, Long> stats = new HashMap<>();
+        for (RentalStatCounter counter : counterRepository.findByIdStartingWith(prefix)) {
+            if (counter.getRentals() > 0) {
+                stats.put(counter.getId().substring(prefix.length()), counter.getRentals());
+            }
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,17 @@
+package tqs.sportslink.service;
+
+/**
+ * Published after rentals are created (fromStatus null) or move from one status to another,
+ * including the bulk transitions that have no {@link RentalChangedEvent}: hold payment and
+ * completion. facilityId is only set for created rentals.
+ */
+public record RentalStatusChangedEvent(Long facilityId, String fromStatus, String toStatus, int rentals) {
+
+    public static RentalStatusChangedEvent created(Long facilityId, String status, int rentals) {
+        return new RentalStatusChangedEvent(facilityId, null, status, rentals);
+    }
+
+    public static RentalStatusChangedEvent transition(String fromStatus, String toStatus, int rentals) {
+        return new RentalStatusChangedEvent(null, fromStatus, toStatus, rentals);
+    }
+}
@@ -0,0 +1,181 @@
+package tqs.sportslink.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tqs.sportslink.data.EquipmentReservationRepository;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.dto.RentalRequestDTO;
+import tqs.sportslink.dto.RentalResponseDTO;
+
+/**
+ * Slot holds during checkout: the slot and its equipment are reserved as a HELD rental for a
+ * few minutes, become a confirmed rental when the payment succeeds, and are released otherwise.
+ *
+ * Deadlines live in a SlotHoldWheel, so expiring holds costs one bucket per tick instead of a
+ * periodic scan of the rentals table. The database stays the source of truth: expiry and
+ * conversion are conditional updates on status HELD, so whichever comes first wins. A slow
+ * sweep of the table expires the holds whose deadline was only in the wheel of a node that
+ * stopped before reaching it.
+ */
+@Service
+public class SlotHoldService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotHoldService.class);
+
+    public static final String STATUS_HELD = "HELD";
+
+    // Um erro de base de dados não perde o hold: volta a tentar mais tarde
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    static final int SWEEP_BATCH = 500;
+
+    private final RentalService rentalService;
+    private final RentalRepository rentalRepository;
+    private final EquipmentReservationRepository equipmentReservationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SlotHoldWheel wheel;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+
+    public SlotHoldService(RentalService rentalService, RentalRepository rentalRepository,
+            EquipmentReservationRepository equipmentReservationRepository, ApplicationEventPublisher eventPublisher,
+            SlotHoldWheel wheel, PlatformTransactionManager transactionManager,
+            @Value("${sportslink.holds.ttl-minutes:10}") long ttlMinutes) {
+        if (ttlMinutes < 1) {
+            throw new IllegalArgumentException("Hold TTL must be at least one minute");
+        }
+        this.rentalService = rentalService;
+        this.rentalRepository = rentalRepository;
+        this.equipmentReservationRepository = equipmentReservationRepository;
+        this.eventPublisher = eventPublisher;
+        this.wheel = wheel;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    /**
+     * Holds the requested slot and equipment until now + TTL.
+     * Fails like createRental when the slot or the equipment is taken.
+     */
+    public RentalResponseDTO hold(RentalRequestDTO request) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        RentalResponseDTO held = rentalService.createHold(request, expiresAt);
+        wheel.schedule(held.getId(), toMillis(expiresAt));
+        return held;
+    }
+
+    /**
+     * Turns a paid hold into a confirmed, paid rental. Returns false if the hold had already
+     * expired or been cancelled.
+     */
+    public boolean convert(Long rentalId) {
+        boolean converted = rentalRepository.convertHold(rentalId, LocalDateTime.now()) == 1;
+        wheel.cancel(rentalId);
+        if (converted) {
+            eventPublisher.publishEvent(RentalStatusChangedEvent.transition(STATUS_HELD, "CONFIRMED", 1));
+            logger.info("Hold {} converted into a confirmed rental", rentalId);
+        }
+        return converted;
+    }
+
+    @Scheduled(fixedDelayString = "${sportslink.holds.tick-ms:1000}")
+    public void expireDue() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        for (Long rentalId : due) {
+            try {
+                expire(rentalId);
+            } catch (RuntimeException e) {
+                logger.warn("Could not release hold {}, retrying in {}: {}", rentalId, RETRY_DELAY, e.getMessage());
+                wheel.schedule(rentalId, System.currentTimeMillis() + RETRY_DELAY.toMillis());
+            }
+        }
+    }
+
+    /**
+     * Releases the slot and the equipment of an unpaid hold whose deadline passed.
+     * Returns false if it was paid or cancelled in the meantime.
+     */
+    boolean expire(Long rentalId) {
+        // Estado e equipamento libertados na mesma transação: nunca fica um sem o outro
+        Optional<Rental> released = transactionTemplate.execute(status -> {
+            if (rentalRepository.expireHold(rentalId, LocalDateTime.now()) == 0) {
+                return Optional.<Rental>empty();
+            }
+            equipmentReservationRepository.deleteByRentalId(rentalId);
+            return rentalRepository.findById(rentalId);
+        });
+        if (released == null || released.isEmpty()) {
+            return false;
+        }
+        eventPublisher.publishEvent(RentalChangedEvent.cancelled(released.get()));
+        eventPublisher.publishEvent(RentalStatusChangedEvent.transition(STATUS_HELD, "CANCELLED", 1));
+        logger.info("Hold {} expired, slot released", rentalId);
+        return true;
+    }
+
+    /**
+     * Expires the holds past their deadline that no wheel is tracking, such as those of a node
+     * that crashed. Holds this node tracks are usually already gone; expiring one twice is a no-op.
+     */
+    @Scheduled(fixedDelayString = "${sportslink.holds.sweep-ms:300000}",
+            initialDelayString = "${sportslink.holds.sweep-ms:300000}")
+    public void sweepExpired() {
+        List<Long> expired = rentalRepository.findExpiredHeldIds(LocalDateTime.now(), Limit.of(SWEEP_BATCH));
+        int released = 0;
+        for (Long rentalId : expired) {
+            try {
+                if (expire(rentalId)) {
+                    released++;
+                }
+            } catch (RuntimeException e) {
+                // A próxima varredura volta a encontrá-lo
+                logger.warn("Could not release hold {} during sweep: {}", rentalId, e.getMessage());
+            }
+        }
+        if (released > 0) {
+            logger.info("Hold sweep released {} holds past their deadline", released);
+        }
+    }
+
+    /**
+     * Holds outlive a restart: their deadlines are read back once, and those already past
+     * expire on the first tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<RentalRepository.HeldSlot> held = rentalRepository.findHeld();
+        for (RentalRepository.HeldSlot slot : held) {
+            LocalDateTime deadline = slot.getHoldExpiresAt() != null ? slot.getHoldExpiresAt() : LocalDateTime.now();
+            wheel.schedule(slot.getRentalId(), toMillis(deadline));
+        }
+        logger.info("Hold wheel rebuilt with {} pending holds", held.size());
+    }
+
+    @EventListener
+    public void onRentalChanged(RentalChangedEvent event) {
+        if (event.kind() == RentalChangedEvent.Kind.CANCELLED && event.rentalId() != null) {
+            wheel.cancel(event.rentalId());
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,134 @@
+package tqs.sportslink.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hashed timing wheel of hold deadlines, keyed by rental id.
+ *
+ * A deadline goes to bucket (tick mod wheel size) in a doubly linked list, so scheduling and
+ * cancelling are O(1) and each tick only walks the bucket that is due instead of every hold.
+ * Deadlines further away than one turn of the wheel stay in their bucket and are skipped
+ * until their turn comes round.
+ */
+@Component
+public class SlotHoldWheel {
+
+    private final long tickMillis;
+    private final Node[] buckets;
+    private final int mask;
+    private final Map<Long, Node> byRental = new HashMap<>();
+
+    // Próximo tick ainda por processar
+    private long currentTick;
+
+    private static final class Node {
+        final long rentalId;
+        final long deadlineTick;
+        final int bucket;
+        Node prev;
+        Node next;
+
+        Node(long rentalId, long deadlineTick, int bucket) {
+            this.rentalId = rentalId;
+            this.deadlineTick = deadlineTick;
+            this.bucket = bucket;
+        }
+    }
+
+    @Autowired
+    public SlotHoldWheel(@Value("${sportslink.holds.tick-ms:1000}") long tickMillis,
+            @Value("${sportslink.holds.wheel-size:4096}") int wheelSize) {
+        this(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    public SlotHoldWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis < 1 || wheelSize < 1 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two and tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.buckets = new Node[wheelSize];
+        this.mask = wheelSize - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules (or reschedules) the hold of rentalId to expire at deadlineMillis.
+     * A deadline already in the past expires on the next advance.
+     */
+    public synchronized void schedule(long rentalId, long deadlineMillis) {
+        unlink(byRental.remove(rentalId));
+        // Arredonda para cima: nunca expira antes do prazo
+        long tick = Math.max(Math.ceilDiv(deadlineMillis, tickMillis), currentTick);
+        Node node = new Node(rentalId, tick, (int) (tick & mask));
+        node.next = buckets[node.bucket];
+        if (node.next != null) {
+            node.next.prev = node;
+        }
+        buckets[node.bucket] = node;
+        byRental.put(rentalId, node);
+    }
+
+    /**
+     * Removes the hold of rentalId, if scheduled. Returns whether it was.
+     */
+    public synchronized boolean cancel(long rentalId) {
+        Node node = byRental.remove(rentalId);
+        unlink(node);
+        return node != null;
+    }
+
+    /**
+     * Moves the wheel up to nowMillis and returns the rental ids whose holds expired, removing
+     * them from the wheel. Each elapsed tick visits one bucket; after a pause longer than a
+     * whole turn every bucket is visited once.
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long target = nowMillis / tickMillis;
+        if (target < currentTick) {
+            return List.of();
+        }
+        List<Long> expired = new ArrayList<>();
+        long last = Math.min(target, currentTick + mask);
+        for (long tick = currentTick; tick <= last; tick++) {
+            Node node = buckets[(int) (tick & mask)];
+            while (node != null) {
+                Node next = node.next;
+                if (node.deadlineTick <= target) {
+                    unlink(node);
+                    byRental.remove(node.rentalId);
+                    expired.add(node.rentalId);
+                }
+                node = next;
+            }
+        }
+        currentTick = target + 1;
+        return expired;
+    }
+
+    public synchronized int size() {
+        return byRental.size();
+    }
+
+    private void unlink(Node node) {
+        if (node == null) {
+            return;
+        }
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            buckets[node.bucket] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+}
@@ -6,12 +6,16 @@ import com.stripe.exception.StripeException;
 import com.stripe.model.Charge;
 import com.stripe.model.Event;
 import com.stripe.model.PaymentIntent;
+import com.stripe.model.Refund;
+import com.stripe.net.RequestOptions;
 import com.stripe.net.Webhook;
 import com.stripe.param.PaymentIntentCreateParams;
+import com.stripe.param.RefundCreateParams;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tqs.sportslink.data.PaymentRepository;
@@ -19,6 +23,7 @@ import tqs.sportslink.data.RentalRepository;
 import tqs.sportslink.data.model.Payment;
 import tqs.sportslink.data.model.Rental;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -31,6 +36,9 @@ public class StripePaymentService {
     private static final Logger logger = LoggerFactory.getLogger(StripePaymentService.class);
 
     private static final String SUCCEEDED = "SUCCEEDED";
+    // Pago depois de o hold expirar: o reembolso fica registado até a Stripe o aceitar
+    public static final String REFUND_PENDING = "REFUND_PENDING";
+    public static final String REFUNDED = "REFUNDED";
 
     @Value("${stripe.api.key}")
     private String stripeApiKey;
@@ -40,10 +48,13 @@ public class StripePaymentService {
 
     private final PaymentRepository paymentRepository;
     private final RentalRepository rentalRepository;
+    private final SlotHoldService slotHoldService;
 
-    public StripePaymentService(PaymentRepository paymentRepository, RentalRepository rentalRepository) {
+    public StripePaymentService(PaymentRepository paymentRepository, RentalRepository rentalRepository,
+            SlotHoldService slotHoldService) {
         this.paymentRepository = paymentRepository;
         this.rentalRepository = rentalRepository;
+        this.slotHoldService = slotHoldService;
     }
 
     @PostConstruct
@@ -64,6 +75,10 @@ public class StripePaymentService {
     public PaymentIntentResult createPaymentIntent(Long rentalId, String customerEmail) throws StripeException {
         Rental rental = rentalRepository.findById(rentalId)
                 .orElseThrow(() -> new NoSuchElementException("Rental not found: " + rentalId));
+        if ("CANCELLED".equals(rental.getStatus())) {
+            // Inclui holds que expiraram antes do pagamento
+            throw new IllegalStateException("Rental is cancelled");
+        }
 
         // Check if payment already exists
         Optional<Payment> existingPayment = paymentRepository.findByRentalId(rentalId);
@@ -109,15 +124,27 @@ public class StripePaymentService {
         Payment payment = new Payment(rental, paymentIntent.getId(), totalPrice, customerEmail);
         paymentRepository.save(payment);
 
-        // Update rental payment status
-        rental.setPaymentStatus("PENDING");
-        rentalRepository.save(rental);
+        // Update rental payment status. Um hold não é gravado aqui: só muda de estado por updates
+        // condicionais, para não repor um hold que expirou entretanto
+        if (!SlotHoldService.STATUS_HELD.equals(rental.getStatus())) {
+            rental.setPaymentStatus("PENDING");
+            rentalRepository.save(rental);
+        }
 
         logger.info("Created PaymentIntent {} for rental {}", paymentIntent.getId(), rentalId);
 
         return new PaymentIntentResult(paymentIntent.getClientSecret(), payment.getId());
     }
 
+    /**
+     * The client secret of a payment's PaymentIntent, read from Stripe because it is never stored.
+     */
+    public String getClientSecret(Long paymentId) throws StripeException {
+        Payment payment = paymentRepository.findById(paymentId)
+                .orElseThrow(() -> new NoSuchElementException("Payment not found: " + paymentId));
+        return PaymentIntent.retrieve(payment.getStripePaymentIntentId()).getClientSecret();
+    }
+
     /**
      * Handle Stripe webhook events.
      */
@@ -153,14 +180,64 @@ public class StripePaymentService {
             payment.setStatus(SUCCEEDED);
             paymentRepository.save(payment);
 
-            Rental rental = payment.getRental();
-            rental.setPaymentStatus("PAID");
-            rentalRepository.save(rental);
+            markRentalPaid(payment);
 
-            logger.info("Payment succeeded for rental {}", rental.getId());
+            logger.info("Payment succeeded for rental {}", payment.getRental().getId());
         });
     }
 
+    /**
+     * A paid hold becomes a confirmed rental; other rentals are just marked as paid. A payment
+     * that arrives after its hold was released is refunded.
+     */
+    private void markRentalPaid(Payment payment) {
+        Rental rental = payment.getRental();
+        if (SlotHoldService.STATUS_HELD.equals(rental.getStatus())) {
+            // Update condicional: não se grava a entidade, que ainda tem o estado HELD
+            if (!slotHoldService.convert(rental.getId())) {
+                logger.warn("Payment succeeded for rental {} after its hold was released; refunding it",
+                        rental.getId());
+                payment.setStatus(REFUND_PENDING);
+                refund(payment);
+            }
+            return;
+        }
+        rental.setPaymentStatus("PAID");
+        rentalRepository.save(rental);
+    }
+
+    /**
+     * Retries the refunds that Stripe did not accept the first time.
+     */
+    @Scheduled(fixedDelayString = "${sportslink.payments.refund-retry-ms:600000}")
+    public void retryPendingRefunds() {
+        List<Payment> pending = paymentRepository.findByStatus(REFUND_PENDING);
+        for (Payment payment : pending) {
+            refund(payment);
+        }
+    }
+
+    /**
+     * Refunds the whole payment. If Stripe fails the payment stays REFUND_PENDING and is retried;
+     * the idempotency key makes a retry of a refund that did go through a no-op.
+     */
+    private void refund(Payment payment) {
+        try {
+            RefundCreateParams params = RefundCreateParams.builder()
+                    .setPaymentIntent(payment.getStripePaymentIntentId())
+                    .build();
+            RequestOptions options = RequestOptions.builder()
+                    .setIdempotencyKey("refund-" + payment.getStripePaymentIntentId())
+                    .build();
+            Refund.create(params, options);
+            payment.setStatus(REFUNDED);
+            logger.info("Refunded payment {} of rental {}", payment.getId(), payment.getRental().getId());
+        } catch (StripeException e) {
+            logger.warn("Could not refund payment {}, will retry: {}", payment.getId(), e.getMessage());
+        }
+        paymentRepository.save(payment);
+    }
+
     private void handlePaymentFailure(Event event) {
         PaymentIntent paymentIntent = (PaymentIntent) event.getDataObjectDeserializer()
                 .getObject()
@@ -223,9 +300,7 @@ public class StripePaymentService {
                             paymentRepository.save(payment);
 
                             // Also update rental payment status
-                            Rental rental = payment.getRental();
-                            rental.setPaymentStatus("PAID");
-                            rentalRepository.save(rental);
+                            markRentalPaid(payment);
 
                             logger.info("Fetched receipt URL for payment {}", payment.getId());
                         }
@@ -0,0 +1,204 @@
+package tqs.sportslink.service;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.data.model.UserPreference;
+
+/**
+ * Decoded view of a {@link UserPreference} row: favourite city, a booking count per sport
+ * (indexed by {@link Sport#ordinal()}), the visited facilities with their booking counts and
+ * the location of the last booked facility. Only the {@value #MAX_VISITED_FACILITIES} most
+ * booked facilities are kept, so the encoded row stays within its column.
+ */
+public final class UserPreferenceProfile {
+
+    /**
+     * At most 100 "id:count" pairs of up to 31 characters each fit the 4000 character column.
+     */
+    public static final int MAX_VISITED_FACILITIES = 100;
+
+    private static final Sport[] SPORTS = Sport.values();
+
+    private final int[] sportCounts = new int[SPORTS.length];
+    private final Map<Long, Integer> visits = new HashMap<>();
+    private String favouriteCity;
+    private Double lastLatitude;
+    private Double lastLongitude;
+
+    public static UserPreferenceProfile empty() {
+        return new UserPreferenceProfile();
+    }
+
+    public static UserPreferenceProfile from(UserPreference row) {
+        UserPreferenceProfile profile = new UserPreferenceProfile();
+        profile.favouriteCity = row.getFavouriteCity();
+        profile.lastLatitude = row.getLastLatitude();
+        profile.lastLongitude = row.getLastLongitude();
+        decode(row.getSportCounts(), (key, count) -> {
+            try {
+                profile.sportCounts[Sport.valueOf(key).ordinal()] = count;
+            } catch (IllegalArgumentException e) {
+                // Desporto entretanto removido do enum: ignorar
+            }
+        });
+        decode(row.getVisitedFacilities(), (key, count) -> profile.visits.put(Long.valueOf(key), count));
+        return profile;
+    }
+
+    /**
+     * The facility ids of an encoded visitedFacilities column.
+     */
+    public static Set<Long> visitedIn(String visitedFacilities) {
+        Set<Long> ids = new HashSet<>();
+        decode(visitedFacilities, (key, count) -> ids.add(Long.valueOf(key)));
+        return ids;
+    }
+
+    public void writeTo(UserPreference row) {
+        trimVisits();
+        StringBuilder sports = new StringBuilder();
+        for (Sport sport : SPORTS) {
+            append(sports, sport.name(), sportCounts[sport.ordinal()]);
+        }
+        StringBuilder facilities = new StringBuilder();
+        new TreeMap<>(visits).forEach((id, count) -> append(facilities, id.toString(), count));
+        row.setFavouriteCity(favouriteCity);
+        row.setSportCounts(sports.toString());
+        row.setVisitedFacilities(facilities.toString());
+        row.setLastLatitude(lastLatitude);
+        row.setLastLongitude(lastLongitude);
+    }
+
+    /**
+     * Adds (delta > 0) or removes (delta < 0) bookings of a facility. Counts never go below zero.
+     */
+    public void record(FacilityCatalog.Entry facility, int delta) {
+        int count = Math.max(0, visits.getOrDefault(facility.id(), 0) + delta);
+        if (count == 0) {
+            visits.remove(facility.id());
+        } else {
+            visits.put(facility.id(), count);
+        }
+        for (Sport sport : facility.sports()) {
+            sportCounts[sport.ordinal()] = Math.max(0, sportCounts[sport.ordinal()] + delta);
+        }
+    }
+
+    public void moveTo(Double latitude, Double longitude) {
+        if (latitude != null && longitude != null) {
+            lastLatitude = latitude;
+            lastLongitude = longitude;
+        }
+    }
+
+    /**
+     * Recomputes the favourite city from the visit counts; ties go to the alphabetically first city.
+     * Facilities whose city is unknown are skipped.
+     */
+    public void refreshFavouriteCity(Function<Long, String> cityOf) {
+        Map<String, Integer> byCity = new HashMap<>();
+        visits.forEach((id, count) -> {
+            String city = cityOf.apply(id);
+            if (city != null) {
+                byCity.merge(city, count, Integer::sum);
+            }
+        });
+        favouriteCity = byCity.entrySet().stream()
+                .max(Map.Entry.<String, Integer>comparingByValue()
+                        .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                .map(Map.Entry::getKey)
+                .orElse(null);
+    }
+
+    // Descarta as facilities menos reservadas (empate: a de id maior) acima do limite
+    private void trimVisits() {
+        if (visits.size() <= MAX_VISITED_FACILITIES) {
+            return;
+        }
+        Set<Long> kept = new HashSet<>();
+        visits.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_VISITED_FACILITIES)
+                .forEach(e -> kept.add(e.getKey()));
+        visits.keySet().retainAll(kept);
+    }
+
+    public boolean isEmpty() {
+        return visits.isEmpty();
+    }
+
+    public String favouriteCity() {
+        return favouriteCity;
+    }
+
+    public Double lastLatitude() {
+        return lastLatitude;
+    }
+
+    public Double lastLongitude() {
+        return lastLongitude;
+    }
+
+    public int sportCount(Sport sport) {
+        return sportCounts[sport.ordinal()];
+    }
+
+    public int visits(Long facilityId) {
+        return visits.getOrDefault(facilityId, 0);
+    }
+
+    public Set<Long> visitedFacilityIds() {
+        return Collections.unmodifiableSet(visits.keySet());
+    }
+
+    /**
+     * The n most booked sports, most booked first.
+     */
+    public Set<Sport> topSports(int n) {
+        Set<Sport> top = new LinkedHashSet<>();
+        IntStream.range(0, SPORTS.length)
+                .filter(i -> sportCounts[i] > 0)
+                .boxed()
+                .sorted(Comparator.comparingInt((Integer i) -> sportCounts[i]).reversed())
+                .limit(n)
+                .forEach(i -> top.add(SPORTS[i]));
+        return top;
+    }
+
+    private static void append(StringBuilder out, String key, int count) {
+        if (count > 0) {
+            if (!out.isEmpty()) {
+                out.append(',');
+            }
+            out.append(key).append(':').append(count);
+        }
+    }
+
+    private static void decode(String encoded, EntryConsumer consumer) {
+        if (encoded == null || encoded.isEmpty()) {
+            return;
+        }
+        for (String pair : encoded.split(",")) {
+            int colon = pair.indexOf(':');
+            if (colon > 0) {
+                consumer.accept(pair.substring(0, colon), Integer.parseInt(pair.substring(colon + 1)));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(String key, int count);
+    }
+}
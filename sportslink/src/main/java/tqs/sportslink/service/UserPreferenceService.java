@@ -0,0 +1,200 @@
+package tqs.sportslink.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.UserPreferenceRepository;
+import tqs.sportslink.data.model.UserPreference;
+
+/**
+ * Maintains one {@link UserPreference} row per user.
+ *
+ * Every created or cancelled rental adjusts the row in place under a row lock, so reading a
+ * profile is a primary-key lookup. A missing row is built once from the user's history, which
+ * also covers users who booked before profiles existed. An event that arrives shortly after such
+ * a rebuild may already be in the history it read, so the row is rebuilt again instead of being
+ * adjusted. Changes to the set of visited facilities are published as a
+ * {@link FacilityVisitsChangedEvent} once the row is committed.
+ */
+@Service
+public class UserPreferenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPreferenceService.class);
+
+    // Os eventos são publicados logo após o commit: bem mais do que o intervalo entre os dois
+    static final Duration REBUILD_OVERLAP = Duration.ofMinutes(1);
+
+    private final UserPreferenceRepository preferenceRepository;
+    private final RentalRepository rentalRepository;
+    private final FacilityRepository facilityRepository;
+    private final FacilityCatalog catalog;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public UserPreferenceService(UserPreferenceRepository preferenceRepository, RentalRepository rentalRepository,
+            FacilityRepository facilityRepository, FacilityCatalog catalog, ApplicationEventPublisher eventPublisher,
+            PlatformTransactionManager transactionManager) {
+        this.preferenceRepository = preferenceRepository;
+        this.rentalRepository = rentalRepository;
+        this.facilityRepository = facilityRepository;
+        this.catalog = catalog;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Resultado de uma escrita: o perfil novo e as facilities visitadas antes dela
+    private record Written(UserPreferenceProfile profile, Set<Long> visitedBefore) {
+    }
+
+    /**
+     * The user's profile; built from the rental history the first time it is asked for.
+     */
+    public UserPreferenceProfile profileOf(Long userId) {
+        return preferenceRepository.findById(userId)
+                .map(UserPreferenceProfile::from)
+                .orElseGet(() -> write(userId, null));
+    }
+
+    /**
+     * Rentals are committed before the event is published, so the history already includes
+     * this one when the row has to be built. Reschedules keep the facility and are ignored.
+     * Runs before the listeners that cache results derived from the profile.
+     */
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onRentalChanged(RentalChangedEvent event) {
+        if (event.userId() == null || event.facilityId() == null
+                || event.kind() == RentalChangedEvent.Kind.UPDATED) {
+            return;
+        }
+        try {
+            write(event.userId(), event);
+        } catch (RuntimeException e) {
+            // A reserva já está feita: não falhar por causa do perfil, descartá-lo para ser reconstruído
+            logger.warn("Could not update preferences of user {}: {}", event.userId(), e.getMessage());
+            forget(event.userId());
+        }
+    }
+
+    private UserPreferenceProfile write(Long userId, RentalChangedEvent event) {
+        Written written;
+        try {
+            written = transactionTemplate.execute(status -> apply(userId, event, false));
+        } catch (DataIntegrityViolationException e) {
+            // Outro pedido criou a linha ao mesmo tempo: recalcular sobre a linha dele
+            written = transactionTemplate.execute(status -> apply(userId, event, true));
+        }
+        FacilityVisitsChangedEvent visits = new FacilityVisitsChangedEvent(userId, written.visitedBefore(),
+                written.profile().visitedFacilityIds());
+        if (visits.changed()) {
+            eventPublisher.publishEvent(visits);
+        }
+        return written.profile();
+    }
+
+    private Written apply(Long userId, RentalChangedEvent event, boolean rebuild) {
+        FacilityCatalog.Snapshot snapshot = catalog.snapshot();
+        Optional<UserPreference> locked = preferenceRepository.findForUpdate(userId);
+        Set<Long> visitedBefore = locked.map(UserPreferenceProfile::from)
+                .map(UserPreferenceProfile::visitedFacilityIds)
+                .map(Set::copyOf)
+                .orElse(Set.of());
+        if (locked.isPresent() && event == null && !rebuild) {
+            return new Written(UserPreferenceProfile.from(locked.get()), visitedBefore);
+        }
+
+        UserPreference row = locked.orElseGet(() -> {
+            UserPreference created = new UserPreference();
+            created.setUserId(userId);
+            return created;
+        });
+        UserPreferenceProfile profile;
+        if (locked.isPresent() && !rebuild && !recentlyRebuilt(row)) {
+            profile = UserPreferenceProfile.from(row);
+            FacilityCatalog.Entry facility = facility(snapshot, event.facilityId());
+            if (facility == null) {
+                return new Written(profile, visitedBefore);
+            }
+            boolean created = event.kind() == RentalChangedEvent.Kind.CREATED;
+            profile.record(facility, created ? 1 : -1);
+            if (created) {
+                profile.moveTo(facility.latitude(), facility.longitude());
+            }
+        } else {
+            // A reserva do evento já está gravada: o histórico conta-a exatamente uma vez
+            profile = fromHistory(snapshot, userId);
+            row.setRebuiltAt(LocalDateTime.now());
+        }
+
+        Map<Long, String> cities = new HashMap<>();
+        profile.refreshFavouriteCity(id -> cities.computeIfAbsent(id, key -> {
+            FacilityCatalog.Entry facility = facility(snapshot, key);
+            return facility != null ? facility.city() : null;
+        }));
+        profile.writeTo(row);
+        preferenceRepository.saveAndFlush(row);
+        return new Written(profile, visitedBefore);
+    }
+
+    private static boolean recentlyRebuilt(UserPreference row) {
+        return row.getRebuiltAt() != null
+                && row.getRebuiltAt().isAfter(LocalDateTime.now().minus(REBUILD_OVERLAP));
+    }
+
+    private UserPreferenceProfile fromHistory(FacilityCatalog.Snapshot snapshot, Long userId) {
+        UserPreferenceProfile profile = UserPreferenceProfile.empty();
+        List<RentalRepository.FacilityVisits> visits = rentalRepository.countVisitsByUserId(userId);
+        for (RentalRepository.FacilityVisits visit : visits) {
+            FacilityCatalog.Entry facility = facility(snapshot, visit.getFacilityId());
+            if (facility != null) {
+                profile.record(facility, (int) visit.getBookings());
+            }
+        }
+        visits.stream()
+                .filter(v -> v.getLastBookedAt() != null)
+                .max(Comparator.comparing(RentalRepository.FacilityVisits::getLastBookedAt))
+                .map(v -> facility(snapshot, v.getFacilityId()))
+                .ifPresent(f -> profile.moveTo(f.latitude(), f.longitude()));
+        return profile;
+    }
+
+    // Facilities inativas não estão no catálogo, mas as reservas antigas contam na mesma
+    private FacilityCatalog.Entry facility(FacilityCatalog.Snapshot snapshot, Long facilityId) {
+        return snapshot.find(facilityId)
+                .or(() -> facilityRepository.findWithSportsById(facilityId).map(FacilityCatalog.Entry::from))
+                .orElse(null);
+    }
+
+    private void forget(Long userId) {
+        try {
+            Optional<UserPreference> row = preferenceRepository.findById(userId);
+            if (row.isPresent()) {
+                preferenceRepository.delete(row.get());
+                // Quando a linha for reconstruída as visitas voltam a contar do zero
+                eventPublisher.publishEvent(new FacilityVisitsChangedEvent(userId,
+                        UserPreferenceProfile.from(row.get()).visitedFacilityIds(), Set.of()));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not discard preferences of user {}: {}", userId, e.getMessage());
+        }
+    }
+}
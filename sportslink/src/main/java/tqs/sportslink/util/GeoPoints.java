@@ -0,0 +1,51 @@
+package tqs.sportslink.util;
+
+/**
+ * Fixed set of points stored column-wise in radians, with the cosine of each latitude, so that
+ * distances from an origin are computed in one batch without per-point conversions.
+ */
+public final class GeoPoints {
+
+    // Escolhido uma vez: Vector API se o módulo incubator estiver carregado, senão o escalar
+    public static final HaversineKernel KERNEL = HaversineKernel.select();
+
+    private final double[] latRad;
+    private final double[] lonRad;
+    private final double[] cosLat;
+
+    private GeoPoints(int n) {
+        latRad = new double[n];
+        lonRad = new double[n];
+        cosLat = new double[n];
+    }
+
+    /**
+     * Points from latitudes and longitudes in degrees; NaN marks a point without coordinates.
+     */
+    public static GeoPoints of(double[] latitudes, double[] longitudes) {
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("latitudes and longitudes differ in length");
+        }
+        GeoPoints points = new GeoPoints(latitudes.length);
+        for (int i = 0; i < latitudes.length; i++) {
+            points.latRad[i] = Math.toRadians(latitudes[i]);
+            points.lonRad[i] = Math.toRadians(longitudes[i]);
+            points.cosLat[i] = Math.cos(points.latRad[i]);
+        }
+        return points;
+    }
+
+    public int size() {
+        return latRad.length;
+    }
+
+    /**
+     * Writes to out[i - from] the distance in km from (latitude, longitude) to point i,
+     * NaN for points without coordinates.
+     */
+    public void distancesKm(double latitude, double longitude, int from, int to, double[] out) {
+        double originLat = Math.toRadians(latitude);
+        KERNEL.distancesKm(originLat, Math.toRadians(longitude), Math.cos(originLat),
+                latRad, lonRad, cosLat, from, to, out);
+    }
+}
@@ -0,0 +1,36 @@
+package tqs.sportslink.util;
+
+/**
+ * Haversine distance from one origin to a range of points stored column-wise, with the
+ * radians and cosine of the latitude already computed for every point.
+ */
+public interface HaversineKernel {
+
+    /**
+     * Writes to out[i - from] the distance in km from the origin to point i, for i in [from, to).
+     * A point with NaN coordinates gets NaN.
+     */
+    void distancesKm(double originLatRad, double originLonRad, double originCosLat,
+            double[] latRad, double[] lonRad, double[] cosLat, int from, int to, double[] out);
+
+    static HaversineKernel scalar() {
+        return ScalarHaversineKernel.INSTANCE;
+    }
+
+    /**
+     * The Vector API kernel when the JVM was started with jdk.incubator.vector, otherwise the
+     * scalar one.
+     */
+    static HaversineKernel select() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (HaversineKernel) Class.forName("tqs.sportslink.util.VectorHaversineKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Módulo presente mas inutilizável: fica o escalar
+            }
+        }
+        return scalar();
+    }
+}
@@ -0,0 +1,28 @@
+package tqs.sportslink.util;
+
+/**
+ * Plain loop version of {@link HaversineKernel}; also the tail of the vector kernel.
+ */
+final class ScalarHaversineKernel implements HaversineKernel {
+
+    static final ScalarHaversineKernel INSTANCE = new ScalarHaversineKernel();
+
+    private ScalarHaversineKernel() {
+    }
+
+    @Override
+    public void distancesKm(double originLatRad, double originLonRad, double originCosLat,
+            double[] latRad, double[] lonRad, double[] cosLat, int from, int to, double[] out) {
+        for (int i = from; i < to; i++) {
+            out[i - from] = distanceKm(originLatRad, originLonRad, originCosLat, latRad[i], lonRad[i], cosLat[i]);
+        }
+    }
+
+    // 2 * asin(sqrt(a)) é o mesmo que o atan2 de GeoUtils para a em [0, 1]
+    static double distanceKm(double lat1, double lon1, double cosLat1, double lat2, double lon2, double cosLat2) {
+        double sinLat = Math.sin((lat2 - lat1) * 0.5);
+        double sinLon = Math.sin((lon2 - lon1) * 0.5);
+        double a = sinLat * sinLat + cosLat1 * cosLat2 * sinLon * sinLon;
+        return 2 * GeoUtils.EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,39 @@
+package tqs.sportslink.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link HaversineKernel} over the incubator Vector API: as many points per step as the
+ * preferred vector shape holds, and the scalar kernel for the remainder. Only loaded
+ * through {@link HaversineKernel#select()}, once the module is known to be present.
+ */
+final class VectorHaversineKernel implements HaversineKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void distancesKm(double originLatRad, double originLonRad, double originCosLat,
+            double[] latRad, double[] lonRad, double[] cosLat, int from, int to, double[] out) {
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector sinLat = DoubleVector.fromArray(SPECIES, latRad, i)
+                    .sub(originLatRad).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector sinLon = DoubleVector.fromArray(SPECIES, lonRad, i)
+                    .sub(originLonRad).mul(0.5).lanewise(VectorOperators.SIN);
+            DoubleVector a = sinLon.mul(sinLon)
+                    .mul(DoubleVector.fromArray(SPECIES, cosLat, i)).mul(originCosLat)
+                    .add(sinLat.mul(sinLat));
+            a.sqrt().min(1.0)
+                    .lanewise(VectorOperators.ASIN)
+                    .mul(2 * GeoUtils.EARTH_RADIUS_KM)
+                    .intoArray(out, i - from);
+        }
+        for (; i < to; i++) {
+            out[i - from] = ScalarHaversineKernel.distanceKm(originLatRad, originLonRad, originCosLat,
+                    latRad[i], lonRad[i], cosLat[i]);
+        }
+    }
+}
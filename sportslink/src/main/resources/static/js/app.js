@@ -70,6 +70,20 @@
     return apiFetch(url);
   }
 
+  async function searchFacilitiesPage({ location, sport, cursor, limit } = {}) {
+    const params = new URLSearchParams();
+    if (location) params.set("location", location);
+    if (sport) params.set("sport", sport);
+    if (cursor) params.set("cursor", cursor);
+    if (limit) params.set("limit", limit);
+    return apiFetch(`${BASE}/search/page?${params.toString()}`);
+  }
+
+  async function searchFacilitiesText(q, limit = 6) {
+    const params = new URLSearchParams({ q, limit });
+    return apiFetch(`${BASE}/search/text?${params.toString()}`);
+  }
+
   async function getEquipments(facilityId) {
     return apiFetch(`${BASE}/facility/${facilityId}/equipments`);
   }
@@ -183,13 +197,15 @@
     return div;
   }
 
-  // Pagination state
-  let allFacilities = [];
-  let currentPage = 1;
+  // Pagination state (keyset: o servidor devolve um cursor para a página seguinte)
   const itemsPerPage = 8; // 8 items per page (4x2 grid)
+  let pageItems = [];
+  let currentQuery = {};
+  let pageCursors = [null]; // cursor usado para obter cada página já visitada
+  let currentPage = 1;
+  let nextCursor = null;
 
   function renderPagination() {
-    const totalPages = Math.ceil(allFacilities.length / itemsPerPage);
     const paginationControls = document.getElementById('paginationControls');
     if (!paginationControls) return;
 
@@ -207,42 +223,31 @@
     const prevLi = document.createElement('li');
     prevLi.className = `page-item ${currentPage === 1 ? 'disabled' : ''}`;
     prevLi.innerHTML = `<a class="page-link" href="#" aria-label="Previous"><span aria-hidden="true">&laquo;</span></a>`;
-    prevLi.addEventListener('click', (e) => {
+    prevLi.addEventListener('click', async (e) => {
       e.preventDefault();
       if (currentPage > 1) {
-        currentPage--;
-        renderPage();
-        renderPagination();
+        await goToPage(currentPage - 1);
         window.scrollTo({ top: 0, behavior: 'smooth' });
       }
     });
     paginationControls.appendChild(prevLi);
 
-    // Page numbers
-    for (let i = 1; i <= totalPages; i++) {
-      const li = document.createElement('li');
-      li.className = `page-item ${i === currentPage ? 'active' : ''}`;
-      li.innerHTML = `<a class="page-link" href="#">${i}</a>`;
-      li.addEventListener('click', (e) => {
-        e.preventDefault();
-        currentPage = i;
-        renderPage();
-        renderPagination();
-        window.scrollTo({ top: 0, behavior: 'smooth' });
-      });
-      paginationControls.appendChild(li);
-    }
+    // Current page (sem total: o servidor não faz COUNT)
+    const currentLi = document.createElement('li');
+    currentLi.className = 'page-item active';
+    currentLi.innerHTML = `<a class="page-link" href="#">${currentPage}</a>`;
+    currentLi.addEventListener('click', (e) => e.preventDefault());
+    paginationControls.appendChild(currentLi);
 
     // Next button
     const nextLi = document.createElement('li');
-    nextLi.className = `page-item ${currentPage === totalPages || totalPages === 0 ? 'disabled' : ''}`;
+    nextLi.className = `page-item ${nextCursor ? '' : 'disabled'}`;
     nextLi.innerHTML = `<a class="page-link" href="#" aria-label="Next"><span aria-hidden="true">&raquo;</span></a>`;
-    nextLi.addEventListener('click', (e) => {
+    nextLi.addEventListener('click', async (e) => {
       e.preventDefault();
-      if (currentPage < totalPages) {
-        currentPage++;
-        renderPage();
-        renderPagination();
+      if (nextCursor) {
+        pageCursors[currentPage] = nextCursor;
+        await goToPage(currentPage + 1);
         window.scrollTo({ top: 0, behavior: 'smooth' });
       }
     });
@@ -257,7 +262,7 @@
     container.className = 'row row-cols-2 row-cols-md-4 g-3 g-md-4';
     container.innerHTML = '';
 
-    if (allFacilities.length === 0) {
+    if (pageItems.length === 0) {
       const empty = document.createElement('div');
       empty.className = 'col text-muted';
       empty.textContent = 'Nenhum resultado encontrado.';
@@ -265,18 +270,33 @@
       return;
     }
 
-    const startIdx = (currentPage - 1) * itemsPerPage;
-    const endIdx = startIdx + itemsPerPage;
-    const pageData = allFacilities.slice(startIdx, endIdx);
-
-    pageData.forEach(f => container.appendChild(createFieldCard(f)));
+    pageItems.forEach(f => container.appendChild(createFieldCard(f)));
   }
 
-  async function renderSearchResults(data = []) {
-    allFacilities = Array.isArray(data) ? data : [];
-    currentPage = 1;
+  async function goToPage(page) {
+    const res = await searchFacilitiesPage({
+      ...currentQuery,
+      cursor: pageCursors[page - 1],
+      limit: itemsPerPage,
+    });
+    if (!res.ok) {
+      showToast(`Erro ao pesquisar (${res.status})`);
+      return res;
+    }
+    currentPage = page;
+    pageItems = Array.isArray(res.body?.items) ? res.body.items : [];
+    nextCursor = res.body?.nextCursor || null;
     renderPage();
     renderPagination();
+    return res;
+  }
+
+  // Starts a new paged search from the first page
+  async function loadSearchResults(query = {}) {
+    currentQuery = query;
+    pageCursors = [null];
+    nextCursor = null;
+    return goToPage(1);
   }
 
   // Render nearby facilities in carousel
@@ -423,32 +443,68 @@
         sport: mappedSport,
       };
       showToast("A pesquisar...");
-      const res = await searchFacilities(params);
-      if (!res.ok) {
-        showToast(`Erro ao pesquisar (${res.status})`);
-        return;
-      }
-      // expected body may be array
-      const body = Array.isArray(res.body) ? res.body : res.body?.results || [];
-      renderSearchResults(body, "#featured");
-      if (body.length === 0) {
+      const res = await loadSearchResults(params);
+      if (!res.ok) return;
+      if (pageItems.length === 0) {
         showToast("Nenhum resultado encontrado");
       } else {
-        showToast(`${body.length} resultado(s) encontrado(s)`);
+        showToast(nextCursor ? "Resultados encontrados" : `${pageItems.length} resultado(s) encontrado(s)`);
       }
     });
   }
 
+  // Search-as-you-type: sugestões vêm do índice de texto em memória do servidor
+  function bindTypeahead() {
+    const input = document.getElementById("searchInput");
+    if (!input) return;
+
+    const list = document.createElement("ul");
+    list.className = "list-group position-absolute shadow-sm";
+    Object.assign(list.style, { zIndex: 1100, display: "none", minWidth: "260px" });
+    input.parentElement.style.position = "relative";
+    input.insertAdjacentElement("afterend", list);
+
+    let timer = null;
+    let lastQuery = "";
+    input.addEventListener("input", () => {
+      clearTimeout(timer);
+      timer = setTimeout(async () => {
+        const q = input.value.trim();
+        lastQuery = q;
+        if (q.length < 2) {
+          list.style.display = "none";
+          return;
+        }
+        const res = await searchFacilitiesText(q);
+        // Ignora respostas de teclas antigas que chegam fora de ordem
+        if (q !== lastQuery || !res.ok || !Array.isArray(res.body) || res.body.length === 0) {
+          if (q === lastQuery) list.style.display = "none";
+          return;
+        }
+        list.innerHTML = "";
+        res.body.forEach((hit) => {
+          const li = document.createElement("li");
+          li.className = "list-group-item list-group-item-action";
+          li.style.cursor = "pointer";
+          li.textContent = hit.city ? `${hit.name} — ${hit.city}` : hit.name;
+          li.addEventListener("mousedown", () => {
+            window.location.href = `field_detail.html?id=${hit.id}`;
+          });
+          list.appendChild(li);
+        });
+        list.style.display = "block";
+      }, 120);
+    });
+    input.addEventListener("blur", () => {
+      list.style.display = "none";
+    });
+  }
+
   // Add after bindSearch function
   async function loadFeatured() {
     console.log('Loading featured facilities...');
-    const res = await searchFacilities({}); // Empty params for all
+    const res = await loadSearchResults({}); // Empty params for all
     console.log('Featured facilities response:', res);
-    if (res.ok) {
-      const body = Array.isArray(res.body) ? res.body : [];
-      console.log('Featured facilities data:', body);
-      renderSearchResults(body, "#featured");
-    }
   }
 
   async function loadNearby() {
@@ -528,6 +584,7 @@
   document.addEventListener("DOMContentLoaded", () => {
     console.log('DOM loaded, initializing app...');
     bindSearch();
+    bindTypeahead();
     loadFeatured();
     loadNearby();
     loadSuggestions(); // Add suggestions
@@ -36,6 +36,9 @@
 
     let currentDate = new Date(); // Controls the visible month
     let selectedDate = null;      // Controls the selected booking date
+    let freeByDate = {};          // 'YYYY-MM-DD' -> free intervals from the calendar endpoint
+    let calendarLoaded = false;
+    const CALENDAR_DAYS = 31;     // Today + 30 days in advance
 
     const monthNames = ["Janeiro", "Fevereiro", "Março", "Abril", "Maio", "Junho", "Julho", "Agosto", "Setembro", "Outubro", "Novembro", "Dezembro"];
 
@@ -48,11 +51,10 @@
             }
 
             // Load facility
-            const facilityRes = await fetch('/api/rentals/search', { headers: headers }); // GET with headers
+            const facilityRes = await fetch(`/api/rentals/facility/${facilityId}`, { headers: headers }); // GET with headers
             window.debugStatus = 'FETCHED';
-            const facilities = await facilityRes.json();
+            facilityData = facilityRes.ok ? await facilityRes.json() : null;
             window.debugStatus = 'PARSED';
-            facilityData = facilities.find(f => f.id == facilityId);
             window.debugStatus = 'FOUND: ' + (facilityData ? 'YES' : 'NO');
 
 
@@ -73,6 +75,8 @@
                 selectedEquipments = allEquipments.filter(eq => equipmentIds.includes(eq.id));
             }
 
+            await loadFreeIntervals(facilityId, headers);
+
             updateUI();
             renderCalendar(); // Initial Calendar Render
             loadUserInfo(); // Fetch and pre-fill user details
@@ -192,7 +196,7 @@
             const todayReset = new Date();
             todayReset.setHours(0, 0, 0, 0);
 
-            if (checkDate < todayReset) {
+            if (checkDate < todayReset || isFullyBooked(checkDate)) {
                 dayEl.classList.add('disabled');
             } else {
                 // Fix closure issue by using let/const in loop or passing explicit date
@@ -376,9 +380,68 @@
 
         // Re-render calendar to show Selection state
         renderCalendar();
+        renderFreeSlots(date);
         updateSummary();
     }
 
+    // --- FREE INTERVALS (one request for the whole booking horizon) ---
+
+    async function loadFreeIntervals(facilityIdToLoad, headers) {
+        try {
+            const res = await fetch(`/api/rentals/facility/${facilityIdToLoad}/calendar?days=${CALENDAR_DAYS}`, { headers });
+            if (!res.ok) return;
+            const calendar = await res.json();
+            freeByDate = {};
+            calendar.freeIntervals.forEach(interval => {
+                const key = interval.start.substring(0, 10);
+                (freeByDate[key] = freeByDate[key] || []).push(interval);
+            });
+            calendarLoaded = true;
+        } catch (err) {
+            console.error('Error loading calendar:', err);
+        }
+    }
+
+    function toDateKey(date) {
+        const yyyy = date.getFullYear();
+        const mm = String(date.getMonth() + 1).padStart(2, '0');
+        const dd = String(date.getDate()).padStart(2, '0');
+        return `${yyyy}-${mm}-${dd}`;
+    }
+
+    // Dias dentro do horizonte sem nenhum intervalo livre
+    function isFullyBooked(date) {
+        if (!calendarLoaded) return false;
+        const horizonEnd = new Date();
+        horizonEnd.setHours(0, 0, 0, 0);
+        horizonEnd.setDate(horizonEnd.getDate() + CALENDAR_DAYS - 1);
+        return date <= horizonEnd && !freeByDate[toDateKey(date)];
+    }
+
+    function renderFreeSlots(date) {
+        const container = document.getElementById('free-slots');
+        const grid = document.getElementById('free-slots-grid');
+        if (!calendarLoaded || !date) {
+            container.classList.add('d-none');
+            return;
+        }
+        const intervals = freeByDate[toDateKey(date)] || [];
+        container.classList.remove('d-none');
+        if (intervals.length === 0) {
+            grid.innerHTML = '<small class="text-muted">Sem horários livres</small>';
+            return;
+        }
+        grid.innerHTML = intervals.map(interval => {
+            const start = interval.start.substring(11, 16);
+            const end = interval.end.substring(11, 16);
+            return `<div class="time-slot" data-start="${start}">${start} - ${end}</div>`;
+        }).join('');
+        grid.querySelectorAll('.time-slot').forEach(el => el.addEventListener('click', () => {
+            document.getElementById('start-time').value = el.dataset.start;
+            updateEndTime();
+        }));
+    }
+
     // --- CALENDAR LOGIC END ---
 
     function renderAllEquipment() {
@@ -545,6 +608,7 @@
     let elements = null;
     let paymentElement = null;
     let currentRentalId = null;
+    let currentHoldExpiresAt = null;
 
     // Initialize Stripe (lazy load)
     async function initStripe() {
@@ -684,9 +748,12 @@
 
     // Handle cancel payment
     document.getElementById('cancel-payment').addEventListener('click', () => {
-        // Rental was created but payment cancelled - user can pay later
+        // The slot is only held: it is released if not paid before the hold expires
         if (currentRentalId) {
-            alert('Your booking has been created but is pending payment. You can complete payment from your rentals page.');
+            const until = currentHoldExpiresAt
+                ? ` until ${new Date(currentHoldExpiresAt).toLocaleTimeString([], { hour: '2-digit', minute: '2-digit' })}`
+                : '';
+            alert(`Your slot is held${until}. Complete the payment from your rentals page before then, or it will be released.`);
         }
     });
 
@@ -731,8 +798,8 @@
             const token = localStorage.getItem('token');
             if (token) headers['Authorization'] = `Bearer ${token}`;
 
-            // Create rental first
-            const response = await fetch('/api/rentals/rental', {
+            // Hold the slot first; it becomes a rental when the payment succeeds
+            const response = await fetch('/api/rentals/hold', {
                 method: 'POST',
                 headers: headers,
                 body: JSON.stringify(bookingData)
@@ -752,6 +819,7 @@
             }
 
             const result = await response.json();
+            currentHoldExpiresAt = result.holdExpiresAt;
 
             // Calculate total for payment
             const duration = parseFloat(document.getElementById('duration').value);
@@ -17,6 +17,9 @@
     const monthNames = ["Janeiro", "Fevereiro", "Março", "Abril", "Maio", "Junho", "Julho", "Agosto", "Setembro", "Outubro", "Novembro", "Dezembro"];
     let currentDate = new Date();
     let selectedDate = null;
+    let freeByDate = {};          // 'YYYY-MM-DD' -> free intervals from the calendar endpoint
+    let calendarLoaded = false;
+    const CALENDAR_DAYS = 31;     // Today + 30 days in advance
 
     async function loadData() {
         try {
@@ -30,11 +33,9 @@
 
             document.getElementById('booking-id-display').textContent = `#${rentalData.id}`;
 
-            // 2. Fetch Facility Details (using search ensuring we find it)
-            // Note: Ideally we should have a getFacilityById endpoint
-            const facilityRes = await fetch('/api/rentals/search', { headers: headers }); // Reuse search query if filters allow, otherwise fetch all
-            const facilities = await facilityRes.json();
-            facilityData = facilities.find(f => f.id == rentalData.facilityId);
+            // 2. Fetch Facility Details
+            const facilityRes = await fetch(`/api/rentals/facility/${rentalData.facilityId}`, { headers: headers });
+            facilityData = facilityRes.ok ? await facilityRes.json() : null;
 
             if (!facilityData) {
                 throw new Error('Facility not found');
@@ -44,12 +45,16 @@
             const equipmentRes = await fetch(`/api/rentals/facility/${facilityData.id}/equipments`, { headers });
             allEquipments = await equipmentRes.json();
 
-            // 4. Pre-fill Data
+            // 4. Free intervals for the calendar
+            await loadFreeIntervals(facilityData.id, headers);
+
+            // 5. Pre-fill Data
             prefillForm();
 
-            // 5. Render UI
+            // 6. Render UI
             updateUI();
             renderCalendar();
+            renderFreeSlots(selectedDate);
 
         } catch (err) {
             console.error('Error loading data:', err);
@@ -180,7 +185,7 @@
             const todayReset = new Date();
             todayReset.setHours(0, 0, 0, 0);
 
-            if (checkDate < todayReset) {
+            if (checkDate < todayReset || isFullyBooked(checkDate)) {
                 dayEl.classList.add('disabled');
             } else {
                 dayEl.addEventListener('click', () => selectDate(new Date(year, month, i)));
@@ -204,9 +209,68 @@
         const dd = String(date.getDate()).padStart(2, '0');
         document.getElementById('booking-date').value = `${yyyy}-${mm}-${dd}`;
         renderCalendar();
+        renderFreeSlots(date);
         updateSummary();
     }
 
+    // --- FREE INTERVALS (one request for the whole booking horizon) ---
+
+    async function loadFreeIntervals(facilityIdToLoad, headers) {
+        try {
+            const res = await fetch(`/api/rentals/facility/${facilityIdToLoad}/calendar?days=${CALENDAR_DAYS}`, { headers });
+            if (!res.ok) return;
+            const calendar = await res.json();
+            freeByDate = {};
+            calendar.freeIntervals.forEach(interval => {
+                const key = interval.start.substring(0, 10);
+                (freeByDate[key] = freeByDate[key] || []).push(interval);
+            });
+            calendarLoaded = true;
+        } catch (err) {
+            console.error('Error loading calendar:', err);
+        }
+    }
+
+    function toDateKey(date) {
+        const yyyy = date.getFullYear();
+        const mm = String(date.getMonth() + 1).padStart(2, '0');
+        const dd = String(date.getDate()).padStart(2, '0');
+        return `${yyyy}-${mm}-${dd}`;
+    }
+
+    // Dias dentro do horizonte sem nenhum intervalo livre
+    function isFullyBooked(date) {
+        if (!calendarLoaded) return false;
+        const horizonEnd = new Date();
+        horizonEnd.setHours(0, 0, 0, 0);
+        horizonEnd.setDate(horizonEnd.getDate() + CALENDAR_DAYS - 1);
+        return date <= horizonEnd && !freeByDate[toDateKey(date)];
+    }
+
+    function renderFreeSlots(date) {
+        const container = document.getElementById('free-slots');
+        const grid = document.getElementById('free-slots-grid');
+        if (!calendarLoaded || !date) {
+            container.classList.add('d-none');
+            return;
+        }
+        const intervals = freeByDate[toDateKey(date)] || [];
+        container.classList.remove('d-none');
+        if (intervals.length === 0) {
+            grid.innerHTML = '<small class="text-muted">Sem horários livres</small>';
+            return;
+        }
+        grid.innerHTML = intervals.map(interval => {
+            const start = interval.start.substring(11, 16);
+            const end = interval.end.substring(11, 16);
+            return `<div class="time-slot" data-start="${start}">${start} - ${end}</div>`;
+        }).join('');
+        grid.querySelectorAll('.time-slot').forEach(el => el.addEventListener('click', () => {
+            document.getElementById('start-time').value = el.dataset.start;
+            updateEndTime();
+        }));
+    }
+
     // --- EQUIPMENT ---
 
     function renderAllEquipment() {
@@ -334,6 +398,7 @@
         const parts = e.target.value.split('-');
         selectedDate = new Date(parts[0], parts[1] - 1, parts[2]);
         renderCalendar();
+        renderFreeSlots(selectedDate);
         updateSummary();
     });
 
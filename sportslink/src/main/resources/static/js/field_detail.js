@@ -19,9 +19,8 @@
 
     async function loadFacility() {
         try {
-            const res = await fetch('/api/rentals/search', { headers: authHeaders() });
-            const facilities = await res.json();
-            facilityData = facilities.find(f => f.id == facilityId);
+            const res = await fetch(`/api/rentals/facility/${facilityId}`, { headers: authHeaders() });
+            facilityData = res.ok ? await res.json() : null;
 
             if (!facilityData) {
                 alert('Campo não encontrado');
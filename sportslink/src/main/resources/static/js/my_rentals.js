@@ -144,6 +144,9 @@ function getStatusBadge(status, isActive) {
     if (!isActive) {
         return '<span class="badge badge-past">Completed</span>';
     }
+    if (status === 'HELD') {
+        return '<span class="badge badge-past">Awaiting payment</span>';
+    }
     return '<span class="badge badge-confirmed">Confirmed</span>';
 }
 
@@ -0,0 +1,120 @@
+package tqs.sportslink.A_Tests_repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import tqs.sportslink.data.AdminListingRepository;
+import tqs.sportslink.data.AdminListingRepository.FacilityFilter;
+import tqs.sportslink.data.AdminListingRepository.FacilityRow;
+import tqs.sportslink.data.AdminListingRepository.RentalFilter;
+import tqs.sportslink.data.AdminListingRepository.RentalRow;
+import tqs.sportslink.data.AdminListingRepository.UserFilter;
+import tqs.sportslink.data.AdminListingRepository.UserRow;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.data.model.Role;
+import tqs.sportslink.data.model.User;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DataJpaTest
+@Import(AdminListingRepository.class)
+class AdminListingRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AdminListingRepository listingRepository;
+
+    @Test
+    void whenUsersPaged_thenOneRowPerUserWithAllRolesAfterTheCursor() {
+        user("renter@test.com", true, Role.RENTER);
+        user("both@test.com", true, Role.RENTER, Role.OWNER);
+        User banned = user("banned@test.com", false, Role.RENTER);
+        user("owner@test.com", true, Role.OWNER);
+
+        List<UserRow> firstPage = listingRepository.findUsers(new UserFilter(Role.RENTER, null), 0L, 2);
+        List<UserRow> nextPage = listingRepository.findUsers(new UserFilter(Role.RENTER, null),
+                firstPage.get(1).id(), 2);
+
+        assertThat(firstPage).extracting(UserRow::email, UserRow::roles).containsExactly(
+                tuple("renter@test.com", List.of("RENTER")),
+                tuple("both@test.com", List.of("OWNER", "RENTER")));
+        assertThat(nextPage).extracting(UserRow::id).containsExactly(banned.getId());
+        assertThat(listingRepository.findUsers(new UserFilter(null, false), 0L, 10))
+                .extracting(UserRow::id).containsExactly(banned.getId());
+    }
+
+    @Test
+    void whenRentalsStreamed_thenFilteredByStartTimeWithUserAndFacilityNames() {
+        User user = user("renter@test.com", true, Role.RENTER);
+        Facility facility = facility("Arena", user);
+        LocalDateTime from = LocalDateTime.of(2025, 10, 10, 0, 0);
+        Rental inside = rental(user, facility, from.plusHours(10), "CONFIRMED");
+        rental(user, facility, from.minusHours(2), "CONFIRMED"); // antes do intervalo
+        rental(user, facility, from.plusDays(1), "CONFIRMED"); // limite superior exclusivo
+        rental(user, facility, from.plusHours(12), "CANCELLED");
+
+        List<RentalRow> streamed = new ArrayList<>();
+        listingRepository.streamRentals(new RentalFilter("CONFIRMED", null, facility.getId(), from,
+                from.plusDays(1)), streamed::add);
+
+        assertThat(streamed).extracting(RentalRow::id, RentalRow::userEmail, RentalRow::facilityName)
+                .containsExactly(tuple(inside.getId(), "renter@test.com", "Arena"));
+    }
+
+    @Test
+    void whenFacilitiesFiltered_thenMatchingRowsWithOwnerName() {
+        User owner = user("owner@test.com", true, Role.OWNER);
+        Facility arena = facility("Arena", owner);
+        facility("Pavilhão", null);
+
+        List<FacilityRow> rows = listingRepository.findFacilities(new FacilityFilter("ACTIVE", "faro", owner.getId()),
+                0L, 10);
+
+        assertThat(rows).extracting(FacilityRow::id, FacilityRow::ownerName)
+                .containsExactly(tuple(arena.getId(), "owner"));
+    }
+
+    private User user(String email, boolean active, Role... roles) {
+        User user = new User();
+        user.setEmail(email);
+        user.setName(email.substring(0, email.indexOf('@')));
+        user.setPassword("pass");
+        user.setActive(active);
+        user.getRoles().addAll(List.of(roles));
+        return entityManager.persistAndFlush(user);
+    }
+
+    private Facility facility(String name, User owner) {
+        Facility f = new Facility();
+        f.setName(name);
+        f.setCity("Faro");
+        f.setAddress("Rua D");
+        f.setStatus("ACTIVE");
+        f.setOwner(owner);
+        f.setOpeningTime(LocalTime.of(8, 0));
+        f.setClosingTime(LocalTime.of(22, 0));
+        return entityManager.persistAndFlush(f);
+    }
+
+    private Rental rental(User user, Facility facility, LocalDateTime start, String status) {
+        Rental r = new Rental();
+        r.setUser(user);
+        r.setFacility(facility);
+        r.setStatus(status);
+        r.setTotalPrice(10.0);
+        r.setStartTime(start);
+        r.setEndTime(start.plusHours(1));
+        return entityManager.persistAndFlush(r);
+    }
+}
@@ -8,9 +8,11 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import tqs.sportslink.data.model.Equipment;
 import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
 import tqs.sportslink.data.EquipmentRepository;
 
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -56,4 +58,41 @@ class EquipmentRepositoryTest {
         assertThat(found).hasSize(1);
         assertThat(found.get(0).getName()).isEqualTo("Ball");
     }
+
+    @Test
+    void whenFindAvailableWithSportsByFacilityId_thenOnlyAvailableWithSportsLoaded() {
+        // given
+        Facility f = new Facility();
+        f.setName("Padel Club");
+        f.setCity("Aveiro");
+        f.setAddress("Rua D");
+        f.setStatus("ACTIVE");
+        entityManager.persistAndFlush(f);
+        Equipment racket = equipment(f, "Racket", "AVAILABLE", Sport.PADEL, Sport.TENNIS);
+        equipment(f, "Broken Racket", "MAINTENANCE", Sport.PADEL);
+        equipment(f, "Towel", "AVAILABLE");
+        entityManager.clear();
+
+        // when
+        List<Equipment> found = equipmentRepository.findAvailableWithSportsByFacilityId(f.getId());
+
+        // then: desportos já carregados no mesmo select
+        entityManager.clear();
+        assertThat(found).extracting(Equipment::getId).containsExactly(racket.getId());
+        assertThat(found.get(0).getSports()).containsExactlyInAnyOrder(Sport.PADEL, Sport.TENNIS);
+        assertThat(equipmentRepository.findAvailableWithSports()).extracting(Equipment::getId)
+                .containsExactly(racket.getId());
+    }
+
+    private Equipment equipment(Facility f, String name, String status, Sport... sports) {
+        Equipment e = new Equipment();
+        e.setName(name);
+        e.setType(name);
+        e.setPricePerHour(2.0);
+        e.setQuantity(5);
+        e.setStatus(status);
+        e.setFacility(f);
+        e.setSports(new ArrayList<>(List.of(sports)));
+        return entityManager.persistAndFlush(e);
+    }
 }
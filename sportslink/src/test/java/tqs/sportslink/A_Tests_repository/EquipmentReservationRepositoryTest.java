@@ -0,0 +1,123 @@
+package tqs.sportslink.A_Tests_repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import tqs.sportslink.data.EquipmentReservationRepository;
+import tqs.sportslink.data.model.Equipment;
+import tqs.sportslink.data.model.Facility;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class EquipmentReservationRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 15, 19, 0);
+    private static final LocalDateTime END = START.plusHours(2);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EquipmentReservationRepository reservationRepository;
+
+    private Facility facility;
+    private Equipment rackets;
+
+    @BeforeEach
+    void setUp() {
+        facility = facility("Padel Club");
+        rackets = equipment(facility, "Racket", 2);
+    }
+
+    @Test
+    void whenUnitsLeftInWindow_thenReservedUntilQuantity() {
+        List<Long> ids = List.of(rackets.getId());
+
+        assertThat(reservationRepository.reserveAvailable(ids, facility.getId(), 1L, START, END)).isEqualTo(1);
+        assertThat(reservationRepository.reserveAvailable(ids, facility.getId(), 2L, START.plusHours(1),
+                END.plusHours(1))).isEqualTo(1);
+        // Duas unidades já ocupadas entre as 20:00 e as 21:00
+        assertThat(reservationRepository.reserveAvailable(ids, facility.getId(), 3L, START.plusHours(1),
+                END)).isZero();
+    }
+
+    @Test
+    void whenWindowsDoNotOverlap_thenUnitsAreReused() {
+        List<Long> ids = List.of(rackets.getId());
+        reservationRepository.reserveAvailable(ids, facility.getId(), 1L, START, END);
+        reservationRepository.reserveAvailable(ids, facility.getId(), 2L, START, END);
+
+        assertThat(reservationRepository.reserveAvailable(ids, facility.getId(), 3L, END, END.plusHours(1)))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void whenRentalReleased_thenUnitsReturnToStock() {
+        List<Long> ids = List.of(rackets.getId());
+        reservationRepository.reserveAvailable(ids, facility.getId(), 1L, START, END);
+        reservationRepository.reserveAvailable(ids, facility.getId(), 2L, START, END);
+
+        assertThat(reservationRepository.deleteByRentalId(1L)).isEqualTo(1);
+
+        assertThat(reservationRepository.reserveAvailable(ids, facility.getId(), 3L, START, END)).isEqualTo(1);
+    }
+
+    @Test
+    void whenEquipmentBelongsToOtherFacility_thenNotReserved() {
+        Facility other = facility("Other Club");
+        Equipment balls = equipment(other, "Ball", 5);
+
+        int reserved = reservationRepository.reserveAvailable(List.of(rackets.getId(), balls.getId()),
+                facility.getId(), 1L, START, END);
+
+        assertThat(reserved).isEqualTo(1);
+    }
+
+    @Test
+    void whenCountingReserved_thenGroupedByEquipmentInWindow() {
+        Equipment balls = equipment(facility, "Ball", 5);
+        reservationRepository.reserveAvailable(List.of(rackets.getId(), balls.getId()), facility.getId(), 1L,
+                START, END);
+        reservationRepository.reserveAvailable(List.of(balls.getId()), facility.getId(), 2L, START, END);
+
+        List<EquipmentReservationRepository.ReservedCount> counts = reservationRepository
+                .countReservedBetween(List.of(rackets.getId(), balls.getId()), START, END);
+
+        assertThat(counts)
+                .extracting(EquipmentReservationRepository.ReservedCount::getEquipmentId,
+                        EquipmentReservationRepository.ReservedCount::getReserved)
+                .containsExactlyInAnyOrder(
+                        org.assertj.core.groups.Tuple.tuple(rackets.getId(), 1L),
+                        org.assertj.core.groups.Tuple.tuple(balls.getId(), 2L));
+    }
+
+    private Facility facility(String name) {
+        Facility f = new Facility();
+        f.setName(name);
+        f.setCity("Aveiro");
+        f.setAddress("Rua A");
+        f.setStatus("ACTIVE");
+        f.setPricePerHour(15.0);
+        f.setOpeningTime(LocalTime.of(8, 0));
+        f.setClosingTime(LocalTime.of(23, 0));
+        return entityManager.persistAndFlush(f);
+    }
+
+    private Equipment equipment(Facility f, String name, int quantity) {
+        Equipment e = new Equipment();
+        e.setName(name);
+        e.setType(name);
+        e.setPricePerHour(2.0);
+        e.setQuantity(quantity);
+        e.setStatus("AVAILABLE");
+        e.setFacility(f);
+        return entityManager.persistAndFlush(e);
+    }
+}
@@ -6,12 +6,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import tqs.sportslink.data.model.Equipment;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Sport;
 import tqs.sportslink.data.model.User;
 import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.OwnerFacilityStats;
 
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -82,4 +86,120 @@ class FacilityRepositoryTest {
         assertThat(found).hasSize(1);
         assertThat(found.get(0).getName()).isEqualTo("My Field");
     }
+
+    @Test
+    void whenFindActivePageByRating_thenKeysetOrderAndOnlyActive() {
+        // given
+        Facility a = facility("A", "Aveiro", 4.8, 20.0, "ACTIVE", Sport.PADEL);
+        Facility b = facility("B", "Aveiro", 4.5, 10.0, "ACTIVE", Sport.PADEL);
+        Facility c = facility("C", "Aveiro", 4.5, 30.0, "ACTIVE", Sport.TENNIS);
+        facility("D", "Aveiro", 5.0, 15.0, "DELETED", Sport.PADEL);
+        facility("E", "Porto", 4.9, 25.0, "ACTIVE", Sport.PADEL);
+
+        // when
+        List<Facility> first = facilityRepository.findActivePageByRating("Aveiro", null, Double.MAX_VALUE, 0L,
+                Limit.of(2));
+        Facility last = first.get(1);
+        List<Facility> second = facilityRepository.findActivePageByRating("Aveiro", null, last.getRating(),
+                last.getId(), Limit.of(2));
+
+        // then
+        assertThat(first).containsExactly(a, b);
+        assertThat(second).containsExactly(c);
+    }
+
+    @Test
+    void whenFindActivePageByPriceWithSport_thenFilteredAndSortedByPrice() {
+        // given
+        Facility cheap = facility("Cheap", "Aveiro", 4.0, 10.0, "ACTIVE", Sport.PADEL);
+        Facility noPrice = facility("NoPrice", "Aveiro", 4.0, null, "ACTIVE", Sport.PADEL);
+        Facility expensive = facility("Expensive", "Lisboa", 4.0, 30.0, "ACTIVE", Sport.PADEL);
+        facility("Tennis", "Aveiro", 4.0, 5.0, "ACTIVE", Sport.TENNIS);
+
+        // when
+        List<Facility> found = facilityRepository.findActivePageByPrice(null, Sport.PADEL, -Double.MAX_VALUE, 0L,
+                Limit.of(10));
+
+        // then
+        assertThat(found).containsExactly(noPrice, cheap, expensive);
+    }
+
+    @Test
+    void whenOwnerFacilityStats_thenOwnFacilitiesWithEquipmentCount() {
+        // given
+        User owner = user("stats-owner@test.com");
+        User other = user("stats-other@test.com");
+        Facility busy = facility("Busy", "Aveiro", 4.5, 20.0, "ACTIVE", Sport.PADEL);
+        Facility quiet = facility("Quiet", "Aveiro", 3.0, 10.0, "ACTIVE", Sport.PADEL);
+        Facility notOwned = facility("Other", "Aveiro", 4.0, 10.0, "ACTIVE", Sport.PADEL);
+        busy.setOwner(owner);
+        quiet.setOwner(owner);
+        notOwned.setOwner(other);
+        equipment(busy, "Racket");
+        equipment(busy, "Balls");
+        equipment(notOwned, "Net");
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<OwnerFacilityStats> stats = facilityRepository.findOwnerFacilityStats(owner.getId());
+
+        // then
+        assertThat(stats).extracting(OwnerFacilityStats::facilityId).containsExactly(busy.getId(), quiet.getId());
+        assertThat(stats.get(0).equipmentCount()).isEqualTo(2);
+        assertThat(stats.get(0).pricePerHour()).isEqualTo(20.0);
+        assertThat(stats.get(1).equipmentCount()).isZero();
+        assertThat(stats.get(1).rating()).isEqualTo(3.0);
+    }
+
+    @Test
+    void whenFindAllSports_thenOneRowPerFacilitySportOrderedByName() {
+        // given
+        Facility multi = facility("Multi", "Aveiro", 4.0, 10.0, "ACTIVE", Sport.TENNIS);
+        multi.getSports().add(Sport.PADEL);
+        Facility none = facility("None", "Aveiro", 4.0, 10.0, "ACTIVE", Sport.PADEL);
+        none.getSports().clear();
+        entityManager.flush();
+        entityManager.clear();
+
+        // when
+        List<FacilityRepository.FacilitySport> rows = facilityRepository.findAllSports();
+
+        // then
+        assertThat(rows).filteredOn(row -> row.getFacilityId().equals(multi.getId()))
+                .extracting(FacilityRepository.FacilitySport::getSport)
+                .containsExactly(Sport.PADEL, Sport.TENNIS);
+        assertThat(rows).noneMatch(row -> row.getFacilityId().equals(none.getId()));
+    }
+
+    private User user(String email) {
+        User u = new User();
+        u.setEmail(email);
+        u.setName(email);
+        u.setPassword("pass");
+        return entityManager.persistAndFlush(u);
+    }
+
+    private Equipment equipment(Facility facility, String name) {
+        Equipment e = new Equipment();
+        e.setName(name);
+        e.setType(name);
+        e.setPricePerHour(2.0);
+        e.setQuantity(5);
+        e.setStatus("AVAILABLE");
+        e.setFacility(facility);
+        return entityManager.persistAndFlush(e);
+    }
+
+    private Facility facility(String name, String city, Double rating, Double price, String status, Sport sport) {
+        Facility f = new Facility();
+        f.setName(name);
+        f.setCity(city);
+        f.setAddress("Rua " + name);
+        f.setStatus(status);
+        f.setRating(rating);
+        f.setPricePerHour(price);
+        f.setSports(new ArrayList<>(List.of(sport)));
+        return entityManager.persistAndFlush(f);
+    }
 }
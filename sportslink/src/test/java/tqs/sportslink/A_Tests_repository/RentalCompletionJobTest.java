@@ -0,0 +1,124 @@
+package tqs.sportslink.A_Tests_repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.data.model.User;
+import tqs.sportslink.service.RentalCompletionJob;
+import tqs.sportslink.service.RentalStatusChangedEvent;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class RentalCompletionJobTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    private SimpleMeterRegistry registry;
+    private List<Object> events;
+    private ApplicationEventPublisher eventPublisher;
+    private User user;
+    private Facility facility;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        events = new ArrayList<>();
+        eventPublisher = events::add;
+
+        user = new User();
+        user.setEmail("lifecycle@test.com");
+        user.setName("Lifecycle");
+        user.setPassword("pass");
+        entityManager.persistAndFlush(user);
+
+        facility = new Facility();
+        facility.setName("Court L");
+        facility.setCity("Faro");
+        facility.setAddress("Rua L");
+        facility.setStatus("ACTIVE");
+        facility.setOpeningTime(LocalTime.of(8, 0));
+        facility.setClosingTime(LocalTime.of(22, 0));
+        entityManager.persistAndFlush(facility);
+    }
+
+    @Test
+    void whenRentalsEnded_thenOnlyEndedConfirmedOnesCompletedInChunks() {
+        LocalDateTime now = LocalDateTime.now();
+        Rental ended1 = rental(now.minusDays(2), "CONFIRMED");
+        Rental ended2 = rental(now.minusDays(1), "CONFIRMED");
+        Rental ended3 = rental(now.minusHours(3), "CONFIRMED");
+        Rental cancelled = rental(now.minusDays(1), "CANCELLED");
+        Rental held = rental(now.minusDays(1), "HELD");
+        Rental upcoming = rental(now.plusDays(1), "CONFIRMED");
+
+        // Chunks de 2: 2 + 1 linhas, o segundo chunk curto termina a execução
+        RentalCompletionJob job = new RentalCompletionJob(jdbcTemplate, registry, eventPublisher, 2, 10);
+        assertThat(job.completeEndedRentals()).isEqualTo(3);
+        entityManager.clear();
+
+        assertThat(statusOf(ended1)).isEqualTo("COMPLETED");
+        assertThat(statusOf(ended2)).isEqualTo("COMPLETED");
+        assertThat(statusOf(ended3)).isEqualTo("COMPLETED");
+        assertThat(statusOf(cancelled)).isEqualTo("CANCELLED");
+        assertThat(statusOf(held)).isEqualTo("HELD");
+        assertThat(statusOf(upcoming)).isEqualTo("CONFIRMED");
+
+        // Segunda execução (ou outro nó) não encontra nada
+        assertThat(job.completeEndedRentals()).isZero();
+        assertThat(registry.get("rentals.completed").counter().count()).isEqualTo(3.0);
+        assertThat(registry.get("rentals.completion.rows").summary().count()).isEqualTo(2);
+        assertThat(registry.get("rentals.completion.duration").timer().count()).isEqualTo(2);
+        // Uma transição por execução com linhas, nenhuma para a execução vazia
+        assertThat(events).containsExactly(RentalStatusChangedEvent.transition("CONFIRMED", "COMPLETED", 3));
+    }
+
+    @Test
+    void whenBacklogLargerThanOneRun_thenRestLeftForNextRun() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 1; i <= 5; i++) {
+            rental(now.minusDays(i), "CONFIRMED");
+        }
+
+        RentalCompletionJob job = new RentalCompletionJob(jdbcTemplate, registry, eventPublisher, 2, 1);
+
+        assertThat(job.completeEndedRentals()).isEqualTo(2);
+        assertThat(job.completeEndedRentals()).isEqualTo(2);
+        assertThat(job.completeEndedRentals()).isEqualTo(1);
+    }
+
+    private Rental rental(LocalDateTime end, String status) {
+        Rental r = new Rental();
+        r.setUser(user);
+        r.setFacility(facility);
+        r.setStatus(status);
+        r.setStartTime(end.minusHours(1));
+        r.setEndTime(end);
+        return entityManager.persistAndFlush(r);
+    }
+
+    private String statusOf(Rental rental) {
+        return rentalRepository.findById(rental.getId()).orElseThrow().getStatus();
+    }
+}
@@ -6,16 +6,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import tqs.sportslink.data.model.Equipment;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.data.RentalHistoryRow;
 import tqs.sportslink.data.RentalRepository;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.assertj.core.api.Assertions.within;
 
 @DataJpaTest
 class RentalRepositoryTest {
@@ -62,4 +69,226 @@ class RentalRepositoryTest {
         List<Rental> found = rentalRepository.findByFacilityId(f.getId());
         assertThat(found).hasSize(1);
     }
+
+    @Test
+    void whenFindBookedSlotsForFacilities_thenOnlyActiveOverlappingRentalsReturned() {
+        User u = new User();
+        u.setEmail("batch@test.com");
+        u.setName("Batch");
+        u.setPassword("pass");
+        entityManager.persistAndFlush(u);
+
+        Facility f1 = facility("Court 1");
+        Facility f2 = facility("Court 2");
+        Facility other = facility("Court 3");
+
+        LocalDateTime windowStart = LocalDateTime.of(2025, 10, 10, 18, 0);
+        LocalDateTime windowEnd = windowStart.plusHours(3);
+
+        rental(u, f1, windowStart.plusHours(1), windowStart.plusHours(2), "CONFIRMED"); // dentro
+        rental(u, f1, windowStart.minusHours(5), windowStart.minusHours(4), "CONFIRMED"); // antes da janela
+        rental(u, f2, windowStart, windowStart.plusHours(1), "CANCELLED"); // cancelado
+        rental(u, f2, windowEnd.minusMinutes(30), windowEnd.plusMinutes(30), "CONFIRMED"); // parcial
+        rental(u, other, windowStart, windowEnd, "CONFIRMED"); // facility fora da lista
+
+        List<RentalRepository.BookedSlot> found = rentalRepository.findBookedSlotsByFacilityIdInBetween(
+                List.of(f1.getId(), f2.getId()), windowStart, windowEnd);
+
+        assertThat(found).extracting(RentalRepository.BookedSlot::getFacilityId)
+                .containsExactlyInAnyOrder(f1.getId(), f2.getId());
+    }
+
+    private Facility facility(String name) {
+        Facility f = new Facility();
+        f.setName(name);
+        f.setCity("Faro");
+        f.setAddress("Rua D");
+        f.setStatus("ACTIVE");
+        f.setOpeningTime(LocalTime.of(8, 0));
+        f.setClosingTime(LocalTime.of(22, 0));
+        return entityManager.persistAndFlush(f);
+    }
+
+    @Test
+    void whenHoldExpiresOrIsPaid_thenOnlyFirstTransitionApplies() {
+        User u = new User();
+        u.setEmail("hold@test.com");
+        u.setName("Hold");
+        u.setPassword("pass");
+        entityManager.persistAndFlush(u);
+        Facility f = facility("Court H");
+        LocalDateTime now = LocalDateTime.of(2025, 10, 10, 12, 0);
+        LocalDateTime start = now.plusDays(1);
+
+        Rental expiring = held(u, f, start, now.minusMinutes(1));
+        Rental paid = held(u, f, start.plusHours(2), now.minusMinutes(1));
+        Rental stillHeld = held(u, f, start.plusHours(4), now.plusMinutes(5));
+        assertThat(rentalRepository.findExpiredHeldIds(now, Limit.of(10)))
+                .containsExactly(expiring.getId(), paid.getId());
+
+        assertThat(rentalRepository.convertHold(paid.getId(), now)).isEqualTo(1);
+        assertThat(rentalRepository.expireHold(paid.getId(), now)).isZero();
+        // Cancelamento que leu o hold antes do pagamento: não o reescreve
+        assertThat(rentalRepository.cancelIfStatus(paid.getId(), "HELD", now)).isZero();
+        assertThat(rentalRepository.expireHold(expiring.getId(), now)).isEqualTo(1);
+        assertThat(rentalRepository.convertHold(expiring.getId(), now)).isZero();
+        // Prazo ainda não passou
+        assertThat(rentalRepository.expireHold(stillHeld.getId(), now)).isZero();
+        entityManager.clear();
+
+        assertThat(rentalRepository.findById(paid.getId())).get()
+                .extracting(Rental::getStatus, Rental::getPaymentStatus).containsExactly("CONFIRMED", "PAID");
+        assertThat(rentalRepository.findById(expiring.getId())).get()
+                .extracting(Rental::getStatus).isEqualTo("CANCELLED");
+        assertThat(rentalRepository.findHeld()).extracting(RentalRepository.HeldSlot::getRentalId)
+                .containsExactly(stillHeld.getId());
+    }
+
+    @Test
+    void whenHistoryPaged_thenKeysetOrderAndEquipmentNamesAggregated() {
+        User u = new User();
+        u.setEmail("history@test.com");
+        u.setName("History");
+        u.setPassword("pass");
+        entityManager.persistAndFlush(u);
+        User other = new User();
+        other.setEmail("other@test.com");
+        other.setName("Other");
+        other.setPassword("pass");
+        entityManager.persistAndFlush(other);
+        Facility f = facility("Court History");
+        Equipment racket = equipment(f, "Racket");
+        Equipment balls = equipment(f, "Balls");
+
+        LocalDateTime base = LocalDateTime.of(2025, 10, 10, 10, 0);
+        Rental latest = rental(u, f, base.plusDays(2), base.plusDays(2).plusHours(1), "CONFIRMED");
+        latest.setEquipments(new ArrayList<>(List.of(racket, balls)));
+        entityManager.persistAndFlush(latest);
+        // Mesmo início: desempata pelo id
+        Rental sameStartA = rental(u, f, base.plusDays(1), base.plusDays(1).plusHours(1), "CANCELLED");
+        Rental sameStartB = rental(u, f, base.plusDays(1), base.plusDays(1).plusHours(1), "CONFIRMED");
+        Rental oldest = rental(u, f, base, base.plusHours(1), "COMPLETED");
+        rental(other, f, base.plusDays(3), base.plusDays(3).plusHours(1), "CONFIRMED");
+        entityManager.clear();
+
+        List<RentalHistoryRow> first = rentalRepository.findHistoryPage(u.getId(),
+                LocalDateTime.of(9999, 12, 31, 23, 59), 0L, Limit.of(2));
+        assertThat(first).extracting(RentalHistoryRow::id).containsExactly(latest.getId(), sameStartA.getId());
+        assertThat(first.get(0).equipmentNames()).isEqualTo("Balls|Racket");
+        assertThat(first.get(1).equipmentNames()).isNull();
+        assertThat(first.get(1).status()).isEqualTo("CANCELLED");
+
+        RentalHistoryRow last = first.get(1);
+        List<RentalHistoryRow> second = rentalRepository.findHistoryPage(u.getId(), last.startTime(), last.id(),
+                Limit.of(2));
+        assertThat(second).extracting(RentalHistoryRow::id).containsExactly(sameStartB.getId(), oldest.getId());
+
+        assertThat(rentalRepository.findHistoryByUserId(u.getId())).hasSize(4);
+    }
+
+    @Test
+    void whenVisitsCounted_thenCancelledRentalsIgnoredAndGroupedByFacility() {
+        User u = new User();
+        u.setEmail("visits@test.com");
+        u.setName("Visits");
+        u.setPassword("pass");
+        entityManager.persistAndFlush(u);
+        Facility f1 = facility("Court 1");
+        Facility f2 = facility("Court 2");
+        LocalDateTime start = LocalDateTime.of(2025, 10, 10, 10, 0);
+
+        rental(u, f1, start, start.plusHours(1), "CONFIRMED");
+        rental(u, f1, start.plusDays(1), start.plusDays(1).plusHours(1), "COMPLETED");
+        held(u, f1, start.plusDays(2), LocalDateTime.now().plusMinutes(5));
+        rental(u, f2, start, start.plusHours(1), "CANCELLED");
+
+        List<RentalRepository.FacilityVisits> visits = rentalRepository.countVisitsByUserId(u.getId());
+
+        assertThat(visits).singleElement().satisfies(v -> {
+            assertThat(v.getFacilityId()).isEqualTo(f1.getId());
+            assertThat(v.getBookings()).isEqualTo(3);
+            assertThat(v.getLastBookedAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void whenCountedByStatusAndFacility_thenOneRowPerKey() {
+        User u = new User();
+        u.setEmail("charts@test.com");
+        u.setName("Charts");
+        u.setPassword("pass");
+        entityManager.persistAndFlush(u);
+        Facility f1 = facility("Court 1");
+        Facility f2 = facility("Court 2");
+        LocalDateTime start = LocalDateTime.of(2025, 10, 10, 10, 0);
+
+        rental(u, f1, start, start.plusHours(1), "CONFIRMED");
+        rental(u, f1, start.plusDays(1), start.plusDays(1).plusHours(1), "CONFIRMED");
+        rental(u, f1, start.plusDays(2), start.plusDays(2).plusHours(1), "CANCELLED");
+        rental(u, f2, start, start.plusHours(1), "COMPLETED");
+
+        assertThat(rentalRepository.countByStatus())
+                .extracting(RentalRepository.StatusCount::getStatus, RentalRepository.StatusCount::getRentals)
+                .containsExactlyInAnyOrder(tuple("CONFIRMED", 2L), tuple("CANCELLED", 1L), tuple("COMPLETED", 1L));
+        assertThat(rentalRepository.countByFacility())
+                .extracting(RentalRepository.FacilityCount::getFacilityId, RentalRepository.FacilityCount::getRentals)
+                .containsExactlyInAnyOrder(tuple(f1.getId(), 3L), tuple(f2.getId(), 1L));
+    }
+
+    @Test
+    void whenBookingVersionRead_thenCountAndLastChangeOfThatFacilityOnly() {
+        User u = new User();
+        u.setEmail("versions@test.com");
+        u.setName("Versions");
+        u.setPassword("pass");
+        entityManager.persistAndFlush(u);
+        Facility f1 = facility("Court 1");
+        Facility f2 = facility("Court 2");
+        LocalDateTime start = LocalDateTime.of(2025, 10, 10, 10, 0);
+
+        rental(u, f1, start, start.plusHours(1), "CONFIRMED");
+        Rental last = rental(u, f1, start.plusDays(1), start.plusDays(1).plusHours(1), "CANCELLED");
+
+        RentalRepository.BookingVersion version = rentalRepository.findBookingVersion(f1.getId());
+        RentalRepository.BookingVersion empty = rentalRepository.findBookingVersion(f2.getId());
+
+        assertThat(version.getRentals()).isEqualTo(2L);
+        // A base de dados guarda o timestamp ao microssegundo
+        assertThat(version.getLastChange()).isCloseTo(last.getUpdatedAt(), within(1, ChronoUnit.MICROS));
+        assertThat(empty.getRentals()).isZero();
+        assertThat(empty.getLastChange()).isNull();
+    }
+
+    private Equipment equipment(Facility f, String name) {
+        Equipment e = new Equipment();
+        e.setName(name);
+        e.setType(name);
+        e.setPricePerHour(2.0);
+        e.setQuantity(5);
+        e.setStatus("AVAILABLE");
+        e.setFacility(f);
+        return entityManager.persistAndFlush(e);
+    }
+
+    private Rental held(User u, Facility f, LocalDateTime start, LocalDateTime holdExpiresAt) {
+        Rental r = new Rental();
+        r.setUser(u);
+        r.setFacility(f);
+        r.setStatus("HELD");
+        r.setPaymentStatus("UNPAID");
+        r.setHoldExpiresAt(holdExpiresAt);
+        r.setStartTime(start);
+        r.setEndTime(start.plusHours(1));
+        return entityManager.persistAndFlush(r);
+    }
+
+    private Rental rental(User u, Facility f, LocalDateTime start, LocalDateTime end, String status) {
+        Rental r = new Rental();
+        r.setUser(u);
+        r.setFacility(f);
+        r.setStatus(status);
+        r.setStartTime(start);
+        r.setEndTime(end);
+        return entityManager.persistAndFlush(r);
+    }
 }
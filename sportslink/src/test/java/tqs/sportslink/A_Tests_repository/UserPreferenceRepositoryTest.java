@@ -0,0 +1,76 @@
+package tqs.sportslink.A_Tests_repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import tqs.sportslink.data.UserPreferenceRepository;
+import tqs.sportslink.data.model.UserPreference;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class UserPreferenceRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserPreferenceRepository preferenceRepository;
+
+    @Test
+    void whenProfileSaved_thenLockedReadReturnsIt() {
+        preferenceRepository.saveAndFlush(preference(7L, "10:2,20:1"));
+        entityManager.clear();
+
+        UserPreference found = preferenceRepository.findForUpdate(7L).orElseThrow();
+
+        assertThat(found.getVisitedFacilities()).isEqualTo("10:2,20:1");
+        assertThat(found.getUpdatedAt()).isNotNull();
+        assertThat(found.isNew()).isFalse();
+    }
+
+    @Test
+    void whenVisitedPaged_thenKeysetOrderAndEmptyProfilesSkipped() {
+        preferenceRepository.saveAndFlush(preference(3L, "10:1"));
+        preferenceRepository.saveAndFlush(preference(1L, "10:1,20:1"));
+        preferenceRepository.saveAndFlush(preference(2L, ""));
+        preferenceRepository.saveAndFlush(preference(5L, "30:2"));
+
+        List<UserPreferenceRepository.VisitedFacilities> first = preferenceRepository.findVisitedPage(0, Limit.of(2));
+        List<UserPreferenceRepository.VisitedFacilities> second = preferenceRepository.findVisitedPage(3, Limit.of(2));
+
+        assertThat(first).extracting(UserPreferenceRepository.VisitedFacilities::getUserId).containsExactly(1L, 3L);
+        assertThat(second).extracting(UserPreferenceRepository.VisitedFacilities::getVisitedFacilities)
+                .containsExactly("30:2");
+    }
+
+    @Test
+    void whenPreferenceChanges_thenWatermarkMoves() {
+        assertThat(preferenceRepository.findWatermark().getPreferences()).isZero();
+        assertThat(preferenceRepository.findWatermark().getLastChange()).isNull();
+        preferenceRepository.saveAndFlush(preference(1L, "10:1"));
+        UserPreference second = preferenceRepository.saveAndFlush(preference(2L, ""));
+
+        UserPreferenceRepository.Watermark before = preferenceRepository.findWatermark();
+        second.setVisitedFacilities("20:1");
+        preferenceRepository.saveAndFlush(second);
+        UserPreferenceRepository.Watermark after = preferenceRepository.findWatermark();
+
+        assertThat(before.getPreferences()).isEqualTo(2);
+        assertThat(after.getPreferences()).isEqualTo(2);
+        assertThat(after.getLastChange()).isAfter(before.getLastChange());
+    }
+
+    private UserPreference preference(Long userId, String visited) {
+        UserPreference preference = new UserPreference();
+        preference.setUserId(userId);
+        preference.setVisitedFacilities(visited);
+        return preference;
+    }
+}
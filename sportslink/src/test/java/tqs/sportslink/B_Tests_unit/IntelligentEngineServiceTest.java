@@ -5,22 +5,35 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import tqs.sportslink.data.EquipmentRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import tqs.sportslink.data.FacilityRepository;
-import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.OwnerFacilityStats;
 import tqs.sportslink.data.UserRepository;
 import tqs.sportslink.data.model.*;
 import tqs.sportslink.dto.EquipmentSuggestionDTO;
 import tqs.sportslink.dto.FacilitySuggestionDTO;
 import tqs.sportslink.dto.OwnerSuggestionDTO;
+import tqs.sportslink.service.EquipmentSportIndex;
+import tqs.sportslink.service.FacilityCatalog;
+import tqs.sportslink.service.FacilityCoOccurrence;
+import tqs.sportslink.service.FacilityDemandCounters;
+import tqs.sportslink.service.FacilityScorer;
+import tqs.sportslink.service.FacilitySuggestionCache;
 import tqs.sportslink.service.IntelligentEngineService;
+import tqs.sportslink.service.RentalChangedEvent;
+import tqs.sportslink.service.UserPreferenceProfile;
+import tqs.sportslink.service.UserPreferenceService;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,19 +42,28 @@ class IntelligentEngineServiceTest {
     @Mock
     private FacilityRepository facilityRepository;
     @Mock
-    private RentalRepository rentalRepository;
-    @Mock
-    private EquipmentRepository equipmentRepository;
+    private EquipmentSportIndex equipmentIndex;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private FacilityCatalog catalog;
+    @Mock
+    private UserPreferenceService preferenceService;
+    @Spy
+    private FacilityScorer scorer = new FacilityScorer();
+    @Mock
+    private FacilityCoOccurrence coOccurrence;
+    @Spy
+    private FacilitySuggestionCache suggestionCache = new FacilitySuggestionCache(new SimpleMeterRegistry(), 100, 60,
+            0.01);
+    @Mock
+    private FacilityDemandCounters demandCounters;
 
     @InjectMocks
     private IntelligentEngineService service;
 
     private User user;
     private Facility facility;
-    private Equipment football;
-    private Equipment basketball;
 
     @BeforeEach
     void setUp() {
@@ -63,19 +85,6 @@ class IntelligentEngineServiceTest {
         facility.setLongitude(-8.01);
         facility.setUpdatedAt(LocalDateTime.now().minusDays(10));
 
-        football = new Equipment();
-        football.setId(100L);
-        football.setName("Pro Football");
-        football.setType("Ball");
-        football.setStatus("AVAILABLE");
-        football.setSports(Collections.singletonList(Sport.FOOTBALL));
-
-        basketball = new Equipment();
-        basketball.setId(101L);
-        basketball.setName("Pro Basketball");
-        basketball.setType("Ball");
-        basketball.setStatus("AVAILABLE");
-        basketball.setSports(Collections.singletonList(Sport.BASKETBALL));
     }
 
     // --- Facility Suggestion Tests ---
@@ -84,7 +93,7 @@ class IntelligentEngineServiceTest {
     void whenUserHasNoRentals_thenSuggestTopRatedFacilities() {
         // Arrange
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(rentalRepository.findByUserId(1L)).thenReturn(Collections.emptyList());
+        when(preferenceService.profileOf(1L)).thenReturn(UserPreferenceProfile.empty());
 
         Facility topRated = new Facility();
         topRated.setId(99L);
@@ -98,7 +107,7 @@ class IntelligentEngineServiceTest {
         averageGym.setStatus("ACTIVE");
         averageGym.setRating(3.0);
 
-        when(facilityRepository.findAll()).thenReturn(List.of(topRated, averageGym));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(topRated, averageGym)));
 
         // Act
         List<FacilitySuggestionDTO> suggestions = service.suggestFacilitiesForUser(1L);
@@ -133,11 +142,9 @@ class IntelligentEngineServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
-        Rental rental = new Rental();
-        rental.setFacility(facility); // facility is in Aveiro
-        when(rentalRepository.findByUserId(1L)).thenReturn(List.of(rental));
+        when(preferenceService.profileOf(1L)).thenReturn(visited(facility)); // Visited ID 10, in Aveiro
 
-        when(facilityRepository.findAll()).thenReturn(List.of(near, far));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(near, far)));
 
         // Act
         List<FacilitySuggestionDTO> suggestions = service.suggestFacilitiesForUser(1L);
@@ -176,11 +183,9 @@ class IntelligentEngineServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
-        Rental rental = new Rental();
-        rental.setFacility(facility); // Aveiro
-        when(rentalRepository.findByUserId(1L)).thenReturn(List.of(rental));
+        when(preferenceService.profileOf(1L)).thenReturn(visited(facility)); // Visited ID 10, in Aveiro
 
-        when(facilityRepository.findAll()).thenReturn(List.of(inCity, outCity));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(inCity, outCity)));
 
         // Act
         List<FacilitySuggestionDTO> suggestions = service.suggestFacilitiesForUser(1L);
@@ -208,11 +213,9 @@ class IntelligentEngineServiceTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
-        Rental rental = new Rental();
-        rental.setFacility(facility);
-        when(rentalRepository.findByUserId(1L)).thenReturn(List.of(rental)); // Visited ID 10
+        when(preferenceService.profileOf(1L)).thenReturn(visited(facility)); // Visited ID 10, in Aveiro
 
-        when(facilityRepository.findAll()).thenReturn(List.of(facility, unvisited));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(facility, unvisited)));
 
         // Act
         List<FacilitySuggestionDTO> suggestions = service.suggestFacilitiesForUser(1L);
@@ -224,6 +227,87 @@ class IntelligentEngineServiceTest {
                 .doesNotContain("City Sports - Visited");
     }
 
+    @Test
+    void whenOthersBookedSameFacilities_thenAlsoBookedFacilityRanksFirst() {
+        Facility popular = new Facility();
+        popular.setId(11L);
+        popular.setName("Popular");
+        popular.setStatus("ACTIVE");
+        popular.setCity("Lisbon");
+        popular.setRating(3.0);
+        popular.setSports(List.of(Sport.SWIMMING));
+
+        Facility better = new Facility();
+        better.setId(12L);
+        better.setName("Better Rated");
+        better.setStatus("ACTIVE");
+        better.setCity("Lisbon");
+        better.setRating(4.0);
+        better.setSports(List.of(Sport.SWIMMING));
+
+        user.setLatitude(null);
+        user.setLongitude(null);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(preferenceService.profileOf(1L)).thenReturn(visited(facility));
+        when(coOccurrence.affinities(Set.of(10L))).thenReturn(Map.of(11L, 0.8));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(facility, popular, better)));
+
+        List<FacilitySuggestionDTO> suggestions = service.suggestFacilitiesForUser(1L);
+
+        assertThat(suggestions).extracting(FacilitySuggestionDTO::getName).containsExactly("Popular", "Better Rated");
+        assertThat(suggestions.get(0).getReason()).contains("people who booked");
+    }
+
+    @Test
+    void whenAskedAgainFromSameCell_thenServedFromCacheUntilUserBooks() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(preferenceService.profileOf(1L)).thenReturn(visited(facility));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(facility)));
+
+        service.suggestFacilitiesForUser(1L, 40.001, -8.001);
+        service.suggestFacilitiesForUser(1L, 40.002, -8.002);
+        verify(preferenceService, times(1)).profileOf(1L);
+
+        suggestionCache.onRentalChanged(new RentalChangedEvent(RentalChangedEvent.Kind.CREATED, 5L, 10L, 1L,
+                null, null, LocalDateTime.now(), LocalDateTime.now().plusHours(1)));
+        service.suggestFacilitiesForUser(1L, 40.001, -8.001);
+
+        verify(preferenceService, times(2)).profileOf(1L);
+    }
+
+    @Test
+    void whenUserHasNoCoordinates_thenLastBookedLocationUsed() {
+        user.setLatitude(null);
+        user.setLongitude(null);
+        Facility nearby = new Facility();
+        nearby.setId(2L);
+        nearby.setName("Nearby");
+        nearby.setStatus("ACTIVE");
+        nearby.setRating(4.0);
+        nearby.setLatitude(40.1);
+        nearby.setLongitude(-8.0);
+        UserPreferenceProfile profile = visited(facility);
+        profile.moveTo(facility.getLatitude(), facility.getLongitude());
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(preferenceService.profileOf(1L)).thenReturn(profile);
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(facility, nearby)));
+
+        List<FacilitySuggestionDTO> suggestions = service.suggestFacilitiesForUser(1L);
+
+        assertThat(suggestions).extracting(FacilitySuggestionDTO::getName).contains("Nearby");
+        assertThat(suggestions).filteredOn(s -> s.getName().equals("Nearby")).singleElement()
+                .satisfies(s -> assertThat(s.getReason()).contains("km away"));
+        // O perfil lido para a localização é reutilizado no cálculo
+        verify(preferenceService, times(1)).profileOf(1L);
+    }
+
+    private UserPreferenceProfile visited(Facility visitedFacility) {
+        UserPreferenceProfile profile = UserPreferenceProfile.empty();
+        profile.record(FacilityCatalog.Entry.from(visitedFacility), 1);
+        profile.refreshFavouriteCity(id -> visitedFacility.getCity());
+        return profile;
+    }
+
     // --- Owner Suggestion Tests ---
 
     @Test
@@ -232,21 +316,12 @@ class IntelligentEngineServiceTest {
         User owner = new User();
         owner.setId(2L);
         owner.getRoles().add(Role.OWNER);
-        owner.setFacilities(List.of(facility));
 
         when(userRepository.findById(2L)).thenReturn(Optional.of(owner));
 
-        // Mock 21 rentals in last 30 days
-        List<Rental> rentals = new ArrayList<>();
-        for (int i = 0; i < 21; i++) {
-            Rental r = new Rental();
-            r.setCreatedAt(LocalDateTime.now().minusDays(1)); // Recent
-            rentals.add(r);
-        }
-        when(rentalRepository.findByFacilityId(facility.getId())).thenReturn(rentals);
-
-        // Mock Low Equipment Stock (< 5)
-        when(equipmentRepository.findByFacilityId(facility.getId())).thenReturn(List.of(football)); // Size 1
+        // 21 rentals in last 30 days, low equipment stock (< 5)
+        when(facilityRepository.findOwnerFacilityStats(2L)).thenReturn(List.of(stats(facility, 1)));
+        when(demandCounters.recentBookings(10L, 30)).thenReturn(21);
 
         // Act
         List<OwnerSuggestionDTO> results = service.suggestImprovementsForOwner(2L);
@@ -256,6 +331,25 @@ class IntelligentEngineServiceTest {
         OwnerSuggestionDTO suggestion = results.get(0);
         assertThat(suggestion.getType()).isEqualTo("ADD_EQUIPMENT");
         assertThat(suggestion.getPriority()).isEqualTo("HIGH");
+        assertThat(suggestion.getFacilityId()).isEqualTo(10L);
+    }
+
+    @Test
+    void suggestImprovementsForOwner_whenHighDemandAndEnoughEquipment_NoSuggestion() {
+        // Arrange
+        User owner = new User();
+        owner.setId(2L);
+        owner.getRoles().add(Role.OWNER);
+
+        when(userRepository.findById(2L)).thenReturn(Optional.of(owner));
+        when(facilityRepository.findOwnerFacilityStats(2L)).thenReturn(List.of(stats(facility, 5)));
+        when(demandCounters.recentBookings(10L, 30)).thenReturn(25);
+
+        // Act
+        List<OwnerSuggestionDTO> results = service.suggestImprovementsForOwner(2L);
+
+        // Assert
+        assertThat(results).isEmpty();
     }
 
     @Test
@@ -265,14 +359,13 @@ class IntelligentEngineServiceTest {
         owner.setId(2L);
         owner.getRoles().add(Role.OWNER);
         facility.setRating(3.5); // Low Rating
-        owner.setFacilities(List.of(facility));
 
         when(userRepository.findById(2L)).thenReturn(Optional.of(owner));
-        when(rentalRepository.findByFacilityId(facility.getId())).thenReturn(Collections.emptyList()); // Low rentals ->
-                                                                                                       // Lower Price
-                                                                                                       // logic
+        // Low rentals -> Lower Price logic
         // But also Low Rating -> Maintenance logic
         // The service adds multiple suggestions if conditions met
+        when(facilityRepository.findOwnerFacilityStats(2L)).thenReturn(List.of(stats(facility, 0)));
+        when(demandCounters.recentBookings(10L, 30)).thenReturn(0);
 
         // Act
         List<OwnerSuggestionDTO> results = service.suggestImprovementsForOwner(2L);
@@ -293,10 +386,10 @@ class IntelligentEngineServiceTest {
 
         facility.setUpdatedAt(LocalDateTime.now().minusDays(100)); // Outdated > 90 days
         facility.setRating(4.5); // Good rating, but old
-        owner.setFacilities(List.of(facility));
 
         when(userRepository.findById(2L)).thenReturn(Optional.of(owner));
-        when(rentalRepository.findByFacilityId(facility.getId())).thenReturn(Collections.emptyList());
+        when(facilityRepository.findOwnerFacilityStats(2L)).thenReturn(List.of(stats(facility, 0)));
+        when(demandCounters.recentBookings(10L, 30)).thenReturn(0);
 
         // Act
         List<OwnerSuggestionDTO> results = service.suggestImprovementsForOwner(2L);
@@ -306,6 +399,25 @@ class IntelligentEngineServiceTest {
                 .contains("MAINTENANCE");
     }
 
+    @Test
+    void suggestImprovementsForOwner_whenCalled_RecentBookingsReadFromCountersOverLast30Days() {
+        // Arrange
+        User owner = new User();
+        owner.setId(2L);
+        owner.getRoles().add(Role.OWNER);
+
+        when(userRepository.findById(2L)).thenReturn(Optional.of(owner));
+        when(facilityRepository.findOwnerFacilityStats(2L)).thenReturn(List.of(stats(facility, 0)));
+        when(demandCounters.recentBookings(10L, 30)).thenReturn(10);
+
+        // Act
+        List<OwnerSuggestionDTO> results = service.suggestImprovementsForOwner(2L);
+
+        // Assert: entre 5 e 20 reservas não há sugestão de procura
+        assertThat(results).extracting(OwnerSuggestionDTO::getType).doesNotContain("LOWER_PRICE", "ADD_EQUIPMENT");
+        verify(demandCounters).recentBookings(10L, 30);
+    }
+
     @Test
     void suggestImprovementsForOwner_whenUserNotOwner_ThrowException() {
         // Arrange
@@ -326,7 +438,8 @@ class IntelligentEngineServiceTest {
     @Test
     void suggestEquipmentForSport_whenValidSport_ReturnsMatches() {
         // Arrange
-        when(equipmentRepository.findByFacilityId(10L)).thenReturn(Arrays.asList(football, basketball));
+        when(equipmentIndex.available(10L, Sport.FOOTBALL))
+                .thenReturn(List.of(new EquipmentSportIndex.Item(100, "Pro Football", "Ball", 5.0, 3)));
 
         // Act
         List<EquipmentSuggestionDTO> result = service.suggestEquipmentForSport(10L, "FOOTBALL");
@@ -334,6 +447,7 @@ class IntelligentEngineServiceTest {
         // Assert
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getName()).isEqualTo("Pro Football");
+        assertThat(result.get(0).getEquipmentId()).isEqualTo(100L);
     }
 
     @Test
@@ -344,4 +458,9 @@ class IntelligentEngineServiceTest {
         // Assert
         assertThat(result).isEmpty();
     }
+
+    private static OwnerFacilityStats stats(Facility facility, long equipmentCount) {
+        return new OwnerFacilityStats(facility.getId(), facility.getName(), facility.getPricePerHour(),
+                facility.getRating(), facility.getUpdatedAt(), equipmentCount);
+    }
 }
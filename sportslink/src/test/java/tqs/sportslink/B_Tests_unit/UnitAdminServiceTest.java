@@ -5,14 +5,26 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import tqs.sportslink.data.AdminListingRepository;
+import tqs.sportslink.data.AdminListingRepository.RentalFilter;
+import tqs.sportslink.data.AdminListingRepository.UserFilter;
+import tqs.sportslink.data.AdminListingRepository.UserRow;
+import tqs.sportslink.data.EquipmentReservationRepository;
 import tqs.sportslink.data.FacilityRepository;
 import tqs.sportslink.data.RentalRepository;
 import tqs.sportslink.data.UserRepository;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.dto.AdminPageDTO;
+import tqs.sportslink.service.AdminListingCursor;
 import tqs.sportslink.service.AdminService;
+import tqs.sportslink.service.RentalStats;
+import tqs.sportslink.service.RentalStatusChangedEvent;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -20,6 +32,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 
@@ -35,6 +48,21 @@ class UnitAdminServiceTest {
     @Mock
     private RentalRepository rentalRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EquipmentReservationRepository equipmentReservationRepository;
+
+    @Mock
+    private RentalStats rentalStats;
+
+    @Mock
+    private AdminListingRepository listingRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private AdminService adminService;
 
@@ -110,38 +138,60 @@ class UnitAdminServiceTest {
     }
 
     @Test
-    @Requirement("SL-343")
-    void testGetRentalsBySport() {
-        Facility f1 = new Facility();
-        f1.setSports(List.of(tqs.sportslink.data.model.Sport.FOOTBALL));
-        Rental r1 = new Rental();
-        r1.setFacility(f1);
+    void whenUsersPageHasMoreRows_thenTrimmedWithCursorOnLastId() {
+        UserFilter filter = new UserFilter(null, true);
+        when(listingRepository.findUsers(filter, 0L, 3)).thenReturn(List.of(userRow(4L), userRow(7L), userRow(9L)));
+
+        AdminPageDTO<UserRow> page = adminService.getUsersPage(filter, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(7L, AdminListingCursor.decode(page.getNextCursor()).id());
+    }
+
+    @Test
+    void whenUsersPageAfterCursorIsLast_thenNoNextCursor() {
+        UserFilter filter = new UserFilter(null, null);
+        String cursor = new AdminListingCursor(7L).encode();
+        when(listingRepository.findUsers(filter, 7L, 3)).thenReturn(List.of(userRow(9L)));
 
-        Facility f2 = new Facility();
-        f2.setSports(List.of(tqs.sportslink.data.model.Sport.TENNIS));
-        Rental r2 = new Rental();
-        r2.setFacility(f2);
+        AdminPageDTO<UserRow> page = adminService.getUsersPage(filter, cursor, 2);
+
+        assertEquals(1, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void whenPageLimitOutOfRangeOrRangeInverted_thenRejected() {
+        UserFilter filter = new UserFilter(null, null);
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThrows(IllegalArgumentException.class, () -> adminService.getUsersPage(filter, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> adminService.getUsersPage(filter, null, 101));
+        assertThrows(IllegalArgumentException.class, () -> adminService.getUsersPage(filter, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> new RentalFilter(null, null, null, now, now));
+        verifyNoInteractions(listingRepository);
+    }
 
-        when(rentalRepository.findAll()).thenReturn(Arrays.asList(r1, r2));
+    @Test
+    @Requirement("SL-343")
+    void testGetRentalsBySport() {
+        when(rentalStats.rentalsBySport()).thenReturn(Map.of("FOOTBALL", 1L, "TENNIS", 1L));
 
         Map<String, Long> result = adminService.getRentalsBySport();
         assertEquals(1, result.get("FOOTBALL"));
         assertEquals(1, result.get("TENNIS"));
+        verify(rentalRepository, never()).findAll();
     }
 
     @Test
     @Requirement("SL-343")
     void testGetRentalsByStatus() {
-        Rental r1 = new Rental();
-        r1.setStatus("CONFIRMED");
-        Rental r2 = new Rental();
-        r2.setStatus("PENDING");
-
-        when(rentalRepository.findAll()).thenReturn(Arrays.asList(r1, r2));
+        when(rentalStats.rentalsByStatus()).thenReturn(Map.of("CONFIRMED", 1L, "PENDING", 1L));
 
         Map<String, Long> result = adminService.getRentalsByStatus();
         assertEquals(1, result.get("CONFIRMED"));
         assertEquals(1, result.get("PENDING"));
+        verify(rentalRepository, never()).findAll();
     }
 
     @Test
@@ -174,11 +224,42 @@ class UnitAdminServiceTest {
         rental.setStatus("CONFIRMED");
 
         when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
-        when(rentalRepository.save(any(Rental.class))).thenAnswer(i -> i.getArguments()[0]);
+        when(rentalRepository.cancelIfStatus(eq(1L), eq("CONFIRMED"), any(LocalDateTime.class))).thenReturn(1);
 
         Rental result = adminService.cancelRental(1L);
         assertEquals("CANCELLED", result.getStatus());
-        verify(rentalRepository).save(rental);
+        verify(rentalRepository, never()).save(any(Rental.class));
+        verify(equipmentReservationRepository).deleteByRentalId(1L);
+        verify(eventPublisher).publishEvent(RentalStatusChangedEvent.transition("CONFIRMED", "CANCELLED", 1));
+    }
+
+    @Test
+    void whenCancelRentalEquipmentReleaseFails_thenRolledBackAndNoEvents() {
+        Rental rental = new Rental();
+        rental.setId(1L);
+        rental.setStatus("CONFIRMED");
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        when(rentalRepository.cancelIfStatus(eq(1L), eq("CONFIRMED"), any(LocalDateTime.class))).thenReturn(1);
+        doThrow(new IllegalStateException("db down")).when(equipmentReservationRepository).deleteByRentalId(1L);
+
+        assertThrows(IllegalStateException.class, () -> adminService.cancelRental(1L));
+
+        verify(transactionManager).rollback(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenCancelHoldConvertedMeanwhile_thenNotOverwrittenAndNoEvents() {
+        Rental rental = new Rental();
+        rental.setId(1L);
+        rental.setStatus("HELD");
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(rental));
+        when(rentalRepository.cancelIfStatus(eq(1L), eq("HELD"), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> adminService.cancelRental(1L));
+
+        verify(equipmentReservationRepository, never()).deleteByRentalId(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -214,4 +295,8 @@ class UnitAdminServiceTest {
     private Rental rental() {
         return new Rental();
     }
+
+    private static UserRow userRow(Long id) {
+        return new UserRow(id, "u" + id + "@test.com", "User " + id, null, true, null, List.of("RENTER"));
+    }
 }
\ No newline at end of file
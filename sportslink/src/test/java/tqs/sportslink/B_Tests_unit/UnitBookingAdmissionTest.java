@@ -0,0 +1,106 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tqs.sportslink.service.BookingAdmission;
+
+@ExtendWith(MockitoExtension.class)
+class UnitBookingAdmissionTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private BookingAdmission admission;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        admission = new BookingAdmission(transactionManager, jdbcTemplate, 64, 100);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void whenSameFacilityIsBusy_thenSecondAdmissionTimesOut() throws Exception {
+        holdLock(1L);
+
+        assertThatThrownBy(() -> admission.admit(1L, () -> "second"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("busy");
+    }
+
+    @Test
+    void whenOtherFacilityIsBusy_thenAdmissionDoesNotWait() throws Exception {
+        holdLock(1L);
+
+        assertThat(admission.admit(2L, () -> "other")).isEqualTo("other");
+    }
+
+    @Test
+    void whenDatabaseIsPostgres_thenAdvisoryLockIsTakenInTheTransaction() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(Boolean.TRUE);
+
+        admission.admit(7L, () -> "ok");
+
+        verify(jdbcTemplate).query(eq("SELECT pg_advisory_xact_lock(?, ?)"), any(ResultSetExtractor.class), any(),
+                eq(7));
+    }
+
+    @Test
+    void whenDatabaseIsNotPostgres_thenNoAdvisoryLock() {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(Boolean.FALSE);
+
+        admission.admit(7L, () -> "ok");
+
+        verify(jdbcTemplate, never()).query(anyString(), any(ResultSetExtractor.class), any(), any());
+    }
+
+    @Test
+    void whenInvalidStripeCount_thenRejected() {
+        assertThatThrownBy(() -> new BookingAdmission(transactionManager, jdbcTemplate, 10, 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Outra thread fica dentro de admit() para a facility até ao fim do teste
+    private void holdLock(Long facilityId) throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CompletableFuture.runAsync(() -> admission.admit(facilityId, () -> {
+            inside.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,93 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.sportslink.data.EquipmentRepository;
+import tqs.sportslink.data.model.Equipment;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.service.EquipmentChangedEvent;
+import tqs.sportslink.service.EquipmentSportIndex;
+
+@ExtendWith(MockitoExtension.class)
+class UnitEquipmentSportIndexTest {
+
+    @Mock
+    private EquipmentRepository equipmentRepository;
+
+    private EquipmentSportIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EquipmentSportIndex(equipmentRepository);
+    }
+
+    @Test
+    void whenRebuilt_thenEquipmentListedPerFacilityAndSportById() {
+        when(equipmentRepository.findAvailableWithSports()).thenReturn(List.of(
+                equipment(12L, 1L, "Vest", Sport.FOOTBALL),
+                equipment(11L, 1L, "Ball", Sport.FOOTBALL, Sport.BASKETBALL),
+                equipment(20L, 2L, "Racket", Sport.PADEL)));
+
+        index.rebuild();
+
+        assertThat(index.available(1L, Sport.FOOTBALL)).extracting(EquipmentSportIndex.Item::id)
+                .containsExactly(11, 12);
+        assertThat(index.available(1L, Sport.BASKETBALL)).extracting(EquipmentSportIndex.Item::name)
+                .containsExactly("Ball");
+        assertThat(index.available(1L, Sport.PADEL)).isEmpty();
+        assertThat(index.available(3L, Sport.FOOTBALL)).isEmpty();
+    }
+
+    @Test
+    void whenEquipmentChanged_thenOnlyThatFacilityReloaded() {
+        when(equipmentRepository.findAvailableWithSports()).thenReturn(List.of(
+                equipment(11L, 1L, "Ball", Sport.FOOTBALL),
+                equipment(20L, 2L, "Racket", Sport.PADEL)));
+        index.rebuild();
+        // A bola passou a MAINTENANCE: a query só devolve o novo colete
+        when(equipmentRepository.findAvailableWithSportsByFacilityId(1L)).thenReturn(List.of(
+                equipment(13L, 1L, "New Vest", Sport.FOOTBALL)));
+
+        index.onEquipmentChanged(new EquipmentChangedEvent(1L));
+
+        assertThat(index.available(1L, Sport.FOOTBALL)).extracting(EquipmentSportIndex.Item::name)
+                .containsExactly("New Vest");
+        assertThat(index.available(2L, Sport.PADEL)).hasSize(1);
+    }
+
+    @Test
+    void whenFacilityHasNoAvailableEquipmentLeft_thenEmpty() {
+        when(equipmentRepository.findAvailableWithSports()).thenReturn(List.of(
+                equipment(11L, 1L, "Ball", Sport.FOOTBALL)));
+        index.rebuild();
+        when(equipmentRepository.findAvailableWithSportsByFacilityId(1L)).thenReturn(List.of());
+
+        index.refresh(1L);
+
+        assertThat(index.available(1L, Sport.FOOTBALL)).isEmpty();
+    }
+
+    private static Equipment equipment(Long id, Long facilityId, String name, Sport... sports) {
+        Facility facility = new Facility();
+        facility.setId(facilityId);
+        Equipment equipment = new Equipment();
+        equipment.setId(id);
+        equipment.setName(name);
+        equipment.setType(name);
+        equipment.setStatus("AVAILABLE");
+        equipment.setQuantity(2);
+        equipment.setFacility(facility);
+        equipment.setSports(new ArrayList<>(List.of(sports)));
+        return equipment;
+    }
+}
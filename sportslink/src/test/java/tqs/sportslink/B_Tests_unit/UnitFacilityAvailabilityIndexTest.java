@@ -0,0 +1,140 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookedSlot;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.service.FacilityAvailabilityIndex;
+import tqs.sportslink.service.RentalChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class UnitFacilityAvailabilityIndexTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    private FacilityAvailabilityIndex index;
+
+    private LocalDateTime tomorrow;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacilityAvailabilityIndex(rentalRepository);
+        tomorrow = LocalDate.now().plusDays(1).atStartOfDay();
+    }
+
+    @Test
+    void whenRebuilt_thenBookedSlotsAreUnavailable() {
+        // 19:00-21:00 reservado
+        when(rentalRepository.findBookedSlotsBetween(any(), any()))
+                .thenReturn(List.of(slot(1L, tomorrow.withHour(19), tomorrow.withHour(21))));
+
+        index.rebuild();
+
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(19), tomorrow.withHour(21), 60)).isFalse();
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(19), tomorrow.withHour(22), 60)).isTrue();
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(18), tomorrow.withHour(19), 60)).isTrue();
+    }
+
+    @Test
+    void whenFacilityHasNoRentals_thenAnyWindowIsFree() {
+        when(rentalRepository.findBookedSlotsBetween(any(), any())).thenReturn(List.of());
+
+        index.rebuild();
+
+        assertThat(index.hasFreeSlot(7L, tomorrow.withHour(10), tomorrow.withHour(11), 60)).isTrue();
+        assertThat(index.hasFreeSlot(7L, tomorrow.withHour(10), tomorrow.withHour(10).withMinute(30), 60))
+                .isFalse();
+    }
+
+    @Test
+    void whenRentalPartiallyCoversSlot_thenWholeSlotIsBooked() {
+        index.markBooked(1L, tomorrow.withHour(10).withMinute(15), tomorrow.withHour(11));
+
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(10), tomorrow.withHour(11), 60)).isFalse();
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(11), tomorrow.withHour(12), 60)).isTrue();
+    }
+
+    @Test
+    void whenRentalCrossesMidnight_thenBothDaysAreMarked() {
+        index.markBooked(1L, tomorrow.withHour(23), tomorrow.plusDays(1).withHour(1));
+
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(23), tomorrow.plusDays(1), 60)).isFalse();
+        assertThat(index.hasFreeSlot(1L, tomorrow.plusDays(1), tomorrow.plusDays(1).withHour(1), 60)).isFalse();
+        assertThat(index.hasFreeSlot(1L, tomorrow.plusDays(1).withHour(1), tomorrow.plusDays(1).withHour(2), 60))
+                .isTrue();
+    }
+
+    @Test
+    void whenRentalCreatedEvent_thenSlotBecomesBooked() {
+        Rental rental = rental(1L, tomorrow.withHour(9), tomorrow.withHour(10));
+
+        index.onRentalChanged(RentalChangedEvent.created(rental));
+
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(9), tomorrow.withHour(10), 60)).isFalse();
+    }
+
+    @Test
+    void whenRentalCancelledEvent_thenFacilityIsReloaded() {
+        Rental rental = rental(1L, tomorrow.withHour(9), tomorrow.withHour(10));
+        index.markBooked(1L, rental.getStartTime(), rental.getEndTime());
+        when(rentalRepository.findBookedSlotsByFacilityIdBetween(eq(1L), any(), any())).thenReturn(List.of());
+
+        index.onRentalChanged(RentalChangedEvent.cancelled(rental));
+
+        verify(rentalRepository).findBookedSlotsByFacilityIdBetween(eq(1L), any(), any());
+        assertThat(index.hasFreeSlot(1L, tomorrow.withHour(9), tomorrow.withHour(10), 60)).isTrue();
+    }
+
+    @Test
+    void whenWindowOutsideHorizon_thenNotCovered() {
+        assertThat(index.covers(tomorrow, tomorrow.plusHours(3))).isTrue();
+        assertThat(index.covers(tomorrow.minusDays(2), tomorrow.minusDays(2).plusHours(3))).isFalse();
+        assertThat(index.covers(tomorrow.plusDays(60), tomorrow.plusDays(60).plusHours(3))).isFalse();
+    }
+
+    private static Rental rental(Long facilityId, LocalDateTime start, LocalDateTime end) {
+        Facility facility = new Facility();
+        facility.setId(facilityId);
+        Rental rental = new Rental();
+        rental.setId(10L);
+        rental.setFacility(facility);
+        rental.setStartTime(start);
+        rental.setEndTime(end);
+        return rental;
+    }
+
+    private static BookedSlot slot(Long facilityId, LocalDateTime start, LocalDateTime end) {
+        return new BookedSlot() {
+            @Override
+            public Long getFacilityId() {
+                return facilityId;
+            }
+
+            @Override
+            public LocalDateTime getStartTime() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndTime() {
+                return end;
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookingVersion;
+import tqs.sportslink.service.FacilityBookingVersions;
+
+@ExtendWith(MockitoExtension.class)
+class UnitFacilityBookingVersionsTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Test
+    void whenRentalChanges_thenVersionChangesOnEveryNode() {
+        LocalDateTime changed = LocalDateTime.of(2030, 1, 15, 19, 0, 0, 123_456_000);
+        BookingVersion before = version(2, changed);
+        BookingVersion updated = version(2, changed.plusNanos(1_000));
+        BookingVersion created = version(3, changed);
+        when(rentalRepository.findBookingVersion(1L)).thenReturn(before, before, updated, created);
+        // Outro nó, mesma base de dados
+        FacilityBookingVersions node = new FacilityBookingVersions(rentalRepository);
+        FacilityBookingVersions otherNode = new FacilityBookingVersions(rentalRepository);
+
+        String first = node.version(1L);
+
+        assertThat(otherNode.version(1L)).isEqualTo(first);
+        assertThat(node.version(1L)).isNotEqualTo(first);
+        assertThat(node.version(1L)).isNotEqualTo(first);
+    }
+
+    @Test
+    void whenFacilityHasNoRentals_thenStableVersion() {
+        BookingVersion empty = version(0, null);
+        when(rentalRepository.findBookingVersion(2L)).thenReturn(empty);
+
+        assertThat(new FacilityBookingVersions(rentalRepository).version(2L)).isEqualTo("0.0");
+    }
+
+    private static BookingVersion version(long rentals, LocalDateTime lastChange) {
+        BookingVersion version = mock(BookingVersion.class);
+        when(version.getRentals()).thenReturn(rentals);
+        when(version.getLastChange()).thenReturn(lastChange);
+        return version;
+    }
+}
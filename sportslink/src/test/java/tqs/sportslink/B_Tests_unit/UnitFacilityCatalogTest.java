@@ -0,0 +1,108 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.service.FacilityCatalog;
+import tqs.sportslink.service.FacilityChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class UnitFacilityCatalogTest {
+
+    @Mock
+    private FacilityRepository facilityRepository;
+
+    private FacilityCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new FacilityCatalog(facilityRepository);
+    }
+
+    @Test
+    void whenRebuild_thenSnapshotHoldsActiveFacilitiesSortedById() {
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(
+                facility(2L, "B", "ACTIVE"), facility(1L, "A", "ACTIVE"), facility(3L, "C", "CLOSED")));
+
+        catalog.rebuild();
+
+        FacilityCatalog.Snapshot snapshot = catalog.snapshot();
+        assertThat(snapshot.version()).isEqualTo(1);
+        assertThat(snapshot.facilities()).extracting(FacilityCatalog.Entry::id).containsExactly(1L, 2L);
+        assertThat(snapshot.find(1L)).map(FacilityCatalog.Entry::name).contains("A");
+        assertThat(snapshot.find(3L)).isEmpty();
+    }
+
+    @Test
+    void whenFacilityChanged_thenNewSnapshotAndOldOneUntouched() {
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(facility(1L, "A", "ACTIVE")));
+        catalog.rebuild();
+        FacilityCatalog.Snapshot before = catalog.snapshot();
+
+        when(facilityRepository.findWithSportsById(1L)).thenReturn(Optional.of(facility(1L, "A renamed", "ACTIVE")));
+        catalog.onFacilityChanged(new FacilityChangedEvent(1L));
+
+        FacilityCatalog.Snapshot after = catalog.snapshot();
+        assertThat(after.version()).isEqualTo(before.version() + 1);
+        assertThat(after.find(1L)).map(FacilityCatalog.Entry::name).contains("A renamed");
+        assertThat(before.find(1L)).map(FacilityCatalog.Entry::name).contains("A");
+    }
+
+    @Test
+    void whenFacilityCreated_thenAddedInIdOrder() {
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(
+                facility(1L, "A", "ACTIVE"), facility(3L, "C", "ACTIVE")));
+        catalog.rebuild();
+
+        when(facilityRepository.findWithSportsById(2L)).thenReturn(Optional.of(facility(2L, "B", "ACTIVE")));
+        catalog.onFacilityChanged(new FacilityChangedEvent(2L));
+
+        assertThat(catalog.snapshot().facilities()).extracting(FacilityCatalog.Entry::id).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void whenFacilityDeleted_thenRemovedFromSnapshot() {
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(
+                facility(1L, "A", "ACTIVE"), facility(2L, "B", "ACTIVE")));
+        catalog.rebuild();
+
+        when(facilityRepository.findWithSportsById(1L)).thenReturn(Optional.of(facility(1L, "A", "DELETED")));
+        catalog.onFacilityChanged(new FacilityChangedEvent(1L));
+
+        assertThat(catalog.snapshot().facilities()).extracting(FacilityCatalog.Entry::id).containsExactly(2L);
+        assertThat(catalog.snapshot().find(1L)).isEmpty();
+    }
+
+    @Test
+    void whenEntryCreated_thenSportsAreCopied() {
+        Facility source = facility(1L, "A", "ACTIVE");
+        FacilityCatalog.Entry entry = FacilityCatalog.Entry.from(source);
+
+        source.getSports().add(Sport.TENNIS);
+
+        assertThat(entry.sports()).containsExactly(Sport.PADEL);
+        assertThat(entry.offers(Sport.PADEL)).isTrue();
+        assertThat(entry.offers(Sport.TENNIS)).isFalse();
+    }
+
+    private static Facility facility(Long id, String name, String status) {
+        Facility facility = new Facility();
+        facility.setId(id);
+        facility.setName(name);
+        facility.setStatus(status);
+        facility.setSports(new ArrayList<>(List.of(Sport.PADEL)));
+        return facility;
+    }
+}
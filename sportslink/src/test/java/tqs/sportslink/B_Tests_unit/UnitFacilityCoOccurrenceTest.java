@@ -0,0 +1,170 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import tqs.sportslink.data.UserPreferenceRepository;
+import tqs.sportslink.service.FacilityCoOccurrence;
+import tqs.sportslink.service.FacilityVisitsChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class UnitFacilityCoOccurrenceTest {
+
+    @Mock
+    private UserPreferenceRepository preferenceRepository;
+
+    @TempDir
+    Path dir;
+
+    private FacilityCoOccurrence coOccurrence;
+
+    @BeforeEach
+    void setUp() {
+        coOccurrence = new FacilityCoOccurrence(preferenceRepository, "");
+    }
+
+    @Test
+    void whenUserVisitsFacilities_thenEveryPairCounted() {
+        visits(1L, Set.of(), Set.of(10L, 20L));
+        visits(2L, Set.of(), Set.of(10L, 20L, 30L));
+
+        assertThat(coOccurrence.count(10L, 20L)).isEqualTo(2);
+        assertThat(coOccurrence.count(20L, 10L)).isEqualTo(2);
+        assertThat(coOccurrence.count(10L, 30L)).isEqualTo(1);
+        assertThat(coOccurrence.count(10L, 10L)).isEqualTo(2);
+        assertThat(coOccurrence.count(30L, 30L)).isEqualTo(1);
+    }
+
+    @Test
+    void whenFacilityNoLongerVisited_thenOnlyItsPairsRemoved() {
+        visits(1L, Set.of(), Set.of(10L, 20L, 30L));
+
+        visits(1L, Set.of(10L, 20L, 30L), Set.of(10L, 20L, 40L));
+
+        assertThat(coOccurrence.count(10L, 30L)).isZero();
+        assertThat(coOccurrence.count(30L, 30L)).isZero();
+        assertThat(coOccurrence.count(10L, 20L)).isEqualTo(1);
+        assertThat(coOccurrence.count(40L, 10L)).isEqualTo(1);
+    }
+
+    @Test
+    void whenAffinitiesAsked_thenCosineOfUserSetsWithoutVisitedOrRarePairs() {
+        // 10 e 20: 3 users em comum; 10 e 30: só 1 (abaixo do suporte mínimo)
+        visits(1L, Set.of(), Set.of(10L, 20L));
+        visits(2L, Set.of(), Set.of(10L, 20L));
+        visits(3L, Set.of(), Set.of(10L, 20L, 30L));
+        visits(4L, Set.of(), Set.of(20L));
+
+        Map<Long, Double> affinities = coOccurrence.affinities(Set.of(10L));
+
+        assertThat(affinities).containsOnlyKeys(20L);
+        assertThat(affinities.get(20L)).isCloseTo(3 / Math.sqrt(3.0 * 4), within(1e-9));
+        assertThat(coOccurrence.affinities(Set.of(10L, 20L))).isEmpty();
+    }
+
+    @Test
+    void whenRestartedFromSnapshot_thenSameMatrixWithoutRebuild() {
+        Path snapshot = dir.resolve("cooccurrence.bin");
+        FacilityCoOccurrence writer = new FacilityCoOccurrence(preferenceRepository, snapshot.toString());
+        writer.onVisitsChanged(new FacilityVisitsChangedEvent(1L, Set.of(), Set.of(10L, 20L)));
+        writer.onVisitsChanged(new FacilityVisitsChangedEvent(2L, Set.of(), Set.of(10L, 20L, 30L)));
+        UserPreferenceRepository.Watermark unchanged = watermark(2, LocalDateTime.of(2030, 1, 15, 19, 0));
+        when(preferenceRepository.findWatermark()).thenReturn(unchanged);
+        writer.snapshot();
+
+        FacilityCoOccurrence restarted = new FacilityCoOccurrence(preferenceRepository, snapshot.toString());
+        restarted.load();
+
+        assertThat(Files.exists(snapshot)).isTrue();
+        assertThat(restarted.count(10L, 20L)).isEqualTo(2);
+        assertThat(restarted.count(30L, 20L)).isEqualTo(1);
+        verify(preferenceRepository, never()).findVisitedPage(anyLong(), any(Limit.class));
+    }
+
+    @Test
+    void whenSnapshotMissingOrOutdated_thenBuiltFromPreferences() throws Exception {
+        Path snapshot = dir.resolve("cooccurrence.bin");
+        Files.write(snapshot, new byte[] { 1, 2, 3 });
+        UserPreferenceRepository.VisitedFacilities first = visited(1L, "10:2,20:1");
+        UserPreferenceRepository.VisitedFacilities second = visited(2L, "20:1,30:4");
+        when(preferenceRepository.findVisitedPage(eq(0L), any(Limit.class))).thenReturn(List.of(first, second));
+
+        FacilityCoOccurrence restarted = new FacilityCoOccurrence(preferenceRepository, snapshot.toString());
+        restarted.load();
+
+        assertThat(restarted.count(10L, 20L)).isEqualTo(1);
+        assertThat(restarted.count(20L, 20L)).isEqualTo(2);
+        assertThat(restarted.count(10L, 30L)).isZero();
+    }
+
+    @Test
+    void whenPreferenceChangedAfterSnapshot_thenRebuiltInsteadOfLoaded() {
+        // O user 1 já tinha visitas: o número de visitantes não muda, a última alteração sim
+        Path snapshot = dir.resolve("cooccurrence.bin");
+        FacilityCoOccurrence writer = new FacilityCoOccurrence(preferenceRepository, snapshot.toString());
+        writer.onVisitsChanged(new FacilityVisitsChangedEvent(1L, Set.of(), Set.of(10L)));
+        LocalDateTime written = LocalDateTime.of(2030, 1, 15, 19, 0);
+        UserPreferenceRepository.Watermark atSnapshot = watermark(1, written);
+        UserPreferenceRepository.Watermark atStartup = watermark(1, written.plusMinutes(5));
+        UserPreferenceRepository.VisitedFacilities row = visited(1L, "10:1,20:1");
+        when(preferenceRepository.findWatermark()).thenReturn(atSnapshot, atStartup);
+        when(preferenceRepository.findVisitedPage(eq(0L), any(Limit.class))).thenReturn(List.of(row));
+        writer.snapshot();
+
+        FacilityCoOccurrence restarted = new FacilityCoOccurrence(preferenceRepository, snapshot.toString());
+        restarted.load();
+
+        assertThat(restarted.count(10L, 20L)).isEqualTo(1);
+    }
+
+    @Test
+    void whenReconciled_thenBookingsFromOtherNodesPickedUp() {
+        visits(1L, Set.of(), Set.of(10L, 20L));
+        UserPreferenceRepository.VisitedFacilities first = visited(1L, "10:1,20:1");
+        UserPreferenceRepository.VisitedFacilities second = visited(2L, "10:1,20:3");
+        when(preferenceRepository.findVisitedPage(eq(0L), any(Limit.class))).thenReturn(List.of(first, second));
+
+        coOccurrence.reconcile();
+
+        assertThat(coOccurrence.count(10L, 20L)).isEqualTo(2);
+    }
+
+    private void visits(Long userId, Set<Long> before, Set<Long> after) {
+        coOccurrence.onVisitsChanged(new FacilityVisitsChangedEvent(userId, before, after));
+    }
+
+    private static UserPreferenceRepository.Watermark watermark(long preferences, LocalDateTime lastChange) {
+        UserPreferenceRepository.Watermark watermark = mock(UserPreferenceRepository.Watermark.class);
+        when(watermark.getPreferences()).thenReturn(preferences);
+        when(watermark.getLastChange()).thenReturn(lastChange);
+        return watermark;
+    }
+
+    private UserPreferenceRepository.VisitedFacilities visited(Long userId, String facilities) {
+        UserPreferenceRepository.VisitedFacilities row = mock(UserPreferenceRepository.VisitedFacilities.class);
+        when(row.getUserId()).thenReturn(userId);
+        when(row.getVisitedFacilities()).thenReturn(facilities);
+        return row;
+    }
+}
@@ -0,0 +1,160 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookedSlot;
+import tqs.sportslink.service.FacilityDemandCounters;
+import tqs.sportslink.service.RentalChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class UnitFacilityDemandCountersTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    private FacilityDemandCounters counters;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        counters = new FacilityDemandCounters(rentalRepository);
+        today = LocalDate.now();
+    }
+
+    @Test
+    void whenRebuilt_thenBookingsCountedByStartHourDayAndWeek() {
+        LocalDateTime lastWeek = today.minusDays(7).atTime(18, 0);
+        when(rentalRepository.findBookedSlotsBetween(any(), any())).thenReturn(List.of(
+                slot(1L, lastWeek, lastWeek.plusHours(1)),
+                slot(1L, lastWeek.plusMinutes(30), lastWeek.plusHours(2)),
+                slot(1L, today.atTime(9, 0), today.atTime(10, 0)),
+                slot(1L, today.minusDays(31).atTime(9, 0), today.minusDays(31).atTime(10, 0)),
+                slot(2L, today.atTime(9, 0), today.atTime(10, 0))));
+
+        counters.rebuild();
+
+        assertThat(counters.recentBookings(1L, 30)).isEqualTo(3);
+        int[][] heatmap = counters.hourOfWeek(1L, 2);
+        assertThat(heatmap[lastWeek.getDayOfWeek().getValue() - 1][18]).isEqualTo(2);
+        assertThat(heatmap[today.getDayOfWeek().getValue() - 1][9]).isEqualTo(1);
+        assertThat(counters.daily(1L, today.minusDays(7), 8)).containsExactly(2, 0, 0, 0, 0, 0, 0, 1);
+        assertThat(counters.weekly(1L, 2)).containsExactly(2, 1);
+        assertThat(counters.recentBookings(3L, 30)).isZero();
+    }
+
+    @Test
+    void whenRebuildQueryRuns_thenEventsAreNotBlocked() throws Exception {
+        LocalDateTime start = today.atTime(9, 0);
+        when(rentalRepository.findBookedSlotsBetween(any(), any())).thenAnswer(i -> {
+            // Um evento de outra thread durante a query não espera pelo rebuild
+            CompletableFuture.runAsync(() -> counters.add(2L, start, 1)).get(5, TimeUnit.SECONDS);
+            return List.of(slot(1L, start, start.plusHours(1)));
+        });
+
+        counters.rebuild();
+
+        assertThat(counters.recentBookings(1L, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void whenRentalEvents_thenCountersFollowCreateRescheduleAndCancel() {
+        LocalDateTime start = today.minusDays(1).atTime(10, 0);
+        LocalDateTime moved = today.minusDays(1).atTime(15, 0);
+        int row = start.getDayOfWeek().getValue() - 1;
+
+        counters.onRentalChanged(event(RentalChangedEvent.Kind.CREATED, null, start));
+        counters.onRentalChanged(event(RentalChangedEvent.Kind.UPDATED, start, moved));
+
+        assertThat(counters.hourOfWeek(1L, 1)[row][10]).isZero();
+        assertThat(counters.hourOfWeek(1L, 1)[row][15]).isEqualTo(1);
+        assertThat(counters.daily(1L, today.minusDays(1), 1)).containsExactly(1);
+
+        counters.onRentalChanged(event(RentalChangedEvent.Kind.CANCELLED, null, moved));
+        // Cancelamento repetido não deixa o contador negativo
+        counters.onRentalChanged(event(RentalChangedEvent.Kind.CANCELLED, null, moved));
+
+        assertThat(counters.daily(1L, today.minusDays(1), 1)).containsExactly(0);
+        assertThat(counters.recentBookings(1L, 7)).isZero();
+    }
+
+    @Test
+    void whenBookingOutsideWindow_thenIgnored() {
+        counters.add(1L, today.plusDays(FacilityDemandCounters.PAST_DAYS).atTime(10, 0), 1);
+        counters.add(1L, today.minusDays(FacilityDemandCounters.PAST_DAYS + 1L).atTime(10, 0), 1);
+        counters.add(1L, today.atTime(10, 0), 1);
+
+        assertThat(counters.weekly(1L, 5)).containsExactly(0, 0, 0, 0, 1);
+        assertThat(counters.recentBookings(1L, FacilityDemandCounters.PAST_DAYS)).isEqualTo(1);
+    }
+
+    @Test
+    void whenWindowRolls_thenExpiredDayIsClearedForReuse() {
+        LocalDate oldest = today.minusDays(FacilityDemandCounters.PAST_DAYS);
+        counters.add(1L, oldest.atTime(10, 0), 1);
+        counters.add(1L, today.atTime(10, 0), 1);
+
+        counters.roll(today.plusDays(1));
+        // O novo último dia da janela reutiliza o bucket do dia que saiu
+        LocalDate newest = today.plusDays(FacilityDemandCounters.PAST_DAYS);
+        counters.add(1L, newest.atTime(10, 0), 1);
+
+        assertThat(counters.daily(1L, newest, 1)).containsExactly(1);
+        assertThat(counters.recentBookings(1L, 1)).isEqualTo(1);
+    }
+
+    @Test
+    void whenWindowRolls_thenEnteringDayLoadedFromRentals() {
+        LocalDate newest = today.plusDays(FacilityDemandCounters.PAST_DAYS);
+        LocalDateTime eveBefore = newest.minusDays(1).atTime(23, 0);
+        // Ocorrência de uma série criada quando o dia ainda estava fora da janela
+        counters.add(1L, newest.atTime(10, 0), 1);
+        counters.add(1L, eveBefore, 1);
+        when(rentalRepository.findBookedSlotsBetween(newest.atStartOfDay(), newest.plusDays(1).atStartOfDay()))
+                .thenReturn(List.of(slot(1L, newest.atTime(10, 0), newest.atTime(11, 0)),
+                        slot(1L, eveBefore, eveBefore.plusHours(2))));
+
+        counters.roll(today.plusDays(1));
+
+        assertThat(counters.daily(1L, newest.minusDays(1), 2)).containsExactly(1, 1);
+    }
+
+    private static RentalChangedEvent event(RentalChangedEvent.Kind kind, LocalDateTime previousStart,
+            LocalDateTime start) {
+        return new RentalChangedEvent(kind, 9L, 1L, 5L, previousStart,
+                previousStart != null ? previousStart.plusHours(1) : null, start, start.plusHours(1));
+    }
+
+    private static BookedSlot slot(Long facilityId, LocalDateTime start, LocalDateTime end) {
+        return new BookedSlot() {
+            @Override
+            public Long getFacilityId() {
+                return facilityId;
+            }
+
+            @Override
+            public LocalDateTime getStartTime() {
+                return start;
+            }
+
+            @Override
+            public LocalDateTime getEndTime() {
+                return end;
+            }
+        };
+    }
+}
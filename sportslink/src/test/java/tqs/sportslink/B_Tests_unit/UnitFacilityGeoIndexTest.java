@@ -0,0 +1,136 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.service.FacilityChangedEvent;
+import tqs.sportslink.service.FacilityGeoIndex;
+
+@ExtendWith(MockitoExtension.class)
+class UnitFacilityGeoIndexTest {
+
+    // Aveiro
+    private static final double LAT = 40.6405;
+    private static final double LON = -8.6538;
+
+    @Mock
+    private FacilityRepository facilityRepository;
+
+    private FacilityGeoIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacilityGeoIndex(facilityRepository);
+    }
+
+    @Test
+    void whenFindWithinRadius_thenOnlyCloseFacilitiesSortedByDistance() {
+        Facility ilhavo = facility(1L, 40.6000, -8.6700, "ACTIVE", Sport.PADEL);
+        Facility aveiro = facility(2L, 40.6410, -8.6540, "ACTIVE", Sport.PADEL);
+        Facility porto = facility(3L, 41.1579, -8.6291, "ACTIVE", Sport.PADEL);
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(ilhavo, aveiro, porto));
+
+        index.rebuild();
+
+        assertThat(index.findWithinRadius(LAT, LON, 10, null))
+                .extracting(FacilityGeoIndex.GeoHit::facilityId)
+                .containsExactly(2L, 1L);
+        assertThat(index.findWithinRadius(LAT, LON, 100, null))
+                .extracting(FacilityGeoIndex.GeoHit::facilityId)
+                .containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void whenRadiusCrossesAntimeridian_thenFacilitiesOnTheOtherSideFound() {
+        // Fiji, ~10 km de cada lado de ±180
+        Facility east = facility(1L, -16.80, 179.95, "ACTIVE", Sport.PADEL);
+        Facility west = facility(2L, -16.80, -179.95, "ACTIVE", Sport.PADEL);
+        Facility onTheLine = facility(3L, -16.81, 180.0, "ACTIVE", Sport.PADEL);
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(east, west, onTheLine));
+
+        index.rebuild();
+
+        assertThat(index.findWithinRadius(-16.80, 179.99, 20, null))
+                .extracting(FacilityGeoIndex.GeoHit::facilityId)
+                .containsExactly(3L, 1L, 2L);
+        assertThat(index.findWithinRadius(-16.80, -179.99, 20, null))
+                .extracting(FacilityGeoIndex.GeoHit::facilityId)
+                .containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void whenFilterBySport_thenOnlyMatchingFacilities() {
+        Facility padel = facility(1L, 40.6410, -8.6540, "ACTIVE", Sport.PADEL);
+        Facility tennis = facility(2L, 40.6420, -8.6550, "ACTIVE", Sport.TENNIS);
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(padel, tennis));
+
+        index.rebuild();
+
+        assertThat(index.findWithinRadius(LAT, LON, 5, Sport.TENNIS))
+                .extracting(FacilityGeoIndex.GeoHit::facilityId)
+                .containsExactly(2L);
+    }
+
+    @Test
+    void whenFacilityHasNoCoordinates_thenNotIndexed() {
+        Facility noCoords = facility(1L, null, null, "ACTIVE", Sport.PADEL);
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(noCoords));
+
+        index.rebuild();
+
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void whenFacilityDeleted_thenRemovedFromIndex() {
+        Facility facility = facility(1L, 40.6410, -8.6540, "ACTIVE", Sport.PADEL);
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(facility));
+        index.rebuild();
+
+        Facility deleted = facility(1L, 40.6410, -8.6540, "DELETED", Sport.PADEL);
+        when(facilityRepository.findWithSportsById(1L)).thenReturn(Optional.of(deleted));
+        index.onFacilityChanged(new FacilityChangedEvent(1L));
+
+        assertThat(index.findWithinRadius(LAT, LON, 10, null)).isEmpty();
+    }
+
+    @Test
+    void whenFacilityMoved_thenIndexedAtNewLocation() {
+        Facility facility = facility(1L, 40.6410, -8.6540, "ACTIVE", Sport.PADEL);
+        when(facilityRepository.findActiveWithSports()).thenReturn(List.of(facility));
+        index.rebuild();
+
+        Facility moved = facility(1L, 41.1579, -8.6291, "ACTIVE", Sport.PADEL);
+        when(facilityRepository.findWithSportsById(1L)).thenReturn(Optional.of(moved));
+        index.onFacilityChanged(new FacilityChangedEvent(1L));
+
+        assertThat(index.findWithinRadius(LAT, LON, 10, null)).isEmpty();
+        assertThat(index.findWithinRadius(41.1579, -8.6291, 1, null))
+                .extracting(FacilityGeoIndex.GeoHit::facilityId)
+                .containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    private static Facility facility(Long id, Double lat, Double lon, String status, Sport sport) {
+        Facility facility = new Facility();
+        facility.setId(id);
+        facility.setName("Facility " + id);
+        facility.setLatitude(lat);
+        facility.setLongitude(lon);
+        facility.setStatus(status);
+        facility.setSports(new ArrayList<>(List.of(sport)));
+        return facility;
+    }
+}
@@ -0,0 +1,147 @@
+package tqs.sportslink.B_Tests_unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.service.FacilityCatalog;
+import tqs.sportslink.service.FacilityScorer;
+import tqs.sportslink.util.GeoUtils;
+
+class UnitFacilityScorerTest {
+
+    private final FacilityScorer scorer = new FacilityScorer();
+
+    @Test
+    void whenScored_thenBestFirstAndVisitedExcluded() {
+        FacilityCatalog.Snapshot snapshot = FacilityCatalog.Snapshot.of(1, List.of(
+                facility(1L, "Aveiro", 40.64, -8.65, 4.0, Sport.PADEL),
+                facility(2L, "Aveiro", 40.64, -8.65, 5.0, Sport.PADEL),
+                facility(3L, "Porto", 41.15, -8.61, 5.0, Sport.TENNIS),
+                facility(4L, "Aveiro", null, null, 3.0, Sport.FOOTBALL)));
+
+        List<FacilityCatalog.Entry> top = scorer.topK(snapshot,
+                new FacilityScorer.Query(40.64, -8.65, "aveiro", Set.of(Sport.PADEL), Set.of(1L)), 3);
+
+        // 4 não tem coordenadas: conta a cidade
+        assertThat(top).extracting(FacilityCatalog.Entry::id).containsExactly(2L, 4L, 3L);
+    }
+
+    @Test
+    void whenAlsoBookedByOthers_thenAffinityAddsToScore() {
+        FacilityCatalog.Snapshot snapshot = FacilityCatalog.Snapshot.of(1, List.of(
+                facility(1L, "Faro", null, null, 5.0, Sport.PADEL),
+                facility(2L, "Faro", null, null, 4.0, Sport.PADEL),
+                facility(3L, "Faro", null, null, 4.0, Sport.PADEL)));
+
+        // 2: 24 + 20 * 0.5 = 34, acima dos 30 de 1
+        List<FacilityCatalog.Entry> top = scorer.topK(snapshot, new FacilityScorer.Query(null, null, null,
+                Set.of(), Set.of(), Map.of(2L, 0.5, 99L, 1.0)), 3);
+
+        assertThat(top).extracting(FacilityCatalog.Entry::id).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void whenScoresTie_thenCatalogueOrderKept() {
+        List<Facility> facilities = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            facilities.add(facility(id, "Faro", null, null, 4.0, Sport.SWIMMING));
+        }
+
+        List<FacilityCatalog.Entry> top = scorer.topK(FacilityCatalog.Snapshot.of(1, facilities),
+                new FacilityScorer.Query(null, null, null, Set.of(), Set.of()), 4);
+
+        assertThat(top).extracting(FacilityCatalog.Entry::id).containsExactly(1L, 2L, 3L, 4L);
+    }
+
+    @Test
+    void whenCatalogueSpansSeveralChunks_thenSameResultAsFullSort() {
+        Random random = new Random(17);
+        Sport[] sports = Sport.values();
+        List<Facility> facilities = new ArrayList<>();
+        for (long id = 1; id <= 20_000; id++) {
+            Double lat = random.nextInt(10) == 0 ? null : 40.0 + random.nextDouble() * 0.5;
+            Double lon = lat == null ? null : -8.5 + random.nextDouble() * 0.5;
+            Double rating = random.nextInt(5) == 0 ? null : Math.round(random.nextDouble() * 50) / 10.0;
+            facilities.add(facility(id, random.nextBoolean() ? "Aveiro" : "Porto", lat, lon, rating,
+                    sports[random.nextInt(sports.length)]));
+        }
+        FacilityCatalog.Snapshot snapshot = FacilityCatalog.Snapshot.of(1, facilities);
+        Set<Sport> preferred = Set.of(Sport.TENNIS, Sport.PADEL);
+        Set<Long> visited = Set.of(5L, 700L, 19_999L);
+
+        List<FacilityCatalog.Entry> top = scorer.topK(snapshot,
+                new FacilityScorer.Query(40.2, -8.3, "Porto", preferred, visited), 25);
+
+        List<FacilityCatalog.Entry> expected = snapshot.facilities().stream()
+                .filter(f -> !visited.contains(f.id()))
+                .sorted(Comparator.comparingDouble((FacilityCatalog.Entry f) -> score(f, 40.2, -8.3, "Porto",
+                        preferred)).reversed())
+                .limit(25)
+                .toList();
+        assertThat(top).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void whenSnapshotReplaced_thenNewFacilitiesScored() {
+        Facility first = facility(1L, "Faro", null, null, 3.0, Sport.PADEL);
+        FacilityScorer.Query query = new FacilityScorer.Query(null, null, null, Set.of(), Set.of());
+        scorer.topK(FacilityCatalog.Snapshot.of(1, List.of(first)), query, 1);
+
+        List<FacilityCatalog.Entry> top = scorer.topK(FacilityCatalog.Snapshot.of(2,
+                List.of(first, facility(2L, "Faro", null, null, 5.0, Sport.PADEL))), query, 1);
+
+        assertThat(top).extracting(FacilityCatalog.Entry::id).containsExactly(2L);
+    }
+
+    @Test
+    void whenKInvalid_thenRejected() {
+        FacilityCatalog.Snapshot snapshot = FacilityCatalog.Snapshot.of(1, List.of());
+        FacilityScorer.Query query = new FacilityScorer.Query(null, null, null, Set.of(), Set.of());
+
+        assertThatThrownBy(() -> scorer.topK(snapshot, query, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Referência: o score de IntelligentEngineService, calculado facility a facility
+    private static double score(FacilityCatalog.Entry f, double lat, double lon, String city, Set<Sport> sports) {
+        double score = 0.0;
+        if (f.latitude() != null) {
+            double distance = GeoUtils.haversineKm(lat, lon, f.latitude(), f.longitude());
+            if (distance < 20.0) {
+                score += 40.0 * (1 - (distance / 20.0));
+            }
+        } else if (city.equalsIgnoreCase(f.city())) {
+            score += 40.0;
+        }
+        if (f.sports().stream().anyMatch(sports::contains)) {
+            score += 30.0;
+        }
+        if (f.rating() != null) {
+            score += (f.rating() / 5.0) * 30.0;
+        }
+        return score;
+    }
+
+    private static Facility facility(Long id, String city, Double lat, Double lon, Double rating, Sport sport) {
+        Facility facility = new Facility();
+        facility.setId(id);
+        facility.setName("Facility " + id);
+        facility.setCity(city);
+        facility.setStatus("ACTIVE");
+        facility.setLatitude(lat);
+        facility.setLongitude(lon);
+        facility.setRating(rating);
+        facility.setSports(List.of(sport));
+        return facility;
+    }
+}
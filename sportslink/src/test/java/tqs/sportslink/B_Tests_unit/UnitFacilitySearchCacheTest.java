@@ -0,0 +1,139 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.dto.FacilityResponseDTO;
+import tqs.sportslink.service.FacilityChangedEvent;
+import tqs.sportslink.service.FacilitySearchCache;
+import tqs.sportslink.service.RentalChangedEvent;
+
+class UnitFacilitySearchCacheTest {
+
+    private static final LocalDateTime SLOT = LocalDateTime.of(2030, 1, 15, 19, 0);
+    private static final FacilitySearchCache.Key TIMED = new FacilitySearchCache.Key("Aveiro", Sport.PADEL, SLOT);
+    private static final FacilitySearchCache.Key UNTIMED = new FacilitySearchCache.Key("Aveiro", null, null);
+
+    private SimpleMeterRegistry registry;
+    private FacilitySearchCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new FacilitySearchCache(registry, 2, 60);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void whenSameKeyTwice_thenSecondIsHit() {
+        cache.get(TIMED, 1, () -> load(1L));
+        List<FacilityResponseDTO> second = cache.get(TIMED, 1, () -> load(1L));
+
+        assertThat(second).extracting(FacilityResponseDTO::getId).containsExactly(1L);
+        assertThat(loads).hasValue(1);
+        assertThat(count("hit")).isEqualTo(1.0);
+        assertThat(count("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void whenCatalogueVersionChanges_thenEntryIsRecomputed() {
+        cache.get(UNTIMED, 1, () -> load(1L));
+        cache.get(UNTIMED, 2, () -> load(1L));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void whenTtlElapsed_thenEntryIsRecomputed() {
+        FacilitySearchCache noTtl = new FacilitySearchCache(registry, 2, 0);
+
+        noTtl.get(UNTIMED, 1, () -> load(1L));
+        noTtl.get(UNTIMED, 1, () -> load(1L));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void whenFull_thenLeastRecentlyUsedIsEvicted() {
+        FacilitySearchCache.Key other = new FacilitySearchCache.Key("Porto", null, null);
+        FacilitySearchCache.Key third = new FacilitySearchCache.Key("Lisboa", null, null);
+        cache.get(UNTIMED, 1, () -> load(1L));
+        cache.get(other, 1, () -> load(2L));
+        cache.get(UNTIMED, 1, () -> load(1L));
+
+        cache.get(third, 1, () -> load(3L));
+
+        assertThat(cache.size()).isEqualTo(2);
+        cache.get(UNTIMED, 1, () -> load(1L));
+        assertThat(loads).hasValue(3);
+        cache.get(other, 1, () -> load(2L));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void whenBookingOverlapsWindowOfCandidate_thenOnlyThatEntryIsEvicted() {
+        cache.get(TIMED, 1, () -> load(1L));
+        cache.get(UNTIMED, 1, () -> load(1L));
+
+        cache.onRentalChanged(rental(1L, SLOT.plusHours(1)));
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get(UNTIMED, 1, () -> load(1L));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void whenBookingOutsideWindowOrAtOtherFacility_thenEntryIsKept() {
+        cache.get(TIMED, 1, () -> load(1L));
+
+        cache.onRentalChanged(rental(1L, SLOT.plusHours(5)));
+        cache.onRentalChanged(rental(2L, SLOT));
+
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void whenRescheduledOutOfWindow_thenPreviousWindowEvicts() {
+        cache.get(TIMED, 1, () -> load(1L));
+
+        cache.onRentalChanged(new RentalChangedEvent(RentalChangedEvent.Kind.UPDATED, 9L, 1L, 3L,
+                SLOT, SLOT.plusHours(1), SLOT.plusDays(1), SLOT.plusDays(1).plusHours(1)));
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void whenFacilityChanged_thenCacheIsCleared() {
+        cache.get(TIMED, 1, () -> load(1L));
+        cache.get(UNTIMED, 1, () -> load(1L));
+
+        cache.onFacilityChanged(new FacilityChangedEvent(7L));
+
+        assertThat(cache.size()).isZero();
+        assertThat(registry.get("cache.evictions").counter().count()).isEqualTo(2.0);
+    }
+
+    private FacilitySearchCache.Computed load(Long facilityId) {
+        loads.incrementAndGet();
+        FacilityResponseDTO dto = new FacilityResponseDTO();
+        dto.setId(facilityId);
+        return new FacilitySearchCache.Computed(List.of(dto), List.of(facilityId));
+    }
+
+    private static RentalChangedEvent rental(Long facilityId, LocalDateTime start) {
+        return new RentalChangedEvent(RentalChangedEvent.Kind.CREATED, 9L, facilityId, 3L, null, null,
+                start, start.plusHours(1));
+    }
+
+    private double count(String result) {
+        return registry.get("cache.gets").tag("result", result).counter().count();
+    }
+}
@@ -1,28 +1,55 @@
 package tqs.sportslink.B_Tests_unit;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.data.domain.Limit;
 
-
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 import tqs.sportslink.data.FacilityRepository;
 import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookedSlot;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.dto.FacilityCalendarDTO;
+import tqs.sportslink.dto.FacilityPageDTO;
 import tqs.sportslink.dto.FacilityResponseDTO;
+import tqs.sportslink.dto.FacilitySearchHitDTO;
+import tqs.sportslink.dto.FreeIntervalDTO;
+import tqs.sportslink.dto.NearbyFacilityDTO;
+import tqs.sportslink.service.FacilityAvailabilityIndex;
+import tqs.sportslink.service.FacilityBookingVersions;
+import tqs.sportslink.service.FacilityCatalog;
+import tqs.sportslink.service.FacilityCursor;
+import tqs.sportslink.service.FacilityGeoIndex;
+import tqs.sportslink.service.FacilitySearchCache;
 import tqs.sportslink.service.FacilityService;
+import tqs.sportslink.service.FacilityTextIndex;
+import tqs.sportslink.service.RentalChangedEvent;
 
 @ExtendWith(MockitoExtension.class)
 @Requirement("SL-15")
@@ -34,25 +61,51 @@ class UnitFacilityServiceTest {
     @Mock
     private RentalRepository rentalRepository;
 
+    @Mock
+    private FacilityAvailabilityIndex availabilityIndex;
+
+    @Mock
+    private FacilityGeoIndex geoIndex;
+
+    @Mock
+    private FacilityTextIndex textIndex;
+
+    @Mock
+    private FacilityCatalog catalog;
+
+    @Mock
+    private FacilityBookingVersions bookingVersions;
+
+    @Spy
+    private FacilitySearchCache searchCache = new FacilitySearchCache(new SimpleMeterRegistry(), 100, 60);
+
     @InjectMocks
     private FacilityService facilityService;
 
+    private void givenCatalog(Facility... facilities) {
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(facilities)));
+    }
+
+    private static Facility padelInAveiro(Long id, String name) {
+        Facility facility = new Facility();
+        facility.setId(id);
+        facility.setName(name);
+        facility.setCity("Aveiro");
+        facility.setSports(new ArrayList<>(List.of(Sport.PADEL)));
+        facility.setStatus("ACTIVE");
+        return facility;
+    }
+
     @Test
     void whenSearchByLocation_thenReturnsNearbyFacilities() {
         // Given - Maria searching in Aveiro
-        Facility facility1 = new Facility();
-        facility1.setId(1L);
-        facility1.setName("Padel Club Aveiro");
-        facility1.setStatus("ACTIVE");
-
-        Facility facility2 = new Facility();
-        facility2.setId(2L);
-        facility2.setName("Sports Center Aveiro");
-        facility2.setStatus("ACTIVE");
-
-        when(facilityRepository.findByCityAndSportType("Aveiro", Sport.PADEL))
-                .thenReturn(List.of(facility1, facility2));
-        when(rentalRepository.findByFacilityId(anyLong()))
+        Facility facility1 = padelInAveiro(1L, "Padel Club Aveiro");
+        Facility facility2 = padelInAveiro(2L, "Sports Center Aveiro");
+        Facility elsewhere = padelInAveiro(3L, "Padel Porto");
+        elsewhere.setCity("Porto");
+
+        givenCatalog(facility1, facility2, elsewhere);
+        when(rentalRepository.findBookedSlotsByFacilityIdInBetween(anyList(), any(), any()))
                 .thenReturn(List.of());
 
         // When
@@ -61,21 +114,19 @@ class UnitFacilityServiceTest {
         // Then
         assertThat(result).hasSize(2);
         assertThat(result).extracting(FacilityResponseDTO::getName)
-                .contains("Padel Club Aveiro", "Sports Center Aveiro");
+                .containsExactly("Padel Club Aveiro", "Sports Center Aveiro");
     }
 
     @Test
     @Requirement("SL-27")
     void whenSearchBySport_thenReturnsCorrectFacilities() {
         // Given - Maria looking for Padel courts
-        Facility facility = new Facility();
-        facility.setId(1L);
-        facility.setName("Padel Club Aveiro");
-        facility.setStatus("ACTIVE");
+        Facility facility = padelInAveiro(1L, "Padel Club Aveiro");
+        Facility tennis = padelInAveiro(2L, "Tennis Aveiro");
+        tennis.setSports(new ArrayList<>(List.of(Sport.TENNIS)));
 
-        when(facilityRepository.findByCityAndSportType("Aveiro", Sport.PADEL))
-                .thenReturn(List.of(facility));
-        when(rentalRepository.findByFacilityId(anyLong()))
+        givenCatalog(facility, tennis);
+        when(rentalRepository.findBookedSlotsByFacilityIdInBetween(anyList(), any(), any()))
                 .thenReturn(List.of());
 
         // When
@@ -84,14 +135,13 @@ class UnitFacilityServiceTest {
         // Then
         assertThat(result).isNotEmpty();
         assertThat(result).extracting(FacilityResponseDTO::getName)
-                .contains("Padel Club Aveiro");
+                .containsExactly("Padel Club Aveiro");
     }
 
     @Test
     void whenSearchWithInvalidLocation_thenReturnsEmpty() {
         // Given
-        when(facilityRepository.findByCityAndSportType("InvalidLocation", Sport.PADEL))
-                .thenReturn(List.of());
+        givenCatalog(padelInAveiro(1L, "Padel Club Aveiro"));
 
         // When
         List<FacilityResponseDTO> result = facilityService.searchFacilities("InvalidLocation", "Padel", "19:00");
@@ -104,14 +154,8 @@ class UnitFacilityServiceTest {
     @Requirement("SL-26")
     void whenCheckAvailability_duringOpenHours_thenReturnsTrue() {
         // Given - Check if facility available
-        Facility facility = new Facility();
-        facility.setId(1L);
-        facility.setName("Padel Club Aveiro");
-        facility.setStatus("ACTIVE");
-
-        when(facilityRepository.findByCityAndSportType("Aveiro", Sport.PADEL))
-                .thenReturn(List.of(facility));
-        when(rentalRepository.findByFacilityId(anyLong()))
+        givenCatalog(padelInAveiro(1L, "Padel Club Aveiro"));
+        when(rentalRepository.findBookedSlotsByFacilityIdInBetween(anyList(), any(), any()))
                 .thenReturn(List.of());
 
         // When
@@ -129,8 +173,7 @@ class UnitFacilityServiceTest {
         String sport = "Padel";
         String time = "19:00";
 
-        when(facilityRepository.findByCityAndSportType("Aveiro", Sport.PADEL))
-                .thenReturn(List.of());
+        givenCatalog();
 
         // When
         List<FacilityResponseDTO> result = facilityService.searchFacilities(location, sport, time);
@@ -153,8 +196,8 @@ class UnitFacilityServiceTest {
         facility.setId(1L);
         facility.setStatus("ACTIVE");
 
-        when(facilityRepository.findAll()).thenReturn(List.of(facility));
-        when(rentalRepository.findByFacilityId(1L)).thenReturn(List.of());
+        givenCatalog(facility);
+        when(rentalRepository.findBookedSlotsByFacilityIdInBetween(anyList(), any(), any())).thenReturn(List.of());
 
         // When
         List<FacilityResponseDTO> result = facilityService.searchFacilities(null, null, timeInput);
@@ -166,13 +209,6 @@ class UnitFacilityServiceTest {
 
     @Test
     void whenSearchWithInvalidTimeFormat_thenThrowsException() {
-        // Given
-        Facility facility = new Facility();
-        facility.setId(1L);
-        facility.setStatus("ACTIVE");
-
-        when(facilityRepository.findAll()).thenReturn(List.of(facility));
-
         // When/Then
         assertThatThrownBy(() -> facilityService.searchFacilities(null, null, "invalid-time"))
                 .isInstanceOf(IllegalArgumentException.class);
@@ -190,7 +226,7 @@ class UnitFacilityServiceTest {
         facility.setClosingTime(LocalTime.of(12, 0)); // Closes at noon
 
         // Requesting 14:00
-        when(facilityRepository.findAll()).thenReturn(List.of(facility));
+        givenCatalog(facility);
 
         // When
         List<FacilityResponseDTO> result = facilityService.searchFacilities(null, null, "14:00");
@@ -198,4 +234,354 @@ class UnitFacilityServiceTest {
         // Then
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void whenWindowInsideBookingHorizon_thenUsesAvailabilityIndexWithoutQueries() {
+        // Given
+        Facility free = new Facility();
+        free.setId(1L);
+        free.setName("Free Court");
+        free.setStatus("ACTIVE");
+
+        Facility booked = new Facility();
+        booked.setId(2L);
+        booked.setName("Booked Court");
+        booked.setStatus("ACTIVE");
+
+        givenCatalog(free, booked);
+        when(availabilityIndex.covers(any(), any())).thenReturn(true);
+        when(availabilityIndex.hasFreeSlot(eq(1L), any(), any(), eq(60))).thenReturn(true);
+        when(availabilityIndex.hasFreeSlot(eq(2L), any(), any(), eq(60))).thenReturn(false);
+
+        // When
+        List<FacilityResponseDTO> result = facilityService.searchFacilities(null, null, "19:00");
+
+        // Then
+        assertThat(result).extracting(FacilityResponseDTO::getName).containsExactly("Free Court");
+        verify(rentalRepository, never()).findBookedSlotsByFacilityIdInBetween(anyList(), any(), any());
+    }
+
+    @Test
+    void whenWindowOutsideBookingHorizon_thenChecksAllFacilitiesInOneQuery() {
+        // Given - two facilities, only the second one fully booked in the window
+        Facility free = new Facility();
+        free.setId(1L);
+        free.setName("Free Court");
+        free.setStatus("ACTIVE");
+
+        Facility booked = new Facility();
+        booked.setId(2L);
+        booked.setName("Booked Court");
+        booked.setStatus("ACTIVE");
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 15, 18, 0);
+        BookedSlot slot = mock(BookedSlot.class);
+        when(slot.getFacilityId()).thenReturn(2L);
+        when(slot.getStartTime()).thenReturn(start);
+        when(slot.getEndTime()).thenReturn(start.plusHours(3));
+
+        givenCatalog(free, booked);
+        when(rentalRepository.findBookedSlotsByFacilityIdInBetween(List.of(1L, 2L), start, start.plusHours(3)))
+                .thenReturn(List.of(slot));
+
+        // When
+        List<FacilityResponseDTO> result = facilityService.searchFacilities(null, null, "2030-01-15T18:00:00");
+
+        // Then
+        assertThat(result).extracting(FacilityResponseDTO::getName).containsExactly("Free Court");
+        verify(rentalRepository, times(1)).findBookedSlotsByFacilityIdInBetween(anyList(), any(), any());
+    }
+
+    // --- Search Cache Tests ---
+
+    @Test
+    void whenSameSearchInSameSlot_thenServedFromCache() {
+        // Given
+        givenCatalog(padelInAveiro(1L, "Padel Club Aveiro"));
+        when(rentalRepository.findBookedSlotsByFacilityIdInBetween(anyList(), any(), any())).thenReturn(List.of());
+
+        // When - 19:05 e 19:20 caem no mesmo slot de 30 minutos
+        List<FacilityResponseDTO> first = facilityService.searchFacilities("Aveiro", "padel", "2030-01-15 19:05");
+        List<FacilityResponseDTO> second = facilityService.searchFacilities("Aveiro", "PADEL", "2030-01-15 19:20");
+
+        // Then
+        assertThat(second).isEqualTo(first).hasSize(1);
+        verify(rentalRepository, times(1)).findBookedSlotsByFacilityIdInBetween(anyList(),
+                eq(LocalDateTime.of(2030, 1, 15, 19, 0)), eq(LocalDateTime.of(2030, 1, 15, 22, 0)));
+    }
+
+    @Test
+    void whenBookingChangesAtCachedFacility_thenSearchIsRecomputed() {
+        // Given
+        givenCatalog(padelInAveiro(1L, "Padel Club Aveiro"));
+        when(rentalRepository.findBookedSlotsByFacilityIdInBetween(anyList(), any(), any())).thenReturn(List.of());
+        facilityService.searchFacilities("Aveiro", null, "2030-01-15T19:00:00");
+
+        // When
+        LocalDateTime start = LocalDateTime.of(2030, 1, 15, 20, 0);
+        searchCache.onRentalChanged(new RentalChangedEvent(RentalChangedEvent.Kind.CREATED, 5L, 1L, 2L,
+                null, null, start, start.plusHours(1)));
+        facilityService.searchFacilities("Aveiro", null, "2030-01-15T19:00:00");
+
+        // Then
+        verify(rentalRepository, times(2)).findBookedSlotsByFacilityIdInBetween(anyList(), any(), any());
+    }
+
+    // --- Calendar Tests ---
+
+    @Test
+    void whenCalendar_thenFreeIntervalsAroundBookingsWithinOpeningHours() {
+        // Given
+        Facility facility = padelInAveiro(1L, "Padel Club Aveiro");
+        facility.setOpeningTime(LocalTime.of(8, 0));
+        facility.setClosingTime(LocalTime.of(22, 0));
+        givenCatalog(facility);
+
+        LocalDate day = LocalDate.of(2030, 1, 15);
+        BookedSlot morning = booked(day.atTime(10, 0), day.atTime(11, 0));
+        BookedSlot overlapping = booked(day.atTime(10, 30), day.atTime(12, 0));
+        BookedSlot late = booked(day.atTime(21, 0), day.atTime(23, 0));
+        BookedSlot beforeOpening = booked(day.plusDays(1).atTime(7, 0), day.plusDays(1).atTime(9, 0));
+        when(rentalRepository.findBookedSlotsByFacilityIdBetween(1L, day.atStartOfDay(),
+                day.plusDays(2).atStartOfDay())).thenReturn(List.of(morning, overlapping, late, beforeOpening));
+
+        // When
+        FacilityCalendarDTO calendar = facilityService.getCalendar(1L, day, 2);
+
+        // Then
+        assertThat(calendar.getFreeIntervals()).containsExactly(
+                new FreeIntervalDTO(day.atTime(8, 0), day.atTime(10, 0)),
+                new FreeIntervalDTO(day.atTime(12, 0), day.atTime(21, 0)),
+                new FreeIntervalDTO(day.plusDays(1).atTime(9, 0), day.plusDays(1).atTime(22, 0)));
+    }
+
+    @Test
+    void whenCalendarWithoutOpeningHours_thenWholeDaysAreFree() {
+        // Given
+        givenCatalog(padelInAveiro(1L, "Padel Club Aveiro"));
+        LocalDate day = LocalDate.of(2030, 1, 15);
+        when(rentalRepository.findBookedSlotsByFacilityIdBetween(eq(1L), any(), any())).thenReturn(List.of());
+
+        // When
+        FacilityCalendarDTO calendar = facilityService.getCalendar(1L, day, 1);
+
+        // Then
+        assertThat(calendar.getFreeIntervals()).containsExactly(
+                new FreeIntervalDTO(day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+    }
+
+    @Test
+    void whenCalendarWithInvalidArguments_thenThrowsException() {
+        assertThatThrownBy(() -> facilityService.getCalendar(1L, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> facilityService.getCalendar(1L, null, 60))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        givenCatalog();
+        assertThatThrownBy(() -> facilityService.getCalendar(99L, null, 7))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void whenBookingsChange_thenCalendarETagChanges() {
+        // Given
+        givenCatalog(padelInAveiro(1L, "Padel Club Aveiro"));
+        LocalDate day = LocalDate.of(2030, 1, 15);
+        when(bookingVersions.version(1L)).thenReturn("x.1", "x.1", "x.2");
+
+        // When
+        String first = facilityService.calendarETag(1L, day, 7);
+        String same = facilityService.calendarETag(1L, day, 7);
+        String changed = facilityService.calendarETag(1L, day, 7);
+
+        // Then
+        assertThat(same).isEqualTo(first);
+        assertThat(changed).isNotEqualTo(first);
+        verify(rentalRepository, never()).findBookedSlotsByFacilityIdBetween(any(), any(), any());
+    }
+
+    private static BookedSlot booked(LocalDateTime start, LocalDateTime end) {
+        BookedSlot slot = mock(BookedSlot.class);
+        when(slot.getStartTime()).thenReturn(start);
+        when(slot.getEndTime()).thenReturn(end);
+        return slot;
+    }
+
+    // --- Paged Search Tests ---
+
+    @Test
+    void whenSearchPageHasMoreRows_thenReturnsCursorForNextPage() {
+        // Given - limit 2, repository returns the extra row that signals a next page
+        Facility first = facility(1L, "First", 4.9);
+        Facility second = facility(2L, "Second", 4.5);
+        Facility third = facility(3L, "Third", 4.1);
+        when(facilityRepository.findActivePageByRating(eq("Aveiro"), isNull(), eq(Double.MAX_VALUE), eq(0L),
+                any(Limit.class))).thenReturn(List.of(first, second, third));
+
+        // When
+        FacilityPageDTO page = facilityService.searchFacilitiesPage("Aveiro", null, null, "rating", null, 2);
+
+        // Then
+        assertThat(page.getItems()).extracting(FacilityResponseDTO::getName).containsExactly("First", "Second");
+        assertThat(FacilityCursor.decode(page.getNextCursor())).isEqualTo(new FacilityCursor(4.5, 2L));
+    }
+
+    @Test
+    void whenSearchPageWithCursor_thenContinuesAfterCursor() {
+        // Given
+        Facility third = facility(3L, "Third", 4.1);
+        String cursor = new FacilityCursor(4.5, 2L).encode();
+        when(facilityRepository.findActivePageByRating(isNull(), eq(Sport.PADEL), eq(4.5), eq(2L), any(Limit.class)))
+                .thenReturn(List.of(third));
+
+        // When
+        FacilityPageDTO page = facilityService.searchFacilitiesPage(null, "padel", null, "rating", cursor, 2);
+
+        // Then
+        assertThat(page.getItems()).extracting(FacilityResponseDTO::getName).containsExactly("Third");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void whenSearchPageWithTime_thenSkipsUnavailableAndKeepsScanning() {
+        // Given - first batch only has one free facility, second batch fills the page
+        Facility booked = facility(1L, "Booked", 4.9);
+        Facility free = facility(2L, "Free", 4.5);
+        Facility another = facility(3L, "Another", 4.1);
+        when(facilityRepository.findActivePageByRating(isNull(), isNull(), eq(Double.MAX_VALUE), eq(0L),
+                any(Limit.class))).thenReturn(List.of(booked, free));
+        when(facilityRepository.findActivePageByRating(isNull(), isNull(), eq(4.5), eq(2L), any(Limit.class)))
+                .thenReturn(List.of(another));
+        when(availabilityIndex.covers(any(), any())).thenReturn(true);
+        when(availabilityIndex.hasFreeSlot(eq(1L), any(), any(), eq(60))).thenReturn(false);
+        when(availabilityIndex.hasFreeSlot(eq(2L), any(), any(), eq(60))).thenReturn(true);
+        when(availabilityIndex.hasFreeSlot(eq(3L), any(), any(), eq(60))).thenReturn(true);
+
+        // When
+        FacilityPageDTO page = facilityService.searchFacilitiesPage(null, null, "19:00", null, null, 2);
+
+        // Then
+        assertThat(page.getItems()).extracting(FacilityResponseDTO::getName).containsExactly("Free", "Another");
+        assertThat(FacilityCursor.decode(page.getNextCursor())).isEqualTo(new FacilityCursor(4.1, 3L));
+    }
+
+    @Test
+    void whenSearchPageWithInvalidArguments_thenThrowsException() {
+        assertThatThrownBy(() -> facilityService.searchFacilitiesPage(null, null, null, "rating", null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> facilityService.searchFacilitiesPage(null, null, null, "name", null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> facilityService.searchFacilitiesPage(null, null, null, "rating", "%%%", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Facility facility(Long id, String name, double rating) {
+        Facility facility = new Facility();
+        facility.setId(id);
+        facility.setName(name);
+        facility.setStatus("ACTIVE");
+        facility.setRating(rating);
+        return facility;
+    }
+
+    // --- Text Search Tests ---
+
+    @Test
+    void whenSearchText_thenMapsHitsFromIndex() {
+        // Given
+        when(textIndex.search("padel av", 5)).thenReturn(List.of(
+                new FacilityTextIndex.Hit(1L, "Padel Club Aveiro", "Aveiro", "Rua A")));
+
+        // When
+        List<FacilitySearchHitDTO> result = facilityService.searchText("padel av", 5);
+
+        // Then
+        assertThat(result).extracting(FacilitySearchHitDTO::getName).containsExactly("Padel Club Aveiro");
+        verify(facilityRepository, never()).findAll();
+    }
+
+    @Test
+    void whenSearchTextIsBlank_thenReturnsEmptyWithoutIndexLookup() {
+        assertThat(facilityService.searchText("  ", 5)).isEmpty();
+        verify(textIndex, never()).search(any(), eq(5));
+    }
+
+    // --- Nearby Search Tests ---
+
+    @Test
+    void whenSearchNearby_thenReturnsFacilitiesSortedByDistance() {
+        // Given
+        Facility near = new Facility();
+        near.setId(1L);
+        near.setName("Near Court");
+        near.setStatus("ACTIVE");
+
+        Facility far = new Facility();
+        far.setId(2L);
+        far.setName("Far Court");
+        far.setStatus("ACTIVE");
+
+        when(geoIndex.findWithinRadius(40.64, -8.65, 10.0, Sport.PADEL)).thenReturn(List.of(
+                new FacilityGeoIndex.GeoHit(1L, 0.8),
+                new FacilityGeoIndex.GeoHit(2L, 6.2)));
+        givenCatalog(far, near);
+
+        // When
+        List<NearbyFacilityDTO> result = facilityService.searchNearby(40.64, -8.65, 10.0, "padel");
+
+        // Then
+        assertThat(result).extracting(NearbyFacilityDTO::getName).containsExactly("Near Court", "Far Court");
+        assertThat(result).extracting(NearbyFacilityDTO::getDistanceKm).containsExactly(0.8, 6.2);
+    }
+
+    // --- Catalogue Reads ---
+
+    @Test
+    void whenSearchWithoutFilters_thenServesActiveFacilitiesFromCatalogue() {
+        // Given
+        Facility active = padelInAveiro(1L, "Padel Club Aveiro");
+        Facility closed = padelInAveiro(2L, "Closed Court");
+        closed.setStatus("CLOSED");
+        givenCatalog(active, closed);
+
+        // When
+        List<FacilityResponseDTO> result = facilityService.searchFacilities(null, null, null);
+
+        // Then
+        assertThat(result).extracting(FacilityResponseDTO::getName).containsExactly("Padel Club Aveiro");
+        verify(facilityRepository, never()).findAll();
+    }
+
+    @Test
+    void whenGetFacility_thenReturnsFromCatalogue() {
+        // Given
+        Facility facility = padelInAveiro(1L, "Padel Club Aveiro");
+        facility.setOpeningTime(LocalTime.of(8, 0));
+        givenCatalog(facility);
+
+        // When
+        FacilityResponseDTO result = facilityService.getFacility(1L);
+
+        // Then
+        assertThat(result.getName()).isEqualTo("Padel Club Aveiro");
+        assertThat(result.getSports()).containsExactly(Sport.PADEL);
+        assertThat(result.getOpeningTime()).isEqualTo("08:00");
+        verify(facilityRepository, never()).findById(any());
+    }
+
+    @Test
+    void whenGetFacilityNotInCatalogue_thenThrowsNotFound() {
+        givenCatalog();
+
+        assertThatThrownBy(() -> facilityService.getFacility(99L))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void whenSearchNearbyWithInvalidRadius_thenThrowsException() {
+        assertThatThrownBy(() -> facilityService.searchNearby(40.64, -8.65, 0, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> facilityService.searchNearby(40.64, -8.65, 500, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -0,0 +1,117 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tqs.sportslink.dto.FacilitySuggestionDTO;
+import tqs.sportslink.service.FacilitySuggestionCache;
+import tqs.sportslink.service.RentalChangedEvent;
+
+class UnitFacilitySuggestionCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private FacilitySuggestionCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        cache = new FacilitySuggestionCache(registry, 2, 60, 0.01);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void whenPositionsInSameCell_thenSameKeyAtCellCentre() {
+        FacilitySuggestionCache.Key a = cache.keyFor(1L, 40.641, -8.653);
+        FacilitySuggestionCache.Key b = cache.keyFor(1L, 40.648, -8.659);
+
+        assertThat(a).isEqualTo(b);
+        assertThat(a.latitude()).isCloseTo(40.645, within(1e-9));
+        assertThat(a.longitude()).isCloseTo(-8.655, within(1e-9));
+        assertThat(cache.keyFor(1L, 40.651, -8.653)).isNotEqualTo(a);
+        assertThat(cache.keyFor(1L, null, -8.653)).isEqualTo(new FacilitySuggestionCache.Key(1L, null, null));
+    }
+
+    @Test
+    void whenSameKeyTwice_thenSecondIsHitAndRatioExported() {
+        FacilitySuggestionCache.Key key = cache.keyFor(1L, 40.64, -8.65);
+
+        cache.get(key, 1, () -> load(10L));
+        List<FacilitySuggestionDTO> second = cache.get(key, 1, () -> load(10L));
+
+        assertThat(second).extracting(FacilitySuggestionDTO::getFacilityId).containsExactly(10L);
+        assertThat(loads).hasValue(1);
+        assertThat(registry.get("cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(registry.get("suggestions.compute.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void whenCatalogueVersionChangesOrTtlElapsed_thenRecomputed() {
+        FacilitySuggestionCache.Key key = cache.keyFor(1L, null, null);
+        cache.get(key, 1, () -> load(10L));
+        cache.get(key, 2, () -> load(10L));
+        assertThat(loads).hasValue(2);
+
+        FacilitySuggestionCache noTtl = new FacilitySuggestionCache(registry, 2, 0, 0.01);
+        noTtl.get(key, 1, () -> load(10L));
+        noTtl.get(key, 1, () -> load(10L));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void whenFull_thenLeastRecentlyUsedIsEvicted() {
+        FacilitySuggestionCache.Key first = cache.keyFor(1L, null, null);
+        FacilitySuggestionCache.Key second = cache.keyFor(2L, null, null);
+        cache.get(first, 1, () -> load(10L));
+        cache.get(second, 1, () -> load(20L));
+        cache.get(first, 1, () -> load(10L));
+
+        cache.get(cache.keyFor(3L, null, null), 1, () -> load(30L));
+
+        assertThat(cache.size()).isEqualTo(2);
+        cache.get(first, 1, () -> load(10L));
+        assertThat(loads).hasValue(3);
+        cache.get(second, 1, () -> load(20L));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void whenUserRentalChanges_thenOnlyThatUsersEntriesEvicted() {
+        cache.get(cache.keyFor(1L, 40.64, -8.65), 1, () -> load(10L));
+        cache.get(cache.keyFor(2L, 40.64, -8.65), 1, () -> load(10L));
+
+        cache.onRentalChanged(new RentalChangedEvent(RentalChangedEvent.Kind.CANCELLED, 9L, 10L, 1L, null, null,
+                LocalDateTime.now(), LocalDateTime.now().plusHours(1)));
+
+        assertThat(cache.size()).isEqualTo(1);
+        cache.get(cache.keyFor(2L, 40.64, -8.65), 1, () -> load(10L));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void whenInvalidatedWhileComputing_thenResultNotStored() {
+        FacilitySuggestionCache.Key key = cache.keyFor(1L, null, null);
+
+        cache.get(key, 1, () -> {
+            cache.onRentalChanged(new RentalChangedEvent(RentalChangedEvent.Kind.CREATED, 9L, 10L, 1L, null, null,
+                    LocalDateTime.now(), LocalDateTime.now().plusHours(1)));
+            return load(10L);
+        });
+
+        assertThat(cache.size()).isZero();
+    }
+
+    private List<FacilitySuggestionDTO> load(Long facilityId) {
+        loads.incrementAndGet();
+        FacilitySuggestionDTO dto = new FacilitySuggestionDTO();
+        dto.setFacilityId(facilityId);
+        return List.of(dto);
+    }
+}
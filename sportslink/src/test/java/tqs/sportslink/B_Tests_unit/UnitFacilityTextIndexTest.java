@@ -0,0 +1,101 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.service.FacilityChangedEvent;
+import tqs.sportslink.service.FacilityTextIndex;
+
+@ExtendWith(MockitoExtension.class)
+class UnitFacilityTextIndexTest {
+
+    @Mock
+    private FacilityRepository facilityRepository;
+
+    private FacilityTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacilityTextIndex(facilityRepository);
+        when(facilityRepository.findByStatus("ACTIVE")).thenReturn(List.of(
+                facility(1L, "Padel Club Aveiro", "Campos cobertos", "Rua da Pega", "Aveiro", "ACTIVE"),
+                facility(2L, "Estádio Municipal", "Relvado sintético perto do padel", "Avenida Central", "Ílhavo",
+                        "ACTIVE"),
+                facility(3L, "Tennis Academy", null, "Rua do Porto", "Porto", "ACTIVE")));
+        index.rebuild();
+    }
+
+    @Test
+    void whenSearchByPrefix_thenMatchesAnyIndexedField() {
+        assertThat(ids(index.search("ave", 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.search("port", 10))).containsExactly(3L);
+    }
+
+    @Test
+    void whenSearchWithSeveralTokens_thenAllMustMatch() {
+        assertThat(ids(index.search("padel aveiro", 10))).containsExactly(1L);
+        assertThat(ids(index.search("padel porto", 10))).isEmpty();
+    }
+
+    @Test
+    void whenSearchWithAccentsOrCase_thenFolded() {
+        assertThat(ids(index.search("ILHAVO", 10))).containsExactly(2L);
+        assertThat(ids(index.search("estádio", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void whenNameMatches_thenRankedBeforeOtherFields() {
+        // "padel" está no nome da 1 e só na descrição da 2
+        assertThat(ids(index.search("padel", 10))).containsExactly(1L, 2L);
+        assertThat(ids(index.search("padel", 1))).containsExactly(1L);
+    }
+
+    @Test
+    void whenFacilityUpdated_thenOldTermsRemoved() {
+        when(facilityRepository.findById(1L)).thenReturn(Optional.of(
+                facility(1L, "Squash Center", null, "Rua Nova", "Braga", "ACTIVE")));
+
+        index.onFacilityChanged(new FacilityChangedEvent(1L));
+
+        assertThat(ids(index.search("aveiro", 10))).isEmpty();
+        assertThat(ids(index.search("squash", 10))).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void whenFacilityDeleted_thenNoLongerFound() {
+        when(facilityRepository.findById(3L)).thenReturn(Optional.of(
+                facility(3L, "Tennis Academy", null, "Rua do Porto", "Porto", "DELETED")));
+
+        index.onFacilityChanged(new FacilityChangedEvent(3L));
+
+        assertThat(index.search("tennis", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    private static List<Long> ids(List<FacilityTextIndex.Hit> hits) {
+        return hits.stream().map(FacilityTextIndex.Hit::facilityId).toList();
+    }
+
+    private static Facility facility(Long id, String name, String description, String address, String city,
+            String status) {
+        Facility facility = new Facility();
+        facility.setId(id);
+        facility.setName(name);
+        facility.setDescription(description);
+        facility.setAddress(address);
+        facility.setCity(city);
+        facility.setStatus(status);
+        return facility;
+    }
+}
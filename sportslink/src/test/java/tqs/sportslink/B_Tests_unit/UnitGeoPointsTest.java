@@ -0,0 +1,77 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import org.junit.jupiter.api.Test;
+
+import tqs.sportslink.util.GeoPoints;
+import tqs.sportslink.util.GeoUtils;
+import tqs.sportslink.util.HaversineKernel;
+
+class UnitGeoPointsTest {
+
+    @Test
+    void whenBatchDistances_thenSameAsGeoUtilsAndNaNWithoutCoordinates() {
+        Random random = new Random(7);
+        int n = 1003;
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            boolean missing = i % 50 == 0;
+            lats[i] = missing ? Double.NaN : -80 + 160 * random.nextDouble();
+            lons[i] = missing ? Double.NaN : -180 + 360 * random.nextDouble();
+        }
+        double[] out = new double[n - 3];
+
+        // Intervalo que não começa em 0 e não é múltiplo do tamanho do vetor
+        GeoPoints.of(lats, lons).distancesKm(40.64, -8.65, 3, n, out);
+
+        for (int i = 3; i < n; i++) {
+            if (Double.isNaN(lats[i])) {
+                assertThat(out[i - 3]).isNaN();
+            } else {
+                assertThat(out[i - 3]).isCloseTo(GeoUtils.haversineKm(40.64, -8.65, lats[i], lons[i]),
+                        within(1e-6));
+            }
+        }
+    }
+
+    @Test
+    void whenSamePointOrAntipode_thenZeroAndHalfCircumference() {
+        double[] out = new double[2];
+
+        GeoPoints.of(new double[] { 40.64, -40.64 }, new double[] { -8.65, 171.35 })
+                .distancesKm(40.64, -8.65, 0, 2, out);
+
+        assertThat(out[0]).isZero();
+        assertThat(out[1]).isCloseTo(Math.PI * GeoUtils.EARTH_RADIUS_KM, within(1e-6));
+    }
+
+    @Test
+    void whenSelectedKernel_thenAgreesWithScalar() {
+        Random random = new Random(11);
+        int n = 517;
+        double[] latRad = new double[n];
+        double[] lonRad = new double[n];
+        double[] cosLat = new double[n];
+        for (int i = 0; i < n; i++) {
+            latRad[i] = Math.toRadians(40 + random.nextDouble());
+            lonRad[i] = Math.toRadians(-9 + random.nextDouble());
+            cosLat[i] = Math.cos(latRad[i]);
+        }
+        double originLat = Math.toRadians(40.5);
+        double[] scalar = new double[n];
+        double[] selected = new double[n];
+
+        HaversineKernel.scalar().distancesKm(originLat, Math.toRadians(-8.5), Math.cos(originLat),
+                latRad, lonRad, cosLat, 0, n, scalar);
+        HaversineKernel.select().distancesKm(originLat, Math.toRadians(-8.5), Math.cos(originLat),
+                latRad, lonRad, cosLat, 0, n, selected);
+
+        for (int i = 0; i < n; i++) {
+            assertThat(selected[i]).isCloseTo(scalar[i], within(1e-9));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import tqs.sportslink.data.IdempotencyRecordRepository;
+import tqs.sportslink.data.model.IdempotencyRecord;
+import tqs.sportslink.dto.PaymentIntentDTO;
+import tqs.sportslink.dto.RentalResponseDTO;
+import tqs.sportslink.service.IdempotencyStore;
+
+@ExtendWith(MockitoExtension.class)
+class UnitIdempotencyStoreTest {
+
+    @Mock
+    private IdempotencyRecordRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private IdempotencyStore store;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(repository, objectMapper, 2, 24);
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void whenNoKey_thenActionAlwaysRuns() {
+        store.execute("rental", null, "body", RentalResponseDTO.class, this::create);
+        store.execute("rental", null, "body", RentalResponseDTO.class, this::create);
+
+        assertThat(calls).hasValue(2);
+        verify(repository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void whenSameKeyOnSameNode_thenReplayedFromMemory() {
+        ResponseEntity<RentalResponseDTO> first = store.execute("rental", "k1", "body", RentalResponseDTO.class,
+                this::create);
+        ResponseEntity<RentalResponseDTO> second = store.execute("rental", "k1", "body", RentalResponseDTO.class,
+                this::create);
+
+        assertThat(calls).hasValue(1);
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void whenAnotherNodeAnswered_thenReplayedFromTable() throws Exception {
+        RentalResponseDTO stored = new RentalResponseDTO();
+        stored.setId(42L);
+        // O hash do pedido é calculado pelo store: obtém-se a partir de uma execução noutra instância
+        IdempotencyStore otherNode = new IdempotencyStore(repository, objectMapper, 2, 24);
+        otherNode.execute("rental", "k2", "body", RentalResponseDTO.class, this::create);
+        ArgumentCaptor<IdempotencyRecord> claim = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).saveAndFlush(claim.capture());
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setId(claim.getValue().getId());
+        record.setRequestHash(claim.getValue().getRequestHash());
+        record.setResponseStatus(200);
+        record.setResponseBody(objectMapper.writeValueAsString(stored));
+        record.setExpiresAt(LocalDateTime.now().plusHours(1));
+        when(repository.findById(record.getId())).thenReturn(Optional.of(record));
+
+        ResponseEntity<RentalResponseDTO> replayed = store.execute("rental", "k2", "body",
+                RentalResponseDTO.class, this::create);
+
+        assertThat(calls).hasValue(1);
+        assertThat(replayed.getBody().getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void whenKeyClaimedAndNotFinished_thenConflict() {
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        assertThatThrownBy(() -> store.execute("rental", "k3", "body", RentalResponseDTO.class, this::create))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("still being processed");
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void whenKeyReusedForOtherRequest_thenBadRequest() {
+        store.execute("rental", "k4", "body", RentalResponseDTO.class, this::create);
+
+        assertThatThrownBy(() -> store.execute("rental", "k4", "other body", RentalResponseDTO.class,
+                this::create))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenActionFails_thenClaimReleasedAndRetryRuns() {
+        assertThatThrownBy(() -> store.execute("rental", "k5", "body", RentalResponseDTO.class, () -> {
+            calls.incrementAndGet();
+            throw new IllegalArgumentException("Facility already booked for this time slot");
+        })).isInstanceOf(IllegalArgumentException.class);
+        verify(repository).deleteById(argThat(id -> id.startsWith("rental:") && id.endsWith(":k5")));
+
+        store.execute("rental", "k5", "body", RentalResponseDTO.class, this::create);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void whenErrorResponse_thenNotStored() {
+        store.execute("payment", "k6", "body", Object.class,
+                () -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("missing"));
+
+        verify(repository).deleteById(argThat(id -> id.startsWith("payment:") && id.endsWith(":k6")));
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void whenSameKeyFromAnotherUser_thenSeparateRequest() {
+        try {
+            authenticate("ana@test.com");
+            store.execute("rental", "shared", "body", RentalResponseDTO.class, this::create);
+            authenticate("rui@test.com");
+            ResponseEntity<RentalResponseDTO> other = store.execute("rental", "shared", "body",
+                    RentalResponseDTO.class, this::create);
+
+            assertThat(calls).hasValue(2);
+            assertThat(other.getHeaders().containsKey(IdempotencyStore.REPLAYED_HEADER)).isFalse();
+            ArgumentCaptor<IdempotencyRecord> claims = ArgumentCaptor.forClass(IdempotencyRecord.class);
+            verify(repository, times(2)).saveAndFlush(claims.capture());
+            assertThat(claims.getAllValues().get(0).getId()).isNotEqualTo(claims.getAllValues().get(1).getId());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Test
+    void whenStoredFormGiven_thenOnlyItReachesTheTable() {
+        // Primeiro a consulta (sem registo), depois a reclamação que recebe a resposta
+        when(repository.findById(anyString())).thenReturn(Optional.empty()).thenAnswer(i -> {
+            IdempotencyRecord claim = new IdempotencyRecord();
+            claim.setId(i.getArgument(0));
+            return Optional.of(claim);
+        });
+
+        ResponseEntity<PaymentIntentDTO> first = store.execute("payment-intent", "k7", "body",
+                PaymentIntentDTO.class, () -> ResponseEntity.ok(new PaymentIntentDTO("pi_secret", 9L, "pk")),
+                dto -> new PaymentIntentDTO(null, dto.getPaymentId(), dto.getPublishableKey()));
+        ResponseEntity<PaymentIntentDTO> replayed = store.execute("payment-intent", "k7", "body",
+                PaymentIntentDTO.class, () -> ResponseEntity.ok(new PaymentIntentDTO("other", 10L, "pk")));
+
+        assertThat(first.getBody().getClientSecret()).isEqualTo("pi_secret");
+        ArgumentCaptor<IdempotencyRecord> saved = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getResponseBody()).doesNotContain("pi_secret").contains("\"paymentId\":9");
+        assertThat(replayed.getBody().getClientSecret()).isNull();
+        assertThat(replayed.getBody().getPaymentId()).isEqualTo(9L);
+    }
+
+    @Test
+    void whenKeyTooLong_thenRejected() {
+        String key = "x".repeat(256);
+
+        assertThatThrownBy(() -> store.execute("rental", key, "body", RentalResponseDTO.class, this::create))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(repository, never()).findById(anyString());
+    }
+
+    private static void authenticate(String user) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, null));
+    }
+
+    private ResponseEntity<RentalResponseDTO> create() {
+        RentalResponseDTO dto = new RentalResponseDTO();
+        dto.setId((long) calls.incrementAndGet());
+        return ResponseEntity.ok(dto);
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.web.multipart.MultipartFile;
 import tqs.sportslink.data.EquipmentRepository;
 import tqs.sportslink.data.FacilityRepository;
@@ -16,11 +17,14 @@ import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.User;
 import tqs.sportslink.dto.EquipmentRequestDTO;
 import tqs.sportslink.dto.EquipmentResponseDTO;
+import tqs.sportslink.dto.FacilityOccupancyDTO;
 import tqs.sportslink.dto.FacilityRequestDTO;
 import tqs.sportslink.dto.FacilityResponseDTO;
+import tqs.sportslink.service.FacilityDemandCounters;
 import tqs.sportslink.service.OwnerService;
 import tqs.sportslink.service.StorageService;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.Collections;
 import java.util.List;
@@ -47,6 +51,12 @@ class UnitOwnerServiceTest {
     @Mock
     private StorageService storageService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private FacilityDemandCounters demandCounters;
+
     @InjectMocks
     private OwnerService ownerService;
 
@@ -283,4 +293,42 @@ class UnitOwnerServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessage("Owner does not own this equipment");
     }
+
+    @Test
+    void getOccupancy_ShouldReadCountersForRequestedWeeks() {
+        int[][] heatmap = new int[7][24];
+        heatmap[0][18] = 3;
+        LocalDate from = LocalDate.now().minusDays(13);
+        when(facilityRepository.findById(10L)).thenReturn(Optional.of(facility));
+        when(demandCounters.hourOfWeek(10L, 2)).thenReturn(heatmap);
+        when(demandCounters.daily(10L, from, 14)).thenReturn(new int[14]);
+        when(demandCounters.weekly(10L, 2)).thenReturn(new int[] { 1, 2 });
+
+        FacilityOccupancyDTO result = ownerService.getOccupancy(1L, 10L, 2);
+
+        assertThat(result.getFrom()).isEqualTo(from);
+        assertThat(result.getHourOfWeek()[0][18]).isEqualTo(3);
+        assertThat(result.getDaily()).hasSize(14);
+        assertThat(result.getWeekly()).containsExactly(1, 2);
+    }
+
+    @Test
+    void getOccupancy_WhenNotOwner_ShouldThrow() {
+        User otherOwner = new User();
+        otherOwner.setId(2L);
+        facility.setOwner(otherOwner);
+        when(facilityRepository.findById(10L)).thenReturn(Optional.of(facility));
+
+        assertThatThrownBy(() -> ownerService.getOccupancy(1L, 10L, 4))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Owner does not own this facility");
+        verifyNoInteractions(demandCounters);
+    }
+
+    @Test
+    void getOccupancy_WhenWeeksOutOfRange_ShouldThrow() {
+        assertThatThrownBy(() -> ownerService.getOccupancy(1L, 10L, 6))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(facilityRepository);
+    }
 }
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -13,23 +14,42 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 import tqs.sportslink.data.EquipmentRepository;
+import tqs.sportslink.data.EquipmentReservationRepository;
 import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.RentalHistoryRow;
 import tqs.sportslink.data.RentalRepository;
 import tqs.sportslink.data.UserRepository;
 import tqs.sportslink.data.model.Equipment;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.dto.RentalHistoryPageDTO;
 import tqs.sportslink.dto.RentalRequestDTO;
 import tqs.sportslink.dto.RentalResponseDTO;
+import tqs.sportslink.dto.RentalSeriesRequestDTO;
+import tqs.sportslink.dto.RentalSeriesResponseDTO;
+import tqs.sportslink.service.BookingAdmission;
+import tqs.sportslink.service.RentalChangedEvent;
+import tqs.sportslink.service.RentalStatusChangedEvent;
+import tqs.sportslink.service.RentalHistoryCursor;
 import tqs.sportslink.service.RentalService;
 
 @ExtendWith(MockitoExtension.class)
@@ -47,6 +67,18 @@ class UnitRentalServiceTest {
         @Mock
         private UserRepository userRepository;
 
+        @Mock
+        private ApplicationEventPublisher eventPublisher;
+
+        @Mock
+        private BookingAdmission bookingAdmission;
+
+        @Mock
+        private EquipmentReservationRepository equipmentReservationRepository;
+
+        @Mock
+        private PlatformTransactionManager transactionManager;
+
         @InjectMocks
         private RentalService rentalService;
 
@@ -59,6 +91,10 @@ class UnitRentalServiceTest {
 
         @BeforeEach
         void setUp() {
+                // O lock por facility não é o que se testa aqui: corre a ação diretamente
+                lenient().when(bookingAdmission.admit(anyLong(), any()))
+                                .thenAnswer(inv -> inv.<Supplier<?>>getArgument(1).get());
+
                 startTime = LocalDateTime.now().plusDays(29).withHour(19).withMinute(0).withSecond(0).withNano(0);
                 endTime = startTime.plusHours(2); // 2 hours later
 
@@ -102,6 +138,63 @@ class UnitRentalServiceTest {
                 assertThat(result).isNotNull();
                 assertThat(result.getStatus()).isEqualTo("CONFIRMED");
                 verify(rentalRepository).save(any(Rental.class));
+                verify(eventPublisher).publishEvent(RentalChangedEvent.created(mockRental));
+                verify(eventPublisher).publishEvent(RentalStatusChangedEvent.created(1L, "CONFIRMED", 1));
+        }
+
+        @Test
+        void whenHistoryPageHasMore_thenCursorPointsAtLastRow() {
+                RentalHistoryRow newer = new RentalHistoryRow(5L, 1L, 1L, startTime.plusDays(1),
+                                endTime.plusDays(1), "CONFIRMED", null, "Balls|Racket");
+                RentalHistoryRow older = new RentalHistoryRow(3L, 1L, 1L, startTime, endTime, "COMPLETED", null, null);
+                RentalHistoryRow extra = new RentalHistoryRow(2L, 1L, 1L, startTime.minusDays(1),
+                                endTime.minusDays(1), "CANCELLED", null, null);
+                when(rentalRepository.findHistoryPage(eq(1L), any(LocalDateTime.class), eq(0L), eq(Limit.of(3))))
+                                .thenReturn(List.of(newer, older, extra));
+
+                RentalHistoryPageDTO page = rentalService.getUserRentalsPage(1L, null, 2);
+
+                assertThat(page.getItems()).extracting(RentalResponseDTO::getId).containsExactly(5L, 3L);
+                assertThat(page.getItems().get(0).getEquipments()).containsExactly("Balls", "Racket");
+                assertThat(page.getItems().get(1).getEquipments()).isEmpty();
+                assertThat(RentalHistoryCursor.decode(page.getNextCursor()))
+                                .isEqualTo(new RentalHistoryCursor(startTime, 3L));
+        }
+
+        @Test
+        void whenHistoryPageFromCursor_thenQueryStartsAfterIt() {
+                String cursor = new RentalHistoryCursor(startTime, 3L).encode();
+                when(rentalRepository.findHistoryPage(1L, startTime, 3L, Limit.of(3))).thenReturn(List.of());
+
+                RentalHistoryPageDTO page = rentalService.getUserRentalsPage(1L, cursor, 2);
+
+                assertThat(page.getItems()).isEmpty();
+                assertThat(page.getNextCursor()).isNull();
+        }
+
+        @Test
+        void whenHistoryPageLimitInvalid_shouldThrowException() {
+                assertThatThrownBy(() -> rentalService.getUserRentalsPage(1L, null, 0))
+                                .isInstanceOf(IllegalArgumentException.class);
+                assertThatThrownBy(() -> rentalService.getUserRentalsPage(1L, "not-a-cursor", 10))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessage("Invalid cursor");
+        }
+
+        @Test
+        void whenCreateHold_thenRentalSavedAsHeldUntilDeadline() {
+                LocalDateTime deadline = LocalDateTime.now().plusMinutes(10);
+                when(rentalRepository.findByFacilityIdAndStartTimeLessThanAndEndTimeGreaterThan(
+                                anyLong(), any(), any())).thenReturn(List.of());
+                when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
+                when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+                when(rentalRepository.save(any(Rental.class))).thenAnswer(inv -> inv.getArgument(0));
+
+                RentalResponseDTO result = rentalService.createHold(validRequest, deadline);
+
+                assertThat(result.getStatus()).isEqualTo("HELD");
+                assertThat(result.getHoldExpiresAt()).isEqualTo(deadline);
+                verify(eventPublisher).publishEvent(any(RentalChangedEvent.class));
         }
 
         @Test
@@ -122,6 +215,8 @@ class UnitRentalServiceTest {
                 when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
                 when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
                 when(equipmentRepository.findAllById(anyList())).thenReturn(List.of(eq1, eq2));
+                when(equipmentReservationRepository.reserveAvailable(anyList(), anyLong(), anyLong(), any(), any()))
+                                .thenReturn(2);
 
                 mockRental.setEquipments(List.of(eq1, eq2));
                 when(rentalRepository.save(any(Rental.class))).thenReturn(mockRental);
@@ -161,20 +256,45 @@ class UnitRentalServiceTest {
         @Requirement("SL-26")
         void whenCancelRental_validId_thenSuccess() {
                 when(rentalRepository.findById(1L)).thenReturn(Optional.of(mockRental));
-                Rental cancelledRental = new Rental();
-                cancelledRental.setId(1L);
-                cancelledRental.setStatus("CANCELLED");
-                cancelledRental.setFacility(mockFacility);
-                cancelledRental.setUser(mockUser);
-                cancelledRental.setStartTime(startTime);
-                cancelledRental.setEndTime(endTime);
-                when(rentalRepository.save(any(Rental.class))).thenReturn(cancelledRental);
+                when(rentalRepository.cancelIfStatus(eq(1L), eq("CONFIRMED"), any(LocalDateTime.class))).thenReturn(1);
 
                 RentalResponseDTO result = rentalService.cancelRental(1L);
 
                 assertThat(result).isNotNull();
                 assertThat(result.getStatus()).isEqualTo("CANCELLED");
-                verify(rentalRepository).save(any(Rental.class));
+                verify(rentalRepository, never()).save(any(Rental.class));
+                verify(equipmentReservationRepository).deleteByRentalId(1L);
+                verify(eventPublisher).publishEvent(RentalChangedEvent.cancelled(mockRental));
+                verify(eventPublisher).publishEvent(RentalStatusChangedEvent.transition("CONFIRMED", "CANCELLED", 1));
+        }
+
+        @Test
+        @Requirement("SL-26")
+        void whenCancelHold_convertedOrExpiredMeanwhile_thenNotOverwrittenAndNoEvents() {
+                // O webhook do Stripe converteu (ou o hold expirou) entre a leitura e o cancelamento
+                mockRental.setStatus("HELD");
+                when(rentalRepository.findById(1L)).thenReturn(Optional.of(mockRental));
+                when(rentalRepository.cancelIfStatus(eq(1L), eq("HELD"), any(LocalDateTime.class))).thenReturn(0);
+
+                assertThatThrownBy(() -> rentalService.cancelRental(1L)).isInstanceOf(IllegalStateException.class);
+
+                verify(rentalRepository, never()).save(any(Rental.class));
+                verify(equipmentReservationRepository, never()).deleteByRentalId(anyLong());
+                verify(eventPublisher, never()).publishEvent(any(Object.class));
+        }
+
+        @Test
+        @Requirement("SL-26")
+        void whenCancelRental_equipmentReleaseFails_thenStatusRolledBackAndNoEvents() {
+                when(rentalRepository.findById(1L)).thenReturn(Optional.of(mockRental));
+                when(rentalRepository.cancelIfStatus(eq(1L), eq("CONFIRMED"), any(LocalDateTime.class))).thenReturn(1);
+                doThrow(new IllegalStateException("db down")).when(equipmentReservationRepository).deleteByRentalId(1L);
+
+                assertThatThrownBy(() -> rentalService.cancelRental(1L)).isInstanceOf(IllegalStateException.class);
+
+                verify(transactionManager).rollback(any());
+                verify(transactionManager, never()).commit(any());
+                verify(eventPublisher, never()).publishEvent(any(Object.class));
         }
 
         @Test
@@ -367,6 +487,25 @@ class UnitRentalServiceTest {
                                 .hasMessageContaining("conflicts with existing booking");
         }
 
+        @Test
+        @Requirement("SL-29")
+        void whenUpdateRental_withAnotherFacilityId_shouldThrowBeforeLocking() {
+                RentalRequestDTO updateRequest = new RentalRequestDTO();
+                updateRequest.setUserId(1L);
+                updateRequest.setFacilityId(2L);
+                LocalDateTime validStart = LocalDateTime.now().plusDays(2).withHour(15).withMinute(0);
+                updateRequest.setStartTime(validStart);
+                updateRequest.setEndTime(validStart.plusHours(1));
+
+                when(rentalRepository.findById(1L)).thenReturn(Optional.of(mockRental));
+
+                assertThatThrownBy(() -> rentalService.updateRental(1L, updateRequest))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("facility cannot be changed");
+                verify(bookingAdmission, never()).admit(anyLong(), any());
+                verify(rentalRepository, never()).save(any(Rental.class));
+        }
+
         @Test
         @Requirement("SL-30")
         void whenCancelRental_alreadyCancelled_shouldThrowException() {
@@ -468,7 +607,7 @@ class UnitRentalServiceTest {
 
         @Test
         @Requirement("SL-26")
-        void whenCreateRental_withEquipment_shouldReduceStock() {
+        void whenCreateRental_withEquipment_shouldReserveUnitForTheWindow() {
                 validRequest.setEquipmentIds(List.of(1L));
                 Equipment eq1 = new Equipment();
                 eq1.setId(1L);
@@ -481,12 +620,15 @@ class UnitRentalServiceTest {
                 when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
                 when(equipmentRepository.findAllById(anyList())).thenReturn(List.of(eq1));
                 when(rentalRepository.save(any(Rental.class))).thenReturn(mockRental);
+                when(equipmentReservationRepository.reserveAvailable(List.of(1L), 1L, 1L, startTime, endTime))
+                                .thenReturn(1);
 
                 RentalResponseDTO result = rentalService.createRental(validRequest);
 
                 assertThat(result).isNotNull();
-                assertThat(eq1.getQuantity()).isEqualTo(4);
-                verify(equipmentRepository).saveAll(anyList());
+                // A quantidade é o total de unidades: reservar não a altera
+                assertThat(eq1.getQuantity()).isEqualTo(5);
+                verify(equipmentRepository, never()).saveAll(anyList());
         }
 
         @Test
@@ -503,23 +645,51 @@ class UnitRentalServiceTest {
                 when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
                 when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
                 when(equipmentRepository.findAllById(anyList())).thenReturn(List.of(eq1));
+                when(rentalRepository.save(any(Rental.class))).thenReturn(mockRental);
+                when(equipmentReservationRepository.reserveAvailable(anyList(), anyLong(), anyLong(), any(), any()))
+                                .thenReturn(0);
 
                 assertThatThrownBy(() -> rentalService.createRental(validRequest))
                                 .isInstanceOf(IllegalArgumentException.class)
                                 .hasMessageContaining("out of stock");
+                verify(eventPublisher, never()).publishEvent(any(Object.class));
+        }
+
+        @Test
+        @Requirement("SL-26")
+        void whenCreateRental_equipmentFromOtherFacility_shouldThrowException() {
+                validRequest.setEquipmentIds(List.of(1L));
+                Facility otherFacility = new Facility();
+                otherFacility.setId(2L);
+                Equipment eq1 = new Equipment();
+                eq1.setId(1L);
+                eq1.setName("Raquete");
+                eq1.setQuantity(5);
+                eq1.setFacility(otherFacility);
+
+                when(rentalRepository.findByFacilityIdAndStartTimeLessThanAndEndTimeGreaterThan(
+                                anyLong(), any(), any())).thenReturn(List.of());
+                when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
+                when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+                when(equipmentRepository.findAllById(anyList())).thenReturn(List.of(eq1));
+                when(rentalRepository.save(any(Rental.class))).thenReturn(mockRental);
+                when(equipmentReservationRepository.reserveAvailable(anyList(), anyLong(), anyLong(), any(), any()))
+                                .thenReturn(0);
+
+                assertThatThrownBy(() -> rentalService.createRental(validRequest))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("not available at this facility");
         }
 
         @Test
         @Requirement("SL-82")
-        void whenUpdateRental_withEquipmentChange_shouldUpdateStock() {
-                // Setup existing rental with equipment Racket (Pool: 5 -> 4 rented)
+        void whenUpdateRental_withEquipmentChange_shouldMoveReservations() {
                 Equipment oldEq = new Equipment();
                 oldEq.setId(1L);
                 oldEq.setName("Raquete");
-                oldEq.setQuantity(4); // Current stock
+                oldEq.setQuantity(5);
                 mockRental.setEquipments(List.of(oldEq));
 
-                // Setup Request with new equipment Ball (Pool: 10)
                 RentalRequestDTO updateRequest = new RentalRequestDTO();
                 updateRequest.setUserId(1L);
                 updateRequest.setFacilityId(1L);
@@ -531,7 +701,7 @@ class UnitRentalServiceTest {
                 Equipment newEq = new Equipment();
                 newEq.setId(2L);
                 newEq.setName("Bola");
-                newEq.setQuantity(10); // Current stock
+                newEq.setQuantity(10);
 
                 when(rentalRepository.findById(1L)).thenReturn(Optional.of(mockRental));
                 when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
@@ -539,17 +709,47 @@ class UnitRentalServiceTest {
                                 any())).thenReturn(List.of(mockRental));
                 when(rentalRepository.save(any(Rental.class))).thenReturn(mockRental);
                 when(equipmentRepository.findAllById(List.of(2L))).thenReturn(List.of(newEq));
+                when(equipmentReservationRepository.reserveAvailable(List.of(2L), 1L, 1L,
+                                updateRequest.getStartTime(), updateRequest.getEndTime())).thenReturn(1);
 
                 RentalResponseDTO result = rentalService.updateRental(1L, updateRequest);
 
                 assertThat(result).isNotNull();
-                // Verify old equipment stock increased (returned)
+                assertThat(result.getEquipments()).containsExactly("Bola");
+                // Unidades da janela antiga libertadas; quantidades totais inalteradas
+                verify(equipmentReservationRepository).deleteByRentalId(1L);
                 assertThat(oldEq.getQuantity()).isEqualTo(5);
-                // Verify new equipment stock decreased (rented)
-                assertThat(newEq.getQuantity()).isEqualTo(9);
+                assertThat(newEq.getQuantity()).isEqualTo(10);
+        }
+
+        @Test
+        @Requirement("SL-82")
+        void whenUpdateRental_withoutEquipmentIds_shouldReserveCurrentEquipmentInNewWindow() {
+                Equipment currentEq = new Equipment();
+                currentEq.setId(1L);
+                currentEq.setName("Raquete");
+                currentEq.setQuantity(5);
+                mockRental.setEquipments(List.of(currentEq));
 
-                verify(equipmentRepository).saveAll(List.of(oldEq)); // Returned
-                verify(equipmentRepository).saveAll(List.of(newEq)); // Rented
+                RentalRequestDTO updateRequest = new RentalRequestDTO();
+                updateRequest.setUserId(1L);
+                updateRequest.setFacilityId(1L);
+                updateRequest.setStartTime(
+                                LocalDateTime.now().plusDays(2).withHour(14).withMinute(0).withSecond(0).withNano(0));
+                updateRequest.setEndTime(updateRequest.getStartTime().plusHours(2));
+
+                when(rentalRepository.findById(1L)).thenReturn(Optional.of(mockRental));
+                when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
+                when(rentalRepository.findByFacilityIdAndStartTimeLessThanAndEndTimeGreaterThan(anyLong(), any(),
+                                any())).thenReturn(List.of(mockRental));
+                when(rentalRepository.save(any(Rental.class))).thenReturn(mockRental);
+                when(equipmentReservationRepository.reserveAvailable(List.of(1L), 1L, 1L,
+                                updateRequest.getStartTime(), updateRequest.getEndTime())).thenReturn(1);
+
+                rentalService.updateRental(1L, updateRequest);
+
+                verify(equipmentReservationRepository).deleteByRentalId(1L);
+                verify(equipmentRepository, never()).findAllById(anyList());
         }
 
         @Test
@@ -575,10 +775,91 @@ class UnitRentalServiceTest {
                 when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
                 when(rentalRepository.findByFacilityIdAndStartTimeLessThanAndEndTimeGreaterThan(anyLong(), any(),
                                 any())).thenReturn(List.of(mockRental));
+                when(rentalRepository.save(any(Rental.class))).thenReturn(mockRental);
                 when(equipmentRepository.findAllById(List.of(2L))).thenReturn(List.of(newEq));
 
                 assertThatThrownBy(() -> rentalService.updateRental(1L, updateRequest))
                                 .isInstanceOf(IllegalArgumentException.class)
                                 .hasMessageContaining("out of stock");
         }
-}
\ No newline at end of file
+
+        // --- Series Tests ---
+
+        @Test
+        void whenCreateRentalSeries_thenConflictingWeeksSkippedAndOthersBatchInserted() {
+                RentalSeriesRequestDTO request = new RentalSeriesRequestDTO(1L, 1L, startTime, endTime, 4);
+                when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
+                when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+                // Já existe uma reserva na segunda semana, a meio do slot
+                RentalRepository.BookedSlot secondWeek = booked(startTime.plusWeeks(1).plusMinutes(30),
+                                endTime.plusWeeks(1).plusMinutes(30));
+                when(rentalRepository.findBookedSlotsByFacilityIdBetween(1L, startTime, endTime.plusWeeks(3)))
+                                .thenReturn(List.of(secondWeek));
+                doAnswer(inv -> {
+                        List<Rental> rentals = inv.getArgument(0);
+                        for (int i = 0; i < rentals.size(); i++) {
+                                rentals.get(i).setId(100L + i);
+                        }
+                        return null;
+                }).when(rentalRepository).insertAll(anyList());
+
+                RentalSeriesResponseDTO result = rentalService.createRentalSeries(request);
+
+                assertThat(result.getBooked()).isEqualTo(3);
+                assertThat(result.getConflicts()).isEqualTo(1);
+                assertThat(result.getOccurrences())
+                                .extracting("status")
+                                .containsExactly("BOOKED", "CONFLICT", "BOOKED", "BOOKED");
+                assertThat(result.getOccurrences())
+                                .extracting("rentalId")
+                                .containsExactly(100L, null, 101L, 102L);
+                assertThat(result.getOccurrences().get(3).getStartTime()).isEqualTo(startTime.plusWeeks(3));
+                // Uma query de conflitos e um batch, seja qual for o número de semanas
+                verify(rentalRepository).findBookedSlotsByFacilityIdBetween(anyLong(), any(), any());
+                verify(rentalRepository).insertAll(anyList());
+                verify(rentalRepository, never()).save(any(Rental.class));
+                verify(eventPublisher, times(3)).publishEvent(any(RentalChangedEvent.class));
+                verify(eventPublisher).publishEvent(RentalStatusChangedEvent.created(1L, "CONFIRMED", 3));
+        }
+
+        @Test
+        void whenCreateRentalSeries_thenPricePerOccurrence() {
+                RentalSeriesRequestDTO request = new RentalSeriesRequestDTO(1L, 1L, startTime, endTime, 2);
+                mockFacility.setPricePerHour(10.0);
+                when(facilityRepository.findById(1L)).thenReturn(Optional.of(mockFacility));
+                when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+                when(rentalRepository.findBookedSlotsByFacilityIdBetween(anyLong(), any(), any())).thenReturn(List.of());
+
+                rentalService.createRentalSeries(request);
+
+                verify(rentalRepository).insertAll(org.mockito.ArgumentMatchers.argThat(rentals -> rentals.size() == 2
+                                && rentals.stream().allMatch(r -> r.getTotalPrice() == 20.0
+                                                && "UNPAID".equals(r.getPaymentStatus()))));
+        }
+
+        @Test
+        void whenCreateRentalSeries_tooManyWeeks_shouldThrowException() {
+                RentalSeriesRequestDTO request = new RentalSeriesRequestDTO(1L, 1L, startTime, endTime, 27);
+
+                assertThatThrownBy(() -> rentalService.createRentalSeries(request))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("between 2 and 26 weeks");
+        }
+
+        @Test
+        void whenCreateRentalSeries_firstOccurrenceInPast_shouldThrowException() {
+                RentalSeriesRequestDTO request = new RentalSeriesRequestDTO(1L, 1L,
+                                LocalDateTime.now().minusDays(1), LocalDateTime.now().minusDays(1).plusHours(1), 4);
+
+                assertThatThrownBy(() -> rentalService.createRentalSeries(request))
+                                .isInstanceOf(IllegalArgumentException.class)
+                                .hasMessageContaining("past");
+        }
+
+        private static RentalRepository.BookedSlot booked(LocalDateTime start, LocalDateTime end) {
+                RentalRepository.BookedSlot slot = mock(RentalRepository.BookedSlot.class);
+                when(slot.getStartTime()).thenReturn(start);
+                when(slot.getEndTime()).thenReturn(end);
+                return slot;
+        }
+}
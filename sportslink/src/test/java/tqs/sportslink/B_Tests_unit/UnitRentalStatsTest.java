@@ -0,0 +1,179 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalStatCounterRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.RentalStatCounter;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.service.FacilityCatalog;
+import tqs.sportslink.service.RentalStatusChangedEvent;
+import tqs.sportslink.service.RentalStats;
+
+@ExtendWith(MockitoExtension.class)
+class UnitRentalStatsTest {
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private FacilityRepository facilityRepository;
+
+    @Mock
+    private RentalStatCounterRepository counterRepository;
+
+    @Mock
+    private FacilityCatalog catalog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void whenNotMaterialized_thenBySportUsesFirstSportAndUnknown() {
+        RentalStats stats = stats(false);
+        List<RentalRepository.FacilityCount> perFacility = List.of(count(1L, 3), count(2L, 2), count(3L, 1));
+        when(rentalRepository.countByFacility()).thenReturn(perFacility);
+        List<FacilityRepository.FacilitySport> sports = List.of(sport(1L, Sport.PADEL), sport(1L, Sport.TENNIS),
+                sport(2L, Sport.TENNIS));
+        when(facilityRepository.findAllSports()).thenReturn(sports);
+
+        assertThat(stats.rentalsBySport()).containsOnly(entry("PADEL", 3L), entry("TENNIS", 2L),
+                entry("Unknown", 1L));
+        verify(counterRepository, never()).findByIdStartingWith(anyString());
+    }
+
+    @Test
+    void whenMaterialized_thenEventsFlushedAsIncrementsAndMissingRowsInserted() {
+        RentalStats stats = stats(true);
+        Facility padel = new Facility();
+        padel.setId(1L);
+        padel.setStatus("ACTIVE");
+        padel.setSports(new ArrayList<>(List.of(Sport.PADEL)));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(padel)));
+        when(counterRepository.increment(anyString(), anyLong())).thenReturn(1);
+        when(counterRepository.increment("STATUS:COMPLETED", 2L)).thenReturn(0);
+
+        stats.onStatusChanged(RentalStatusChangedEvent.created(1L, "CONFIRMED", 3));
+        stats.onStatusChanged(RentalStatusChangedEvent.transition("CONFIRMED", "COMPLETED", 2));
+        stats.flush();
+
+        verify(counterRepository).increment("SPORT:PADEL", 3L);
+        verify(counterRepository).increment("STATUS:CONFIRMED", 1L);
+        verify(counterRepository).save(any(RentalStatCounter.class));
+    }
+
+    @Test
+    void whenFlushFails_thenDeltaKeptForNextFlush() {
+        RentalStats stats = stats(true);
+        when(counterRepository.increment("STATUS:CANCELLED", 1L))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+        when(counterRepository.increment("STATUS:HELD", -1L)).thenReturn(1);
+
+        stats.onStatusChanged(RentalStatusChangedEvent.transition("HELD", "CANCELLED", 1));
+        stats.flush();
+        stats.flush();
+
+        verify(counterRepository, times(2)).increment("STATUS:CANCELLED", 1L);
+        verify(counterRepository).increment("STATUS:HELD", -1L);
+    }
+
+    @Test
+    void whenRebuilt_thenEarlierDeltasDroppedAndLaterOnesWrittenOnTop() {
+        RentalStats stats = stats(true);
+        // Reserva commitada antes das queries: já contada nelas
+        stats.onStatusChanged(RentalStatusChangedEvent.transition("CONFIRMED", "CANCELLED", 1));
+        // Commitada depois do snapshot das queries, evento publicado antes de o rebuild acabar
+        when(rentalRepository.countByStatus()).thenAnswer(i -> {
+            stats.onStatusChanged(RentalStatusChangedEvent.transition("CONFIRMED", "COMPLETED", 1));
+            return List.of();
+        });
+        when(counterRepository.increment(anyString(), anyLong())).thenReturn(1);
+
+        stats.rebuild();
+        stats.flush();
+
+        verify(counterRepository).increment("STATUS:CONFIRMED", -1L);
+        verify(counterRepository).increment("STATUS:COMPLETED", 1L);
+        verify(counterRepository, never()).increment("STATUS:CANCELLED", 1L);
+    }
+
+    @Test
+    void whenRebuildFails_thenCapturedDeltasKeptForNextFlush() {
+        RentalStats stats = stats(true);
+        stats.onStatusChanged(RentalStatusChangedEvent.transition("CONFIRMED", "CANCELLED", 1));
+        when(rentalRepository.countByStatus()).thenThrow(new IllegalStateException("db down"));
+        when(counterRepository.increment(anyString(), anyLong())).thenReturn(1);
+
+        assertThatThrownBy(stats::rebuild).isInstanceOf(IllegalStateException.class);
+        stats.flush();
+
+        verify(counterRepository).increment("STATUS:CANCELLED", 1L);
+        verify(counterRepository).increment("STATUS:CONFIRMED", -1L);
+    }
+
+    @Test
+    void whenFacilityHasSeveralSports_thenEventsUseAlphabeticallyFirst() {
+        RentalStats stats = stats(true);
+        Facility multi = new Facility();
+        multi.setId(1L);
+        multi.setStatus("ACTIVE");
+        multi.setSports(new ArrayList<>(List.of(Sport.TENNIS, Sport.PADEL)));
+        when(catalog.snapshot()).thenReturn(FacilityCatalog.Snapshot.of(1, List.of(multi)));
+        when(counterRepository.increment(anyString(), anyLong())).thenReturn(1);
+
+        stats.onStatusChanged(RentalStatusChangedEvent.created(1L, "CONFIRMED", 1));
+        stats.flush();
+
+        verify(counterRepository).increment("SPORT:PADEL", 1L);
+    }
+
+    @Test
+    void whenMaterialized_thenReadsCounterTableWithoutEmptyKeys() {
+        RentalStats stats = stats(true);
+        when(counterRepository.findByIdStartingWith("STATUS:")).thenReturn(List.of(
+                new RentalStatCounter("STATUS:CONFIRMED", 4), new RentalStatCounter("STATUS:HELD", 0)));
+
+        assertThat(stats.rentalsByStatus()).containsOnly(entry("CONFIRMED", 4L));
+        verify(rentalRepository, never()).countByStatus();
+    }
+
+    private RentalStats stats(boolean materialized) {
+        return new RentalStats(rentalRepository, facilityRepository, counterRepository, catalog,
+                transactionManager, materialized);
+    }
+
+    private static RentalRepository.FacilityCount count(Long facilityId, long rentals) {
+        RentalRepository.FacilityCount row = mock(RentalRepository.FacilityCount.class);
+        when(row.getFacilityId()).thenReturn(facilityId);
+        when(row.getRentals()).thenReturn(rentals);
+        return row;
+    }
+
+    private static FacilityRepository.FacilitySport sport(Long facilityId, Sport sport) {
+        FacilityRepository.FacilitySport row = mock(FacilityRepository.FacilitySport.class);
+        when(row.getFacilityId()).thenReturn(facilityId);
+        when(row.getSport()).thenReturn(sport);
+        return row;
+    }
+}
@@ -0,0 +1,212 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tqs.sportslink.data.EquipmentReservationRepository;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.data.model.User;
+import tqs.sportslink.dto.RentalRequestDTO;
+import tqs.sportslink.dto.RentalResponseDTO;
+import tqs.sportslink.service.RentalChangedEvent;
+import tqs.sportslink.service.RentalStatusChangedEvent;
+import tqs.sportslink.service.RentalService;
+import tqs.sportslink.service.SlotHoldService;
+import tqs.sportslink.service.SlotHoldWheel;
+
+@ExtendWith(MockitoExtension.class)
+class UnitSlotHoldServiceTest {
+
+    @Mock
+    private RentalService rentalService;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private EquipmentReservationRepository equipmentReservationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SlotHoldWheel wheel;
+    private SlotHoldService slotHoldService;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new SlotHoldWheel(1000, 64);
+        slotHoldService = new SlotHoldService(rentalService, rentalRepository, equipmentReservationRepository,
+                eventPublisher, wheel, transactionManager, 10);
+    }
+
+    @Test
+    void whenSlotHeld_thenRentalCreatedAsHoldAndDeadlineScheduled() {
+        RentalRequestDTO request = new RentalRequestDTO(1L, 1L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(1).plusHours(1), List.of());
+        RentalResponseDTO held = new RentalResponseDTO();
+        held.setId(5L);
+        when(rentalService.createHold(eq(request), any(LocalDateTime.class))).thenReturn(held);
+
+        slotHoldService.hold(request);
+
+        ArgumentCaptor<LocalDateTime> deadline = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(rentalService).createHold(eq(request), deadline.capture());
+        assertThat(deadline.getValue()).isBetween(LocalDateTime.now().plusMinutes(9),
+                LocalDateTime.now().plusMinutes(10));
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void whenHoldDeadlinePasses_thenSlotAndEquipmentReleased() {
+        Rental expired = heldRental(7L);
+        when(rentalRepository.expireHold(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(rentalRepository.findById(7L)).thenReturn(Optional.of(expired));
+        wheel.schedule(7L, 0);
+
+        slotHoldService.expireDue();
+
+        verify(equipmentReservationRepository).deleteByRentalId(7L);
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        RentalChangedEvent event = (RentalChangedEvent) events.getAllValues().get(0);
+        assertThat(event.kind()).isEqualTo(RentalChangedEvent.Kind.CANCELLED);
+        assertThat(event.facilityId()).isEqualTo(2L);
+        assertThat(events.getAllValues().get(1))
+                .isEqualTo(RentalStatusChangedEvent.transition("HELD", "CANCELLED", 1));
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void whenHoldPaidBeforeTick_thenNothingReleased() {
+        when(rentalRepository.expireHold(eq(7L), any(LocalDateTime.class))).thenReturn(0);
+        wheel.schedule(7L, 0);
+
+        slotHoldService.expireDue();
+
+        verify(equipmentReservationRepository, never()).deleteByRentalId(anyLong());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void whenReleaseFails_thenHoldRescheduled() {
+        when(rentalRepository.expireHold(eq(7L), any(LocalDateTime.class)))
+                .thenThrow(new QueryTimeoutException("timeout"));
+        wheel.schedule(7L, 0);
+
+        slotHoldService.expireDue();
+
+        assertThat(wheel.size()).isEqualTo(1);
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void whenSweepFindsHoldsOfAStoppedNode_thenReleasedWithoutTheWheel() {
+        when(rentalRepository.findExpiredHeldIds(any(LocalDateTime.class), any(Limit.class)))
+                .thenReturn(List.of(7L, 8L));
+        when(rentalRepository.expireHold(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        when(rentalRepository.findById(7L)).thenReturn(Optional.of(heldRental(7L)));
+        // Já expirado por outro nó entre a leitura e o update
+        when(rentalRepository.expireHold(eq(8L), any(LocalDateTime.class))).thenReturn(0);
+
+        slotHoldService.sweepExpired();
+
+        verify(equipmentReservationRepository).deleteByRentalId(7L);
+        verify(equipmentReservationRepository, never()).deleteByRentalId(8L);
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void whenHoldConverted_thenRemovedFromWheel() {
+        when(rentalRepository.convertHold(eq(7L), any(LocalDateTime.class))).thenReturn(1);
+        wheel.schedule(7L, System.currentTimeMillis() + 60_000);
+
+        assertThat(slotHoldService.convert(7L)).isTrue();
+        assertThat(wheel.size()).isZero();
+        verify(eventPublisher).publishEvent(RentalStatusChangedEvent.transition("HELD", "CONFIRMED", 1));
+    }
+
+    @Test
+    void whenHoldAlreadyExpired_thenConversionFails() {
+        when(rentalRepository.convertHold(eq(7L), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThat(slotHoldService.convert(7L)).isFalse();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void whenStarted_thenPendingHoldsScheduled() {
+        RentalRepository.HeldSlot pending = mock(RentalRepository.HeldSlot.class);
+        when(pending.getRentalId()).thenReturn(3L);
+        when(pending.getHoldExpiresAt()).thenReturn(LocalDateTime.now().plusMinutes(5));
+        RentalRepository.HeldSlot overdue = mock(RentalRepository.HeldSlot.class);
+        when(overdue.getRentalId()).thenReturn(4L);
+        when(overdue.getHoldExpiresAt()).thenReturn(LocalDateTime.now().minusMinutes(5));
+        when(rentalRepository.findHeld()).thenReturn(List.of(pending, overdue));
+        when(rentalRepository.expireHold(eq(4L), any(LocalDateTime.class))).thenReturn(0);
+
+        slotHoldService.rebuild();
+        slotHoldService.expireDue();
+
+        verify(rentalRepository).expireHold(eq(4L), any(LocalDateTime.class));
+        verify(rentalRepository, never()).expireHold(eq(3L), any(LocalDateTime.class));
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void whenHoldCancelledByRenter_thenRemovedFromWheel() {
+        wheel.schedule(7L, System.currentTimeMillis() + 60_000);
+
+        slotHoldService.onRentalChanged(RentalChangedEvent.cancelled(heldRental(7L)));
+
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void whenTtlInvalid_thenRejected() {
+        assertThatThrownBy(() -> new SlotHoldService(rentalService, rentalRepository,
+                equipmentReservationRepository, eventPublisher, wheel, transactionManager, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Rental heldRental(Long id) {
+        User user = new User();
+        user.setId(1L);
+        Facility facility = new Facility();
+        facility.setId(2L);
+        Rental rental = new Rental();
+        rental.setId(id);
+        rental.setUser(user);
+        rental.setFacility(facility);
+        rental.setStatus(SlotHoldService.STATUS_HELD);
+        rental.setStartTime(LocalDateTime.now().plusDays(1));
+        rental.setEndTime(LocalDateTime.now().plusDays(1).plusHours(1));
+        return rental;
+    }
+}
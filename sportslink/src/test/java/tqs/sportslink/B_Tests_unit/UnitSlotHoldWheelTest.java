@@ -0,0 +1,99 @@
+package tqs.sportslink.B_Tests_unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import tqs.sportslink.service.SlotHoldWheel;
+
+class UnitSlotHoldWheelTest {
+
+    private static final long TICK = 1000;
+    private static final long START = 1_000_000;
+
+    private SlotHoldWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        // 8 buckets de 1 s: uma volta da roda são 8 s
+        wheel = new SlotHoldWheel(TICK, 8, START);
+    }
+
+    @Test
+    void whenDeadlineReached_thenHoldExpiresOnce() {
+        wheel.schedule(1L, START + 3_000);
+
+        assertThat(wheel.advance(START + 2_999)).isEmpty();
+        assertThat(wheel.advance(START + 3_000)).containsExactly(1L);
+        assertThat(wheel.advance(START + 4_000)).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void whenDeadlineBetweenTicks_thenNeverExpiresEarly() {
+        wheel.schedule(1L, START + 3_001);
+
+        assertThat(wheel.advance(START + 3_999)).isEmpty();
+        assertThat(wheel.advance(START + 4_000)).containsExactly(1L);
+    }
+
+    @Test
+    void whenDeadlineBeyondOneTurn_thenSkippedUntilItsRound() {
+        // Mesmo bucket que START + 2 s, mas duas voltas depois
+        wheel.schedule(1L, START + 18_000);
+        wheel.schedule(2L, START + 2_000);
+
+        assertThat(wheel.advance(START + 2_000)).containsExactly(2L);
+        assertThat(wheel.advance(START + 10_000)).isEmpty();
+        assertThat(wheel.advance(START + 18_000)).containsExactly(1L);
+    }
+
+    @Test
+    void whenCancelled_thenNotReturned() {
+        wheel.schedule(1L, START + 1_000);
+        wheel.schedule(2L, START + 1_000);
+        wheel.schedule(3L, START + 1_000);
+
+        assertThat(wheel.cancel(2L)).isTrue();
+        assertThat(wheel.cancel(2L)).isFalse();
+
+        assertThat(wheel.advance(START + 1_000)).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void whenRescheduled_thenOnlyNewDeadlineCounts() {
+        wheel.schedule(1L, START + 1_000);
+        wheel.schedule(1L, START + 5_000);
+
+        assertThat(wheel.advance(START + 1_000)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(START + 5_000)).containsExactly(1L);
+    }
+
+    @Test
+    void whenDeadlineAlreadyPassed_thenExpiresOnNextAdvance() {
+        wheel.advance(START + 5_000);
+        wheel.schedule(1L, START);
+
+        assertThat(wheel.advance(START + 6_000)).containsExactly(1L);
+    }
+
+    @Test
+    void whenPausedLongerThanOneTurn_thenAllDueHoldsExpire() {
+        for (long id = 1; id <= 20; id++) {
+            wheel.schedule(id, START + id * 1_000);
+        }
+
+        assertThat(wheel.advance(START + 15_000)).hasSize(15);
+        assertThat(wheel.size()).isEqualTo(5);
+        assertThat(wheel.advance(START + 20_000)).containsExactlyInAnyOrder(16L, 17L, 18L, 19L, 20L);
+    }
+
+    @Test
+    void whenWheelSizeNotPowerOfTwo_thenRejected() {
+        assertThatThrownBy(() -> new SlotHoldWheel(TICK, 6, START))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -12,9 +12,11 @@ import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Payment;
 import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.service.SlotHoldService;
 import tqs.sportslink.service.StripePaymentService;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -34,6 +36,9 @@ class UnitStripePaymentServiceTest {
     @Mock
     private RentalRepository rentalRepository;
 
+    @Mock
+    private SlotHoldService slotHoldService;
+
     @InjectMocks
     private StripePaymentService stripePaymentService;
 
@@ -144,6 +149,17 @@ class UnitStripePaymentServiceTest {
                 .hasMessageContaining("Rental not found");
     }
 
+    @Test
+    void whenCreatePaymentIntent_forExpiredHold_shouldThrowException() {
+        mockRental.setStatus("CANCELLED");
+        when(rentalRepository.findById(1L)).thenReturn(Optional.of(mockRental));
+
+        assertThatThrownBy(() -> stripePaymentService.createPaymentIntent(1L, "test@example.com"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cancelled");
+        verify(paymentRepository, never()).save(any());
+    }
+
     @Test
     void whenCreatePaymentIntent_paymentAlreadySucceeded_shouldThrowException() {
         mockPayment.setStatus("SUCCEEDED");
@@ -295,6 +311,102 @@ class UnitStripePaymentServiceTest {
         }
     }
 
+    @Test
+    void whenHandleWebhookEvent_PaymentSucceededForHold_shouldConvertHold() throws Exception {
+        String payload = "{}";
+        String sigHeader = "sig";
+        mockRental.setStatus(SlotHoldService.STATUS_HELD);
+
+        try (org.mockito.MockedStatic<com.stripe.net.Webhook> mockedWebhook = mockStatic(com.stripe.net.Webhook.class)) {
+            com.stripe.model.Event mockEvent = mock(com.stripe.model.Event.class);
+            when(mockEvent.getType()).thenReturn("payment_intent.succeeded");
+            com.stripe.model.EventDataObjectDeserializer mockDeserializer = mock(com.stripe.model.EventDataObjectDeserializer.class);
+            com.stripe.model.PaymentIntent mockIntent = mock(com.stripe.model.PaymentIntent.class);
+            when(mockIntent.getId()).thenReturn("pi_hold_123");
+            when(mockEvent.getDataObjectDeserializer()).thenReturn(mockDeserializer);
+            when(mockDeserializer.getObject()).thenReturn(Optional.of(mockIntent));
+            mockedWebhook.when(() -> com.stripe.net.Webhook.constructEvent(eq(payload), eq(sigHeader), any()))
+                    .thenReturn(mockEvent);
+
+            Payment existingPayment = new Payment(mockRental, "pi_hold_123", 30.0, "user@example.com");
+            when(paymentRepository.findByStripePaymentIntentId("pi_hold_123")).thenReturn(Optional.of(existingPayment));
+            when(slotHoldService.convert(1L)).thenReturn(true);
+
+            stripePaymentService.handleWebhookEvent(payload, sigHeader);
+
+            assertThat(existingPayment.getStatus()).isEqualTo("SUCCEEDED");
+            verify(slotHoldService).convert(1L);
+            // A conversão é um update condicional: a entidade HELD não é gravada por cima
+            verify(rentalRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    void whenHandleWebhookEvent_PaymentSucceededAfterHoldExpired_shouldRefund() throws Exception {
+        String payload = "{}";
+        String sigHeader = "sig";
+        mockRental.setStatus(SlotHoldService.STATUS_HELD);
+
+        try (org.mockito.MockedStatic<com.stripe.net.Webhook> mockedWebhook = mockStatic(com.stripe.net.Webhook.class);
+                org.mockito.MockedStatic<com.stripe.model.Refund> mockedRefund = mockStatic(com.stripe.model.Refund.class)) {
+            com.stripe.model.Event mockEvent = mock(com.stripe.model.Event.class);
+            when(mockEvent.getType()).thenReturn("payment_intent.succeeded");
+            com.stripe.model.EventDataObjectDeserializer mockDeserializer = mock(com.stripe.model.EventDataObjectDeserializer.class);
+            com.stripe.model.PaymentIntent mockIntent = mock(com.stripe.model.PaymentIntent.class);
+            when(mockIntent.getId()).thenReturn("pi_late_123");
+            when(mockEvent.getDataObjectDeserializer()).thenReturn(mockDeserializer);
+            when(mockDeserializer.getObject()).thenReturn(Optional.of(mockIntent));
+            mockedWebhook.when(() -> com.stripe.net.Webhook.constructEvent(eq(payload), eq(sigHeader), any()))
+                    .thenReturn(mockEvent);
+
+            Payment existingPayment = new Payment(mockRental, "pi_late_123", 30.0, "user@example.com");
+            when(paymentRepository.findByStripePaymentIntentId("pi_late_123")).thenReturn(Optional.of(existingPayment));
+            when(slotHoldService.convert(1L)).thenReturn(false);
+
+            stripePaymentService.handleWebhookEvent(payload, sigHeader);
+
+            assertThat(existingPayment.getStatus()).isEqualTo(StripePaymentService.REFUNDED);
+            mockedRefund.verify(() -> com.stripe.model.Refund.create(
+                    any(com.stripe.param.RefundCreateParams.class), any(com.stripe.net.RequestOptions.class)));
+            verify(rentalRepository, never()).save(any());
+        }
+    }
+
+    @Test
+    void whenClientSecretRequested_thenReadFromStripe() throws Exception {
+        when(paymentRepository.findById(1L)).thenReturn(Optional.of(mockPayment));
+
+        try (org.mockito.MockedStatic<com.stripe.model.PaymentIntent> mockedPaymentIntent = mockStatic(com.stripe.model.PaymentIntent.class)) {
+            com.stripe.model.PaymentIntent intent = mock(com.stripe.model.PaymentIntent.class);
+            when(intent.getClientSecret()).thenReturn("pi_test_123_secret");
+            mockedPaymentIntent.when(() -> com.stripe.model.PaymentIntent.retrieve("pi_test_123")).thenReturn(intent);
+
+            assertThat(stripePaymentService.getClientSecret(1L)).isEqualTo("pi_test_123_secret");
+        }
+        assertThatThrownBy(() -> stripePaymentService.getClientSecret(2L)).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void whenRefundFails_thenKeptPendingAndRetried() {
+        mockRental.setStatus("CANCELLED");
+        mockPayment.setStatus(StripePaymentService.REFUND_PENDING);
+        when(paymentRepository.findByStatus(StripePaymentService.REFUND_PENDING)).thenReturn(List.of(mockPayment));
+
+        try (org.mockito.MockedStatic<com.stripe.model.Refund> mockedRefund = mockStatic(com.stripe.model.Refund.class)) {
+            mockedRefund.when(() -> com.stripe.model.Refund.create(any(com.stripe.param.RefundCreateParams.class),
+                    any(com.stripe.net.RequestOptions.class)))
+                    .thenThrow(new com.stripe.exception.ApiConnectionException("timeout"))
+                    .thenReturn(mock(com.stripe.model.Refund.class));
+
+            stripePaymentService.retryPendingRefunds();
+            assertThat(mockPayment.getStatus()).isEqualTo(StripePaymentService.REFUND_PENDING);
+
+            stripePaymentService.retryPendingRefunds();
+            assertThat(mockPayment.getStatus()).isEqualTo(StripePaymentService.REFUNDED);
+            verify(paymentRepository, times(2)).save(mockPayment);
+        }
+    }
+
     @Test
     void whenHandleWebhookEvent_PaymentFailed_withStripeErrorMessage_shouldMarkPaymentFailed() {
         String payload = "{}";
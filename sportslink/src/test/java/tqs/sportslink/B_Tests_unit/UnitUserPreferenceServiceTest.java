@@ -0,0 +1,301 @@
+package tqs.sportslink.B_Tests_unit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.UserPreferenceRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.data.model.User;
+import tqs.sportslink.data.model.UserPreference;
+import tqs.sportslink.service.FacilityCatalog;
+import tqs.sportslink.service.FacilityVisitsChangedEvent;
+import tqs.sportslink.service.RentalChangedEvent;
+import tqs.sportslink.service.UserPreferenceProfile;
+import tqs.sportslink.service.UserPreferenceService;
+
+@ExtendWith(MockitoExtension.class)
+class UnitUserPreferenceServiceTest {
+
+    @Mock
+    private UserPreferenceRepository preferenceRepository;
+
+    @Mock
+    private RentalRepository rentalRepository;
+
+    @Mock
+    private FacilityRepository facilityRepository;
+
+    @Mock
+    private FacilityCatalog catalog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserPreferenceService preferenceService;
+
+    private Facility aveiroPadel;
+    private Facility portoTennis;
+
+    @BeforeEach
+    void setUp() {
+        aveiroPadel = facility(10L, "Aveiro", 40.64, -8.65, Sport.PADEL, Sport.TENNIS);
+        portoTennis = facility(20L, "Porto", 41.15, -8.61, Sport.TENNIS);
+        lenient().when(catalog.snapshot())
+                .thenReturn(FacilityCatalog.Snapshot.of(1, List.of(aveiroPadel, portoTennis)));
+        preferenceService = new UserPreferenceService(preferenceRepository, rentalRepository, facilityRepository,
+                catalog, eventPublisher, transactionManager);
+    }
+
+    @Test
+    void whenRentalCreated_thenProfileUpdatedInPlace() {
+        UserPreference row = row("FOOTBALL:1", "20:1", "Porto");
+        when(preferenceRepository.findForUpdate(1L)).thenReturn(Optional.of(row));
+
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(aveiroPadel)));
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(aveiroPadel)));
+
+        UserPreferenceProfile profile = UserPreferenceProfile.from(row);
+        assertThat(profile.visits(10L)).isEqualTo(2);
+        assertThat(profile.sportCount(Sport.PADEL)).isEqualTo(2);
+        assertThat(profile.sportCount(Sport.FOOTBALL)).isEqualTo(1);
+        assertThat(profile.favouriteCity()).isEqualTo("Aveiro");
+        assertThat(profile.lastLatitude()).isEqualTo(40.64);
+        assertThat(profile.topSports(2)).containsExactly(Sport.TENNIS, Sport.PADEL);
+        verify(rentalRepository, never()).countVisitsByUserId(any());
+    }
+
+    @Test
+    void whenVisitedFacilitiesChange_thenChangePublished() {
+        UserPreference row = row("TENNIS:1", "20:1", "Porto");
+        when(preferenceRepository.findForUpdate(1L)).thenReturn(Optional.of(row));
+
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(aveiroPadel)));
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(aveiroPadel)));
+
+        // A segunda reserva na mesma facility não muda o conjunto
+        ArgumentCaptor<FacilityVisitsChangedEvent> event = ArgumentCaptor.forClass(FacilityVisitsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().before()).containsExactly(20L);
+        assertThat(event.getValue().after()).containsExactlyInAnyOrder(10L, 20L);
+    }
+
+    @Test
+    void whenRentalCancelled_thenFacilityNoLongerVisited() {
+        UserPreference row = row("PADEL:1,TENNIS:2", "10:1,20:1", "Aveiro");
+        when(preferenceRepository.findForUpdate(1L)).thenReturn(Optional.of(row));
+
+        preferenceService.onRentalChanged(RentalChangedEvent.cancelled(rental(aveiroPadel)));
+
+        UserPreferenceProfile profile = UserPreferenceProfile.from(row);
+        assertThat(profile.visitedFacilityIds()).containsExactly(20L);
+        assertThat(profile.sportCount(Sport.PADEL)).isZero();
+        assertThat(profile.sportCount(Sport.TENNIS)).isEqualTo(1);
+        assertThat(profile.favouriteCity()).isEqualTo("Porto");
+    }
+
+    @Test
+    void whenProfileMissing_thenBuiltOnceFromHistory() {
+        RentalRepository.FacilityVisits aveiro = visits(10L, 3, LocalDateTime.now().minusDays(5));
+        RentalRepository.FacilityVisits porto = visits(20L, 1, LocalDateTime.now().minusDays(1));
+        when(preferenceRepository.findForUpdate(1L)).thenReturn(Optional.empty());
+        when(rentalRepository.countVisitsByUserId(1L)).thenReturn(List.of(aveiro, porto));
+
+        // O histórico já inclui a reserva do evento: não pode ser contada duas vezes
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(portoTennis)));
+
+        ArgumentCaptor<UserPreference> saved = ArgumentCaptor.forClass(UserPreference.class);
+        verify(preferenceRepository).saveAndFlush(saved.capture());
+        UserPreferenceProfile profile = UserPreferenceProfile.from(saved.getValue());
+        assertThat(saved.getValue().getUserId()).isEqualTo(1L);
+        assertThat(profile.visits(20L)).isEqualTo(1);
+        assertThat(profile.sportCount(Sport.TENNIS)).isEqualTo(4);
+        assertThat(profile.favouriteCity()).isEqualTo("Aveiro");
+        assertThat(profile.lastLatitude()).isEqualTo(41.15);
+    }
+
+    @Test
+    void whenEventFollowsRecentRebuild_thenRebuiltAgainInsteadOfCountedTwice() {
+        // profileOf reconstruiu a linha depois do commit da reserva e antes do evento chegar
+        UserPreference row = row("TENNIS:1", "20:1", "Porto");
+        row.setRebuiltAt(LocalDateTime.now().minusSeconds(1));
+        RentalRepository.FacilityVisits porto = visits(20L, 1, LocalDateTime.now());
+        when(preferenceRepository.findForUpdate(1L)).thenReturn(Optional.of(row));
+        when(rentalRepository.countVisitsByUserId(1L)).thenReturn(List.of(porto));
+
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(portoTennis)));
+
+        UserPreferenceProfile profile = UserPreferenceProfile.from(row);
+        assertThat(profile.visits(20L)).isEqualTo(1);
+        assertThat(profile.sportCount(Sport.TENNIS)).isEqualTo(1);
+    }
+
+    @Test
+    void whenRebuildIsOld_thenEventAppliedInPlace() {
+        UserPreference row = row("TENNIS:1", "20:1", "Porto");
+        row.setRebuiltAt(LocalDateTime.now().minusHours(1));
+        when(preferenceRepository.findForUpdate(1L)).thenReturn(Optional.of(row));
+
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(portoTennis)));
+
+        assertThat(UserPreferenceProfile.from(row).visits(20L)).isEqualTo(2);
+        verify(rentalRepository, never()).countVisitsByUserId(any());
+    }
+
+    @Test
+    void whenProfileRead_thenSingleRowLookup() {
+        when(preferenceRepository.findById(1L)).thenReturn(Optional.of(row("PADEL:2", "10:2", "Aveiro")));
+
+        UserPreferenceProfile profile = preferenceService.profileOf(1L);
+
+        assertThat(profile.favouriteCity()).isEqualTo("Aveiro");
+        assertThat(profile.visitedFacilityIds()).containsExactly(10L);
+        verify(rentalRepository, never()).countVisitsByUserId(any());
+        verify(preferenceRepository, never()).findForUpdate(any());
+    }
+
+    @Test
+    void whenVisitedFacilityInactive_thenLoadedFromRepository() {
+        Facility closed = facility(30L, "Braga", 41.55, -8.42, Sport.SWIMMING);
+        closed.setStatus("CLOSED");
+        UserPreference row = row("", "", null);
+        when(preferenceRepository.findForUpdate(1L)).thenReturn(Optional.of(row));
+        when(facilityRepository.findWithSportsById(30L)).thenReturn(Optional.of(closed));
+
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(closed)));
+
+        UserPreferenceProfile profile = UserPreferenceProfile.from(row);
+        assertThat(profile.visits(30L)).isEqualTo(1);
+        assertThat(profile.sportCount(Sport.SWIMMING)).isEqualTo(1);
+        assertThat(profile.favouriteCity()).isEqualTo("Braga");
+    }
+
+    @Test
+    void whenUpdateFails_thenProfileDiscardedAndBookingUnaffected() {
+        UserPreference row = row("PADEL:1", "10:1", "Aveiro");
+        when(preferenceRepository.findForUpdate(1L)).thenThrow(new QueryTimeoutException("timeout"));
+        when(preferenceRepository.findById(1L)).thenReturn(Optional.of(row));
+
+        preferenceService.onRentalChanged(RentalChangedEvent.created(rental(aveiroPadel)));
+
+        verify(preferenceRepository).delete(row);
+        ArgumentCaptor<FacilityVisitsChangedEvent> event = ArgumentCaptor.forClass(FacilityVisitsChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().before()).containsExactly(10L);
+        assertThat(event.getValue().after()).isEmpty();
+    }
+
+    @Test
+    void whenRentalRescheduled_thenProfileUntouched() {
+        Rental rental = rental(aveiroPadel);
+
+        preferenceService.onRentalChanged(
+                RentalChangedEvent.updated(rental, rental.getStartTime(), rental.getEndTime()));
+
+        verify(preferenceRepository, never()).findForUpdate(any());
+    }
+
+    @Test
+    void whenProfileEncoded_thenDecodedUnchanged() {
+        UserPreferenceProfile profile = UserPreferenceProfile.empty();
+        profile.record(FacilityCatalog.Entry.from(aveiroPadel), 2);
+        profile.record(FacilityCatalog.Entry.from(portoTennis), 1);
+        profile.refreshFavouriteCity(id -> id == 10L ? "Aveiro" : "Porto");
+        profile.moveTo(41.15, -8.61);
+        UserPreference row = new UserPreference();
+
+        profile.writeTo(row);
+
+        assertThat(row.getSportCounts()).isEqualTo("TENNIS:3,PADEL:2");
+        assertThat(row.getVisitedFacilities()).isEqualTo("10:2,20:1");
+        UserPreferenceProfile decoded = UserPreferenceProfile.from(row);
+        assertThat(decoded.favouriteCity()).isEqualTo("Aveiro");
+        assertThat(decoded.sportCount(Sport.TENNIS)).isEqualTo(3);
+        assertThat(decoded.visits(20L)).isEqualTo(1);
+        assertThat(decoded.lastLongitude()).isEqualTo(-8.61);
+    }
+
+    @Test
+    void whenTooManyFacilitiesVisited_thenOnlyMostBookedKept() {
+        UserPreferenceProfile profile = UserPreferenceProfile.empty();
+        int visited = UserPreferenceProfile.MAX_VISITED_FACILITIES + 50;
+        for (long id = 1; id <= visited; id++) {
+            Facility f = facility(1_000_000_000_000L + id, "Aveiro", 40.64, -8.65, Sport.PADEL);
+            profile.record(FacilityCatalog.Entry.from(f), id == visited ? 5 : 1);
+        }
+        UserPreference row = new UserPreference();
+
+        profile.writeTo(row);
+
+        UserPreferenceProfile decoded = UserPreferenceProfile.from(row);
+        assertThat(row.getVisitedFacilities().length()).isLessThanOrEqualTo(4000);
+        assertThat(decoded.visitedFacilityIds()).hasSize(UserPreferenceProfile.MAX_VISITED_FACILITIES)
+                .contains(1_000_000_000_000L + visited, 1_000_000_000_001L);
+        assertThat(decoded.sportCount(Sport.PADEL)).isEqualTo(visited + 4);
+    }
+
+    private RentalRepository.FacilityVisits visits(Long facilityId, long bookings, LocalDateTime last) {
+        RentalRepository.FacilityVisits visits = mock(RentalRepository.FacilityVisits.class);
+        when(visits.getFacilityId()).thenReturn(facilityId);
+        lenient().when(visits.getBookings()).thenReturn(bookings);
+        lenient().when(visits.getLastBookedAt()).thenReturn(last);
+        return visits;
+    }
+
+    private UserPreference row(String sports, String facilities, String city) {
+        UserPreference row = new UserPreference();
+        row.setUserId(1L);
+        row.setSportCounts(sports);
+        row.setVisitedFacilities(facilities);
+        row.setFavouriteCity(city);
+        return row;
+    }
+
+    private Rental rental(Facility facility) {
+        User user = new User();
+        user.setId(1L);
+        Rental rental = new Rental();
+        rental.setId(5L);
+        rental.setUser(user);
+        rental.setFacility(facility);
+        rental.setStartTime(LocalDateTime.now().plusDays(1));
+        rental.setEndTime(LocalDateTime.now().plusDays(1).plusHours(1));
+        return rental;
+    }
+
+    private Facility facility(Long id, String city, double lat, double lon, Sport... sports) {
+        Facility facility = new Facility();
+        facility.setId(id);
+        facility.setName("Facility " + id);
+        facility.setCity(city);
+        facility.setStatus("ACTIVE");
+        facility.setLatitude(lat);
+        facility.setLongitude(lon);
+        facility.setSports(List.of(sports));
+        return facility;
+    }
+}
@@ -11,19 +11,35 @@ import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import tqs.sportslink.boundary.AdminController;
 import tqs.sportslink.config.TestSecurityConfig;
+import tqs.sportslink.data.AdminListingRepository.RentalFilter;
+import tqs.sportslink.data.AdminListingRepository.RentalRow;
+import tqs.sportslink.data.AdminListingRepository.UserFilter;
+import tqs.sportslink.data.AdminListingRepository.UserRow;
+import tqs.sportslink.data.model.Role;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.dto.AdminPageDTO;
 import tqs.sportslink.service.AdminService;
 import tqs.sportslink.service.AuthService;
 import tqs.sportslink.util.JwtUtil;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -155,4 +171,58 @@ class AdminControllerTest {
                 .andExpect(jsonPath("$.city").value("Aveiro"));
     }
 
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void whenUsersPageFiltered_thenFilterPassedAndPageReturned() throws Exception {
+        UserRow row = new UserRow(3L, "john@test.com", "John", null, true, null, List.of("RENTER"));
+        given(adminService.getUsersPage(new UserFilter(Role.RENTER, true), null, 20))
+                .willReturn(new AdminPageDTO<>(List.of(row), "next"));
+
+        mvc.perform(get("/api/admin/users/page?role=RENTER&active=true&limit=20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].email").value("john@test.com"))
+                .andExpect(jsonPath("$.items[0].roles[0]").value("RENTER"))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @SuppressWarnings("unchecked")
+    void whenRentalsExported_thenOneJsonObjectPerLine() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2025, 10, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 11, 1, 0, 0);
+        doAnswer(invocation -> {
+            Consumer<RentalRow> sink = invocation.getArgument(1);
+            sink.accept(rentalRow(1L));
+            sink.accept(rentalRow(2L));
+            return null;
+        }).when(adminService).exportRentals(eq(new RentalFilter("CONFIRMED", null, null, from, to)), any(Consumer.class));
+
+        MvcResult result = mvc.perform(get("/api/admin/rentals/export?status=CONFIRMED"
+                + "&from=2025-10-01T00:00:00&to=2025-11-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(600000L);
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(org.hamcrest.Matchers.matchesPattern(
+                        "(?s)\\{\"id\":1,.*\\}\n\\{\"id\":2,.*\\}\n")));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void whenExportRangeInverted_thenBadRequestBeforeStreaming() throws Exception {
+        mvc.perform(get("/api/admin/rentals/export?from=2025-11-01T00:00:00&to=2025-10-01T00:00:00"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(adminService);
+    }
+
+    private static RentalRow rentalRow(Long id) {
+        return new RentalRow(id, 5L, "John", "john@test.com", 7L, "Arena", null, null, "CONFIRMED", "PAID", 20.0,
+                null);
+    }
 }
@@ -152,4 +152,22 @@ class OwnerControllerTest {
                                 .andExpect(status().isOk())
                                 .andExpect(jsonPath("$.name").value("Ball"));
         }
+
+        @Test
+        @WithMockUser(username = "owner@example.com", roles = { "OWNER" })
+        void getOccupancy_ShouldReturnHeatmap() throws Exception {
+                int[][] heatmap = new int[7][24];
+                heatmap[2][19] = 4;
+                tqs.sportslink.dto.FacilityOccupancyDTO response = new tqs.sportslink.dto.FacilityOccupancyDTO(
+                                100L, java.time.LocalDate.of(2026, 1, 1), 2, heatmap, new int[14], new int[] { 3, 1 });
+
+                when(ownerService.getOccupancy(1L, 100L, 2)).thenReturn(response);
+
+                mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+                                .get("/api/owner/{ownerId}/facilities/{facilityId}/occupancy", 1L, 100L)
+                                .param("weeks", "2"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.hourOfWeek[2][19]").value(4))
+                                .andExpect(jsonPath("$.weekly[0]").value(3));
+        }
 }
@@ -11,10 +11,12 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import tqs.sportslink.boundary.PaymentController;
 import tqs.sportslink.config.TestSecurityConfig;
+import tqs.sportslink.data.IdempotencyRecordRepository;
 import tqs.sportslink.data.model.Facility;
 import tqs.sportslink.data.model.Payment;
 import tqs.sportslink.data.model.Rental;
 import tqs.sportslink.data.model.User;
+import tqs.sportslink.service.IdempotencyStore;
 import tqs.sportslink.service.StripePaymentService;
 
 import java.time.LocalDateTime;
@@ -27,12 +29,14 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(PaymentController.class)
-@Import(TestSecurityConfig.class)
+@Import({ TestSecurityConfig.class, IdempotencyStore.class })
 @ActiveProfiles("test")
 class PaymentControllerTest {
 
@@ -42,6 +46,9 @@ class PaymentControllerTest {
         @MockitoBean
         private StripePaymentService stripePaymentService;
 
+        @MockitoBean
+        private IdempotencyRecordRepository idempotencyRecordRepository;
+
         private Rental mockRental;
         private Payment mockPayment;
 
@@ -100,6 +107,40 @@ class PaymentControllerTest {
                                 .andExpect(jsonPath("$.publishableKey", notNullValue()));
         }
 
+        @Test
+        void whenCreatePaymentIntentRetriedWithSameKey_thenStripeCalledOnce() throws Exception {
+                when(stripePaymentService.createPaymentIntent(1L, "user@example.com"))
+                                .thenReturn(new StripePaymentService.PaymentIntentResult("pi_secret", 1L));
+                when(stripePaymentService.getClientSecret(1L)).thenReturn("pi_secret");
+
+                for (int attempt = 0; attempt < 2; attempt++) {
+                        mockMvc.perform(post("/api/payments/create-intent/1")
+                                        .param("email", "user@example.com")
+                                        .header(IdempotencyStore.HEADER, "retry-key-1"))
+                                        .andExpect(status().isOk())
+                                        .andExpect(jsonPath("$.clientSecret", is("pi_secret")));
+                }
+
+                verify(stripePaymentService, times(1)).createPaymentIntent(1L, "user@example.com");
+                // O client secret não fica guardado com a resposta: o replay volta a lê-lo da Stripe
+                verify(stripePaymentService).getClientSecret(1L);
+        }
+
+        @Test
+        void whenCreatePaymentIntentFailsWithKey_thenRetryCallsStripeAgain() throws Exception {
+                when(stripePaymentService.createPaymentIntent(anyLong(), anyString()))
+                                .thenThrow(new NoSuchElementException("Rental not found: 999"));
+
+                for (int attempt = 0; attempt < 2; attempt++) {
+                        mockMvc.perform(post("/api/payments/create-intent/999")
+                                        .param("email", "test@example.com")
+                                        .header(IdempotencyStore.HEADER, "retry-key-2"))
+                                        .andExpect(status().isNotFound());
+                }
+
+                verify(stripePaymentService, times(2)).createPaymentIntent(999L, "test@example.com");
+        }
+
         @Test
         void whenCreatePaymentIntent_rentalNotFound_thenReturns404() throws Exception {
                 when(stripePaymentService.createPaymentIntent(anyLong(), anyString()))
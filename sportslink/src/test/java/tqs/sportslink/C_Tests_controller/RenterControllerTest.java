@@ -13,26 +13,44 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import tqs.sportslink.boundary.RenterController;
 import tqs.sportslink.config.TestSecurityConfig;
+import tqs.sportslink.data.IdempotencyRecordRepository;
 import tqs.sportslink.dto.EquipmentResponseDTO;
+import tqs.sportslink.dto.FacilityCalendarDTO;
+import tqs.sportslink.dto.FacilityPageDTO;
 import tqs.sportslink.dto.FacilityResponseDTO;
+import tqs.sportslink.dto.FacilitySearchHitDTO;
+import tqs.sportslink.dto.FreeIntervalDTO;
+import tqs.sportslink.dto.NearbyFacilityDTO;
+import tqs.sportslink.dto.RentalHistoryPageDTO;
 import tqs.sportslink.dto.RentalRequestDTO;
 import tqs.sportslink.dto.RentalResponseDTO;
+import tqs.sportslink.dto.RentalSeriesOccurrenceDTO;
+import tqs.sportslink.dto.RentalSeriesRequestDTO;
+import tqs.sportslink.dto.RentalSeriesResponseDTO;
 import tqs.sportslink.data.model.Sport;
 import tqs.sportslink.service.EquipmentService;
 import tqs.sportslink.service.FacilityService;
+import tqs.sportslink.service.IdempotencyStore;
 import tqs.sportslink.service.RentalService;
+import tqs.sportslink.service.SlotHoldService;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(RenterController.class)
-@Import(TestSecurityConfig.class)
+@Import({ TestSecurityConfig.class, IdempotencyStore.class })
 @ActiveProfiles("test")
 @Requirement("SL-27")
 class RenterControllerTest {
@@ -52,6 +70,12 @@ class RenterControllerTest {
     @MockitoBean
     private EquipmentService equipmentService;
 
+    @MockitoBean
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @MockitoBean
+    private SlotHoldService slotHoldService;
+
     @Test
     @Requirement("SL-27")
     void whenSearchFacilities_thenReturnList() throws Exception {
@@ -75,6 +99,112 @@ class RenterControllerTest {
                 .andExpect(jsonPath("$[0].name", is("Padel Club Aveiro")));
     }
 
+    @Test
+    void whenSearchFacilitiesPage_thenReturnItemsAndCursor() throws Exception {
+        // Given
+        FacilityResponseDTO dto = new FacilityResponseDTO();
+        dto.setId(1L);
+        dto.setName("Padel Club Aveiro");
+        when(facilityService.searchFacilitiesPage("Aveiro", null, null, "price", null, 8))
+                .thenReturn(new FacilityPageDTO(List.of(dto), "next-token"));
+
+        // When & Then
+        mockMvc.perform(get("/api/rentals/search/page")
+                .param("location", "Aveiro")
+                .param("sort", "price")
+                .param("limit", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name", is("Padel Club Aveiro")))
+                .andExpect(jsonPath("$.nextCursor", is("next-token")));
+    }
+
+    @Test
+    void whenSearchText_thenReturnHits() throws Exception {
+        // Given
+        when(facilityService.searchText("padel av", 10))
+                .thenReturn(List.of(new FacilitySearchHitDTO(1L, "Padel Club Aveiro", "Aveiro", "Rua A")));
+
+        // When & Then
+        mockMvc.perform(get("/api/rentals/search/text").param("q", "padel av"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Padel Club Aveiro")));
+    }
+
+    @Test
+    void whenSearchNearby_thenReturnFacilitiesWithDistance() throws Exception {
+        // Given
+        NearbyFacilityDTO dto = new NearbyFacilityDTO();
+        dto.setId(1L);
+        dto.setName("Padel Club Aveiro");
+        dto.setDistanceKm(1.2);
+        when(facilityService.searchNearby(40.64, -8.65, 5.0, "Padel")).thenReturn(List.of(dto));
+
+        // When & Then
+        mockMvc.perform(get("/api/rentals/search/nearby")
+                .param("lat", "40.64")
+                .param("lon", "-8.65")
+                .param("radiusKm", "5")
+                .param("sport", "Padel"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].distanceKm", is(1.2)));
+    }
+
+    @Test
+    void whenGetFacilityById_thenReturnFacility() throws Exception {
+        // Given
+        FacilityResponseDTO dto = new FacilityResponseDTO();
+        dto.setId(1L);
+        dto.setName("Padel Club Aveiro");
+        when(facilityService.getFacility(1L)).thenReturn(dto);
+
+        // When & Then
+        mockMvc.perform(get("/api/rentals/facility/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Padel Club Aveiro")));
+    }
+
+    @Test
+    void whenGetCalendar_thenReturnFreeIntervalsWithETag() throws Exception {
+        // Given
+        LocalDate day = LocalDate.of(2030, 1, 15);
+        FacilityCalendarDTO calendar = new FacilityCalendarDTO(1L, day, 1,
+                List.of(new FreeIntervalDTO(day.atTime(8, 0), day.atTime(22, 0))));
+        when(facilityService.calendarETag(1L, day, 1)).thenReturn("\"1-v1\"");
+        when(facilityService.getCalendar(1L, day, 1)).thenReturn(calendar);
+
+        // When & Then
+        mockMvc.perform(get("/api/rentals/facility/1/calendar")
+                .param("from", "2030-01-15")
+                .param("days", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-v1\""))
+                .andExpect(jsonPath("$.freeIntervals", hasSize(1)))
+                .andExpect(jsonPath("$.freeIntervals[0].start", is("2030-01-15T08:00:00")));
+    }
+
+    @Test
+    void whenGetCalendarWithMatchingETag_thenNotModified() throws Exception {
+        // Given
+        when(facilityService.calendarETag(1L, null, 30)).thenReturn("\"1-v1\"");
+
+        // When & Then
+        mockMvc.perform(get("/api/rentals/facility/1/calendar")
+                .header("If-None-Match", "\"1-v1\""))
+                .andExpect(status().isNotModified());
+        verify(facilityService, never()).getCalendar(any(), any(), anyInt());
+    }
+
+    @Test
+    void whenGetUnknownFacility_thenReturnNotFound() throws Exception {
+        when(facilityService.getFacility(99L)).thenThrow(new NoSuchElementException("Facility not found"));
+
+        mockMvc.perform(get("/api/rentals/facility/99"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @Requirement("SL-26")
     void whenCreateRental_thenReturnRental() throws Exception {
@@ -100,6 +230,110 @@ class RenterControllerTest {
                 .andExpect(jsonPath("$.status", is("CONFIRMED")));
     }
 
+    @Test
+    void whenHoldSlot_thenReturnHeldRentalWithDeadline() throws Exception {
+        RentalRequestDTO request = new RentalRequestDTO(1L, 1L,
+                LocalDateTime.of(2030, 1, 7, 19, 0), LocalDateTime.of(2030, 1, 7, 20, 0), List.of(3L));
+        RentalResponseDTO response = new RentalResponseDTO();
+        response.setId(9L);
+        response.setStatus("HELD");
+        response.setHoldExpiresAt(LocalDateTime.of(2030, 1, 1, 10, 10));
+        when(slotHoldService.hold(any())).thenReturn(response);
+
+        mockMvc.perform(post("/api/rentals/hold")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("HELD")))
+                .andExpect(jsonPath("$.holdExpiresAt", is("2030-01-01T10:10:00")));
+        verify(rentalService, never()).createRental(any());
+    }
+
+    @Test
+    void whenCreateRentalRetriedWithSameKey_thenStoredResponseReplayed() throws Exception {
+        RentalRequestDTO request = new RentalRequestDTO(1L, 1L,
+                LocalDateTime.of(2030, 1, 7, 19, 0), LocalDateTime.of(2030, 1, 7, 20, 0), null);
+        RentalResponseDTO response = new RentalResponseDTO();
+        response.setId(7L);
+        response.setStatus("CONFIRMED");
+        when(rentalService.createRental(any())).thenReturn(response);
+
+        mockMvc.perform(post("/api/rentals/rental")
+                .header(IdempotencyStore.HEADER, "booking-123")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyStore.REPLAYED_HEADER));
+
+        mockMvc.perform(post("/api/rentals/rental")
+                .header(IdempotencyStore.HEADER, "booking-123")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyStore.REPLAYED_HEADER, "true"))
+                .andExpect(jsonPath("$.id", is(7)));
+
+        verify(rentalService, times(1)).createRental(any());
+    }
+
+    @Test
+    void whenIdempotencyKeyReusedForDifferentRental_thenBadRequest() throws Exception {
+        RentalRequestDTO request = new RentalRequestDTO(1L, 1L,
+                LocalDateTime.of(2030, 1, 7, 19, 0), LocalDateTime.of(2030, 1, 7, 20, 0), null);
+        RentalResponseDTO response = new RentalResponseDTO();
+        response.setId(7L);
+        when(rentalService.createRental(any())).thenReturn(response);
+
+        mockMvc.perform(post("/api/rentals/rental")
+                .header(IdempotencyStore.HEADER, "booking-456")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        request.setFacilityId(2L);
+        mockMvc.perform(post("/api/rentals/rental")
+                .header(IdempotencyStore.HEADER, "booking-456")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(rentalService, times(1)).createRental(any());
+    }
+
+    @Test
+    void whenCreateRentalSeries_thenReturnPerOccurrenceResults() throws Exception {
+        // Given
+        RentalSeriesRequestDTO request = new RentalSeriesRequestDTO(1L, 1L,
+                LocalDateTime.of(2030, 1, 7, 19, 0), LocalDateTime.of(2030, 1, 7, 20, 0), 2);
+
+        RentalSeriesResponseDTO response = new RentalSeriesResponseDTO(1L, 1, 1, List.of(
+                new RentalSeriesOccurrenceDTO(request.getStartTime(), request.getEndTime(), "BOOKED", 10L),
+                new RentalSeriesOccurrenceDTO(request.getStartTime().plusWeeks(1), request.getEndTime().plusWeeks(1),
+                        "CONFLICT", null)));
+        when(rentalService.createRentalSeries(any())).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(post("/api/rentals/rental/series")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.booked", is(1)))
+                .andExpect(jsonPath("$.occurrences", hasSize(2)))
+                .andExpect(jsonPath("$.occurrences[0].rentalId", is(10)))
+                .andExpect(jsonPath("$.occurrences[1].status", is("CONFLICT")));
+    }
+
+    @Test
+    void whenCreateRentalSeriesWithoutWeeks_thenBadRequest() throws Exception {
+        RentalSeriesRequestDTO request = new RentalSeriesRequestDTO(1L, 1L,
+                LocalDateTime.of(2030, 1, 7, 19, 0), LocalDateTime.of(2030, 1, 7, 20, 0), null);
+
+        mockMvc.perform(post("/api/rentals/rental/series")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void test_getEquipments_returns200_validFacilityId() throws Exception {
         // Given
@@ -194,4 +428,20 @@ class RenterControllerTest {
                 .andExpect(jsonPath("$[0].id", is(10)))
                 .andExpect(jsonPath("$[1].status", is("CANCELLED")));
     }
+
+    @Test
+    void whenGetUserHistoryPage_thenReturnItemsAndNextCursor() throws Exception {
+        RentalResponseDTO r1 = new RentalResponseDTO();
+        r1.setId(10L);
+        r1.setEquipments(List.of("Racket"));
+        when(rentalService.getUserRentalsPage(1L, "abc", 1))
+                .thenReturn(new RentalHistoryPageDTO(List.of(r1), "next"));
+
+        mockMvc.perform(get("/api/rentals/history/page").param("userId", "1").param("cursor", "abc")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].equipments[0]", is("Racket")))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
 }
@@ -0,0 +1,172 @@
+package tqs.sportslink.D_Tests_integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import tqs.sportslink.config.TestSecurityConfig;
+import tqs.sportslink.data.EquipmentRepository;
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.UserRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Role;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.data.model.User;
+import tqs.sportslink.dto.RentalRequestDTO;
+import tqs.sportslink.service.RentalService;
+
+/**
+ * Muitos pedidos em simultâneo para os mesmos slots, contra a base de dados H2 real:
+ * cada slot tem de ficar com exatamente uma reserva e os restantes pedidos recusados.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(TestSecurityConfig.class)
+class BookingConcurrencyIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingConcurrencyIntegrationTest.class);
+
+    private static final int FACILITIES = 4;
+    private static final int[] SLOT_HOURS = { 10, 12, 14 };
+    private static final int ATTEMPTS_PER_SLOT = 25;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private RentalService rentalService;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private FacilityRepository facilityRepository;
+
+    @Autowired
+    private EquipmentRepository equipmentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Facility> facilities = new ArrayList<>();
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        rentalRepository.deleteAll();
+        equipmentRepository.deleteAll();
+        facilityRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setEmail("concurrency@example.com");
+        user.setName("Concurrency Tester");
+        user.setPassword("encoded-password");
+        user.getRoles().add(Role.RENTER);
+        user.setActive(true);
+        user = userRepository.save(user);
+
+        facilities.clear();
+        for (int i = 0; i < FACILITIES; i++) {
+            Facility facility = new Facility();
+            facility.setName("Padel Court " + i);
+            facility.setSports(List.of(Sport.PADEL));
+            facility.setCity("Aveiro");
+            facility.setAddress("Rua do Padel, " + i);
+            facility.setPricePerHour(15.0);
+            facility.setOpeningTime(LocalTime.of(8, 0));
+            facility.setClosingTime(LocalTime.of(22, 0));
+            facility.setStatus("ACTIVE");
+            facilities.add(facilityRepository.save(facility));
+        }
+    }
+
+    @Test
+    void whenManyOverlappingBookings_thenExactlyOneWinnerPerSlot() throws Exception {
+        LocalDate day = LocalDate.now().plusDays(2);
+
+        List<RentalRequestDTO> requests = new ArrayList<>();
+        for (Facility facility : facilities) {
+            for (int hour : SLOT_HOURS) {
+                for (int attempt = 0; attempt < ATTEMPTS_PER_SLOT; attempt++) {
+                    requests.add(request(facility.getId(), day.atTime(hour, 0)));
+                }
+            }
+        }
+        Collections.shuffle(requests);
+
+        Map<String, AtomicInteger> winners = new ConcurrentHashMap<>();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Throwable> unexpected = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (RentalRequestDTO request : requests) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    rentalService.createRental(request);
+                    winners.computeIfAbsent(slotKey(request), k -> new AtomicInteger()).incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    rejected.incrementAndGet();
+                } catch (RuntimeException e) {
+                    unexpected.add(e);
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        pool.shutdown();
+
+        logger.info("{} concurrent createRental calls on {} facilities in {} ms ({} calls/s)",
+                requests.size(), FACILITIES, Math.round(seconds * 1000), Math.round(requests.size() / seconds));
+
+        int slots = FACILITIES * SLOT_HOURS.length;
+        assertThat(unexpected).isEmpty();
+        assertThat(winners).hasSize(slots);
+        assertThat(winners.values()).allSatisfy(count -> assertThat(count).hasValue(1));
+        assertThat(rejected).hasValue(requests.size() - slots);
+        assertThat(rentalRepository.count()).isEqualTo(slots);
+    }
+
+    private RentalRequestDTO request(Long facilityId, LocalDateTime start) {
+        RentalRequestDTO request = new RentalRequestDTO();
+        request.setUserId(user.getId());
+        request.setFacilityId(facilityId);
+        request.setStartTime(start);
+        request.setEndTime(start.plusHours(1));
+        return request;
+    }
+
+    private static String slotKey(RentalRequestDTO request) {
+        return request.getFacilityId() + "@" + request.getStartTime();
+    }
+}
@@ -3,6 +3,7 @@ package tqs.sportslink.D_Tests_integration;
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
@@ -29,6 +30,8 @@ import tqs.sportslink.data.model.Role;
 import tqs.sportslink.data.model.Sport;
 import tqs.sportslink.data.model.User;
 import tqs.sportslink.dto.RentalRequestDTO;
+import tqs.sportslink.dto.RentalSeriesRequestDTO;
+import tqs.sportslink.service.FacilityCatalog;
 
 /**
  * INTEGRATION TEST REAL usando RestAssured - SEM MOCKS
@@ -60,6 +63,9 @@ class RentalIntegrationTest {
         @Autowired
         private UserRepository userRepository;
 
+        @Autowired
+        private FacilityCatalog facilityCatalog;
+
         private Facility testFacility;
         private Equipment testEquipment;
         private User testUser;
@@ -93,6 +99,8 @@ class RentalIntegrationTest {
                 testFacility.setPricePerHour(15.0);
                 testFacility.setStatus("ACTIVE");
                 testFacility = facilityRepository.save(testFacility);
+                // Dados gravados diretamente no repositório: recarregar o catálogo em memória
+                facilityCatalog.rebuild();
 
                 // Criar equipamento de teste
                 testEquipment = new Equipment();
@@ -352,6 +360,50 @@ class RentalIntegrationTest {
                                 .statusCode(400);
         }
 
+        /**
+         * Série semanal: a semana já reservada fica em conflito e as restantes são inseridas em batch
+         */
+        @Test
+        void whenCreateWeeklySeries_thenFreeWeeksBookedAndConflictReported() {
+                LocalDateTime firstStart = LocalDateTime.now().plusDays(3).withHour(18).withMinute(0).withSecond(0)
+                                .withNano(0);
+
+                RentalRequestDTO single = new RentalRequestDTO();
+                single.setUserId(testUser.getId());
+                single.setFacilityId(testFacility.getId());
+                single.setStartTime(firstStart.plusWeeks(1));
+                single.setEndTime(firstStart.plusWeeks(1).plusHours(1));
+                given()
+                                .contentType(ContentType.JSON)
+                                .body(single)
+                                .when()
+                                .post("/api/rentals/rental")
+                                .then()
+                                .statusCode(200);
+
+                RentalSeriesRequestDTO series = new RentalSeriesRequestDTO(testUser.getId(), testFacility.getId(),
+                                firstStart, firstStart.plusHours(1), 4);
+                given()
+                                .contentType(ContentType.JSON)
+                                .body(series)
+                                .when()
+                                .post("/api/rentals/rental/series")
+                                .then()
+                                .statusCode(200)
+                                .body("booked", equalTo(3))
+                                .body("conflicts", equalTo(1))
+                                .body("occurrences.status", contains("BOOKED", "CONFLICT", "BOOKED", "BOOKED"))
+                                .body("occurrences[0].rentalId", notNullValue());
+
+                given()
+                                .queryParam("userId", testUser.getId())
+                                .when()
+                                .get("/api/rentals/history")
+                                .then()
+                                .statusCode(200)
+                                .body("$", hasSize(4));
+        }
+
         /**
          * Teste de filtro de equipamentos AVAILABLE
          */
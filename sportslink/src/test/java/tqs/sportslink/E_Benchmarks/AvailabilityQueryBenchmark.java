@@ -0,0 +1,151 @@
+package tqs.sportslink.E_Benchmarks;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import tqs.sportslink.SportslinkApplication;
+import tqs.sportslink.data.FacilityRepository;
+import tqs.sportslink.data.RentalRepository;
+import tqs.sportslink.data.RentalRepository.BookedSlot;
+import tqs.sportslink.data.UserRepository;
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Rental;
+import tqs.sportslink.data.model.User;
+
+/**
+ * Availability lookup for a time-filtered search: one findByFacilityId per facility
+ * (previous FacilityService path) against one findBookedSlotsByFacilityIdInBetween
+ * for the whole candidate list. Runs against H2 with the "test" profile.
+ *
+ * Run with:
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main AvailabilityQueryBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AvailabilityQueryBenchmark {
+
+    // Histórico passado por facility - é isto que o caminho antigo carrega sem precisar
+    private static final int HISTORY_PER_FACILITY = 20;
+
+    @Param({ "100", "1000", "10000" })
+    public int facilities;
+
+    private ConfigurableApplicationContext context;
+    private RentalRepository rentalRepository;
+    private List<Long> facilityIds;
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SportslinkApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:bench" + facilities + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                        "logging.level.tqs.sportslink=WARN")
+                .run();
+
+        rentalRepository = context.getBean(RentalRepository.class);
+        windowStart = LocalDate.now().plusDays(60).atTime(18, 0);
+        windowEnd = windowStart.plusHours(3);
+
+        User renter = new User();
+        renter.setEmail("bench-" + facilities + "@sportslink.com");
+        renter.setName("Bench");
+        renter.setPassword("bench");
+        renter = context.getBean(UserRepository.class).save(renter);
+
+        List<Facility> seeded = new ArrayList<>();
+        for (int i = 0; i < facilities; i++) {
+            Facility f = new Facility();
+            f.setName("Bench Facility " + i);
+            f.setCity("Aveiro");
+            f.setAddress("Rua " + i);
+            f.setStatus("ACTIVE");
+            seeded.add(f);
+        }
+        facilityIds = context.getBean(FacilityRepository.class).saveAll(seeded).stream()
+                .map(Facility::getId)
+                .toList();
+
+        seedRentals(context.getBean(JdbcTemplate.class), renter.getId());
+    }
+
+    private void seedRentals(JdbcTemplate jdbc, Long userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < facilityIds.size(); i++) {
+            Long facilityId = facilityIds.get(i);
+            for (int h = 1; h <= HISTORY_PER_FACILITY; h++) {
+                LocalDateTime start = windowStart.minusDays(h * 3L);
+                rows.add(new Object[] { userId, facilityId, Timestamp.valueOf(start),
+                        Timestamp.valueOf(start.plusHours(1)), "COMPLETED", now, now });
+            }
+            // Metade das facilities tem uma reserva dentro da janela
+            if (i % 2 == 0) {
+                rows.add(new Object[] { userId, facilityId, Timestamp.valueOf(windowStart),
+                        Timestamp.valueOf(windowStart.plusHours(1)), "CONFIRMED", now, now });
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO rentals (user_id, facility_id, start_time, end_time, status, created_at, "
+                + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int perFacilityLookup() {
+        int overlapping = 0;
+        for (Long id : facilityIds) {
+            for (Rental r : rentalRepository.findByFacilityId(id)) {
+                if (!"CANCELLED".equals(r.getStatus())
+                        && r.getStartTime().isBefore(windowEnd) && r.getEndTime().isAfter(windowStart)) {
+                    overlapping++;
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    @Benchmark
+    public int batchedLookup() {
+        Map<Long, List<BookedSlot>> byFacility = new HashMap<>();
+        for (BookedSlot slot : rentalRepository.findBookedSlotsByFacilityIdInBetween(facilityIds, windowStart,
+                windowEnd)) {
+            byFacility.computeIfAbsent(slot.getFacilityId(), id -> new ArrayList<>()).add(slot);
+        }
+        return byFacility.values().stream().mapToInt(List::size).sum();
+    }
+}
@@ -0,0 +1,131 @@
+package tqs.sportslink.E_Benchmarks;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tqs.sportslink.data.model.Facility;
+import tqs.sportslink.data.model.Sport;
+import tqs.sportslink.dto.FacilitySuggestionDTO;
+import tqs.sportslink.service.FacilityCatalog;
+import tqs.sportslink.service.FacilityScorer;
+import tqs.sportslink.util.GeoUtils;
+
+/**
+ * Facility suggestion ranking: a DTO with a formatted reason for every facility followed by a
+ * full sort (previous IntelligentEngineService path) against FacilityScorer's chunked top-K over
+ * primitive arrays. No database: both read the same catalogue snapshot.
+ *
+ * Run with (-Pvector-api to score with the vector distance kernel):
+ * mvn test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main FacilityScoringBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class FacilityScoringBenchmark {
+
+    private static final int LIMIT = 5;
+    private static final double USER_LAT = 40.64;
+    private static final double USER_LON = -8.65;
+    private static final String CITY = "Aveiro";
+    private static final Set<Sport> SPORTS = Set.of(Sport.PADEL, Sport.TENNIS);
+
+    @Param({ "10000", "100000" })
+    public int facilities;
+
+    private FacilityCatalog.Snapshot snapshot;
+    private Set<Long> visited;
+    private FacilityScorer scorer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Sport[] sports = Sport.values();
+        String[] cities = { "Aveiro", "Porto", "Lisboa", "Coimbra", "Braga" };
+        List<Facility> seeded = new ArrayList<>(facilities);
+        for (long id = 1; id <= facilities; id++) {
+            Facility f = new Facility();
+            f.setId(id);
+            f.setName("Bench Facility " + id);
+            f.setCity(cities[random.nextInt(cities.length)]);
+            f.setAddress("Rua " + id);
+            f.setStatus("ACTIVE");
+            // Espalhadas por ~1 grau à volta do utilizador: só uma parte fica a menos de 20 km
+            f.setLatitude(USER_LAT - 0.5 + random.nextDouble());
+            f.setLongitude(USER_LON - 0.5 + random.nextDouble());
+            f.setRating(Math.round(random.nextDouble() * 50) / 10.0);
+            f.setPricePerHour(10.0 + random.nextInt(40));
+            f.setSports(List.of(sports[random.nextInt(sports.length)], sports[random.nextInt(sports.length)]));
+            seeded.add(f);
+        }
+        snapshot = FacilityCatalog.Snapshot.of(1, seeded);
+        visited = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            visited.add((long) random.nextInt(facilities) + 1);
+        }
+        scorer = new FacilityScorer();
+        // A conversão para arrays é feita uma vez por versão do catálogo, não por pedido
+        scorer.topK(snapshot, query(), LIMIT);
+    }
+
+    @Benchmark
+    public List<FacilitySuggestionDTO> dtoPerFacilityFullSort() {
+        return snapshot.facilities().stream()
+                .filter(f -> !visited.contains(f.id()))
+                .map(this::suggestion)
+                .sorted(Comparator.comparingDouble(FacilitySuggestionDTO::getScore).reversed())
+                .limit(LIMIT)
+                .toList();
+    }
+
+    @Benchmark
+    public List<FacilitySuggestionDTO> primitiveTopK() {
+        return scorer.topK(snapshot, query(), LIMIT).stream()
+                .map(this::suggestion)
+                .toList();
+    }
+
+    private FacilityScorer.Query query() {
+        return new FacilityScorer.Query(USER_LAT, USER_LON, CITY, SPORTS, visited);
+    }
+
+    // Cópia do createFacilitySuggestion de IntelligentEngineService
+    private FacilitySuggestionDTO suggestion(FacilityCatalog.Entry facility) {
+        double score = 0.0;
+        List<String> reasons = new ArrayList<>();
+        double distance = GeoUtils.haversineKm(USER_LAT, USER_LON, facility.latitude(), facility.longitude());
+        if (distance < FacilityScorer.NEARBY_KM) {
+            score += FacilityScorer.LOCATION_POINTS * (1 - (distance / FacilityScorer.NEARBY_KM));
+            reasons.add(String.format("%.1f km away", distance));
+        }
+        if (facility.sports().stream().anyMatch(SPORTS::contains)) {
+            score += FacilityScorer.SPORT_POINTS;
+            reasons.add("Matches your sports");
+        }
+        score += (facility.rating() / 5.0) * FacilityScorer.RATING_POINTS;
+        return new FacilitySuggestionDTO(facility.id(), facility.name(), facility.imageUrl(), facility.address(),
+                facility.city(), facility.pricePerHour(), facility.rating(), String.join(", ", reasons), score,
+                distance);
+    }
+}
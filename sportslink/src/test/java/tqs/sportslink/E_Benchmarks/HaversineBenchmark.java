@@ -0,0 +1,99 @@
+package tqs.sportslink.E_Benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import tqs.sportslink.util.GeoUtils;
+import tqs.sportslink.util.HaversineKernel;
+
+/**
+ * Distances from one user to every facility: GeoUtils.haversineKm per point on degrees
+ * (previous scoring and radius search path) against the batch kernels over precomputed
+ * radians and cos(lat), scalar and Vector API.
+ *
+ * vectorKernel is only the vector kernel when built with the vector-api profile, which
+ * compiles it; the fork adds jdk.incubator.vector. Run with:
+ * mvn -Pvector-api test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test
+ *     -Dexec.args="-cp %classpath org.openjdk.jmh.Main HaversineBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class HaversineBenchmark {
+
+    private static final double USER_LAT = 40.64;
+    private static final double USER_LON = -8.65;
+
+    @Param({ "10000", "100000" })
+    public int facilities;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] latRad;
+    private double[] lonRad;
+    private double[] cosLat;
+    private double[] out;
+    private HaversineKernel scalar;
+    private HaversineKernel vector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        latitudes = new double[facilities];
+        longitudes = new double[facilities];
+        latRad = new double[facilities];
+        lonRad = new double[facilities];
+        cosLat = new double[facilities];
+        out = new double[facilities];
+        for (int i = 0; i < facilities; i++) {
+            latitudes[i] = USER_LAT - 0.5 + random.nextDouble();
+            longitudes[i] = USER_LON - 0.5 + random.nextDouble();
+            latRad[i] = Math.toRadians(latitudes[i]);
+            lonRad[i] = Math.toRadians(longitudes[i]);
+            cosLat[i] = Math.cos(latRad[i]);
+        }
+        scalar = HaversineKernel.scalar();
+        vector = HaversineKernel.select();
+    }
+
+    @Benchmark
+    public double[] geoUtilsPerPoint() {
+        for (int i = 0; i < facilities; i++) {
+            out[i] = GeoUtils.haversineKm(USER_LAT, USER_LON, latitudes[i], longitudes[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] scalarKernel() {
+        return batch(scalar);
+    }
+
+    @Benchmark
+    public double[] vectorKernel() {
+        return batch(vector);
+    }
+
+    private double[] batch(HaversineKernel kernel) {
+        double originLat = Math.toRadians(USER_LAT);
+        kernel.distancesKm(originLat, Math.toRadians(USER_LON), Math.cos(originLat), latRad, lonRad, cosLat,
+                0, facilities, out);
+        return out;
+    }
+}
@@ -44,6 +44,9 @@ public class SearchAndRentalSteps {
     @org.springframework.beans.factory.annotation.Autowired
     private tqs.sportslink.data.EquipmentRepository equipmentRepository;
 
+    @org.springframework.beans.factory.annotation.Autowired
+    private org.springframework.context.ApplicationEventPublisher eventPublisher;
+
     private Long ensureFacilityWithEquipmentExists() {
         tqs.sportslink.data.model.Facility footballFacility;
         if (facilityRepository.findByName("Aveiro Football Center").isEmpty()) {
@@ -56,7 +59,9 @@ public class SearchAndRentalSteps {
             footballFacility.setLongitude(0.0);
             footballFacility.setStatus("ACTIVE");
             footballFacility.setSports(java.util.List.of(tqs.sportslink.data.model.Sport.FOOTBALL));
-            facilityRepository.save(footballFacility);
+            footballFacility = facilityRepository.save(footballFacility);
+            // Seeded directly in the repository: refresh the in-memory catalogue and indexes
+            eventPublisher.publishEvent(new tqs.sportslink.service.FacilityChangedEvent(footballFacility.getId()));
         } else {
             footballFacility = facilityRepository.findByName("Aveiro Football Center").get(0);
         }
@@ -72,7 +77,9 @@ public class SearchAndRentalSteps {
             padelFacility.setLongitude(0.0);
             padelFacility.setStatus("ACTIVE");
             padelFacility.setSports(java.util.List.of(tqs.sportslink.data.model.Sport.PADEL));
-            facilityRepository.save(padelFacility);
+            padelFacility = facilityRepository.save(padelFacility);
+            // Seeded directly in the repository: refresh the in-memory catalogue and indexes
+            eventPublisher.publishEvent(new tqs.sportslink.service.FacilityChangedEvent(padelFacility.getId()));
         }
 
         // Ensure equipment for Football (used in other tests)